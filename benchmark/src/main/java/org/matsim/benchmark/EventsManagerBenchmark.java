@@ -0,0 +1,264 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2026 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.events.Event;
+import org.matsim.api.core.v01.events.LinkEnterEvent;
+import org.matsim.api.core.v01.events.LinkLeaveEvent;
+import org.matsim.api.core.v01.events.PersonArrivalEvent;
+import org.matsim.api.core.v01.events.PersonDepartureEvent;
+import org.matsim.api.core.v01.events.handler.LinkEnterEventHandler;
+import org.matsim.api.core.v01.events.handler.LinkLeaveEventHandler;
+import org.matsim.api.core.v01.events.handler.PersonArrivalEventHandler;
+import org.matsim.api.core.v01.events.handler.PersonDepartureEventHandler;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.population.Person;
+import org.matsim.core.api.experimental.events.EventsManager;
+import org.matsim.core.events.EventsManagerImpl;
+import org.matsim.core.events.handler.BasicEventHandler;
+import org.matsim.core.events.handler.EventHandler;
+import org.matsim.vehicles.Vehicle;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Measures the dispatch cost of {@link EventsManagerImpl}, i.e. the time from {@code processEvent} until all interested handlers have been
+ * called, with a typical mix of network events, some events of a custom class and a number of analysis handlers.
+ * {@link #previousEventsManager()} is the baseline: the same events dispatched by {@link PreviousEventsManager}, the reflection-based
+ * dispatch EventsManagerImpl used before.  {@link #directCalls()} calls the same handlers without an events manager and is the lower bound.
+ * <p>
+ * Run with {@code java -cp matsim-benchmark.jar org.matsim.benchmark.EventsManagerBenchmark}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class EventsManagerBenchmark {
+
+	private static final int NUMBER_OF_EVENTS = 10_000;
+
+	@Param({"4", "20"})
+	public int numberOfHandlers;
+
+	private EventsManager eventsManager;
+	private PreviousEventsManager previousEventsManager;
+	private List<CountingHandler> handlers;
+	private Event[] events;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		this.events = new Event[NUMBER_OF_EVENTS];
+		for (int i = 0; i < NUMBER_OF_EVENTS; i++) {
+			Id<Vehicle> vehicleId = Id.createVehicleId(i % 100);
+			Id<Link> linkId = Id.createLinkId(i % 1000);
+			Id<Person> personId = Id.createPersonId(i % 100);
+			switch (i % 10) {
+				case 0 -> this.events[i] = new PersonDepartureEvent(i, personId, linkId, "car", "car");
+				case 5 -> this.events[i] = new CustomEvent(i);
+				case 9 -> this.events[i] = new PersonArrivalEvent(i, personId, linkId, "car");
+				default -> this.events[i] = (i % 2 == 0) ? new LinkEnterEvent(i, vehicleId, linkId) : new LinkLeaveEvent(i, vehicleId, linkId);
+			}
+		}
+
+		this.eventsManager = new EventsManagerImpl();
+		this.previousEventsManager = new PreviousEventsManager();
+		this.handlers = new ArrayList<>();
+		for (int i = 0; i < this.numberOfHandlers; i++) {
+			CountingHandler handler = switch (i % 4) {
+				case 0 -> new LinkHandler();
+				case 1 -> new TripHandler();
+				case 2 -> new AllEventsHandler();
+				default -> new LinkAndTripHandler();
+			};
+			this.handlers.add(handler);
+			this.eventsManager.addHandler(handler);
+			this.previousEventsManager.addHandler(handler);
+		}
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(NUMBER_OF_EVENTS)
+	public long eventsManagerImpl() {
+		for (Event event : this.events) {
+			this.eventsManager.processEvent(event);
+		}
+		return sumCounts();
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(NUMBER_OF_EVENTS)
+	public long previousEventsManager() {
+		for (Event event : this.events) {
+			this.previousEventsManager.processEvent(event);
+		}
+		return sumCounts();
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(NUMBER_OF_EVENTS)
+	public long directCalls() {
+		for (Event event : this.events) {
+			for (CountingHandler handler : this.handlers) {
+				handler.dispatch(event);
+			}
+		}
+		return sumCounts();
+	}
+
+	private long sumCounts() {
+		long sum = 0;
+		for (CountingHandler handler : this.handlers) {
+			sum += handler.count;
+		}
+		return sum;
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		new Runner(new OptionsBuilder().include(EventsManagerBenchmark.class.getSimpleName()).build()).run();
+	}
+
+	private static abstract class CountingHandler implements EventHandler {
+		long count = 0;
+
+		/** what the events manager is supposed to do for this handler */
+		abstract void dispatch(Event event);
+	}
+
+	private static class LinkHandler extends CountingHandler implements LinkEnterEventHandler, LinkLeaveEventHandler {
+		@Override
+		public void handleEvent(LinkEnterEvent event) {
+			this.count++;
+		}
+
+		@Override
+		public void handleEvent(LinkLeaveEvent event) {
+			this.count += 2;
+		}
+
+		@Override
+		void dispatch(Event event) {
+			if (event instanceof LinkEnterEvent e) {
+				handleEvent(e);
+			} else if (event instanceof LinkLeaveEvent e) {
+				handleEvent(e);
+			}
+		}
+	}
+
+	private static class TripHandler extends CountingHandler implements PersonDepartureEventHandler, PersonArrivalEventHandler, CustomEventHandler {
+		@Override
+		public void handleEvent(PersonDepartureEvent event) {
+			this.count++;
+		}
+
+		@Override
+		public void handleEvent(PersonArrivalEvent event) {
+			this.count += 2;
+		}
+
+		@Override
+		public void handleEvent(CustomEvent event) {
+			this.count += 4;
+		}
+
+		@Override
+		void dispatch(Event event) {
+			if (event instanceof PersonDepartureEvent e) {
+				handleEvent(e);
+			} else if (event instanceof PersonArrivalEvent e) {
+				handleEvent(e);
+			} else if (event instanceof CustomEvent e) {
+				handleEvent(e);
+			}
+		}
+	}
+
+	private static class AllEventsHandler extends CountingHandler implements BasicEventHandler {
+		@Override
+		public void handleEvent(Event event) {
+			this.count++;
+		}
+
+		@Override
+		void dispatch(Event event) {
+			handleEvent(event);
+		}
+	}
+
+	private static class LinkAndTripHandler extends CountingHandler implements LinkEnterEventHandler, PersonDepartureEventHandler {
+		@Override
+		public void handleEvent(LinkEnterEvent event) {
+			this.count++;
+		}
+
+		@Override
+		public void handleEvent(PersonDepartureEvent event) {
+			this.count += 3;
+		}
+
+		@Override
+		void dispatch(Event event) {
+			if (event instanceof LinkEnterEvent e) {
+				handleEvent(e);
+			} else if (event instanceof PersonDepartureEvent e) {
+				handleEvent(e);
+			}
+		}
+	}
+
+	/**
+	 * An event class from outside the core, like the ones of the contribs.
+	 */
+	public static class CustomEvent extends Event {
+		public CustomEvent(double time) {
+			super(time);
+		}
+
+		@Override
+		public String getEventType() {
+			return "custom";
+		}
+	}
+
+	public interface CustomEventHandler extends EventHandler {
+		void handleEvent(CustomEvent event);
+	}
+}
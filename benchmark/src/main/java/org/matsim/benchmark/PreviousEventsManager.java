@@ -0,0 +1,201 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2026 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.benchmark;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.matsim.api.core.v01.events.*;
+import org.matsim.api.core.v01.events.handler.*;
+import org.matsim.core.api.experimental.events.AgentWaitingForPtEvent;
+import org.matsim.core.api.experimental.events.VehicleArrivesAtFacilityEvent;
+import org.matsim.core.api.experimental.events.VehicleDepartsAtFacilityEvent;
+import org.matsim.core.api.experimental.events.handler.AgentWaitingForPtEventHandler;
+import org.matsim.core.api.experimental.events.handler.VehicleArrivesAtFacilityEventHandler;
+import org.matsim.core.api.experimental.events.handler.VehicleDepartsAtFacilityEventHandler;
+import org.matsim.core.events.EventsManagerImpl;
+import org.matsim.core.events.handler.BasicEventHandler;
+import org.matsim.core.events.handler.EventHandler;
+
+/**
+ * The dispatch of {@link EventsManagerImpl} before the handler invokers were generated: a hand-written call for some core event classes,
+ * reflection for all others.  Only used as the baseline in {@link EventsManagerBenchmark}, so the handler lookup and the calls are kept
+ * exactly as they were, while logging, resetting and removing handlers are left out.
+ */
+final class PreviousEventsManager {
+
+	private static class HandlerData {
+		private final Class<? extends Event> eventClass;
+		private final List<EventHandler> handlerList = new ArrayList<>(5);
+		private final Method method;
+
+		private HandlerData(final Class<? extends Event> eventClass, final Method method) {
+			this.eventClass = eventClass;
+			this.method = method;
+		}
+	}
+
+	private record HandlerInfo(Class<? extends Event> eventClass, EventHandler eventHandler, Method method) {
+	}
+
+	private final List<HandlerData> handlerData = new ArrayList<>();
+	private final Map<Class<? extends Event>, HandlerInfo[]> cacheHandlers = new ConcurrentHashMap<>(15);
+	private long counter = 0;
+
+	private HandlerData findHandler(final Class<? extends Event> evklass) {
+		for (HandlerData handler : this.handlerData) {
+			if (handler.eventClass == evklass) {
+				return handler;
+			}
+		}
+		return null;
+	}
+
+	void processEvent(final Event event) {
+		this.counter++;
+		for (HandlerInfo info : getHandlersForClass(event.getClass())) {
+			synchronized (info.eventHandler) {
+				if (callHandlerFast(info.eventClass, event, info.eventHandler)) {
+					continue;
+				}
+				try {
+					info.method.invoke(info.eventHandler, event);
+				} catch (IllegalArgumentException | IllegalAccessException e) {
+					throw new RuntimeException("problem invoking EventHandler " + info.eventHandler.getClass().getCanonicalName() + " for event-class " + info.eventClass.getCanonicalName(), e);
+				} catch (InvocationTargetException e) {
+					throw new RuntimeException("problem invoking EventHandler " + info.eventHandler.getClass().getCanonicalName() + " for event-class " + info.eventClass.getCanonicalName(), e.getCause());
+				}
+			}
+		}
+	}
+
+	void addHandler(final EventHandler handler) {
+		Set<Class<?>> addedHandlers = new HashSet<>();
+		Class<?> test = handler.getClass();
+		do {
+			for (Class<?> theInterface : test.getInterfaces()) {
+				if (EventHandler.class.isAssignableFrom(theInterface) && addedHandlers.add(theInterface)) {
+					addHandlerInterfaces(handler, theInterface);
+				}
+			}
+			test = test.getSuperclass();
+		} while (EventHandler.class.isAssignableFrom(test));
+		this.cacheHandlers.clear();
+	}
+
+	private void addHandlerInterfaces(final EventHandler handler, final Class<?> handlerClass) {
+		for (Method method : handlerClass.getMethods()) {
+			if (method.getName().equals("handleEvent") && method.getParameterTypes().length == 1) {
+				Class<? extends Event> eventClass = method.getParameterTypes()[0].asSubclass(Event.class);
+				HandlerData dat = findHandler(eventClass);
+				if (dat == null) {
+					dat = new HandlerData(eventClass, method);
+					this.handlerData.add(dat);
+				}
+				dat.handlerList.add(handler);
+			}
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private HandlerInfo[] getHandlersForClass(final Class<? extends Event> eventClass) {
+		HandlerInfo[] cache = this.cacheHandlers.get(eventClass);
+		if (cache != null) {
+			return cache;
+		}
+		List<HandlerInfo> info = new ArrayList<>();
+		Class<?> klass = eventClass;
+		do {
+			Class<? extends Event> eventKlass = (Class<? extends Event>) klass;
+			HandlerData dat = findHandler(eventKlass);
+			if (dat != null) {
+				for (EventHandler handler : dat.handlerList) {
+					info.add(new HandlerInfo(eventKlass, handler, dat.method));
+				}
+			}
+			klass = klass.getSuperclass();
+		} while (Event.class.isAssignableFrom(klass));
+		cache = info.toArray(new HandlerInfo[0]);
+		this.cacheHandlers.put(eventClass, cache);
+		return cache;
+	}
+
+	private static boolean callHandlerFast(final Class<? extends Event> klass, final Event ev, final EventHandler handler) {
+		if (klass == LinkLeaveEvent.class) {
+			((LinkLeaveEventHandler) handler).handleEvent((LinkLeaveEvent) ev);
+			return true;
+		} else if (klass == LinkEnterEvent.class) {
+			((LinkEnterEventHandler) handler).handleEvent((LinkEnterEvent) ev);
+			return true;
+		} else if (klass == VehicleEntersTrafficEvent.class) {
+			((VehicleEntersTrafficEventHandler) handler).handleEvent((VehicleEntersTrafficEvent) ev);
+			return true;
+		} else if (klass == VehicleLeavesTrafficEvent.class) {
+			((VehicleLeavesTrafficEventHandler) handler).handleEvent((VehicleLeavesTrafficEvent) ev);
+			return true;
+		} else if (klass == PersonArrivalEvent.class) {
+			((PersonArrivalEventHandler) handler).handleEvent((PersonArrivalEvent) ev);
+			return true;
+		} else if (klass == PersonDepartureEvent.class) {
+			((PersonDepartureEventHandler) handler).handleEvent((PersonDepartureEvent) ev);
+			return true;
+		} else if (klass == ActivityEndEvent.class) {
+			((ActivityEndEventHandler) handler).handleEvent((ActivityEndEvent) ev);
+			return true;
+		} else if (klass == ActivityStartEvent.class) {
+			((ActivityStartEventHandler) handler).handleEvent((ActivityStartEvent) ev);
+			return true;
+		} else if (klass == TransitDriverStartsEvent.class) {
+			((TransitDriverStartsEventHandler) handler).handleEvent((TransitDriverStartsEvent) ev);
+			return true;
+		} else if (klass == PersonStuckEvent.class) {
+			((PersonStuckEventHandler) handler).handleEvent((PersonStuckEvent) ev);
+			return true;
+		} else if (klass == PersonMoneyEvent.class) {
+			((PersonMoneyEventHandler) handler).handleEvent((PersonMoneyEvent) ev);
+			return true;
+		} else if (klass == AgentWaitingForPtEvent.class) {
+			((AgentWaitingForPtEventHandler) handler).handleEvent((AgentWaitingForPtEvent) ev);
+			return true;
+		} else if (klass == PersonEntersVehicleEvent.class) {
+			((PersonEntersVehicleEventHandler) handler).handleEvent((PersonEntersVehicleEvent) ev);
+			return true;
+		} else if (klass == PersonLeavesVehicleEvent.class) {
+			((PersonLeavesVehicleEventHandler) handler).handleEvent((PersonLeavesVehicleEvent) ev);
+			return true;
+		} else if (klass == VehicleDepartsAtFacilityEvent.class) {
+			((VehicleDepartsAtFacilityEventHandler) handler).handleEvent((VehicleDepartsAtFacilityEvent) ev);
+			return true;
+		} else if (klass == VehicleArrivesAtFacilityEvent.class) {
+			((VehicleArrivesAtFacilityEventHandler) handler).handleEvent((VehicleArrivesAtFacilityEvent) ev);
+			return true;
+		} else if (klass == Event.class) {
+			((BasicEventHandler) handler).handleEvent(ev);
+			return true;
+		}
+		return false;
+	}
+}
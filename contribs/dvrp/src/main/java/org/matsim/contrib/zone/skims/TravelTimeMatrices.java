@@ -34,6 +34,7 @@ import org.matsim.contrib.zone.skims.SparseMatrix.NodeAndTime;
 import org.matsim.contrib.zone.skims.SparseMatrix.SparseRow;
 import org.matsim.core.router.speedy.LeastCostPathTree;
 import org.matsim.core.router.speedy.SpeedyGraph;
+import org.matsim.core.router.speedy.SpeedyManyToManyCalculator;
 import org.matsim.core.router.util.TravelDisutility;
 import org.matsim.core.router.util.TravelTime;
 import org.matsim.core.utils.misc.Counter;
@@ -50,28 +51,28 @@ public final class TravelTimeMatrices {
 	}
 
 	public static Matrix calculateTravelTimeMatrix(RoutingParams params, Map<Zone, Node> centralNodes, double departureTime) {
+		List<Zone> zones = new ArrayList<>(centralNodes.keySet());
+		List<Node> nodes = zones.stream().map(centralNodes::get).toList();
+		var calculator = new SpeedyManyToManyCalculator(new SpeedyGraph(params.routingNetwork), params.travelTime, params.travelDisutility,
+			params.numberOfThreads);
+		var counter = new Counter("DVRP free-speed TT matrix: zone ", " / " + zones.size());
+
 		Matrix travelTimeMatrix = new Matrix(centralNodes.keySet());
-		Calculation<Zone> calculation = (lcpTree, z) -> computeForDepartureZone(z, centralNodes, departureTime, travelTimeMatrix, lcpTree);
-		calculate(params, centralNodes.keySet(), calculation, "DVRP free-speed TT matrix: zone ");
+		calculator.calculateTravelTimes(nodes, nodes, departureTime, null, null, (row, travelTimes) -> {
+			counter.incCounter();
+			Zone fromZone = zones.get(row);
+			for (int col = 0; col < travelTimes.length; col++) {
+				if (Float.isInfinite(travelTimes[col])) {
+					throw new RuntimeException(
+						"Undefined Time. Reason could be that the dvrp network is not fully connected. Please check and/or clean.");
+				}
+				travelTimeMatrix.set(fromZone, zones.get(col), travelTimes[col]);
+			}
+		});
+		counter.printCounter();
 		return travelTimeMatrix;
 	}
 
-	private static void computeForDepartureZone(Zone fromZone, Map<Zone, Node> centralNodes, double departureTime, Matrix travelTimeMatrix,
-		LeastCostPathTree lcpTree) {
-		Node fromNode = centralNodes.get(fromZone);
-		lcpTree.calculate(fromNode.getId().index(), departureTime, null, null);
-
-		for (Zone toZone : centralNodes.keySet()) {
-			Node toNode = centralNodes.get(toZone);
-			int nodeIndex = toNode.getId().index();
-			OptionalTime currOptionalTime = lcpTree.getTime(nodeIndex);
-			double currTime = currOptionalTime.orElseThrow(() -> new RuntimeException(
-				"Undefined Time. Reason could be that the dvrp network is not fully connected. Please check and/or clean."));
-			double tt = currTime - departureTime;
-			travelTimeMatrix.set(fromZone, toZone, tt);
-		}
-	}
-
 	public static Optional<SparseMatrix> calculateTravelTimeSparseMatrix(RoutingParams params, double maxDistance, double maxTravelTime,
 		double departureTime) {
 		SparseMatrix travelTimeMatrix = new SparseMatrix();
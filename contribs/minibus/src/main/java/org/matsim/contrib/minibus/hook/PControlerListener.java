@@ -96,11 +96,14 @@ final class PControlerListener implements IterationStartsListener, StartupListen
 			log.info("This is the first iteration. All lines were added by notifyStartup event.");
 		} else {
 			pBox.notifyIterationStarts(event);
+			// only the paratransit lines change, so routers can keep the data of all other lines
+			Set<Id<TransitLine>> changedTransitLineIds = new HashSet<>(currentExclusivePTransitLineIDs);
 			removePreviousPTransitScheduleFromOriginalOne(event.getServices().getScenario().getTransitSchedule());
 			addPTransitScheduleToOriginalOne(event.getServices().getScenario().getTransitSchedule(), pBox.getpTransitSchedule());
+			changedTransitLineIds.addAll(currentExclusivePTransitLineIDs);
 			removePreviousPVehiclesFromScenario(event.getServices().getScenario().getTransitVehicles());
 			addPVehiclesToOriginalOnes(event.getServices().getScenario().getTransitVehicles(), this.pVehiclesFactory.createVehicles(pBox.getpTransitSchedule()));
-			event.getServices().getEvents().processEvent(new TransitScheduleChangedEvent(0.0));
+			event.getServices().getEvents().processEvent(new TransitScheduleChangedEvent(0.0, changedTransitLineIds));
 			if(this.agentsStuckHandler != null){
 				ParallelPersonAlgorithmUtils.run(controler.getScenario().getPopulation(), controler.getConfig().global().getNumberOfThreads(), new ParallelPersonAlgorithmUtils.PersonAlgorithmProvider() {
 					@Override
@@ -28,6 +28,7 @@ import java.io.BufferedReader;
 import java.io.BufferedWriter;
 import java.io.File;
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
@@ -110,6 +111,7 @@ public class CalculateSkimMatrices {
     private final String outputDirectory;
     private final int numberOfThreads;
     private Map<String, Coord[]> coordsPerZone = null;
+    private double ptStepSize_seconds = 120;
 
     public CalculateSkimMatrices(String outputDirectory, int numberOfThreads) {
         this.outputDirectory = outputDirectory;
@@ -194,6 +196,14 @@ public class CalculateSkimMatrices {
         skims.calculateAndWriteBeelineMatrix();
     }
 
+    /**
+     * Sets the interval in which the PT trees are sampled around the time window, 120 seconds by default. If it is not positive,
+     * all departures around the time window are taken into account by calculating tree profiles instead of sampled trees.
+     */
+    public void setPTStepSize(double stepSize_seconds) {
+        this.ptStepSize_seconds = stepSize_seconds;
+    }
+
     public Map<String, Coord[]> getCoordsPerZone() {
         return coordsPerZone;
     }
@@ -497,6 +507,88 @@ public class CalculateSkimMatrices {
 																		 Config config,
 																		 BiPredicate<TransitLine, TransitRoute> trainDetector,
 																		 PTSkimMatrices.CoordAggregator coordAggregator) {
+        SwissRailRaptorData raptorData = preparePTMatrices(networkFilename, transitScheduleFilename, config);
+        RaptorParameters raptorParameters = RaptorUtils.createParameters(config);
+
+        log.info("calc PT matrices for " + Time.writeTime(startTime) + " - " + Time.writeTime(endTime));
+        PTSkimMatrices.PtIndicators<String> matrices = PTSkimMatrices.calculateSkimMatrices(
+			raptorData, this.coordsPerZone, startTime, endTime, this.ptStepSize_seconds, raptorParameters, this.numberOfThreads, trainDetector, coordAggregator);
+        return matrices;
+
+    }
+
+    /**
+     * Calculates the PT matrices and writes each row to the files as soon as it is calculated, so the matrices are never kept in memory
+     * completely. This allows to calculate matrices for large numbers of zones.
+     *
+     * @param binaryFormat whether the matrices are written in the binary format of {@link FloatMatrixIO} instead of as CSV files.
+     * The binary files use the same names as the CSV files, but with the extension <code>.bin</code>.
+     */
+    public final void calculateAndStreamPTMatrices(String networkFilename,
+                                                   String transitScheduleFilename,
+                                                   double startTime,
+                                                   double endTime,
+                                                   Config config,
+                                                   String outputPrefix,
+                                                   BiPredicate<TransitLine, TransitRoute> trainDetector,
+                                                   PTSkimMatrices.CoordAggregator coordAggregator,
+                                                   boolean binaryFormat) throws IOException {
+        String prefix = outputPrefix == null ? "" : outputPrefix;
+        SwissRailRaptorData raptorData = preparePTMatrices(networkFilename, transitScheduleFilename, config);
+        RaptorParameters raptorParameters = RaptorUtils.createParameters(config);
+        List<String> zoneIds = new ArrayList<>(this.coordsPerZone.keySet());
+
+        log.info("calc PT matrices for " + Time.writeTime(startTime) + " - " + Time.writeTime(endTime) + " and write them to " + outputDirectory
+                + (prefix.isEmpty() ? "" : (" with prefix " + prefix)));
+        List<FloatMatrixIO.RowWriter> writers = new ArrayList<>();
+        try {
+            FloatMatrixIO.RowWriter adaptionTimes = createRowWriter(prefix + PT_ADAPTIONTIMES_FILENAME, zoneIds, binaryFormat, writers);
+            FloatMatrixIO.RowWriter frequencies = createRowWriter(prefix + PT_FREQUENCIES_FILENAME, zoneIds, binaryFormat, writers);
+            FloatMatrixIO.RowWriter distances = createRowWriter(prefix + PT_DISTANCES_FILENAME, zoneIds, binaryFormat, writers);
+            FloatMatrixIO.RowWriter travelTimes = createRowWriter(prefix + PT_TRAVELTIMES_FILENAME, zoneIds, binaryFormat, writers);
+            FloatMatrixIO.RowWriter accessTimes = createRowWriter(prefix + PT_ACCESSTIMES_FILENAME, zoneIds, binaryFormat, writers);
+            FloatMatrixIO.RowWriter egressTimes = createRowWriter(prefix + PT_EGRESSTIMES_FILENAME, zoneIds, binaryFormat, writers);
+            FloatMatrixIO.RowWriter transferCounts = createRowWriter(prefix + PT_TRANSFERCOUNTS_FILENAME, zoneIds, binaryFormat, writers);
+            FloatMatrixIO.RowWriter trainSharesByTime = createRowWriter(prefix + PT_TRAINSHARE_BYTIME_FILENAME, zoneIds, binaryFormat, writers);
+            FloatMatrixIO.RowWriter trainSharesByDistance = createRowWriter(prefix + PT_TRAINSHARE_BYDISTANCE_FILENAME, zoneIds, binaryFormat, writers);
+
+            PTSkimMatrices.calculateSkimMatrices(raptorData, this.coordsPerZone, zoneIds, startTime, endTime, this.ptStepSize_seconds, raptorParameters, this.numberOfThreads, trainDetector, coordAggregator,
+                    (fromIndex, row) -> {
+                        try {
+                            adaptionTimes.writeRow(fromIndex, row.adaptionTime);
+                            frequencies.writeRow(fromIndex, row.frequency);
+                            distances.writeRow(fromIndex, row.distance);
+                            travelTimes.writeRow(fromIndex, row.travelTime);
+                            accessTimes.writeRow(fromIndex, row.accessTime);
+                            egressTimes.writeRow(fromIndex, row.egressTime);
+                            transferCounts.writeRow(fromIndex, row.transferCount);
+                            trainSharesByTime.writeRow(fromIndex, row.trainTravelTimeShare);
+                            trainSharesByDistance.writeRow(fromIndex, row.trainDistanceShare);
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } finally {
+            for (FloatMatrixIO.RowWriter writer : writers) {
+                writer.close();
+            }
+        }
+    }
+
+    private FloatMatrixIO.RowWriter createRowWriter(String filename, List<String> zoneIds, boolean binaryFormat, List<FloatMatrixIO.RowWriter> writers) throws IOException {
+        FloatMatrixIO.RowWriter writer;
+        if (binaryFormat) {
+            writer = FloatMatrixIO.createBinaryRowWriter(outputDirectory + "/" + filename.replace(".csv.gz", ".bin"), zoneIds);
+        } else {
+            writer = FloatMatrixIO.createCSVRowWriter(outputDirectory + "/" + filename, zoneIds);
+        }
+        writers.add(writer);
+        return writer;
+    }
+
+    private SwissRailRaptorData preparePTMatrices(String networkFilename, String transitScheduleFilename, Config config) {
         Scenario scenario = ScenarioUtils.createScenario(config);
         log.info("loading schedule from " + transitScheduleFilename);
         new TransitScheduleReader(scenario).readFile(transitScheduleFilename);
@@ -505,14 +597,7 @@ public class CalculateSkimMatrices {
         log.info("prepare PT Matrix calculation");
         RaptorStaticConfig raptorConfig = RaptorUtils.createStaticConfig(config);
         raptorConfig.setOptimization(RaptorStaticConfig.RaptorOptimization.OneToAllRouting);
-        SwissRailRaptorData raptorData = SwissRailRaptorData.create(scenario.getTransitSchedule(), scenario.getTransitVehicles(), raptorConfig, scenario.getNetwork(), null);
-        RaptorParameters raptorParameters = RaptorUtils.createParameters(config);
-
-        log.info("calc PT matrices for " + Time.writeTime(startTime) + " - " + Time.writeTime(endTime));
-        PTSkimMatrices.PtIndicators<String> matrices = PTSkimMatrices.calculateSkimMatrices(
-			raptorData, this.coordsPerZone, startTime, endTime, 120, raptorParameters, this.numberOfThreads, trainDetector, coordAggregator);
-        return matrices;
-
+        return SwissRailRaptorData.create(scenario.getTransitSchedule(), scenario.getTransitVehicles(), raptorConfig, scenario.getNetwork(), null);
     }
 
     private String findZone(Coord coord, SpatialIndex zonesQt, String zonesIdAttributeName) {
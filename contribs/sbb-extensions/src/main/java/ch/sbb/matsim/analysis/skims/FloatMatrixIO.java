@@ -19,18 +19,33 @@
  * *********************************************************************** */
 package ch.sbb.matsim.analysis.skims;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
 import java.io.BufferedReader;
 import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.OutputStream;
 import java.io.OutputStreamWriter;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
 import org.matsim.core.utils.io.IOUtils;
 
 /**
- * Helper methods to write and read matrices as CSV files (well, actually semi-colon separated files).
+ * Helper methods to write and read matrices as CSV files (well, actually semi-colon separated files) or as binary files.
+ * <p>
+ * The binary format starts with a header containing the zone ids, followed by the rows of the matrix, each preceded by its index.
+ * The rows can be in any order, which allows to write each row as soon as it is calculated. Rows not contained in a file keep their
+ * default value when the file is read. Reading a binary file is much faster than parsing a CSV file, as no numbers need to be parsed.
+ * <p>
+ * Both formats can be written row by row using a {@link RowWriter}, so a matrix does not need to be kept in memory completely.
  *
  * @author mrieser / SBB
  */
@@ -39,6 +54,8 @@ public final class FloatMatrixIO {
     private final static String SEP = ";";
     private final static String HEADER = "FROM" + SEP + "TO" + SEP + "VALUE";
     private final static String NL = "\n";
+    private final static int BINARY_MAGIC = 0x464D5458; // "FMTX"
+    private final static int BINARY_VERSION = 1;
 
     public static <T> void writeAsCSV(FloatMatrix<T> matrix, String filename) throws IOException {
         try (BufferedWriter writer = IOUtils.getBufferedWriter(filename)) {
@@ -52,20 +69,55 @@ public final class FloatMatrixIO {
     }
 
     private static <T> void writeCSV(FloatMatrix<T> matrix, BufferedWriter writer) throws IOException {
-        writer.write(HEADER);
-        writer.write(NL);
-        T[] zoneIds = getSortedIds(matrix);
-        for (T fromZoneId : zoneIds) {
-            for (T toZoneId : zoneIds) {
-                writer.write(fromZoneId.toString());
-                writer.append(SEP);
-                writer.write(toZoneId.toString());
-                writer.append(SEP);
-                writer.write(Float.toString(matrix.get(fromZoneId, toZoneId)));
-                writer.append(NL);
+        List<T> zoneIds = Arrays.asList(getSortedIds(matrix));
+        RowWriter rowWriter = new CSVRowWriter<>(writer, zoneIds);
+        writeRows(matrix, zoneIds, rowWriter);
+        writer.flush();
+    }
+
+    public static <T> void writeAsBinary(FloatMatrix<T> matrix, String filename) throws IOException {
+        List<T> zoneIds = Arrays.asList(getSortedIds(matrix));
+        try (RowWriter rowWriter = createBinaryRowWriter(filename, zoneIds)) {
+            writeRows(matrix, zoneIds, rowWriter);
+        }
+    }
+
+    public static <T> void writeAsBinary(FloatMatrix<T> matrix, OutputStream stream) throws IOException {
+        List<T> zoneIds = Arrays.asList(getSortedIds(matrix));
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(stream));
+        BinaryRowWriter rowWriter = new BinaryRowWriter(out, zoneIds);
+        writeRows(matrix, zoneIds, rowWriter);
+        rowWriter.finish();
+    }
+
+    private static <T> void writeRows(FloatMatrix<T> matrix, List<T> zoneIds, RowWriter rowWriter) throws IOException {
+        float[] values = new float[zoneIds.size()];
+        for (int fromIndex = 0; fromIndex < zoneIds.size(); fromIndex++) {
+            T fromZoneId = zoneIds.get(fromIndex);
+            for (int toIndex = 0; toIndex < zoneIds.size(); toIndex++) {
+                values[toIndex] = matrix.get(fromZoneId, zoneIds.get(toIndex));
             }
+            rowWriter.writeRow(fromIndex, values);
         }
-        writer.flush();
+    }
+
+    /**
+     * Creates a writer to write a matrix row by row as CSV file.
+     *
+     * @param zoneIds the ids of the zones, the row and column indices refer to this list.
+     */
+    public static <T> RowWriter createCSVRowWriter(String filename, List<T> zoneIds) throws IOException {
+        return new CSVRowWriter<>(IOUtils.getBufferedWriter(filename), zoneIds);
+    }
+
+    /**
+     * Creates a writer to write a matrix row by row as binary file.
+     *
+     * @param zoneIds the ids of the zones, the row and column indices refer to this list.
+     */
+    public static <T> RowWriter createBinaryRowWriter(String filename, List<T> zoneIds) throws IOException {
+        DataOutputStream out = new DataOutputStream(IOUtils.getOutputStream(IOUtils.getFileUrl(filename), false));
+        return new BinaryRowWriter(out, zoneIds);
     }
 
     public static <T> void readAsCSV(FloatMatrix<T> matrix, String filename, IdConverter<T> idConverter) throws IOException {
@@ -94,6 +146,79 @@ public final class FloatMatrixIO {
         }
     }
 
+    public static <T> void readAsBinary(FloatMatrix<T> matrix, String filename, IdConverter<T> idConverter) throws IOException {
+        try (InputStream stream = IOUtils.getInputStream(IOUtils.getFileUrl(filename))) {
+            readAsBinary(matrix, stream, idConverter);
+        }
+    }
+
+    public static <T> void readAsBinary(FloatMatrix<T> matrix, InputStream stream, IdConverter<T> idConverter) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(stream));
+        List<T> zoneIds = new ArrayList<>();
+        for (String zoneId : readBinaryHeader(in)) {
+            zoneIds.add(idConverter.parse(zoneId));
+        }
+        float[] values = new float[zoneIds.size()];
+        byte[] bytes = new byte[values.length * Float.BYTES];
+        int fromIndex;
+        while ((fromIndex = readBinaryRow(in, bytes, values)) >= 0) {
+            T fromZoneId = zoneIds.get(fromIndex);
+            for (int toIndex = 0; toIndex < values.length; toIndex++) {
+                matrix.set(fromZoneId, zoneIds.get(toIndex), values[toIndex]);
+            }
+        }
+    }
+
+    /**
+     * Reads a binary matrix file into an {@link IndexedFloatMatrix}.
+     *
+     * @param zoneIds the ids of the zones in the file are added to this list, the row and column indices of the matrix refer to it.
+     * @param defaultValue the value of the rows not contained in the file
+     */
+    public static IndexedFloatMatrix readAsBinary(String filename, List<String> zoneIds, float defaultValue) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(IOUtils.getInputStream(IOUtils.getFileUrl(filename))))) {
+            zoneIds.addAll(readBinaryHeader(in));
+            IndexedFloatMatrix matrix = new IndexedFloatMatrix(zoneIds.size(), defaultValue);
+            float[] values = new float[zoneIds.size()];
+            byte[] bytes = new byte[values.length * Float.BYTES];
+            int fromIndex;
+            while ((fromIndex = readBinaryRow(in, bytes, values)) >= 0) {
+                matrix.setRow(fromIndex, values);
+            }
+            return matrix;
+        }
+    }
+
+    private static List<String> readBinaryHeader(DataInputStream in) throws IOException {
+        int magic = in.readInt();
+        if (magic != BINARY_MAGIC) {
+            throw new IOException("Not a binary matrix file.");
+        }
+        int version = in.readInt();
+        if (version != BINARY_VERSION) {
+            throw new IOException("Unsupported version " + version + " of binary matrix file, expected " + BINARY_VERSION + ".");
+        }
+        int size = in.readInt();
+        List<String> zoneIds = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            zoneIds.add(in.readUTF());
+        }
+        return zoneIds;
+    }
+
+    /**
+     * @return the index of the row read, or -1 if all rows have been read.
+     */
+    private static int readBinaryRow(DataInputStream in, byte[] bytes, float[] values) throws IOException {
+        int fromIndex = in.readInt();
+        if (fromIndex < 0) {
+            return -1;
+        }
+        in.readFully(bytes);
+        ByteBuffer.wrap(bytes).asFloatBuffer().get(values);
+        return fromIndex;
+    }
+
     private static <T> T[] getSortedIds(FloatMatrix<T> matrix) {
         // the array-creation is only safe as long as the generated array is only within this class!
         @SuppressWarnings("unchecked")
@@ -109,4 +234,83 @@ public final class FloatMatrixIO {
 
         T parse(String id);
     }
+
+    /**
+     * Writes a matrix row by row. Rows can be written in any order, but every row at most once.
+     * Implementations are not thread-safe.
+     */
+    public interface RowWriter extends Closeable {
+
+        /**
+         * @param values the values of the row, indexed by the index of the destination zone.
+         */
+        void writeRow(int fromIndex, float[] values) throws IOException;
+    }
+
+    private static class CSVRowWriter<T> implements RowWriter {
+
+        private final BufferedWriter writer;
+        private final List<T> zoneIds;
+
+        CSVRowWriter(BufferedWriter writer, List<T> zoneIds) throws IOException {
+            this.writer = writer;
+            this.zoneIds = zoneIds;
+            this.writer.write(HEADER);
+            this.writer.write(NL);
+        }
+
+        @Override
+        public void writeRow(int fromIndex, float[] values) throws IOException {
+            String fromZoneId = this.zoneIds.get(fromIndex).toString();
+            for (int toIndex = 0; toIndex < this.zoneIds.size(); toIndex++) {
+                this.writer.write(fromZoneId);
+                this.writer.append(SEP);
+                this.writer.write(this.zoneIds.get(toIndex).toString());
+                this.writer.append(SEP);
+                this.writer.write(Float.toString(values[toIndex]));
+                this.writer.append(NL);
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            this.writer.close();
+        }
+    }
+
+    private static class BinaryRowWriter implements RowWriter {
+
+        private final DataOutputStream out;
+        private final ByteBuffer buffer;
+
+        BinaryRowWriter(DataOutputStream out, List<?> zoneIds) throws IOException {
+            this.out = out;
+            this.buffer = ByteBuffer.allocate(zoneIds.size() * Float.BYTES);
+            this.out.writeInt(BINARY_MAGIC);
+            this.out.writeInt(BINARY_VERSION);
+            this.out.writeInt(zoneIds.size());
+            for (Object zoneId : zoneIds) {
+                this.out.writeUTF(zoneId.toString());
+            }
+        }
+
+        @Override
+        public void writeRow(int fromIndex, float[] values) throws IOException {
+            this.buffer.clear();
+            this.buffer.asFloatBuffer().put(values, 0, this.buffer.capacity() / Float.BYTES);
+            this.out.writeInt(fromIndex);
+            this.out.write(this.buffer.array());
+        }
+
+        void finish() throws IOException {
+            this.out.writeInt(-1);
+            this.out.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            finish();
+            this.out.close();
+        }
+    }
 }
@@ -0,0 +1,115 @@
+/* *********************************************************************** *
+ * project: org.matsim.* 												   *
+ *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2023 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+package ch.sbb.matsim.analysis.skims;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+
+/**
+ * A m x m matrix storing float values, identifying rows and columns by their index 0..m-1.
+ * <p>
+ * In contrast to {@link FloatMatrix}, the values are stored off-heap in direct buffers, so large matrices do not need to fit
+ * into the Java heap, and no map lookup is required to access a cell. As a single buffer cannot hold more than 2 GB,
+ * the rows are split into several blocks, each stored in its own buffer.
+ * <p>
+ * Rows can be read and written concurrently by different threads as long as each row is only accessed by one thread at a time.
+ */
+public class IndexedFloatMatrix {
+
+    private final int size;
+    private final int rowsPerBlock;
+    private final FloatBuffer[] blocks;
+
+    public IndexedFloatMatrix(int size, float defaultValue) {
+        this.size = size;
+        this.rowsPerBlock = Math.max(1, Integer.MAX_VALUE / Float.BYTES / Math.max(1, size));
+        int blockCount = (size + this.rowsPerBlock - 1) / this.rowsPerBlock;
+        this.blocks = new FloatBuffer[blockCount];
+        for (int b = 0; b < blockCount; b++) {
+            int rows = Math.min(this.rowsPerBlock, size - b * this.rowsPerBlock);
+            FloatBuffer block = ByteBuffer.allocateDirect(rows * size * Float.BYTES).order(ByteOrder.nativeOrder()).asFloatBuffer();
+            if (defaultValue != 0) {
+                for (int i = 0; i < block.capacity(); i++) {
+                    block.put(i, defaultValue);
+                }
+            }
+            this.blocks[b] = block;
+        }
+    }
+
+    public int size() {
+        return this.size;
+    }
+
+    public float set(int from, int to, float value) {
+        FloatBuffer block = this.blocks[from / this.rowsPerBlock];
+        int index = getIndex(from, to);
+        float oldValue = block.get(index);
+        block.put(index, value);
+        return oldValue;
+    }
+
+    public float get(int from, int to) {
+        return this.blocks[from / this.rowsPerBlock].get(getIndex(from, to));
+    }
+
+    /**
+     * @return the new value
+     */
+    public float add(int from, int to, float value) {
+        FloatBuffer block = this.blocks[from / this.rowsPerBlock];
+        int index = getIndex(from, to);
+        float newValue = block.get(index) + value;
+        block.put(index, newValue);
+        return newValue;
+    }
+
+    /**
+     * Multiplies the values in every cell with the given factor.
+     *
+     * @param factor the multiplication factor
+     */
+    public void multiply(float factor) {
+        for (FloatBuffer block : this.blocks) {
+            for (int i = 0; i < block.capacity(); i++) {
+                block.put(i, block.get(i) * factor);
+            }
+        }
+    }
+
+    /**
+     * Copies the values of a row into the given array, which must have a length of at least {@link #size()}.
+     */
+    public void getRow(int from, float[] values) {
+        this.blocks[from / this.rowsPerBlock].get(getIndex(from, 0), values, 0, this.size);
+    }
+
+    /**
+     * Sets the values of a row from the given array, which must have a length of at least {@link #size()}.
+     */
+    public void setRow(int from, float[] values) {
+        this.blocks[from / this.rowsPerBlock].put(getIndex(from, 0), values, 0, this.size);
+    }
+
+    private int getIndex(int from, int to) {
+        return (from % this.rowsPerBlock) * this.size + to;
+    }
+}
@@ -37,7 +37,9 @@ import org.matsim.pt.transitSchedule.api.TransitRoute;
 import org.matsim.pt.transitSchedule.api.TransitStopFacility;
 
 import java.util.*;
-import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
 import java.util.function.BiPredicate;
 import java.util.stream.Collectors;
 
@@ -61,6 +63,9 @@ import java.util.stream.Collectors;
  * LeastCostPathTrees, reducing the computational effort down to the calculation of m*n LeastCostPathTrees. In addition, it supports running the calculation in parallel to reduce the time required to
  * compute one matrix.
  * <p>
+ * The matrices can either be calculated completely in memory, or row by row, passing each row to a {@link RowHandler} as soon as it
+ * is calculated. The latter only requires memory for the rows currently being calculated and is thus suited for large numbers of zones.
+ * <p>
  * If no connection can be found between two zones (can happen when there is no transit stop in a zone), the corresponding matrix cells contain the value "0" for the perceived frequency, and
  * "Infinity" for all other skim matrices.
  *
@@ -71,130 +76,181 @@ public class PTSkimMatrices {
     private PTSkimMatrices() {
     }
 
+    /**
+     * Calculates the skim matrices based on all departures around the time window, using
+     * {@link SwissRailRaptor#calcTreeProfile(Collection, double, double, RaptorParameters, org.matsim.api.core.v01.population.Person)}.
+     */
+    public static <T> PTSkimMatrices.PtIndicators<T> calculateSkimMatrices(SwissRailRaptorData raptorData, Map<T, Coord[]> coordsPerZone, double minDepartureTime, double maxDepartureTime,
+            RaptorParameters parameters, int numberOfThreads, BiPredicate<TransitLine, TransitRoute> trainDetector, CoordAggregator coordAggregator) {
+        return calculateSkimMatrices(raptorData, coordsPerZone, minDepartureTime, maxDepartureTime, 0, parameters, numberOfThreads, trainDetector, coordAggregator);
+    }
+
+    /**
+     * @param stepSize_seconds the interval in which trees are calculated around the time window. If not positive, all departures are
+     * taken into account by calculating a tree profile instead, which is faster.
+     */
     public static <T> PTSkimMatrices.PtIndicators<T> calculateSkimMatrices(SwissRailRaptorData raptorData, Map<T, Coord[]> coordsPerZone, double minDepartureTime, double maxDepartureTime,
             double stepSize_seconds, RaptorParameters parameters, int numberOfThreads, BiPredicate<TransitLine, TransitRoute> trainDetector, CoordAggregator coordAggregator) {
-        // prepare calculation
         Set<T> zoneIds = coordsPerZone.keySet();
+        List<T> zones = new ArrayList<>(zoneIds);
         PtIndicators<T> pti = new PtIndicators<>(zoneIds);
-        Config config = ConfigUtils.createConfig();
+        calculateSkimMatrices(raptorData, coordsPerZone, zones, minDepartureTime, maxDepartureTime, stepSize_seconds, parameters, numberOfThreads, trainDetector, coordAggregator,
+                (fromIndex, row) -> pti.setRow(zones, fromIndex, row));
+        return pti;
+    }
 
-        // do calculation
-        ConcurrentLinkedQueue<T> originZones = new ConcurrentLinkedQueue<>(zoneIds);
+    /**
+     * Calculates the skim matrices row by row, without keeping the full matrices in memory. As soon as all values of an origin zone are
+     * calculated, they are passed to the row handler, which can e.g. write them to a file using a {@link FloatMatrixIO.RowWriter}.
+     * <p>
+     * The sampling points of all origin zones are distributed to the threads by a work-stealing {@link ForkJoinPool}, so a zone with many
+     * sampling points does not keep a single thread busy while the other threads are idle.
+     *
+     * @param zoneIds the zones for which the matrices are calculated, the row and column indices passed to the row handler refer to this list.
+     * @param rowHandler is called once for each origin zone, never concurrently.
+     */
+    public static <T> void calculateSkimMatrices(SwissRailRaptorData raptorData, Map<T, Coord[]> coordsPerZone, List<T> zoneIds, double minDepartureTime, double maxDepartureTime,
+            double stepSize_seconds, RaptorParameters parameters, int numberOfThreads, BiPredicate<TransitLine, TransitRoute> trainDetector, CoordAggregator coordAggregator,
+            RowHandler rowHandler) {
+        Config config = ConfigUtils.createConfig();
+        ThreadLocal<SwissRailRaptor> raptors = ThreadLocal.withInitial(() -> new SwissRailRaptor.Builder(raptorData, config).build());
+
+        // the egress stops of the destination coordinates are the same for all origins
+        SwissRailRaptor raptor = raptors.get();
+        EgressStop[][][] egressStopsPerZone = new EgressStop[zoneIds.size()][][];
+        for (int toIndex = 0; toIndex < zoneIds.size(); toIndex++) {
+            Coord[] toCoords = coordsPerZone.get(zoneIds.get(toIndex));
+            if (toCoords != null) {
+                EgressStop[][] egressStops = new EgressStop[toCoords.length][];
+                for (int c = 0; c < toCoords.length; c++) {
+                    egressStops[c] = findEgressStops(toCoords[c], raptor, parameters);
+                }
+                egressStopsPerZone[toIndex] = egressStops;
+            }
+        }
 
         Counter counter = new Counter("PT-FrequencyMatrix-" + Time.writeTime(minDepartureTime) + "-" + Time.writeTime(maxDepartureTime) + " zone ", " / " + coordsPerZone.size());
-        Thread[] threads = new Thread[numberOfThreads];
-        for (int i = 0; i < numberOfThreads; i++) {
-            SwissRailRaptor raptor = new SwissRailRaptor.Builder(raptorData, config).build();
-            RowWorker<T> worker = new RowWorker<>(originZones, zoneIds, coordsPerZone, pti, raptor, parameters, minDepartureTime, maxDepartureTime, stepSize_seconds, counter, trainDetector, coordAggregator);
-            threads[i] = new Thread(worker, "PT-FrequencyMatrix-" + Time.writeTime(minDepartureTime) + "-" + Time.writeTime(maxDepartureTime) + "-" + i);
-            threads[i].start();
+        RowCalculator rowCalculator = new RowCalculator(raptors, egressStopsPerZone, parameters, minDepartureTime, maxDepartureTime, stepSize_seconds, trainDetector);
+        ForkJoinPool pool = new ForkJoinPool(numberOfThreads);
+        try {
+            List<ZoneTask> zoneTasks = new ArrayList<>(zoneIds.size());
+            for (int fromIndex = 0; fromIndex < zoneIds.size(); fromIndex++) {
+                Coord[] fromCoords = coordsPerZone.get(zoneIds.get(fromIndex));
+                ZoneTask zoneTask = new ZoneTask(fromIndex, fromCoords, zoneIds.size(), rowCalculator, coordAggregator, rowHandler, counter);
+                pool.execute(zoneTask);
+                zoneTasks.add(zoneTask);
+            }
+            for (ZoneTask zoneTask : zoneTasks) {
+                zoneTask.join();
+            }
+        } finally {
+            pool.shutdown();
         }
+    }
 
-        // wait until all threads have finished
-        for (Thread thread : threads) {
-            try {
-                thread.join();
-            } catch (InterruptedException e) {
-                e.printStackTrace();
-            }
+    private static Collection<TransitStopFacility> findStopCandidates(Coord coord, SwissRailRaptor raptor, RaptorParameters parameters) {
+        Collection<TransitStopFacility> stops = raptor.getUnderlyingData().findNearbyStops(coord.getX(), coord.getY(), parameters.getSearchRadius());
+        if (stops.isEmpty()) {
+            TransitStopFacility nearest = raptor.getUnderlyingData().findNearestStop(coord.getX(), coord.getY());
+            double nearestStopDistance = CoordUtils.calcEuclideanDistance(coord, nearest.getCoord());
+            stops = raptor.getUnderlyingData().findNearbyStops(coord.getX(), coord.getY(), nearestStopDistance + parameters.getExtensionRadius());
         }
+        return stops;
+    }
 
-        for (T fromZoneId : zoneIds) {
-            for (T toZoneId : zoneIds) {
-                float count = pti.dataCountMatrix.get(fromZoneId, toZoneId);
-                if (count == 0) {
-                    pti.adaptionTimeMatrix.set(fromZoneId, toZoneId, Float.POSITIVE_INFINITY);
-                    pti.frequencyMatrix.set(fromZoneId, toZoneId, 0);
-                    pti.distanceMatrix.set(fromZoneId, toZoneId, Float.POSITIVE_INFINITY);
-                    pti.travelTimeMatrix.set(fromZoneId, toZoneId, Float.POSITIVE_INFINITY);
-                    pti.accessTimeMatrix.set(fromZoneId, toZoneId, Float.POSITIVE_INFINITY);
-                    pti.egressTimeMatrix.set(fromZoneId, toZoneId, Float.POSITIVE_INFINITY);
-                    pti.transferCountMatrix.set(fromZoneId, toZoneId, Float.POSITIVE_INFINITY);
-                    pti.trainDistanceShareMatrix.set(fromZoneId, toZoneId, Float.POSITIVE_INFINITY);
-                    pti.trainTravelTimeShareMatrix.set(fromZoneId, toZoneId, Float.POSITIVE_INFINITY);
-                } else {
-                    float avgFactor = 1.0f / count;
-                    float adaptionTime = pti.adaptionTimeMatrix.multiply(fromZoneId, toZoneId, avgFactor);
-                    pti.distanceMatrix.multiply(fromZoneId, toZoneId, avgFactor);
-                    pti.travelTimeMatrix.multiply(fromZoneId, toZoneId, avgFactor);
-                    pti.accessTimeMatrix.multiply(fromZoneId, toZoneId, avgFactor);
-                    pti.egressTimeMatrix.multiply(fromZoneId, toZoneId, avgFactor);
-                    pti.trainDistanceShareMatrix.multiply(fromZoneId, toZoneId, avgFactor);
-                    pti.trainTravelTimeShareMatrix.multiply(fromZoneId, toZoneId, avgFactor);
-                    pti.transferCountMatrix.multiply(fromZoneId, toZoneId, avgFactor);
-                    float frequency = (float) ((maxDepartureTime - minDepartureTime) / adaptionTime / 4.0);
-                    pti.frequencyMatrix.set(fromZoneId, toZoneId, frequency);
+    private static EgressStop[] findEgressStops(Coord toCoord, SwissRailRaptor raptor, RaptorParameters parameters) {
+        double walkSpeed = parameters.getBeelineWalkSpeed();
+        Collection<TransitStopFacility> toStops = findStopCandidates(toCoord, raptor, parameters);
+        EgressStop[] egressStops = new EgressStop[toStops.size()];
+        int i = 0;
+        for (TransitStopFacility stop : toStops) {
+            double distance = CoordUtils.calcEuclideanDistance(stop.getCoord(), toCoord);
+            egressStops[i++] = new EgressStop(stop.getId(), distance / walkSpeed);
+        }
+        return egressStops;
+    }
+
+    private record EgressStop(Id<TransitStopFacility> stopId, double egressTime) {
+    }
+
+    /**
+     * Receives the values of one origin zone as soon as they are calculated.
+     */
+    @FunctionalInterface
+    public interface RowHandler {
+
+        void handleRow(int fromIndex, PtIndicatorsRow row);
+    }
+
+    /**
+     * Calculates the row of an origin zone by calculating the rows of its sampling points in parallel and merging them.
+     */
+    private static class ZoneTask extends RecursiveAction {
+
+        private final int fromIndex;
+        private final Coord[] fromCoords;
+        private final int zoneCount;
+        private final RowCalculator rowCalculator;
+        private final CoordAggregator coordAggregator;
+        private final RowHandler rowHandler;
+        private final Counter counter;
+
+        ZoneTask(int fromIndex, Coord[] fromCoords, int zoneCount, RowCalculator rowCalculator, CoordAggregator coordAggregator, RowHandler rowHandler, Counter counter) {
+            this.fromIndex = fromIndex;
+            this.fromCoords = fromCoords;
+            this.zoneCount = zoneCount;
+            this.rowCalculator = rowCalculator;
+            this.coordAggregator = coordAggregator;
+            this.rowHandler = rowHandler;
+            this.counter = counter;
+        }
+
+        @Override
+        protected void compute() {
+            this.counter.incCounter();
+            PtIndicatorsRow row = new PtIndicatorsRow(this.zoneCount);
+            if (this.fromCoords != null) {
+                List<ForkJoinTask<PtIndicatorsRow>> coordTasks = new ArrayList<>();
+                for (CalculateSkimMatrices.WeightedCoord fromCoord : this.coordAggregator.aggregateCoords(this.fromCoords)) {
+                    coordTasks.add(ForkJoinTask.adapt(() -> this.rowCalculator.calcForCoord(fromCoord.coord(), fromCoord.weight(), this.zoneCount)));
                 }
+                for (ForkJoinTask<PtIndicatorsRow> coordTask : ForkJoinTask.invokeAll(coordTasks)) {
+                    row.add(coordTask.join());
+                }
+            }
+            row.average(this.rowCalculator.minDepartureTime, this.rowCalculator.maxDepartureTime);
+            synchronized (this.rowHandler) {
+                this.rowHandler.handleRow(this.fromIndex, row);
             }
         }
-
-        return pti;
     }
 
-    static class RowWorker<T> implements Runnable {
+    static class RowCalculator {
 
-        private final ConcurrentLinkedQueue<T> originZones;
-        private final Set<T> destinationZones;
-        private final Map<T, Coord[]> coordsPerZone;
-        private final PtIndicators<T> pti;
-        private final SwissRailRaptor raptor;
+        private final ThreadLocal<SwissRailRaptor> raptors;
+        private final EgressStop[][][] egressStopsPerZone;
         private final RaptorParameters parameters;
         private final double minDepartureTime;
         private final double maxDepartureTime;
         private final double stepSize;
-        private final Counter counter;
         private final BiPredicate<TransitLine, TransitRoute> trainDetector;
-		private final CoordAggregator coordAggregator;
-
-		RowWorker(ConcurrentLinkedQueue<T> originZones, Set<T> destinationZones, Map<T, Coord[]> coordsPerZone, PtIndicators<T> pti, SwissRailRaptor raptor, RaptorParameters parameters,
-				  double minDepartureTime, double maxDepartureTime, double stepSize, Counter counter, BiPredicate<TransitLine, TransitRoute> trainDetector, CoordAggregator coordAggregator) {
-            this.originZones = originZones;
-            this.destinationZones = destinationZones;
-            this.coordsPerZone = coordsPerZone;
-            this.pti = pti;
-            this.raptor = raptor;
+
+        RowCalculator(ThreadLocal<SwissRailRaptor> raptors, EgressStop[][][] egressStopsPerZone, RaptorParameters parameters,
+                      double minDepartureTime, double maxDepartureTime, double stepSize, BiPredicate<TransitLine, TransitRoute> trainDetector) {
+            this.raptors = raptors;
+            this.egressStopsPerZone = egressStopsPerZone;
             this.parameters = parameters;
             this.minDepartureTime = minDepartureTime;
             this.maxDepartureTime = maxDepartureTime;
             this.stepSize = stepSize;
-            this.counter = counter;
             this.trainDetector = trainDetector;
-			this.coordAggregator = coordAggregator;
-        }
-
-        private static Collection<TransitStopFacility> findStopCandidates(Coord coord, SwissRailRaptor raptor, RaptorParameters parameters) {
-            Collection<TransitStopFacility> stops = raptor.getUnderlyingData().findNearbyStops(coord.getX(), coord.getY(), parameters.getSearchRadius());
-            if (stops.isEmpty()) {
-                TransitStopFacility nearest = raptor.getUnderlyingData().findNearestStop(coord.getX(), coord.getY());
-                double nearestStopDistance = CoordUtils.calcEuclideanDistance(coord, nearest.getCoord());
-                stops = raptor.getUnderlyingData().findNearbyStops(coord.getX(), coord.getY(), nearestStopDistance + parameters.getExtensionRadius());
-            }
-            return stops;
         }
 
-        @Override
-        public void run() {
-            while (true) {
-                T fromZoneId = this.originZones.poll();
-                if (fromZoneId == null) {
-                    return;
-                }
-
-                this.counter.incCounter();
-                Coord[] fromCoords = this.coordsPerZone.get(fromZoneId);
-                if (fromCoords != null) {
-				var weightedRelevantFromCoords = coordAggregator.aggregateCoords(fromCoords);
-					for (var fromCoord : weightedRelevantFromCoords) {
-                        calcForRow(fromZoneId, fromCoord.coord(),fromCoord.weight());
-                    }
-                }
-            }
-        }
-
-        private void calcForRow(T fromZoneId, Coord fromCoord, double fromCoordWeight) {
+        private PtIndicatorsRow calcForCoord(Coord fromCoord, double fromCoordWeight, int zoneCount) {
+            SwissRailRaptor raptor = this.raptors.get();
             double walkSpeed = this.parameters.getBeelineWalkSpeed();
 
-            Collection<TransitStopFacility> fromStops = findStopCandidates(fromCoord, this.raptor, this.parameters);
+            Collection<TransitStopFacility> fromStops = findStopCandidates(fromCoord, raptor, this.parameters);
             Map<Id<TransitStopFacility>, Double> accessTimes = new HashMap<>();
             for (TransitStopFacility stop : fromStops) {
                 double distance = CoordUtils.calcEuclideanDistance(fromCoord, stop.getCoord());
@@ -202,37 +258,34 @@ public class PTSkimMatrices {
                 accessTimes.put(stop.getId(), accessTime);
             }
 
-            List<Map<Id<TransitStopFacility>, TravelInfo>> trees = new ArrayList<>();
-
             double timeWindow = this.maxDepartureTime - this.minDepartureTime;
             double endTime = this.maxDepartureTime + timeWindow;
-            for (double time = this.minDepartureTime - timeWindow; time < endTime; time += this.stepSize) {
-                Map<Id<TransitStopFacility>, TravelInfo> tree = this.raptor.calcTree(fromStops, time, this.parameters, null);
-                trees.add(tree);
+            Map<Id<TransitStopFacility>, List<TravelInfo>> trees;
+            if (this.stepSize > 0) {
+                Map<Id<TransitStopFacility>, List<TravelInfo>> sampledTrees = new HashMap<>();
+                for (double time = this.minDepartureTime - timeWindow; time < endTime; time += this.stepSize) {
+                    Map<Id<TransitStopFacility>, TravelInfo> tree = raptor.calcTree(fromStops, time, this.parameters, null);
+                    tree.forEach((stopId, info) -> sampledTrees.computeIfAbsent(stopId, id -> new ArrayList<>()).add(info));
+                }
+                trees = sampledTrees;
+            } else {
+                trees = raptor.calcTreeProfile(fromStops, this.minDepartureTime - timeWindow, endTime, this.parameters, null);
             }
 
-            for (T toZoneId : this.destinationZones) {
-                Coord[] toCoords = this.coordsPerZone.get(toZoneId);
-                if (toCoords != null) {
-                    for (Coord toCoord : toCoords) {
-                        calcForOD(fromZoneId, toZoneId, toCoord, accessTimes, trees, (float) fromCoordWeight);
+            PtIndicatorsRow row = new PtIndicatorsRow(zoneCount);
+            for (int toIndex = 0; toIndex < zoneCount; toIndex++) {
+                EgressStop[][] egressStopsPerCoord = this.egressStopsPerZone[toIndex];
+                if (egressStopsPerCoord != null) {
+                    for (EgressStop[] egressStops : egressStopsPerCoord) {
+                        calcForOD(row, toIndex, egressStops, accessTimes, trees, (float) fromCoordWeight);
                     }
                 }
             }
+            return row;
         }
 
-        private void calcForOD(T fromZoneId, T toZoneId, Coord toCoord, Map<Id<TransitStopFacility>, Double> accessTimes, List<Map<Id<TransitStopFacility>, TravelInfo>> trees, float fromCoordWeight) {
-            double walkSpeed = this.parameters.getBeelineWalkSpeed();
-
-            Collection<TransitStopFacility> toStops = findStopCandidates(toCoord, this.raptor, this.parameters);
-            Map<Id<TransitStopFacility>, Double> egressTimes = new HashMap<>();
-            for (TransitStopFacility stop : toStops) {
-                double distance = CoordUtils.calcEuclideanDistance(stop.getCoord(), toCoord);
-                double egressTime = distance / walkSpeed;
-                egressTimes.put(stop.getId(), egressTime);
-            }
-
-            List<ODConnection> connections = buildODConnections(trees, accessTimes, egressTimes);
+        private void calcForOD(PtIndicatorsRow row, int toIndex, EgressStop[] egressStops, Map<Id<TransitStopFacility>, Double> accessTimes, Map<Id<TransitStopFacility>, List<TravelInfo>> trees, float fromCoordWeight) {
+            List<ODConnection> connections = buildODConnections(trees, accessTimes, egressStops);
             if (connections.isEmpty()) {
                 return;
             }
@@ -241,7 +294,7 @@ public class PTSkimMatrices {
 
             double avgAdaptionTime = RooftopUtils.calcAverageAdaptionTime(connections, minDepartureTime, maxDepartureTime);
 
-            this.pti.adaptionTimeMatrix.add(fromZoneId, toZoneId, (float) avgAdaptionTime);
+            row.adaptionTime[toIndex] += (float) avgAdaptionTime;
 
             Map<ODConnection, Double> connectionShares = RooftopUtils.calcConnectionShares(connections, minDepartureTime, maxDepartureTime);
 
@@ -296,29 +349,30 @@ public class PTSkimMatrices {
             float trainShareByTravelTime = (float) (trainInVehTime / totalInVehTime);
             float trainShareByDistance = (float) (trainDistance / totalDistance);
 
-            this.pti.accessTimeMatrix.add(fromZoneId, toZoneId, accessTime*fromCoordWeight);
-            this.pti.egressTimeMatrix.add(fromZoneId, toZoneId, egressTime*fromCoordWeight);
-            this.pti.transferCountMatrix.add(fromZoneId, toZoneId, transferCount*fromCoordWeight);
-            this.pti.travelTimeMatrix.add(fromZoneId, toZoneId, travelTime*fromCoordWeight);
-            this.pti.distanceMatrix.add(fromZoneId, toZoneId, (float) totalDistance*fromCoordWeight);
-            this.pti.trainDistanceShareMatrix.add(fromZoneId, toZoneId, trainShareByDistance*fromCoordWeight);
-            this.pti.trainTravelTimeShareMatrix.add(fromZoneId, toZoneId, trainShareByTravelTime*fromCoordWeight);
+            row.accessTime[toIndex] += accessTime*fromCoordWeight;
+            row.egressTime[toIndex] += egressTime*fromCoordWeight;
+            row.transferCount[toIndex] += transferCount*fromCoordWeight;
+            row.travelTime[toIndex] += travelTime*fromCoordWeight;
+            row.distance[toIndex] += (float) totalDistance*fromCoordWeight;
+            row.trainDistanceShare[toIndex] += trainShareByDistance*fromCoordWeight;
+            row.trainTravelTimeShare[toIndex] += trainShareByTravelTime*fromCoordWeight;
 
-            this.pti.dataCountMatrix.add(fromZoneId, toZoneId, fromCoordWeight);
+            row.dataCount[toIndex] += fromCoordWeight;
         }
 
-        private List<ODConnection> buildODConnections(List<Map<Id<TransitStopFacility>, TravelInfo>> trees, Map<Id<TransitStopFacility>, Double> accessTimes,
-                Map<Id<TransitStopFacility>, Double> egressTimes) {
+        private List<ODConnection> buildODConnections(Map<Id<TransitStopFacility>, List<TravelInfo>> trees, Map<Id<TransitStopFacility>, Double> accessTimes,
+                EgressStop[] egressStops) {
             List<ODConnection> connections = new ArrayList<>();
 
-            for (Map<Id<TransitStopFacility>, TravelInfo> tree : trees) {
-                for (Map.Entry<Id<TransitStopFacility>, Double> egressEntry : egressTimes.entrySet()) {
-                    Id<TransitStopFacility> egressStopId = egressEntry.getKey();
-                    Double egressTime = egressEntry.getValue();
-                    TravelInfo info = tree.get(egressStopId);
-                    if (info != null && !info.isWalkOnly()) {
+            for (EgressStop egressStop : egressStops) {
+                List<TravelInfo> infos = trees.get(egressStop.stopId);
+                if (infos == null) {
+                    continue;
+                }
+                for (TravelInfo info : infos) {
+                    if (!info.isWalkOnly()) {
                         Double accessTime = accessTimes.get(info.departureStop);
-                        ODConnection connection = new ODConnection(info.ptDepartureTime, info.ptTravelTime, accessTime, egressTime, info.transferCount, info);
+                        ODConnection connection = new ODConnection(info.ptDepartureTime, info.ptTravelTime, accessTime, egressStop.egressTime, info.transferCount, info);
                         connections.add(connection);
                     }
                 }
@@ -328,6 +382,83 @@ public class PTSkimMatrices {
         }
     }
 
+    /**
+     * The values of all indicators for one origin zone, indexed by the index of the destination zone.
+     */
+    public static class PtIndicatorsRow {
+
+        public final float[] adaptionTime;
+        public final float[] frequency;
+
+        public final float[] distance;
+        public final float[] travelTime;
+        public final float[] accessTime;
+        public final float[] egressTime;
+        public final float[] transferCount;
+        public final float[] trainTravelTimeShare;
+        public final float[] trainDistanceShare;
+
+        public final float[] dataCount; // how many values/routes were taken into account to calculate the averages
+
+        PtIndicatorsRow(int size) {
+            this.adaptionTime = new float[size];
+            this.frequency = new float[size];
+
+            this.distance = new float[size];
+            this.travelTime = new float[size];
+            this.accessTime = new float[size];
+            this.egressTime = new float[size];
+            this.transferCount = new float[size];
+            this.trainTravelTimeShare = new float[size];
+            this.trainDistanceShare = new float[size];
+
+            this.dataCount = new float[size];
+        }
+
+        private void add(PtIndicatorsRow other) {
+            for (int i = 0; i < this.dataCount.length; i++) {
+                this.adaptionTime[i] += other.adaptionTime[i];
+                this.distance[i] += other.distance[i];
+                this.travelTime[i] += other.travelTime[i];
+                this.accessTime[i] += other.accessTime[i];
+                this.egressTime[i] += other.egressTime[i];
+                this.transferCount[i] += other.transferCount[i];
+                this.trainTravelTimeShare[i] += other.trainTravelTimeShare[i];
+                this.trainDistanceShare[i] += other.trainDistanceShare[i];
+                this.dataCount[i] += other.dataCount[i];
+            }
+        }
+
+        private void average(double minDepartureTime, double maxDepartureTime) {
+            for (int i = 0; i < this.dataCount.length; i++) {
+                float count = this.dataCount[i];
+                if (count == 0) {
+                    this.adaptionTime[i] = Float.POSITIVE_INFINITY;
+                    this.frequency[i] = 0;
+                    this.distance[i] = Float.POSITIVE_INFINITY;
+                    this.travelTime[i] = Float.POSITIVE_INFINITY;
+                    this.accessTime[i] = Float.POSITIVE_INFINITY;
+                    this.egressTime[i] = Float.POSITIVE_INFINITY;
+                    this.transferCount[i] = Float.POSITIVE_INFINITY;
+                    this.trainDistanceShare[i] = Float.POSITIVE_INFINITY;
+                    this.trainTravelTimeShare[i] = Float.POSITIVE_INFINITY;
+                } else {
+                    float avgFactor = 1.0f / count;
+                    float adaptionTime = this.adaptionTime[i] * avgFactor;
+                    this.adaptionTime[i] = adaptionTime;
+                    this.distance[i] *= avgFactor;
+                    this.travelTime[i] *= avgFactor;
+                    this.accessTime[i] *= avgFactor;
+                    this.egressTime[i] *= avgFactor;
+                    this.trainDistanceShare[i] *= avgFactor;
+                    this.trainTravelTimeShare[i] *= avgFactor;
+                    this.transferCount[i] *= avgFactor;
+                    this.frequency[i] = (float) ((maxDepartureTime - minDepartureTime) / adaptionTime / 4.0);
+                }
+            }
+        }
+    }
+
     public static class PtIndicators<T> {
 
         public final FloatMatrix<T> adaptionTimeMatrix;
@@ -356,6 +487,23 @@ public class PTSkimMatrices {
             this.trainTravelTimeShareMatrix = new FloatMatrix<>(zones, 0);
             this.trainDistanceShareMatrix = new FloatMatrix<>(zones, 0);
         }
+
+        private void setRow(List<T> zoneIds, int fromIndex, PtIndicatorsRow row) {
+            T fromZoneId = zoneIds.get(fromIndex);
+            for (int toIndex = 0; toIndex < zoneIds.size(); toIndex++) {
+                T toZoneId = zoneIds.get(toIndex);
+                this.adaptionTimeMatrix.set(fromZoneId, toZoneId, row.adaptionTime[toIndex]);
+                this.frequencyMatrix.set(fromZoneId, toZoneId, row.frequency[toIndex]);
+                this.distanceMatrix.set(fromZoneId, toZoneId, row.distance[toIndex]);
+                this.travelTimeMatrix.set(fromZoneId, toZoneId, row.travelTime[toIndex]);
+                this.accessTimeMatrix.set(fromZoneId, toZoneId, row.accessTime[toIndex]);
+                this.egressTimeMatrix.set(fromZoneId, toZoneId, row.egressTime[toIndex]);
+                this.transferCountMatrix.set(fromZoneId, toZoneId, row.transferCount[toIndex]);
+                this.trainTravelTimeShareMatrix.set(fromZoneId, toZoneId, row.trainTravelTimeShare[toIndex]);
+                this.trainDistanceShareMatrix.set(fromZoneId, toZoneId, row.trainDistanceShare[toIndex]);
+                this.dataCountMatrix.set(fromZoneId, toZoneId, row.dataCount[toIndex]);
+            }
+        }
     }
 
 	public interface CoordAggregator{
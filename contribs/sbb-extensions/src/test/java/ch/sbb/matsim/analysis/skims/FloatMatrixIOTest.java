@@ -22,17 +22,23 @@ package ch.sbb.matsim.analysis.skims;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.matsim.testcases.MatsimTestUtils;
 
 /**
  * @author mrieser / SBB
  */
 public class FloatMatrixIOTest {
 
+    @RegisterExtension private MatsimTestUtils utils = new MatsimTestUtils();
+
 	@Test
 	void testIO() throws IOException {
         Set<String> zoneIds = new HashSet<>();
@@ -71,4 +77,54 @@ public class FloatMatrixIOTest {
         Assertions.assertEquals(27.0f, matrix2.get("tres", "dos"), epsilon);
         Assertions.assertEquals(64.0f, matrix2.get("tres", "tres"), epsilon);
     }
+
+	@Test
+	void testBinaryIO() throws IOException {
+        Set<String> zoneIds = new HashSet<>();
+        zoneIds.add("un");
+        zoneIds.add("dos");
+        FloatMatrix<String> matrix = new FloatMatrix<>(zoneIds, 0.0f);
+
+        matrix.set("un", "un", 2.0f);
+        matrix.set("un", "dos", 3.0f);
+        matrix.set("dos", "un", Float.POSITIVE_INFINITY);
+        matrix.set("dos", "dos", 0.25f);
+
+        ByteArrayOutputStream outStream = new ByteArrayOutputStream();
+        FloatMatrixIO.writeAsBinary(matrix, outStream);
+        outStream.close();
+
+        ByteArrayInputStream inStream = new ByteArrayInputStream(outStream.toByteArray());
+        FloatMatrix<String> matrix2 = new FloatMatrix<>(zoneIds, Float.NaN);
+        FloatMatrixIO.readAsBinary(matrix2, inStream, id -> id);
+        inStream.close();
+
+        Assertions.assertEquals(2.0f, matrix2.get("un", "un"));
+        Assertions.assertEquals(3.0f, matrix2.get("un", "dos"));
+        Assertions.assertEquals(Float.POSITIVE_INFINITY, matrix2.get("dos", "un"));
+        Assertions.assertEquals(0.25f, matrix2.get("dos", "dos"));
+    }
+
+	@Test
+	void testBinaryRowWriter() throws IOException {
+        List<String> zoneIds = List.of("un", "dos", "tres");
+        String filename = this.utils.getOutputDirectory() + "matrix.bin";
+
+        // rows can be written in any order, missing rows keep the default value
+        try (FloatMatrixIO.RowWriter writer = FloatMatrixIO.createBinaryRowWriter(filename, zoneIds)) {
+            writer.writeRow(2, new float[] {8.0f, 27.0f, 64.0f});
+            writer.writeRow(0, new float[] {2.0f, 3.0f, 4.0f});
+        }
+
+        List<String> zoneIds2 = new ArrayList<>();
+        IndexedFloatMatrix matrix = FloatMatrixIO.readAsBinary(filename, zoneIds2, -1.0f);
+
+        Assertions.assertEquals(zoneIds, zoneIds2);
+        Assertions.assertEquals(3, matrix.size());
+        Assertions.assertEquals(2.0f, matrix.get(0, 0));
+        Assertions.assertEquals(4.0f, matrix.get(0, 2));
+        Assertions.assertEquals(-1.0f, matrix.get(1, 1));
+        Assertions.assertEquals(8.0f, matrix.get(2, 0));
+        Assertions.assertEquals(64.0f, matrix.get(2, 2));
+    }
 }
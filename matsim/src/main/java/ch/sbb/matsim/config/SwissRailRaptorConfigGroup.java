@@ -61,6 +61,8 @@ public class SwissRailRaptorConfigGroup extends ReflectiveConfigGroup {
     private static final String PARAM_TRANSFER_WALK_MARGIN_DESC = "time deducted from transfer walk leg during transfers between pt legs in order to avoid missing a vehicle by a few seconds due to delays.";
     private static final String PARAM_INTERMODAL_LEG_ONLYHANDLING = "intermodalLegOnlyHandling";
     private static final String PARAM_INTERMODAL_LEG_ONLYHANDLING_DESC = "Define how routes containing only intermodal legs are handled: Useful options: alllow, avoid, forbid";
+    private static final String PARAM_DATA_CACHE_DIRECTORY = "dataCacheDirectory";
+    private static final String PARAM_DATA_CACHE_DIRECTORY_DESC = "If set, the transfers between transit route stops are stored in this directory and re-used by later runs with the same transit schedule, which speeds up the start of a run. 'null' disables the cache.";
 
     private boolean useRangeQuery = false;
     private boolean useIntermodality = false;
@@ -74,6 +76,7 @@ public class SwissRailRaptorConfigGroup extends ReflectiveConfigGroup {
     private double transferPenaltyHourlyCost = 0;
     private double transferWalkMargin = 5;
 	private IntermodalLegOnlyHandling intermodalLegOnlyHandling = IntermodalLegOnlyHandling.forbid;
+    private String dataCacheDirectory = null;
 
     private ScoringParameters scoringParameters = ScoringParameters.Default;
 
@@ -193,6 +196,16 @@ public class SwissRailRaptorConfigGroup extends ReflectiveConfigGroup {
         this.useCapacityConstraints = useCapacityConstraints;
     }
 
+    @StringGetter(PARAM_DATA_CACHE_DIRECTORY)
+    public String getDataCacheDirectory() {
+        return this.dataCacheDirectory;
+    }
+
+    @StringSetter(PARAM_DATA_CACHE_DIRECTORY)
+    public void setDataCacheDirectory(String dataCacheDirectory) {
+        this.dataCacheDirectory = dataCacheDirectory;
+    }
+
     @StringGetter(PARAM_SCORING_PARAMETERS)
     public ScoringParameters getScoringParameters() {
         return this.scoringParameters;
@@ -706,6 +719,7 @@ public class SwissRailRaptorConfigGroup extends ReflectiveConfigGroup {
         comments.put(PARAM_INTERMODAL_ACCESS_EGRESS_MODE_SELECTION, PARAM_INTERMODAL_ACCESS_EGRESS_MODE_SELECTION_DESC);
         comments.put(PARAM_USE_CAPACITY_CONSTRAINTS, PARAM_USE_CAPACITY_CONSTRAINTS_DESC);
         comments.put(PARAM_TRANSFER_WALK_MARGIN, PARAM_TRANSFER_WALK_MARGIN_DESC);
+        comments.put(PARAM_DATA_CACHE_DIRECTORY, PARAM_DATA_CACHE_DIRECTORY_DESC);
 		comments.put(PARAM_INTERMODAL_ACCESS_EGRESS_MODE_SELECTION,PARAM_INTERMODAL_ACCESS_EGRESS_MODE_SELECTION_DESC);
         return comments;
     }
@@ -25,6 +25,7 @@ import org.matsim.facilities.Facility;
 import org.matsim.pt.transitSchedule.api.TransitStopFacility;
 import org.matsim.utils.objectattributes.attributable.Attributes;
 
+import java.nio.file.Path;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -72,6 +73,8 @@ public class RaptorStaticConfig {
 
     private RaptorOptimization optimization = RaptorOptimization.OneToOneRouting;
 
+    private Path dataCacheDirectory = null;
+
 	private SwissRailRaptorConfigGroup.IntermodalLegOnlyHandling intermodalLegOnlyHandling = SwissRailRaptorConfigGroup.IntermodalLegOnlyHandling.forbid;
 
     public double getBeelineWalkConnectionDistance() {
@@ -167,4 +170,15 @@ public class RaptorStaticConfig {
 	public void setIntermodalLegOnlyHandling(SwissRailRaptorConfigGroup.IntermodalLegOnlyHandling intermodalLegOnlyHandling) {
 		this.intermodalLegOnlyHandling = intermodalLegOnlyHandling;
 	}
+
+    public Path getDataCacheDirectory() {
+        return this.dataCacheDirectory;
+    }
+
+    /**
+     * @param dataCacheDirectory the directory in which the transfers between route stops are cached, or <code>null</code> to not cache them.
+     */
+    public void setDataCacheDirectory(Path dataCacheDirectory) {
+        this.dataCacheDirectory = dataCacheDirectory;
+    }
 }
@@ -19,6 +19,7 @@
  * *********************************************************************** */
 package ch.sbb.matsim.routing.pt.raptor;
 
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
@@ -75,6 +76,9 @@ public final class RaptorUtils {
 			staticConfig.addModeToModeTransferPenalty(penalty.fromMode,penalty.toMode,penalty.transferPenalty);
 		}
         staticConfig.setUseCapacityConstraints(srrConfig.isUseCapacityConstraints());
+        if (srrConfig.getDataCacheDirectory() != null) {
+            staticConfig.setDataCacheDirectory(Path.of(srrConfig.getDataCacheDirectory()));
+        }
 
         return staticConfig;
     }
@@ -221,10 +221,7 @@ public class SwissRailRaptor implements TransitRouter {
     }
 
     public Map<Id<TransitStopFacility>, SwissRailRaptorCore.TravelInfo> calcTree(Collection<TransitStopFacility> fromStops, double departureTime, RaptorParameters parameters, Person person) {
-        if (this.data.config.getOptimization() != RaptorStaticConfig.RaptorOptimization.OneToAllRouting && !this.treeWarningShown) {
-            log.warn("SwissRailRaptorData was not initialized with full support for tree calculations and may result in unexpected results. Use `RaptorStaticConfig.setOptimization(RaptorOptimization.OneToAllRouting)` to fix this issue.");
-            this.treeWarningShown = true;
-        }
+        checkTreeOptimization();
         List<InitialStop> accessStops = new ArrayList<>();
         for (TransitStopFacility stop : fromStops) {
             accessStops.add(new InitialStop(stop, 0, 0, 0, null));
@@ -242,6 +239,34 @@ public class SwissRailRaptor implements TransitRouter {
         return this.raptor.calcLeastCostTree(departureTime, accessStops, parameters, person);
     }
 
+    /**
+     * Calculates the journeys from the stops to all other stops for all departures between the earliest and latest departure time,
+     * see {@link SwissRailRaptorCore#calcLeastCostTreeProfile(double, double, Collection, RaptorParameters, Person)}. This is much
+     * faster than calculating a tree for many departure times in the time window.
+     */
+    public Map<Id<TransitStopFacility>, List<SwissRailRaptorCore.TravelInfo>> calcTreeProfile(Collection<TransitStopFacility> fromStops, double earliestDepartureTime, double latestDepartureTime, RaptorParameters parameters, Person person) {
+        checkTreeOptimization();
+        List<InitialStop> accessStops = new ArrayList<>();
+        for (TransitStopFacility stop : fromStops) {
+            accessStops.add(new InitialStop(stop, 0, 0, 0, null));
+        }
+        return this.raptor.calcLeastCostTreeProfile(earliestDepartureTime, latestDepartureTime, accessStops, parameters, person);
+    }
+
+    public Map<Id<TransitStopFacility>, List<SwissRailRaptorCore.TravelInfo>> calcTreeProfile(Facility fromFacility, double earliestDepartureTime, double latestDepartureTime, Person person, Attributes routingAttributes) {
+        checkTreeOptimization();
+        RaptorParameters parameters = this.parametersForPerson.getRaptorParameters(person);
+        List<InitialStop> accessStops = findAccessStops(fromFacility, fromFacility, person, earliestDepartureTime, routingAttributes, parameters);
+        return this.raptor.calcLeastCostTreeProfile(earliestDepartureTime, latestDepartureTime, accessStops, parameters, person);
+    }
+
+    private void checkTreeOptimization() {
+        if (this.data.config.getOptimization() != RaptorStaticConfig.RaptorOptimization.OneToAllRouting && !this.treeWarningShown) {
+            log.warn("SwissRailRaptorData was not initialized with full support for tree calculations and may result in unexpected results. Use `RaptorStaticConfig.setOptimization(RaptorOptimization.OneToAllRouting)` to fix this issue.");
+            this.treeWarningShown = true;
+        }
+    }
+
     public SwissRailRaptorData getUnderlyingData() {
         return this.data;
     }
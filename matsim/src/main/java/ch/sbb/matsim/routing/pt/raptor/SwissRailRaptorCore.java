@@ -550,6 +550,128 @@ public class SwissRailRaptorCore {
         return result;
     }
 
+    /**
+     * Calculates the least-cost journeys from the start stops to all stops for all departures in a time window in one pass,
+     * similar to the range RAPTOR (rRAPTOR) described by Delling et al.
+     *
+     * Instead of calculating a tree for each departure time, the departures at the start stops are handled from the latest
+     * to the earliest, keeping the arrival costs found for the later departures. To make the costs of different departures
+     * comparable, the cost of waiting from the earliest departure time until the departure is added to the costs, see also
+     * {@link #calcRoutes(double, double, double, Facility, Facility, List, List, RaptorParameters, Person)}. A departure thus
+     * only improves the stops which it reaches with lower costs than all later departures, and the journeys found for each stop
+     * are the ones not dominated by a journey departing later.
+     *
+     * Journeys start with the departure of a route at one of the start stops, transfers at the start stops are not considered.
+     * Stops which can only be reached by walking are not part of the result.
+     *
+     * @return for each reachable stop, the journeys to it, ordered by descending departure time at the start stop.
+     */
+    public Map<Id<TransitStopFacility>, List<TravelInfo>> calcLeastCostTreeProfile(double earliestDepTime, double latestDepTime, Collection<InitialStop> startStops, RaptorParameters parameters, Person person) {
+        reset();
+
+        double marginalUtilityOfWaitingPt_utl_s = parameters.getMarginalUtilityOfWaitingPt_utl_s();
+        List<DepartureAtRouteStop> departures = new ArrayList<>();
+        for (InitialStop startStop : startStops) {
+            int[] routeStopIndices = this.data.routeStopsPerStopFacility.get(startStop.stop);
+            if (routeStopIndices == null) {
+                continue;
+            }
+            double earliestTimeAtStop = earliestDepTime + startStop.accessTime;
+            double latestTimeAtStop = latestDepTime + startStop.accessTime;
+            for (int routeStopIndex : routeStopIndices) {
+                RRouteStop routeStop = this.data.routeStops[routeStopIndex];
+                RRoute route = this.data.routes[routeStop.transitRouteIndex];
+                if (routeStopIndex == route.indexFirstRouteStop + route.countRouteStops - 1) {
+                    // this is the last stop of a route
+                    continue;
+                }
+                for (int depIndex = route.indexFirstDeparture; depIndex < route.indexFirstDeparture + route.countDepartures; depIndex++) {
+                    int depTimeAtStop = this.data.departures[depIndex] + routeStop.departureOffset;
+                    if (depTimeAtStop >= earliestTimeAtStop && depTimeAtStop <= latestTimeAtStop) {
+                        // the additional waiting time compared to the earliest departure
+                        double costOffset = (depTimeAtStop - earliestTimeAtStop) * -marginalUtilityOfWaitingPt_utl_s;
+                        departures.add(new DepartureAtRouteStop(routeStop, routeStopIndex, depIndex, depTimeAtStop, costOffset, startStop));
+                    }
+                }
+            }
+        }
+        departures.sort((d1, d2) -> {
+            // from the latest to the earliest departure
+            int cmp = Double.compare(d2.depTime - d2.accessStop.accessTime, d1.depTime - d1.accessStop.accessTime);
+            if (cmp == 0) {
+                cmp = Integer.compare(d1.departureIndex, d2.departureIndex);
+            }
+            return cmp;
+        });
+
+        TransitStopFacility[] stopFacilities = new TransitStopFacility[this.data.countStops];
+        for (Map.Entry<TransitStopFacility, Integer> e : this.data.stopFacilityIndices.entrySet()) {
+            stopFacilities[e.getValue()] = e.getKey();
+        }
+
+        Map<Id<TransitStopFacility>, List<TravelInfo>> result = new HashMap<>();
+        BitSet reachedStops = new BitSet(this.data.countStops);
+        for (DepartureAtRouteStop depAtRouteStop : departures) {
+            double arrivalCost = depAtRouteStop.accessStop.accessCost + depAtRouteStop.costOffset;
+            int routeStopIndex = depAtRouteStop.routeStopIndex;
+            if (arrivalCost >= this.leastArrivalCostAtRouteStop[routeStopIndex]) {
+                // a later departure reaches this route stop with lower cost
+                continue;
+            }
+            // The labels (arrivalPath* and leastArrivalCost*) are deliberately kept from the later departures, so that
+            // this departure only improves stops it reaches with lower costs (rRAPTOR). All other state is per departure.
+            // There are no destinations in a tree, so destinationRouteStopIndices stays empty and bestArrivalCost infinite.
+            resetForNextDeparture();
+            reachedStops.clear();
+
+            PathElement pe = new PathElement(null, depAtRouteStop.routeStop, TIME_UNDEFINED, TIME_UNDEFINED, depAtRouteStop.depTime, arrivalCost, 0, depAtRouteStop.accessStop.distance, 0, true, null, depAtRouteStop.accessStop);
+            this.arrivalPathPerRouteStop[routeStopIndex] = pe;
+            this.leastArrivalCostAtRouteStop[routeStopIndex] = arrivalCost;
+            this.improvedRouteStopIndices.set(routeStopIndex);
+
+            // the main loop
+            while (true) {
+                // second stage: process routes
+                exploreRoutes(parameters, person);
+                reachedStops.or(this.improvedStops);
+
+                if (this.improvedStops.isEmpty()) {
+                    break;
+                }
+
+                // third stage (according to paper): handle footpaths / transfers
+                handleTransfers(true, parameters);
+                reachedStops.or(this.tmpImprovedStops);
+
+                // final stage: check stop criterion
+                if (this.improvedRouteStopIndices.isEmpty()) {
+                    break;
+                }
+            }
+
+            for (int stopIndex = reachedStops.nextSetBit(0); stopIndex >= 0; stopIndex = reachedStops.nextSetBit(stopIndex + 1)) {
+                PathElement destination = this.arrivalPathPerStop[stopIndex];
+                PathElement firstStage = destination;
+                while (firstStage.comingFrom != null) {
+                    firstStage = firstStage.comingFrom;
+                }
+                if (firstStage == pe) {
+                    // otherwise, the stop was reached with the same cost by a journey of a later departure
+                    TravelInfo ti = getTravelInfo(destination, parameters);
+                    result.computeIfAbsent(stopFacilities[stopIndex].getId(), id -> new ArrayList<>()).add(ti);
+                }
+            }
+        }
+        return result;
+    }
+
+    private void resetForNextDeparture() {
+        this.improvedStops.clear();
+        this.improvedRouteStopIndices.clear();
+        this.reachedRouteStopIndices.clear();
+        this.tmpImprovedStops.clear();
+    }
+
     private TravelInfo getTravelInfo(PathElement destination, RaptorParameters parameters) {
         PathElement firstStage = destination;
         PathElement secondStage = null;
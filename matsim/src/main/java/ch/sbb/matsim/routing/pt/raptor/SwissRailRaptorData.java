@@ -42,12 +42,15 @@ import org.matsim.vehicles.Vehicle;
 import org.matsim.vehicles.Vehicles;
 
 import javax.annotation.Nullable;
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
@@ -98,7 +101,27 @@ public class SwissRailRaptorData {
     }
 
     public static SwissRailRaptorData create(TransitSchedule schedule, @Nullable Vehicles transitVehicles, RaptorStaticConfig staticConfig, Network network, OccupancyData occupancyData) {
-        log.info("Preparing data for SwissRailRaptor...");
+        return create(schedule, transitVehicles, staticConfig, network, occupancyData, null, null);
+    }
+
+    /**
+     * Creates the data for a modified transit schedule, only recalculating the transfers from or to route stops of the
+     * given transit lines. All other transfers are taken over from this data, as they only depend on the two routes
+     * involved. This is much faster than creating the data from scratch if only a few lines changed, e.g. in minibus-like
+     * simulations where some lines are modified or replaced in each iteration.
+     * <p>
+     * The stop facilities used by the unchanged lines and the minimal transfer times must not have been modified.
+     * Removed lines can simply be included in the changed lines.
+     *
+     * @param changedLineIds the ids of all transit lines that were added, removed or modified since this data was created
+     */
+    public SwissRailRaptorData update(TransitSchedule schedule, @Nullable Vehicles transitVehicles, Network network, Set<Id<TransitLine>> changedLineIds) {
+        return create(schedule, transitVehicles, this.config, network, this.occupancyData, this, changedLineIds);
+    }
+
+    private static SwissRailRaptorData create(TransitSchedule schedule, @Nullable Vehicles transitVehicles, RaptorStaticConfig staticConfig, Network network, OccupancyData occupancyData,
+                                              SwissRailRaptorData previousData, Set<Id<TransitLine>> changedLineIds) {
+        log.info(previousData == null ? "Preparing data for SwissRailRaptor..." : "Updating data for SwissRailRaptor, " + changedLineIds.size() + " transit lines changed...");
         long startMillis = System.currentTimeMillis();
 
         Map<Id<Vehicle>, Vehicle> vehicles = transitVehicles == null ? Collections.emptyMap() : transitVehicles.getVehicles();
@@ -200,7 +223,59 @@ public class SwissRailRaptorData {
         QuadTree<TransitStopFacility> stopsQT = TransitScheduleUtils.createQuadTreeOfTransitStopFacilities(stops);
         int countStopFacilities = stops.size();
 
-        Map<Integer, RTransfer[]> allTransfers = calculateRouteStopTransfers(schedule, stopsQT, routeStopsPerStopFacility, routeStops, staticConfig);
+        RTransfer[] transfers = null;
+        Path cacheFile = null;
+        byte[] checksum = null;
+        if (staticConfig.getDataCacheDirectory() != null) {
+            checksum = SwissRailRaptorDataCache.calcChecksum(schedule, routeStops, staticConfig);
+            cacheFile = SwissRailRaptorDataCache.getCacheFile(staticConfig.getDataCacheDirectory(), checksum);
+            try {
+                transfers = SwissRailRaptorDataCache.readTransfers(cacheFile, checksum, routeStops.length);
+                if (transfers != null) {
+                    log.info("read transfers from " + cacheFile);
+                }
+            } catch (IOException e) {
+                log.warn("could not read transfers from " + cacheFile + ", calculating them again.", e);
+            }
+        }
+        if (transfers == null) {
+            if (previousData == null) {
+                transfers = calculateTransfers(schedule, stopsQT, routeStopsPerStopFacility, routeStops, staticConfig);
+            } else {
+                transfers = updateTransfers(previousData, changedLineIds, schedule, stopsQT, routeStopsPerStopFacility, routeStops, staticConfig);
+            }
+            if (cacheFile != null) {
+                try {
+                    SwissRailRaptorDataCache.writeTransfers(cacheFile, checksum, routeStops.length, transfers);
+                    log.info("wrote transfers to " + cacheFile);
+                } catch (IOException e) {
+                    log.warn("could not write transfers to " + cacheFile, e);
+                }
+            }
+        }
+        // the transfers are ordered by their from route stop
+        for (int indexTransfer = 0; indexTransfer < transfers.length; indexTransfer++) {
+            RRouteStop routeStop = routeStops[transfers[indexTransfer].fromRouteStop];
+            if (routeStop.countTransfers == 0) {
+                routeStop.indexFirstTransfer = indexTransfer;
+            }
+            routeStop.countTransfers++;
+        }
+
+        SwissRailRaptorData data = new SwissRailRaptorData(staticConfig, countStopFacilities, routes, departures, departureVehicles, departureIds, routeStops, transfers, stopFacilityIndices, routeStopsPerStopFacility, stopsQT, occupancyData);
+
+        long endMillis = System.currentTimeMillis();
+        log.info("SwissRailRaptor data preparation done. Took " + (endMillis - startMillis) / 1000 + " seconds.");
+        log.info("SwissRailRaptor statistics:  #routes = " + routes.length);
+        log.info("SwissRailRaptor statistics:  #departures = " + departures.length);
+        log.info("SwissRailRaptor statistics:  #routeStops = " + routeStops.length);
+        log.info("SwissRailRaptor statistics:  #stopFacilities = " + countStopFacilities);
+        log.info("SwissRailRaptor statistics:  #transfers (between routeStops) = " + transfers.length);
+        return data;
+    }
+
+    private static RTransfer[] calculateTransfers(TransitSchedule schedule, QuadTree<TransitStopFacility> stopsQT, Map<TransitStopFacility, int[]> routeStopsPerStopFacility, RRouteStop[] routeStops, RaptorStaticConfig config) {
+        Map<Integer, RTransfer[]> allTransfers = calculateRouteStopTransfers(schedule, stopsQT, routeStopsPerStopFacility, routeStops, config);
         long countTransfers = 0;
         for (RTransfer[] transfers : allTransfers.values()) {
             countTransfers += transfers.length;
@@ -214,33 +289,165 @@ public class SwissRailRaptorData {
             RTransfer[] stopTransfers = allTransfers.get(routeStopIndex);
             int transferCount = stopTransfers == null ? 0 : stopTransfers.length;
             if (transferCount > 0) {
-                RRouteStop routeStop = routeStops[routeStopIndex];
-                routeStop.indexFirstTransfer = indexTransfer;
-                routeStop.countTransfers = transferCount;
                 System.arraycopy(stopTransfers, 0, transfers, indexTransfer, transferCount);
                 indexTransfer += transferCount;
             }
         }
+        return transfers;
+    }
 
-        SwissRailRaptorData data = new SwissRailRaptorData(staticConfig, countStopFacilities, routes, departures, departureVehicles, departureIds, routeStops, transfers, stopFacilityIndices, routeStopsPerStopFacility, stopsQT, occupancyData);
+    private static RTransfer[] updateTransfers(SwissRailRaptorData previousData, Set<Id<TransitLine>> changedLineIds, TransitSchedule schedule, QuadTree<TransitStopFacility> stopsQT, Map<TransitStopFacility, int[]> routeStopsPerStopFacility, RRouteStop[] routeStops, RaptorStaticConfig config) {
+        // find the new index of the route stops of all unchanged routes
+        Map<TransitRoute, Integer> firstRouteStopIndices = new HashMap<>();
+        for (RRouteStop routeStop : routeStops) {
+            if (!changedLineIds.contains(routeStop.line.getId())) {
+                firstRouteStopIndices.putIfAbsent(routeStop.route, routeStop.index);
+            }
+        }
+        int[] newRouteStopIndices = new int[previousData.routeStops.length];
+        Arrays.fill(newRouteStopIndices, -1);
+        boolean[] isUnchanged = new boolean[routeStops.length];
+        for (RRoute previousRoute : previousData.routes) {
+            if (previousRoute.countRouteStops == 0) {
+                continue;
+            }
+            TransitRoute route = previousData.routeStops[previousRoute.indexFirstRouteStop].route;
+            Integer firstRouteStopIndex = firstRouteStopIndices.get(route);
+            if (firstRouteStopIndex != null && isSameRoute(previousData, previousRoute, routeStops, firstRouteStopIndex)) {
+                for (int i = 0; i < previousRoute.countRouteStops; i++) {
+                    newRouteStopIndices[previousRoute.indexFirstRouteStop + i] = firstRouteStopIndex + i;
+                    isUnchanged[firstRouteStopIndex + i] = true;
+                }
+            }
+        }
 
-        long endMillis = System.currentTimeMillis();
-        log.info("SwissRailRaptor data preparation done. Took " + (endMillis - startMillis) / 1000 + " seconds.");
-        log.info("SwissRailRaptor statistics:  #routes = " + routes.length);
-        log.info("SwissRailRaptor statistics:  #departures = " + departures.length);
-        log.info("SwissRailRaptor statistics:  #routeStops = " + routeStops.length);
-        log.info("SwissRailRaptor statistics:  #stopFacilities = " + countStopFacilities);
-        log.info("SwissRailRaptor statistics:  #transfers (between routeStops) = " + transfers.length);
-        return data;
+        // transfers between unchanged routes stay the same, as they only depend on the two routes involved
+        List<RTransfer> transfers = new ArrayList<>(previousData.transfers.length);
+        for (RTransfer transfer : previousData.transfers) {
+            int fromRouteStopIndex = newRouteStopIndices[transfer.fromRouteStop];
+            int toRouteStopIndex = newRouteStopIndices[transfer.toRouteStop];
+            if (fromRouteStopIndex >= 0 && toRouteStopIndex >= 0) {
+                transfers.add(new RTransfer(fromRouteStopIndex, toRouteStopIndex, transfer.transferTime, transfer.transferDistance));
+            }
+        }
+        int countKeptTransfers = transfers.size();
+
+        // the minimal transfer times can add transfers in both directions
+        Map<TransitStopFacility, List<TransitStopFacility>> additionalDestinationStops = new HashMap<>();
+        Map<TransitStopFacility, List<TransitStopFacility>> additionalOriginStops = new HashMap<>();
+        MinimalTransferTimes.MinimalTransferTimesIterator iter = schedule.getMinimalTransferTimes().iterator();
+        while (iter.hasNext()) {
+            iter.next();
+            TransitStopFacility fromStop = schedule.getFacilities().get(iter.getFromStopId());
+            TransitStopFacility toStop = schedule.getFacilities().get(iter.getToStopId());
+            if (fromStop != null && toStop != null) {
+                additionalDestinationStops.computeIfAbsent(fromStop, stop -> new ArrayList<>(5)).add(toStop);
+                additionalOriginStops.computeIfAbsent(toStop, stop -> new ArrayList<>(5)).add(fromStop);
+            }
+        }
+
+        // calculate the transfers from and to the route stops of changed routes
+        Set<TransitStopFacility> changedStops = new HashSet<>();
+        for (RRouteStop routeStop : routeStops) {
+            if (!isUnchanged[routeStop.index]) {
+                changedStops.add(routeStop.routeStop.getStopFacility());
+            }
+        }
+        double maxBeelineWalkConnectionDistance = config.getBeelineWalkConnectionDistance();
+        for (TransitStopFacility changedStop : changedStops) {
+            Coord coord = changedStop.getCoord();
+            Collection<TransitStopFacility> nearbyStops = stopsQT.getDisk(coord.getX(), coord.getY(), maxBeelineWalkConnectionDistance);
+            List<TransitStopFacility> destinationStops = new ArrayList<>(nearbyStops);
+            List<TransitStopFacility> originStops = new ArrayList<>(nearbyStops);
+            for (TransitStopFacility stop : additionalDestinationStops.getOrDefault(changedStop, Collections.emptyList())) {
+                if (!destinationStops.contains(stop)) {
+                    destinationStops.add(stop);
+                }
+            }
+            for (TransitStopFacility stop : additionalOriginStops.getOrDefault(changedStop, Collections.emptyList())) {
+                if (!originStops.contains(stop)) {
+                    originStops.add(stop);
+                }
+            }
+            for (TransitStopFacility toStop : destinationStops) {
+                addChangedTransfers(transfers, changedStop, toStop, true, routeStopsPerStopFacility, routeStops, isUnchanged, schedule, config);
+            }
+            for (TransitStopFacility fromStop : originStops) {
+                addChangedTransfers(transfers, fromStop, changedStop, false, routeStopsPerStopFacility, routeStops, isUnchanged, schedule, config);
+            }
+        }
+        log.info("SwissRailRaptor update: kept " + countKeptTransfers + " of " + previousData.transfers.length + " transfers, calculated " + (transfers.size() - countKeptTransfers) + " new transfers.");
+
+        transfers.sort(Comparator.comparingInt(transfer -> transfer.fromRouteStop));
+        return transfers.toArray(new RTransfer[0]);
+    }
+
+    private static boolean isSameRoute(SwissRailRaptorData previousData, RRoute previousRoute, RRouteStop[] routeStops, int firstRouteStopIndex) {
+        TransitRoute route = routeStops[firstRouteStopIndex].route;
+        if (route.getStops().size() != previousRoute.countRouteStops || route.getDepartures().size() != previousRoute.countDepartures) {
+            return false;
+        }
+        for (int i = 0; i < previousRoute.countRouteStops; i++) {
+            RRouteStop previousRouteStop = previousData.routeStops[previousRoute.indexFirstRouteStop + i];
+            RRouteStop routeStop = routeStops[firstRouteStopIndex + i];
+            if (routeStop.routeStop != previousRouteStop.routeStop || !routeStop.mode.equals(previousRouteStop.mode)
+                    || routeStop.arrivalOffset != previousRouteStop.arrivalOffset || routeStop.departureOffset != previousRouteStop.departureOffset) {
+                return false;
+            }
+        }
+        // the departures of the previous data are sorted
+        Departure earliestDep = getEarliestDeparture(route);
+        Departure latestDep = getLatestDeparture(route);
+        return earliestDep == null
+                || ((int) earliestDep.getDepartureTime() == previousData.departures[previousRoute.indexFirstDeparture]
+                && (int) latestDep.getDepartureTime() == previousData.departures[previousRoute.indexFirstDeparture + previousRoute.countDepartures - 1]);
+    }
+
+    /**
+     * Adds the useful transfers between the route stops of two stop facilities. If <code>fromChanged</code> is true, only transfers from route stops of changed routes
+     * are added, otherwise only transfers from route stops of unchanged routes to route stops of changed routes, so no transfer is added twice.
+     */
+    private static void addChangedTransfers(List<RTransfer> transfers, TransitStopFacility fromStop, TransitStopFacility toStop, boolean fromChanged,
+                                            Map<TransitStopFacility, int[]> routeStopsPerStopFacility, RRouteStop[] routeStops, boolean[] isUnchanged,
+                                            TransitSchedule schedule, RaptorStaticConfig config) {
+        int[] fromRouteStopIndices = routeStopsPerStopFacility.get(fromStop);
+        int[] toRouteStopIndices = routeStopsPerStopFacility.get(toStop);
+        if (fromRouteStopIndices == null || toRouteStopIndices == null) {
+            return;
+        }
+        double beelineDistance = CoordUtils.calcEuclideanDistance(fromStop.getCoord(), toStop.getCoord());
+        double transferTime = calcTransferTime(fromStop, toStop, beelineDistance, schedule.getMinimalTransferTimes(), config);
+        double transferDistance = beelineDistance * config.getBeelineWalkDistanceFactor();
+        for (int fromRouteStopIndex : fromRouteStopIndices) {
+            if (isUnchanged[fromRouteStopIndex] == fromChanged) {
+                continue;
+            }
+            RRouteStop fromRouteStop = routeStops[fromRouteStopIndex];
+            for (int toRouteStopIndex : toRouteStopIndices) {
+                if (!fromChanged && isUnchanged[toRouteStopIndex]) {
+                    continue;
+                }
+                RRouteStop toRouteStop = routeStops[toRouteStopIndex];
+                if (isUsefulTransfer(fromRouteStop, toRouteStop, config.getBeelineWalkConnectionDistance(), config.getOptimization())) {
+                    transfers.add(new RTransfer(fromRouteStopIndex, toRouteStopIndex, transferTime, transferDistance));
+                }
+            }
+        }
+    }
+
+    private static double calcTransferTime(TransitStopFacility fromStop, TransitStopFacility toStop, double beelineDistance, MinimalTransferTimes mtt, RaptorStaticConfig config) {
+        double transferTime = beelineDistance / config.getBeelineWalkSpeed();
+        if (transferTime < config.getMinimalTransferTime()) {
+            transferTime = config.getMinimalTransferTime();
+        }
+        return mtt.get(fromStop.getId(), toStop.getId(), transferTime);
     }
 
     // calculate possible transfers between TransitRouteStops
     private static Map<Integer, RTransfer[]> calculateRouteStopTransfers(TransitSchedule schedule, QuadTree<TransitStopFacility> stopsQT, Map<TransitStopFacility, int[]> routeStopsPerStopFacility, RRouteStop[] routeStops, RaptorStaticConfig config) {
         Map<Integer, RTransfer[]> transfers = new HashMap<>(stopsQT.size() * 5);
         double maxBeelineWalkConnectionDistance = config.getBeelineWalkConnectionDistance();
-        double beelineWalkSpeed = config.getBeelineWalkSpeed();
         double beelineDistanceFactor = config.getBeelineWalkDistanceFactor();
-        double minimalTransferTime = config.getMinimalTransferTime();
 
         Map<TransitStopFacility, List<TransitStopFacility>> stopToStopsTransfers = new HashMap<>();
 
@@ -276,14 +483,7 @@ public class SwissRailRaptorData {
             for (TransitStopFacility toStop : nearbyStops) {
                 int[] toRouteStopIndices = routeStopsPerStopFacility.get(toStop);
                 double beelineDistance = CoordUtils.calcEuclideanDistance(fromCoord, toStop.getCoord());
-                double transferTime = beelineDistance / beelineWalkSpeed;
-                if (transferTime < minimalTransferTime) {
-                    transferTime = minimalTransferTime;
-                }
-
-                transferTime = mtt.get(fromStop.getId(), toStop.getId(), transferTime);
-
-                final double fixedTransferTime = transferTime; // variables must be effective final to be used in lambdas (below)
+                final double fixedTransferTime = calcTransferTime(fromStop, toStop, beelineDistance, mtt, config); // variables must be effective final to be used in lambdas (below)
 
                 for (int fromRouteStopIndex : fromRouteStopIndices) {
                     RRouteStop fromRouteStop = routeStops[fromRouteStopIndex];
@@ -0,0 +1,210 @@
+/* *********************************************************************** *
+ * project: org.matsim.* 												   *
+ *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2023 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package ch.sbb.matsim.routing.pt.raptor;
+
+import ch.sbb.matsim.routing.pt.raptor.SwissRailRaptorData.RRouteStop;
+import ch.sbb.matsim.routing.pt.raptor.SwissRailRaptorData.RTransfer;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.matsim.pt.transitSchedule.api.Departure;
+import org.matsim.pt.transitSchedule.api.MinimalTransferTimes;
+import org.matsim.pt.transitSchedule.api.TransitSchedule;
+import org.matsim.pt.transitSchedule.api.TransitStopFacility;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Stores the transfers between route stops of {@link SwissRailRaptorData} in a file, so they do not need to be calculated
+ * again by later runs with the same transit schedule. Calculating the transfers is the most expensive part of preparing
+ * the data, while the route stops and departures reference the objects of the transit schedule and are quickly rebuilt.
+ * <p>
+ * The file is identified by a checksum of all data the transfers depend on: the route stops with their stop facilities and
+ * offsets, the first and last departure of each route, the minimal transfer times and the relevant parts of the
+ * {@link RaptorStaticConfig}. The file is memory-mapped when it is read, so several processes reading the same file share the
+ * operating system's page cache.
+ */
+final class SwissRailRaptorDataCache {
+
+	private static final Logger log = LogManager.getLogger(SwissRailRaptorDataCache.class);
+
+	private static final int MAGIC = 0x53525244; // "SRRD"
+	private static final int VERSION = 1;
+	private static final int CHECKSUM_LENGTH = 32;
+	private static final int HEADER_LENGTH = 4 + 4 + CHECKSUM_LENGTH + 4 + 4;
+
+	private SwissRailRaptorDataCache() {
+	}
+
+	static byte[] calcChecksum(TransitSchedule schedule, RRouteStop[] routeStops, RaptorStaticConfig config) {
+		MessageDigest digest;
+		try {
+			digest = MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			throw new RuntimeException(e);
+		}
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new DigestOutputStream(OutputStream.nullOutputStream(), digest)))) {
+			out.writeInt(VERSION);
+			out.writeDouble(config.getBeelineWalkConnectionDistance());
+			out.writeDouble(config.getBeelineWalkSpeed());
+			out.writeDouble(config.getBeelineWalkDistanceFactor());
+			out.writeDouble(config.getMinimalTransferTime());
+			out.writeUTF(config.getOptimization().name());
+
+			out.writeInt(routeStops.length);
+			for (RRouteStop routeStop : routeStops) {
+				TransitStopFacility stop = routeStop.routeStop.getStopFacility();
+				out.writeUTF(routeStop.line.getId().toString());
+				out.writeUTF(routeStop.route.getId().toString());
+				out.writeUTF(stop.getId().toString());
+				out.writeDouble(stop.getCoord().getX());
+				out.writeDouble(stop.getCoord().getY());
+				out.writeInt(routeStop.transitRouteIndex);
+				out.writeInt(routeStop.arrivalOffset);
+				out.writeInt(routeStop.departureOffset);
+				if (routeStop.routeStop == routeStop.route.getStops().get(0)) {
+					double earliest = Double.POSITIVE_INFINITY;
+					double latest = Double.NEGATIVE_INFINITY;
+					for (Departure dep : routeStop.route.getDepartures().values()) {
+						earliest = Math.min(earliest, dep.getDepartureTime());
+						latest = Math.max(latest, dep.getDepartureTime());
+					}
+					out.writeInt(routeStop.route.getStops().size());
+					out.writeDouble(earliest);
+					out.writeDouble(latest);
+				}
+			}
+
+			// the order of the minimal transfer times is not defined
+			List<String> minimalTransferTimes = new ArrayList<>();
+			MinimalTransferTimes.MinimalTransferTimesIterator iter = schedule.getMinimalTransferTimes().iterator();
+			while (iter.hasNext()) {
+				iter.next();
+				minimalTransferTimes.add(iter.getFromStopId() + "\t" + iter.getToStopId() + "\t" + iter.getSeconds());
+			}
+			minimalTransferTimes.sort(null);
+			out.writeInt(minimalTransferTimes.size());
+			for (String mtt : minimalTransferTimes) {
+				out.writeUTF(mtt);
+			}
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		}
+		return digest.digest();
+	}
+
+	static Path getCacheFile(Path cacheDirectory, byte[] checksum) {
+		StringBuilder name = new StringBuilder("swissRailRaptor_");
+		for (int i = 0; i < 8; i++) {
+			name.append(String.format("%02x", checksum[i]));
+		}
+		return cacheDirectory.resolve(name.append(".bin").toString());
+	}
+
+	/**
+	 * @return the transfers, ordered by the index of their from route stop, or <code>null</code> if the file does not exist
+	 * or was written for a different transit schedule.
+	 */
+	static RTransfer[] readTransfers(Path file, byte[] checksum, int countRouteStops) throws IOException {
+		if (!Files.exists(file)) {
+			return null;
+		}
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			long size = channel.size();
+			if (size < HEADER_LENGTH) {
+				return null;
+			}
+			MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+			if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+				return null;
+			}
+			byte[] fileChecksum = new byte[CHECKSUM_LENGTH];
+			buffer.get(fileChecksum);
+			if (!Arrays.equals(checksum, fileChecksum) || buffer.getInt() != countRouteStops) {
+				return null;
+			}
+			int countTransfers = buffer.getInt();
+			if (size != HEADER_LENGTH + 16L * countTransfers) {
+				log.warn("SwissRailRaptor data cache " + file + " is incomplete.");
+				return null;
+			}
+			IntBuffer ints = buffer.asIntBuffer();
+			RTransfer[] transfers = new RTransfer[countTransfers];
+			for (int i = 0; i < countTransfers; i++) {
+				int fromRouteStop = ints.get();
+				int toRouteStop = ints.get();
+				int transferTime = ints.get();
+				int transferDistance = ints.get();
+				transfers[i] = new RTransfer(fromRouteStop, toRouteStop, transferTime, transferDistance);
+			}
+			return transfers;
+		}
+	}
+
+	/**
+	 * Writes the transfers to a temporary file first, so other processes never read a partially written file.
+	 */
+	static void writeTransfers(Path file, byte[] checksum, int countRouteStops, RTransfer[] transfers) throws IOException {
+		Files.createDirectories(file.toAbsolutePath().getParent());
+		Path tmpFile = Files.createTempFile(file.toAbsolutePath().getParent(), file.getFileName().toString(), ".tmp");
+		try {
+			try (FileChannel channel = FileChannel.open(tmpFile, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+				ByteBuffer header = ByteBuffer.allocate(HEADER_LENGTH);
+				header.putInt(MAGIC).putInt(VERSION).put(checksum).putInt(countRouteStops).putInt(transfers.length);
+				header.flip();
+				while (header.hasRemaining()) {
+					channel.write(header);
+				}
+				ByteBuffer buffer = ByteBuffer.allocate(16 * 4096);
+				for (int i = 0; i < transfers.length; i++) {
+					RTransfer transfer = transfers[i];
+					buffer.putInt(transfer.fromRouteStop).putInt(transfer.toRouteStop).putInt(transfer.transferTime).putInt(transfer.transferDistance);
+					if (!buffer.hasRemaining() || i == transfers.length - 1) {
+						buffer.flip();
+						while (buffer.hasRemaining()) {
+							channel.write(buffer);
+						}
+						buffer.clear();
+					}
+				}
+			}
+			Files.move(tmpFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} finally {
+			Files.deleteIfExists(tmpFile);
+		}
+	}
+}
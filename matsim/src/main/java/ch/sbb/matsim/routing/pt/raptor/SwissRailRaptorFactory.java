@@ -20,17 +20,22 @@
 
 package ch.sbb.matsim.routing.pt.raptor;
 
+import org.matsim.api.core.v01.Id;
 import org.matsim.api.core.v01.Scenario;
 import org.matsim.api.core.v01.network.Network;
 import org.matsim.core.api.experimental.events.EventsManager;
 import org.matsim.core.config.Config;
+import org.matsim.pt.router.TransitScheduleChangedEvent;
 import org.matsim.pt.router.TransitScheduleChangedEventHandler;
+import org.matsim.pt.transitSchedule.api.TransitLine;
 import org.matsim.pt.transitSchedule.api.TransitSchedule;
 import org.matsim.vehicles.Vehicles;
 
 import jakarta.inject.Inject;
 import jakarta.inject.Provider;
 import jakarta.inject.Singleton;
+import java.util.HashSet;
+import java.util.Set;
 
 /**
  * @author mrieser / SBB
@@ -39,6 +44,8 @@ import jakarta.inject.Singleton;
 public class SwissRailRaptorFactory implements Provider<SwissRailRaptor> {
 
     private SwissRailRaptorData data = null;
+    private SwissRailRaptorData previousData = null; // can be updated instead of creating the data from scratch
+    private Set<Id<TransitLine>> changedLineIds = null;
     private final TransitSchedule schedule;
     private final Vehicles transitVehicles;
     private final RaptorStaticConfig raptorConfig;
@@ -70,7 +77,7 @@ public class SwissRailRaptorFactory implements Provider<SwissRailRaptor> {
         this.transferCostCalculator = transferCostCalculator;
 
         if (events != null) {
-            events.addHandler((TransitScheduleChangedEventHandler) event -> this.data = null);
+            events.addHandler((TransitScheduleChangedEventHandler) this::handleScheduleChange);
         }
     }
 
@@ -93,8 +100,30 @@ public class SwissRailRaptorFactory implements Provider<SwissRailRaptor> {
             // prevent doing the work twice.
             return this.data;
         }
-        this.data = SwissRailRaptorData.create(this.schedule, this.transitVehicles, this.raptorConfig, this.network, this.occupancyData);
+        if (this.previousData != null) {
+            this.data = this.previousData.update(this.schedule, this.transitVehicles, this.network, this.changedLineIds);
+        } else {
+            this.data = SwissRailRaptorData.create(this.schedule, this.transitVehicles, this.raptorConfig, this.network, this.occupancyData);
+        }
+        this.previousData = null;
+        this.changedLineIds = null;
         return this.data;
     }
 
+    synchronized private void handleScheduleChange(TransitScheduleChangedEvent event) {
+        if (this.data != null) {
+            this.previousData = this.data;
+            this.changedLineIds = new HashSet<>();
+            this.data = null;
+        }
+        // the changes of several events are collected until the data is needed again
+        Set<Id<TransitLine>> lineIds = event.getChangedTransitLineIds();
+        if (lineIds == null || this.previousData == null) {
+            this.previousData = null;
+            this.changedLineIds = null;
+        } else {
+            this.changedLineIds.addAll(lineIds);
+        }
+    }
+
 }
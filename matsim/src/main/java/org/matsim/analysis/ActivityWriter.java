@@ -18,9 +18,11 @@ import org.matsim.core.utils.io.IOUtils;
 
 import java.io.BufferedWriter;
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
 
 public class ActivityWriter {
 
@@ -47,12 +49,17 @@ public class ActivityWriter {
 																					.setDelimiter(config.global().getDefaultDelimiter().charAt(0))
 																					.setHeader(header).build());
 
-			for (Map.Entry<Id<Person>, Plan> e : experiencedPlansService.getExperiencedPlans().entrySet()) {
-				writeActivitiesPerPerson(e.getKey(), e.getValue(), attributes, csvPrinter);
-			}
+			// passes the experienced plans one after the other, so they are not loaded into memory if they are streamed
+			experiencedPlansService.forEachExperiencedPlan((personId, plan) -> {
+				try {
+					writeActivitiesPerPerson(personId, plan, attributes, csvPrinter);
+				} catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+			});
 
 			csvPrinter.close();
-		} catch (IOException e) {
+		} catch (IOException | UncheckedIOException e) {
 			e.printStackTrace();
 		}
 
@@ -95,10 +102,13 @@ public class ActivityWriter {
 	}
 
 	private List<String> prepareAttributes() {
-		return experiencedPlansService.getExperiencedPlans().values().stream()
-                                      .flatMap(p -> TripStructureUtils.getActivities(p, TripStructureUtils.StageActivityHandling.ExcludeStageActivities).stream())
-                                      .flatMap(act -> act.getAttributes().getAsMap().keySet().stream())
-                                      .sorted().distinct().toList();
+		Set<String> attributes = new TreeSet<>();
+		experiencedPlansService.forEachExperiencedPlan((personId, plan) -> {
+			for (Activity act : TripStructureUtils.getActivities(plan, TripStructureUtils.StageActivityHandling.ExcludeStageActivities)) {
+				attributes.addAll(act.getAttributes().getAsMap().keySet());
+			}
+		});
+		return new ArrayList<>(attributes);
 	}
 
 	private static String[] prepareHeader(List<String> attributes) {
@@ -63,9 +63,10 @@ class IterationTravelStatsControlerListener implements IterationEndsListener, Sh
 
     @Override
     public void notifyIterationEnds(IterationEndsEvent event) {
-        travelDistanceStats.addIteration(event.getIteration(), experiencedPlansService.getExperiencedPlans());
-        pHbyModeCalculator.addIteration(event.getIteration(), experiencedPlansService.getExperiencedPlans());
-        pkMbyModeCalculator.addIteration(event.getIteration(), experiencedPlansService.getExperiencedPlans());
+        // the experienced plans are passed one after the other, so they are not loaded into memory if they are streamed
+        travelDistanceStats.addIteration(event.getIteration(), experiencedPlansService);
+        pHbyModeCalculator.addIteration(event.getIteration(), experiencedPlansService);
+        pkMbyModeCalculator.addIteration(event.getIteration(), experiencedPlansService);
 
 		boolean writeGraph = isWriteGraph(event);
 		pHbyModeCalculator.writeOutput(writeGraph);
@@ -73,7 +74,7 @@ class IterationTravelStatsControlerListener implements IterationEndsListener, Sh
 		travelDistanceStats.writeOutput(event.getIteration(), writeGraph);
 
         if (isWriteTripsAndLegs(event)) {
-            tripsAndLegsWriter.write(experiencedPlansService.getExperiencedPlans()
+            tripsAndLegsWriter.write(experiencedPlansService
                     , outputDirectoryHierarchy.getIterationFilename(event.getIteration(), Controler.DefaultFiles.tripscsv)
                     , outputDirectoryHierarchy.getIterationFilename(event.getIteration(), Controler.DefaultFiles.legscsv));
 
@@ -25,6 +25,7 @@ import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.util.AbstractMap;
+import java.util.HashMap;
 import java.util.Map;
 import java.util.TreeMap;
 import java.util.TreeSet;
@@ -40,6 +41,7 @@ import org.matsim.core.config.groups.GlobalConfigGroup;
 import org.matsim.core.controler.OutputDirectoryHierarchy;
 import org.matsim.core.router.StageActivityTypeIdentifier;
 import org.matsim.core.scoring.EventsToLegs;
+import org.matsim.core.scoring.ExperiencedPlansService;
 import org.matsim.core.utils.charts.StackedBarChart;
 
 /**
@@ -72,6 +74,17 @@ public class PHbyModeCalculator {
 		phtPerIteration.put(iteration,phtbyMode);
 	}
 
+	void addIteration(int iteration, ExperiencedPlansService experiencedPlansService) {
+		Map<String,TravelTimeAndWaitTime> phtbyMode = new HashMap<>();
+		experiencedPlansService.forEachExperiencedPlan((personId, plan) -> {
+			for (PlanElement pe : plan.getPlanElements()) {
+				AbstractMap.SimpleEntry<String, TravelTimeAndWaitTime> entry = mapPlanElementToEntry(pe);
+				phtbyMode.merge(entry.getKey(), entry.getValue(), TravelTimeAndWaitTime::sum);
+			}
+		});
+		phtPerIteration.put(iteration,phtbyMode);
+	}
+
 	private static AbstractMap.SimpleEntry<String, TravelTimeAndWaitTime> mapPlanElementToEntry(PlanElement pe) {
 		if (pe instanceof Leg leg) {
 			double travelTime = 0.0;
@@ -25,6 +25,7 @@ import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.util.AbstractMap;
+import java.util.HashMap;
 import java.util.Map;
 import java.util.TreeMap;
 import java.util.TreeSet;
@@ -38,8 +39,10 @@ import org.matsim.api.core.v01.IdMap;
 import org.matsim.api.core.v01.population.Leg;
 import org.matsim.api.core.v01.population.Person;
 import org.matsim.api.core.v01.population.Plan;
+import org.matsim.api.core.v01.population.PlanElement;
 import org.matsim.core.config.groups.GlobalConfigGroup;
 import org.matsim.core.controler.OutputDirectoryHierarchy;
+import org.matsim.core.scoring.ExperiencedPlansService;
 import org.matsim.core.utils.charts.StackedBarChart;
 
 /**
@@ -74,6 +77,20 @@ public class PKMbyModeCalculator {
         pmtPerIteration.put(iteration,pmtbyMode);
     }
 
+    void addIteration(int iteration, ExperiencedPlansService experiencedPlansService) {
+        Map<String,Double> pmtbyMode = new HashMap<>();
+        experiencedPlansService.forEachExperiencedPlan((personId, plan) -> {
+            for (PlanElement pe : plan.getPlanElements()) {
+                if (pe instanceof Leg leg) {
+                    double dist = leg.getRoute()!=null?leg.getRoute().getDistance():0;
+                    if (Double.isNaN(dist)) {dist = 0.0; }
+                    pmtbyMode.merge(leg.getMode(), dist, Double::sum);
+                }
+            }
+        });
+        pmtPerIteration.put(iteration,pmtbyMode);
+    }
+
     void writeOutput(boolean writePng) {
         writeCsv();
 		if (writePng){
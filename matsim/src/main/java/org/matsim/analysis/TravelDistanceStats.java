@@ -30,7 +30,7 @@ import org.matsim.core.config.groups.ControllerConfigGroup;
 import org.matsim.core.config.groups.GlobalConfigGroup;
 import org.matsim.core.controler.OutputDirectoryHierarchy;
 import org.matsim.core.router.TripStructureUtils;
-import org.matsim.core.router.TripStructureUtils.Trip;
+import org.matsim.core.scoring.ExperiencedPlansService;
 import org.matsim.core.utils.charts.XYLineChart;
 import org.matsim.core.utils.io.IOUtils;
 
@@ -40,6 +40,7 @@ import java.io.IOException;
 import java.io.UncheckedIOException;
 import java.util.*;
 import java.util.stream.Collectors;
+import java.util.stream.DoubleStream;
 
 /**
  *
@@ -111,11 +112,29 @@ public class TravelDistanceStats {
 	public void addIteration(int iteration, IdMap<Person, Plan> map) {
 		DoubleSummaryStatistics legStats = getLegStats(map);
 		DoubleSummaryStatistics tripStats = getTripStats(map);
+		addIteration(iteration, legStats, tripStats, map.size());
+	}
+
+	/**
+	 * Calculates the statistics plan by plan, so the experienced plans do not have to be in memory if they are streamed.
+	 */
+	public void addIteration(int iteration, ExperiencedPlansService experiencedPlansService) {
+		DoubleSummaryStatistics legStats = new DoubleSummaryStatistics();
+		DoubleSummaryStatistics tripStats = new DoubleSummaryStatistics();
+		int[] persons = {0};
+		experiencedPlansService.forEachExperiencedPlan((personId, plan) -> {
+			getLegDistances(plan).forEach(legStats);
+			getTripDistances(plan).forEach(tripStats);
+			persons[0]++;
+		});
+		addIteration(iteration, legStats, tripStats, persons[0]);
+	}
 
+	private void addIteration(int iteration, DoubleSummaryStatistics legStats, DoubleSummaryStatistics tripStats, int persons) {
 		log.info("-- average leg distance per plan (executed plans only): " + legStats.getAverage() + " meters");
-        log.info("average leg distance per Person (executed plans only): " + legStats.getSum() / map.size() + " meters (statistic on all " + legStats.getCount() + " legs which have a finite distance)");
+        log.info("average leg distance per Person (executed plans only): " + legStats.getSum() / persons + " meters (statistic on all " + legStats.getCount() + " legs which have a finite distance)");
         log.info("-- average trip distance per plan (executed plans only): " + tripStats.getAverage() + " meters");
-        log.info("average trip distance per Person (executed plans only): " + tripStats.getSum() / map.size() + " meters (statistic on all " + tripStats.getCount() + " trips which have a finite distance)");
+        log.info("average trip distance per Person (executed plans only): " + tripStats.getSum() / persons + " meters (statistic on all " + tripStats.getCount() + " trips which have a finite distance)");
         log.info("(TravelDistanceStats takes an average over all legs where the simulation reports travelled (network) distances");
 		log.info("(and teleported legs whose route contains a distance.)");// TODO: still valid?
 
@@ -199,36 +218,43 @@ public class TravelDistanceStats {
 	private static DoubleSummaryStatistics getTripStats(IdMap<Person, Plan> map) {
 		return map.values()
 				  .parallelStream()
-				  .flatMap(plan -> TripStructureUtils.getTrips(plan).stream())
-				  .mapToDouble(t -> {
-					  Trip trip = (Trip) t;
-					  return trip.getTripElements()
+				  .flatMapToDouble(TravelDistanceStats::getTripDistances)
+				  .summaryStatistics();
+	}
+
+	private static DoubleStream getTripDistances(Plan plan) {
+		return TripStructureUtils.getTrips(plan)
+				  .stream()
+				  .mapToDouble(trip -> trip.getTripElements()
 								 .stream()
 								 .filter(Leg.class::isInstance)
 								 .collect(Collectors.summingDouble(l -> {
 									 Leg leg = (Leg) l;
 									 // TODO NaN handling of Collectors.summingDouble will lead to many NaNs... rethink
 									 return leg.getRoute() != null ? leg.getRoute().getDistance() : Double.NaN;
-								 }));
-				  })
+								 })))
 				  // the following means trips with infinite distance are silently ignored.
-				  .filter(Double::isFinite)
-				  .summaryStatistics();
+				  .filter(Double::isFinite);
 	}
 
 	private static DoubleSummaryStatistics getLegStats(IdMap<Person, Plan> map) {
 		return map.values()
 				  //TODO: This probably doesn't control how many threads parallelStream is using despite the number of threads setting in config
 				  .parallelStream()
-				  .flatMap(plan -> plan.getPlanElements().stream())
+				  .flatMapToDouble(TravelDistanceStats::getLegDistances)
+				  .summaryStatistics();
+	}
+
+	private static DoubleStream getLegDistances(Plan plan) {
+		return plan.getPlanElements()
+				  .stream()
 				  .filter(Leg.class::isInstance)
 				  .mapToDouble(l -> {
 					  Leg leg = (Leg) l;
 					  return leg.getRoute() != null ? leg.getRoute().getDistance() : Double.NaN;
 				  })
 				  // the following means legs with infinite distance are ignored
-				  .filter(Double::isFinite)
-				  .summaryStatistics();
+				  .filter(Double::isFinite);
 	}
 
 	public void close() {
@@ -37,6 +37,7 @@ import org.matsim.api.core.v01.population.*;
 import org.matsim.core.router.AnalysisMainModeIdentifier;
 import org.matsim.core.router.TripStructureUtils;
 import org.matsim.core.scoring.EventsToLegs;
+import org.matsim.core.scoring.ExperiencedPlansService;
 import org.matsim.core.utils.collections.Tuple;
 import org.matsim.core.utils.geometry.CoordUtils;
 import org.matsim.core.utils.io.IOUtils;
@@ -46,10 +47,13 @@ import org.matsim.pt.routes.TransitPassengerRoute;
 import org.matsim.vehicles.Vehicle;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 
@@ -96,17 +100,32 @@ public class TripsAndLegsWriter {
 	}
 
 	public void write(IdMap<Person, Plan> experiencedPlans, String tripsFilename, String legsFilename) {
+		write(experiencedPlans::forEach, tripsFilename, legsFilename);
+	}
+
+	/**
+	 * Writes the experienced plans one after the other, so they do not have to be in memory if they are streamed.
+	 */
+	public void write(ExperiencedPlansService experiencedPlansService, String tripsFilename, String legsFilename) {
+		write(experiencedPlansService::forEachExperiencedPlan, tripsFilename, legsFilename);
+	}
+
+	private void write(Consumer<BiConsumer<Id<Person>, Plan>> experiencedPlans, String tripsFilename, String legsFilename) {
         try (CSVPrinter tripsCSVprinter = new CSVPrinter(IOUtils.getBufferedWriter(tripsFilename),
                 CSVFormat.Builder.create().setDelimiter(getDefaultDelimiter()).setHeader(TRIPSHEADER).build());
              CSVPrinter legsCSVprinter = new CSVPrinter(IOUtils.getBufferedWriter(legsFilename),
 				 CSVFormat.Builder.create().setDelimiter(getDefaultDelimiter()).setHeader(LEGSHEADER).build())
         ) {
-            for (Map.Entry<Id<Person>, Plan> entry : experiencedPlans.entrySet()) {
-                Tuple<Iterable<?>, Iterable<?>> tripsAndLegRecords = getPlanCSVRecords(entry.getValue(), entry.getKey());
-                tripsCSVprinter.printRecords(tripsAndLegRecords.getFirst());
-                legsCSVprinter.printRecords(tripsAndLegRecords.getSecond());
-            }
-        } catch (IOException e) {
+            experiencedPlans.accept((personId, plan) -> {
+                Tuple<Iterable<?>, Iterable<?>> tripsAndLegRecords = getPlanCSVRecords(plan, personId);
+                try {
+                    tripsCSVprinter.printRecords(tripsAndLegRecords.getFirst());
+                    legsCSVprinter.printRecords(tripsAndLegRecords.getSecond());
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (IOException | UncheckedIOException e) {
             e.printStackTrace();
         }
     }
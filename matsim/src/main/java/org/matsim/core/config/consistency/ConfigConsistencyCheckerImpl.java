@@ -52,6 +52,16 @@ public final class ConfigConsistencyCheckerImpl implements ConfigConsistencyChec
 		checkPlanCalcScore(config);
 		checkTransit(config);
 		checkConsistencyBetweenRouterAndTravelTimeCalculator( config );
+		checkSpeedyCHRoutingRandomness( config );
+	}
+
+	private static void checkSpeedyCHRoutingRandomness( final Config config ) {
+		if ( config.controller().getRoutingAlgorithmType() == RoutingAlgorithmType.SpeedyCH
+				&& config.routing().getRoutingRandomness() != 0. ) {
+			log.warn( "SpeedyCH searches all routes with the travel disutilities of one person, so the routing randomness of "
+					+ config.routing().getRoutingRandomness() + " is not applied when searching the routes.  Set "
+					+ "routing.routingRandomness to 0 or use another routing algorithm." );
+		}
 	}
 
 	static boolean checkConsistencyBetweenRouterAndTravelTimeCalculator( final Config config ) {
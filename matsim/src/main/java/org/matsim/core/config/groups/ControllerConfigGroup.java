@@ -34,11 +34,11 @@ import java.util.*;
 public final class ControllerConfigGroup extends ReflectiveConfigGroup {
 	private static final Logger log = LogManager.getLogger( ControllerConfigGroup.class );
 
-	public enum RoutingAlgorithmType {Dijkstra, AStarLandmarks, SpeedyALT}
+	public enum RoutingAlgorithmType {Dijkstra, AStarLandmarks, SpeedyALT, SpeedyCH}
 
 	public enum EventTypeToCreateScoringFunctions {IterationStarts, BeforeMobsim}
 
-	public enum EventsFileFormat {xml, pb, json}
+	public enum EventsFileFormat {xml, pb, json, binary}
 
 	public enum CompressionType {
 		none(""),
@@ -78,6 +78,7 @@ public final class ControllerConfigGroup extends ReflectiveConfigGroup {
 	private static final String CLEAN_ITERS_AT_END = "cleanItersAtEnd";
 	private static final String COMPRESSION_TYPE = "compressionType";
 	private static final String EVENT_TYPE_TO_CREATE_SCORING_FUNCTIONS = "createScoringFunctionType";
+	private static final String NUMBER_OF_SCORING_THREADS = "numberOfScoringThreads";
 
 	/*package*/ static final String MOBSIM = "mobsim";
 	public enum MobsimType {qsim, JDEQSim, hermes}
@@ -89,6 +90,7 @@ public final class ControllerConfigGroup extends ReflectiveConfigGroup {
 	private int lastIteration = 1000;
 	private RoutingAlgorithmType routingAlgorithmType = RoutingAlgorithmType.SpeedyALT;
 	private EventTypeToCreateScoringFunctions eventTypeToCreateScoringFunctions = EventTypeToCreateScoringFunctions.IterationStarts;
+	private int numberOfScoringThreads = 0;
 
 	private boolean linkToLinkRoutingEnabled = false;
 
@@ -141,6 +143,8 @@ public final class ControllerConfigGroup extends ReflectiveConfigGroup {
 
 		map.put(COMPRESSION_TYPE, "Compression algorithm to use when writing out data to files. Possible values: " + Arrays.toString(CompressionType.values()));
 		map.put(EVENT_TYPE_TO_CREATE_SCORING_FUNCTIONS, "Defines when the scoring functions for the population are created. Default=IterationStarts. Possible values: " + Arrays.toString(EventTypeToCreateScoringFunctions.values()));
+		map.put(NUMBER_OF_SCORING_THREADS, "Default=0. Number of threads the scoring functions are partitioned to by person id. 0 scores all persons directly on the events thread." +
+				" Larger values take the scoring load off the events thread, but require that all activity and leg handlers of EventsToActivities and EventsToLegs are thread-safe.");
 
 		map.put(MOBSIM, "Defines which mobility simulation will be used. Currently supported: " + Arrays.toString(MobsimType.values()) + IOUtils.NATIVE_NEWLINE + "\t\t" +
 				"Depending on the chosen mobsim, you'll have to add additional config modules to configure the corresponding mobsim." + IOUtils.NATIVE_NEWLINE + "\t\t" +
@@ -427,6 +431,16 @@ public final class ControllerConfigGroup extends ReflectiveConfigGroup {
 	public void setEventTypeToCreateScoringFunctions(EventTypeToCreateScoringFunctions eventTypeToCreateScoringFunctions) {
 		this.eventTypeToCreateScoringFunctions = eventTypeToCreateScoringFunctions;
 	}
+
+	@StringGetter(NUMBER_OF_SCORING_THREADS)
+	public int getNumberOfScoringThreads() {
+		return numberOfScoringThreads;
+	}
+
+	@StringSetter(NUMBER_OF_SCORING_THREADS)
+	public void setNumberOfScoringThreads(int numberOfScoringThreads) {
+		this.numberOfScoringThreads = numberOfScoringThreads;
+	}
 	// ---
 	int writePlansUntilIteration = 1 ;
 	public int getWritePlansUntilIteration() {
@@ -39,6 +39,7 @@ public final class GlobalConfigGroup extends ReflectiveConfigGroup {
 	@Override public Map<String, String> getComments() {
 		Map<String,String> map = super.getComments();
 		map.put(NUMBER_OF_THREADS, NUMBER_OF_THREADS_CMT ) ;
+		map.put(REPLANNING_BATCH_SIZE, REPLANNING_BATCH_SIZE_CMT ) ;
 		return map ;
 	}
 
@@ -94,6 +95,28 @@ public final class GlobalConfigGroup extends ReflectiveConfigGroup {
 		this.numberOfThreads = numberOfThreads;
 	}
 	// ---
+	@PositiveOrZero
+	private int replanningBatchSize = 0;
+	private static final String REPLANNING_BATCH_SIZE = "replanningBatchSize";
+	private static final String REPLANNING_BATCH_SIZE_CMT = "Number of plans a replanning thread takes at once from a shared queue of plans.  "
+			+ "0 (default) distributes the plans round-robin to the threads before they are started, which gives reproducible results, "
+			+ "but threads that get expensive plans hold up the others.  Values > 0 balance the load between the threads, but results "
+			+ "are only reproducible if the plan algorithms do not depend on which other plans they handled, e.g. via their own random number generator.";
+	/**
+	 * @return {@link #REPLANNING_BATCH_SIZE_CMT}
+	 */
+	@StringGetter( REPLANNING_BATCH_SIZE )
+	public int getReplanningBatchSize() {
+		return this.replanningBatchSize;
+	}
+	/**
+	 * @param replanningBatchSize -- {@link #REPLANNING_BATCH_SIZE_CMT}
+	 */
+	@StringSetter( REPLANNING_BATCH_SIZE )
+	public void setReplanningBatchSize(final int replanningBatchSize) {
+		this.replanningBatchSize = replanningBatchSize;
+	}
+	// ---
 	private String coordinateSystem = "Atlantis" ;
 	// see https://matsim.atlassian.net/browse/MATSIM-898
 	private static final String COORDINATE_SYSTEM = "coordinateSystem";
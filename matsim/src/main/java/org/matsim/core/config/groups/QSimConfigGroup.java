@@ -58,6 +58,8 @@ public final class QSimConfigGroup extends ReflectiveConfigGroup {
 	private static final String STUCK_TIME = "stuckTime";
 	private static final String REMOVE_STUCK_VEHICLES = "removeStuckVehicles";
 	private static final String NUMBER_OF_THREADS = "numberOfThreads";
+	private static final String NETSIM_ENGINE_SCHEDULING = "netsimEngineScheduling";
+	private static final String NETSIM_ENGINE_PARTITIONING = "netsimEnginePartitioning";
 	private static final String TRAFFIC_DYNAMICS = "trafficDynamics";
 	private static final String SIM_STARTTIME_INTERPRETATION = "simStarttimeInterpretation";
 	private static final String USE_PERSON_ID_FOR_MISSING_VEHICLE_ID = "usePersonIdForMissingVehicleId";
@@ -91,6 +93,24 @@ public final class QSimConfigGroup extends ReflectiveConfigGroup {
 	private boolean usePersonIdForMissingVehicleId = true;
 	@Positive
 	private int numberOfThreads = 1;
+
+	public enum NetsimEngineScheduling {
+		/** fixed partition of links and nodes per thread, synchronized by a thread pool */
+		threadpool,
+		/** many small link/node chunks handed to a work-stealing pool, ordered by their measured cost */
+		workStealing
+	}
+
+	private NetsimEngineScheduling netsimEngineScheduling = NetsimEngineScheduling.threadpool;
+
+	public enum NetsimEnginePartitioning {
+		/** nodes are assigned to the threads one after the other */
+		roundRobin,
+		/** contiguous regions of the network are assigned to the threads, see {@code MultilevelBisectionNetworkPartitioner} */
+		multilevelBisection
+	}
+
+	private NetsimEnginePartitioning netsimEnginePartitioning = NetsimEnginePartitioning.roundRobin;
 	//	private static final String CREATING_VEHICLES_FOR_ALL_NETWORK_MODES = "creatingVehiclesForAllNetworkModes";
 //	private boolean creatingVehiclesForAllNetworkModes = true;
 	// ---
@@ -171,6 +191,14 @@ public final class QSimConfigGroup extends ReflectiveConfigGroup {
 		map.put(NUMBER_OF_THREADS, "Number of threads used for the QSim.  "
 				+ "Note that this setting is independent from the \"global\" threads setting.  "
 				+ "In contrast to earlier versions, the non-parallel special version is no longer there.");
+		map.put(NETSIM_ENGINE_SCHEDULING, "How the work of the netsim engine is distributed over the threads. "
+				+ NetsimEngineScheduling.threadpool + ": one fixed partition of the network per thread (default); "
+				+ NetsimEngineScheduling.workStealing + ": many small partitions per thread, dispatched to a work-stealing pool "
+				+ "with the most expensive partitions of the previous time step first. Only makes a difference with more than one thread.");
+		map.put(NETSIM_ENGINE_PARTITIONING, "How the network is split among the threads of the netsim engine. "
+				+ NetsimEnginePartitioning.roundRobin + ": without regard to the topology (default; reproduces earlier results); "
+				+ NetsimEnginePartitioning.multilevelBisection + ": contiguous regions, so that fewer vehicles cross from one thread to another "
+				+ "and the data of one thread is close together in memory. Note that this changes the random numbers of the nodes.");
 		map.put(REMOVE_STUCK_VEHICLES, REMOVE_STUCK_VEHICLES_STRING);
 		map.put(STUCK_TIME, STUCK_TIME_STRING);
 
@@ -469,6 +497,26 @@ public final class QSimConfigGroup extends ReflectiveConfigGroup {
 		this.numberOfThreads = numberOfThreads;
 	}
 
+	@StringGetter(NETSIM_ENGINE_SCHEDULING)
+	public NetsimEngineScheduling getNetsimEngineScheduling() {
+		return this.netsimEngineScheduling;
+	}
+
+	@StringSetter(NETSIM_ENGINE_SCHEDULING)
+	public void setNetsimEngineScheduling(final NetsimEngineScheduling netsimEngineScheduling) {
+		this.netsimEngineScheduling = netsimEngineScheduling;
+	}
+
+	@StringGetter(NETSIM_ENGINE_PARTITIONING)
+	public NetsimEnginePartitioning getNetsimEnginePartitioning() {
+		return this.netsimEnginePartitioning;
+	}
+
+	@StringSetter(NETSIM_ENGINE_PARTITIONING)
+	public void setNetsimEnginePartitioning(final NetsimEnginePartitioning netsimEnginePartitioning) {
+		this.netsimEnginePartitioning = netsimEnginePartitioning;
+	}
+
 	@StringGetter(SIM_STARTTIME_INTERPRETATION)
 	public StarttimeInterpretation getSimStarttimeInterpretation() {
 		return simStarttimeInterpretation;
@@ -98,6 +98,29 @@ public final class RoutingConfigGroup extends ConfigGroup {
 	private static final String RANDOMNESS = "routingRandomness" ;
 	private double routingRandomness = 3. ;
 	// ---
+	private static final String LANDMARKS_CACHE_DIRECTORY = "landmarksCacheDirectory";
+	private static final String LANDMARKS_CACHE_DIRECTORY_CMT = "Directory in which the landmarks of the SpeedyALT router are stored, so that "
+																		+ "later runs on the same network do not need to calculate them again.  Not stored if null.";
+	private String landmarksCacheDirectory = null;
+	// ---
+	private static final String ROUTE_CACHE_SIZE = "routeCacheSize";
+	private static final String ROUTE_CACHE_SIZE_CMT = "Maximum number of trips kept in the route cache in front of the routing modules, which re-uses trips with the same "
+																		+ "origin, destination, mode and departure time bin instead of routing them again.  Person-specific routing "
+																		+ "(e.g. routing randomness or vehicle types) is ignored for cached trips.  The cache is disabled if 0 (default).";
+	private int routeCacheSize = 0;
+	private static final String ROUTE_CACHE_TIME_BIN_SIZE = "routeCacheTimeBinSize";
+	private static final String ROUTE_CACHE_TIME_BIN_SIZE_CMT = "Size of the departure time bins of the route cache, in seconds.";
+	private double routeCacheTimeBinSize = 900.;
+	private static final String ROUTE_CACHE_MAX_TRAVEL_TIME_CHANGE = "routeCacheMaxTravelTimeChange";
+	private static final String ROUTE_CACHE_MAX_TRAVEL_TIME_CHANGE_CMT = "At the start of each iteration, cached trips are invalidated if the travel time along their "
+																		+ "network routes changed by more than this fraction compared to when they were routed.";
+	private double routeCacheMaxTravelTimeChange = 0.05;
+	private static final String ROUTE_CACHE_MAX_AGE = "routeCacheMaxAge";
+	private static final String ROUTE_CACHE_MAX_AGE_CMT = "Number of iterations after which cached trips are removed even if the travel time along their "
+																		+ "routes did not change, so faster alternative routes are found.  Smaller values slow down the "
+																		+ "convergence towards the equilibrium less, larger values give more cache hits.";
+	private int routeCacheMaxAge = 10;
+	// ---
 	private static final String CLEAR_MODE_ROUTING_PARAMS = "clearDefaultTeleportedModeParams";
 	private static final String CLEAR_MODE_ROUTING_PARAMS_CMT = "Some typical teleportation routing params are set by default, such as for walk and bike.  " +
 																		"Setting this switch to \"true\" will clear them.  Note that this will also clear " +
@@ -520,6 +543,21 @@ public final class RoutingConfigGroup extends ConfigGroup {
 		else if (ACCESSEGRESSTYPE.equals( key ) ) {
 			this.setAccessEgressType(AccessEgressType.valueOf(value));
 		}
+		else if (LANDMARKS_CACHE_DIRECTORY.equals( key ) ) {
+			this.setLandmarksCacheDirectory( value );
+		}
+		else if (ROUTE_CACHE_SIZE.equals( key ) ) {
+			this.setRouteCacheSize( Integer.parseInt( value ) );
+		}
+		else if (ROUTE_CACHE_TIME_BIN_SIZE.equals( key ) ) {
+			this.setRouteCacheTimeBinSize( Double.parseDouble( value ) );
+		}
+		else if (ROUTE_CACHE_MAX_TRAVEL_TIME_CHANGE.equals( key ) ) {
+			this.setRouteCacheMaxTravelTimeChange( Double.parseDouble( value ) );
+		}
+		else if (ROUTE_CACHE_MAX_AGE.equals( key ) ) {
+			this.setRouteCacheMaxAge( Integer.parseInt( value ) );
+		}
 		else {
 			throw new IllegalArgumentException(key);
 		}
@@ -532,6 +570,11 @@ public final class RoutingConfigGroup extends ConfigGroup {
 		map.put(  CLEAR_MODE_ROUTING_PARAMS, Boolean.toString( this.clearingDefaultModeRoutingParams ) ) ;
 		map.put(  RANDOMNESS, Double.toString( this.routingRandomness ) ) ;
 		map.put(  ACCESSEGRESSTYPE, getAccessEgressType().toString()) ;
+		map.put(  LANDMARKS_CACHE_DIRECTORY, String.valueOf( this.landmarksCacheDirectory ) ) ;
+		map.put(  ROUTE_CACHE_SIZE, Integer.toString( this.routeCacheSize ) ) ;
+		map.put(  ROUTE_CACHE_TIME_BIN_SIZE, Double.toString( this.routeCacheTimeBinSize ) ) ;
+		map.put(  ROUTE_CACHE_MAX_TRAVEL_TIME_CHANGE, Double.toString( this.routeCacheMaxTravelTimeChange ) ) ;
+		map.put(  ROUTE_CACHE_MAX_AGE, Integer.toString( this.routeCacheMaxAge ) ) ;
 		return map;
 	}
 
@@ -547,6 +590,11 @@ public final class RoutingConfigGroup extends ConfigGroup {
 	          		+ "Technically the width parameter of a log-normal distribution. 3.0 seems to be a good value. " ) ;
 		map.put( CLEAR_MODE_ROUTING_PARAMS, CLEAR_MODE_ROUTING_PARAMS_CMT ) ;
 		map.put(ACCESSEGRESSTYPE, ACCESSEGRESSTYPE_CMT);
+		map.put(LANDMARKS_CACHE_DIRECTORY, LANDMARKS_CACHE_DIRECTORY_CMT);
+		map.put(ROUTE_CACHE_SIZE, ROUTE_CACHE_SIZE_CMT);
+		map.put(ROUTE_CACHE_TIME_BIN_SIZE, ROUTE_CACHE_TIME_BIN_SIZE_CMT);
+		map.put(ROUTE_CACHE_MAX_TRAVEL_TIME_CHANGE, ROUTE_CACHE_MAX_TRAVEL_TIME_CHANGE_CMT);
+		map.put(ROUTE_CACHE_MAX_AGE, ROUTE_CACHE_MAX_AGE_CMT);
 		return map;
 	}
 
@@ -650,6 +698,51 @@ public final class RoutingConfigGroup extends ConfigGroup {
 		this.routingRandomness = routingRandomness;
 	}
 
+	@StringGetter(LANDMARKS_CACHE_DIRECTORY)
+	public String getLandmarksCacheDirectory() {
+		return landmarksCacheDirectory;
+	}
+	@StringSetter(LANDMARKS_CACHE_DIRECTORY)
+	public void setLandmarksCacheDirectory(String landmarksCacheDirectory) {
+		this.landmarksCacheDirectory = landmarksCacheDirectory;
+	}
+
+	@StringGetter(ROUTE_CACHE_SIZE)
+	public int getRouteCacheSize() {
+		return routeCacheSize;
+	}
+	@StringSetter(ROUTE_CACHE_SIZE)
+	public void setRouteCacheSize(int routeCacheSize) {
+		this.routeCacheSize = routeCacheSize;
+	}
+
+	@StringGetter(ROUTE_CACHE_TIME_BIN_SIZE)
+	public double getRouteCacheTimeBinSize() {
+		return routeCacheTimeBinSize;
+	}
+	@StringSetter(ROUTE_CACHE_TIME_BIN_SIZE)
+	public void setRouteCacheTimeBinSize(double routeCacheTimeBinSize) {
+		this.routeCacheTimeBinSize = routeCacheTimeBinSize;
+	}
+
+	@StringGetter(ROUTE_CACHE_MAX_TRAVEL_TIME_CHANGE)
+	public double getRouteCacheMaxTravelTimeChange() {
+		return routeCacheMaxTravelTimeChange;
+	}
+	@StringSetter(ROUTE_CACHE_MAX_TRAVEL_TIME_CHANGE)
+	public void setRouteCacheMaxTravelTimeChange(double routeCacheMaxTravelTimeChange) {
+		this.routeCacheMaxTravelTimeChange = routeCacheMaxTravelTimeChange;
+	}
+
+	@StringGetter(ROUTE_CACHE_MAX_AGE)
+	public int getRouteCacheMaxAge() {
+		return routeCacheMaxAge;
+	}
+	@StringSetter(ROUTE_CACHE_MAX_AGE)
+	public void setRouteCacheMaxAge(int routeCacheMaxAge) {
+		this.routeCacheMaxAge = routeCacheMaxAge;
+	}
+
 	@Override protected void checkConsistency(Config config) {
 		super.checkConsistency(config);
 		Set<String> modesRoutedAsTeleportation = this.getModeRoutingParams().keySet();
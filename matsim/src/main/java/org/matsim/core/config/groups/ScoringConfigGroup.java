@@ -73,6 +73,8 @@ public final class ScoringConfigGroup extends ConfigGroup {
 	private static final String WAITING_PT = "waitingPt";
 
 	private static final String WRITE_EXPERIENCED_PLANS = "writeExperiencedPlans";
+	private static final String STREAM_EXPERIENCED_PLANS = "streamExperiencedPlans";
+	private static final String EXPERIENCED_PLANS_SPILL_BUCKET_SIZE = "experiencedPlansSpillBucketSize";
 
 	private static final String MARGINAL_UTL_OF_MONEY = "marginalUtilityOfMoney";
 
@@ -417,6 +419,13 @@ public final class ScoringConfigGroup extends ConfigGroup {
 				"[utils/unit_of_money] conversion of money (e.g. toll, distance cost) into utils. Normall positive (i.e. toll/cost/fare are processed as negative amounts of money).");
 		map.put(WRITE_EXPERIENCED_PLANS,
 				"write a plans file in each iteration directory which contains what each agent actually did, and the score it received.");
+		map.put(STREAM_EXPERIENCED_PLANS,
+				"if true, the experienced activities and legs are written to temporary files as soon as they are completed, instead of keeping "
+						+ "the experienced plans of all agents in memory during the mobsim.  The experienced plans are only loaded when they are requested "
+						+ "after the mobsim, and the experienced plans file is written with bounded memory.  Default: false.");
+		map.put(EXPERIENCED_PLANS_SPILL_BUCKET_SIZE,
+				"only used if the experienced plans are streamed: the number of persons per temporary file.  The experienced plans of the "
+						+ "persons of one file are loaded into memory together, so this bounds the memory used to read them back.  Default: 10000.");
 
 		return map;
 	}
@@ -783,6 +792,22 @@ public final class ScoringConfigGroup extends ConfigGroup {
 		delegate.setWriteExperiencedPlans(writeExperiencedPlans);
 	}
 
+	public boolean isStreamExperiencedPlans() {
+		return delegate.isStreamExperiencedPlans();
+	}
+
+	public void setStreamExperiencedPlans(boolean streamExperiencedPlans) {
+		delegate.setStreamExperiencedPlans(streamExperiencedPlans);
+	}
+
+	public int getExperiencedPlansSpillBucketSize() {
+		return delegate.getExperiencedPlansSpillBucketSize();
+	}
+
+	public void setExperiencedPlansSpillBucketSize(int experiencedPlansSpillBucketSize) {
+		delegate.setExperiencedPlansSpillBucketSize(experiencedPlansSpillBucketSize);
+	}
+
 	public double getMarginalUtlOfWaiting_utils_hr() {
 		if (getScoringParameters(null) != null)
 			return getScoringParameters(null).getMarginalUtlOfWaiting_utils_hr();
@@ -1580,6 +1605,8 @@ public final class ScoringConfigGroup extends ConfigGroup {
 		private double pathSizeLogitBeta = 1.0;
 
 		private boolean writeExperiencedPlans = false;
+		private boolean streamExperiencedPlans = false;
+		private int experiencedPlansSpillBucketSize = 10000;
 
 		private Double fractionOfIterationsToStartScoreMSA = null;
 
@@ -1659,5 +1686,27 @@ public final class ScoringConfigGroup extends ConfigGroup {
 			this.writeExperiencedPlans = writeExperiencedPlans;
 		}
 
+		@StringGetter(STREAM_EXPERIENCED_PLANS)
+		public boolean isStreamExperiencedPlans() {
+			return streamExperiencedPlans;
+		}
+
+		@StringSetter(STREAM_EXPERIENCED_PLANS)
+		public void setStreamExperiencedPlans(boolean streamExperiencedPlans) {
+			testForLocked();
+			this.streamExperiencedPlans = streamExperiencedPlans;
+		}
+
+		@StringGetter(EXPERIENCED_PLANS_SPILL_BUCKET_SIZE)
+		public int getExperiencedPlansSpillBucketSize() {
+			return experiencedPlansSpillBucketSize;
+		}
+
+		@StringSetter(EXPERIENCED_PLANS_SPILL_BUCKET_SIZE)
+		public void setExperiencedPlansSpillBucketSize(int experiencedPlansSpillBucketSize) {
+			testForLocked();
+			this.experiencedPlansSpillBucketSize = experiencedPlansSpillBucketSize;
+		}
+
 	}
 }
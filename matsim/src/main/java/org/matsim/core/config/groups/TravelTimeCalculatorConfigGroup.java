@@ -19,6 +19,7 @@
  * *********************************************************************** */
 package org.matsim.core.config.groups;
 
+import java.util.Arrays;
 import java.util.LinkedHashSet;
 import java.util.Map;
 import java.util.Set;
@@ -50,6 +51,9 @@ public final class TravelTimeCalculatorConfigGroup extends ReflectiveConfigGroup
 	private static final String ANALYZEDMODES = "analyzedModes";
 	private static final String FILTERMODES = "filterModes";
 	private static final String SEPARATEMODES = "separateModes";
+	private static final String CALCULATOR_TYPE = "calculatorType";
+
+	public enum CalculatorType { standard, concurrent }
 
 	private String travelTimeAggregator = "optimistic";
 	private String travelTimeGetter = "average";
@@ -62,6 +66,7 @@ public final class TravelTimeCalculatorConfigGroup extends ReflectiveConfigGroup
 	private Set<String> analyzedModes = new LinkedHashSet<>(  ) ;
 	private boolean filterModes = false;
 	private boolean separateModes = true;
+	private CalculatorType calculatorType = CalculatorType.standard;
 
 	public TravelTimeCalculatorConfigGroup() {
 		super(GROUPNAME);
@@ -83,6 +88,9 @@ public final class TravelTimeCalculatorConfigGroup extends ReflectiveConfigGroup
 							 "respected by the travel time collector. 'car' is default which includes also buses from the pt simulation module.");
 		map.put(FILTERMODES, "(only for backwards compatiblity; only used if " + SEPARATEMODES + "==false)  Only modes included in analyzedModes are included." ) ;
 		map.put(SEPARATEMODES, "(only for backwards compatibility) If false, link travel times are measured and aggregated over all vehicles using the link." ) ;
+		map.put(CALCULATOR_TYPE, "The class collecting the travel times from the events. Possible values: " + Arrays.toString(CalculatorType.values()) + ". " +
+				"'concurrent' can handle events from several threads without locking, e.g. with a parallel events manager, but does not support " +
+				"link-to-link travel times.") ;
 		return map;
 	}
 
@@ -195,5 +203,15 @@ public final class TravelTimeCalculatorConfigGroup extends ReflectiveConfigGroup
 	public void setSeparateModes(boolean separateModes) {
 		this.separateModes = separateModes;
 	}
+	// ---
+	@StringGetter(CALCULATOR_TYPE)
+	public CalculatorType getCalculatorType() {
+		return this.calculatorType;
+	}
+
+	@StringSetter(CALCULATOR_TYPE)
+	public void setCalculatorType(CalculatorType calculatorType) {
+		this.calculatorType = calculatorType;
+	}
 
 }
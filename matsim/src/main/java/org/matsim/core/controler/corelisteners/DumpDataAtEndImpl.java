@@ -36,6 +36,7 @@ import org.matsim.core.controler.Controler;
 import org.matsim.core.controler.OutputDirectoryHierarchy;
 import org.matsim.core.controler.events.ShutdownEvent;
 import org.matsim.core.controler.listener.ShutdownListener;
+import org.matsim.core.events.algorithms.BinaryEventsFormat;
 import org.matsim.core.network.NetworkUtils;
 import org.matsim.core.network.io.NetworkChangeEventsWriter;
 import org.matsim.core.network.io.NetworkWriter;
@@ -58,6 +59,7 @@ import org.matsim.vehicles.MatsimVehicleWriter;
 import org.matsim.vehicles.VehicleUtils;
 import org.matsim.vehicles.Vehicles;
 
+import java.io.File;
 import java.util.Collections;
 import java.util.Map;
 
@@ -156,6 +158,16 @@ final class DumpDataAtEndImpl implements DumpDataAtEnd, ShutdownListener {
 					case json:
 						file = Controler.DefaultFiles.eventsJson;
 						break;
+					case binary:
+						// compressed by the writer itself, thus without compression ending
+						String iterationFile = this.controlerIO.getIterationFilename(iteration, Controler.DefaultFiles.eventsBinary, ControllerConfigGroup.CompressionType.none);
+						String outputFile = this.controlerIO.getOutputFilename(Controler.DefaultFiles.eventsBinary, ControllerConfigGroup.CompressionType.none);
+						IOUtils.copyFile(iterationFile, outputFile);
+						// the index sidecar lets readers skip blocks, see BinaryEventsFormat
+						if (new File(iterationFile + BinaryEventsFormat.INDEX_FILE_SUFFIX).exists()) {
+							IOUtils.copyFile(iterationFile + BinaryEventsFormat.INDEX_FILE_SUFFIX, outputFile + BinaryEventsFormat.INDEX_FILE_SUFFIX);
+						}
+						continue;
 					default:
 						continue;
 				}
@@ -20,27 +20,28 @@
 
 package org.matsim.core.events;
 
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.matsim.api.core.v01.events.*;
-import org.matsim.api.core.v01.events.handler.*;
 import org.matsim.core.api.experimental.events.AgentWaitingForPtEvent;
 import org.matsim.core.api.experimental.events.EventsManager;
 import org.matsim.core.api.experimental.events.VehicleArrivesAtFacilityEvent;
 import org.matsim.core.api.experimental.events.VehicleDepartsAtFacilityEvent;
-import org.matsim.core.api.experimental.events.handler.AgentWaitingForPtEventHandler;
-import org.matsim.core.api.experimental.events.handler.VehicleArrivesAtFacilityEventHandler;
-import org.matsim.core.api.experimental.events.handler.VehicleDepartsAtFacilityEventHandler;
-import org.matsim.core.events.handler.BasicEventHandler;
 import org.matsim.core.events.handler.EventHandler;
 
 /**
@@ -51,9 +52,11 @@ import org.matsim.core.events.handler.EventHandler;
  * <li>add method public void handleEvent(MyEvent event) to it</li>
  * <li>ready to go, just implement the interface somewhere and add a
  * HandlerObject with a call to <code>Events.addHandler(HandlerObject)</code></li>
- * <li>(optional) add an appropriate line in callHandlerFast() for speeding
- * up execution!</li>
  * </ol>
+ * For every concrete event class, the handlers are resolved once into a flat array of {@link EventInvoker}s.  These are generated with
+ * {@link LambdaMetafactory}, so that calling a handler costs the same as calling its handleEvent method directly, without reflection
+ * and without allocation.  Only if that is not possible (e.g. for handler interfaces that are not visible from here), the handler is called
+ * via reflection.
  *
  * @author dstrippgen
  * @author mrieser
@@ -81,20 +84,47 @@ public final class EventsManagerImpl implements EventsManager {
 	static private class HandlerInfo {
 		protected final Class<? extends Event> eventClass;
 		protected final EventHandler eventHandler;
-		protected final Method method;
+		protected final EventInvoker invoker;
+		protected final boolean wrapExceptions;
 
-		protected HandlerInfo(final Class<? extends Event> eventClass, final EventHandler eventHandler,
-				final Method method) {
+		protected HandlerInfo(final Class<? extends Event> eventClass, final EventHandler eventHandler, final EventInvoker invoker) {
 			this.eventClass = eventClass;
 			this.eventHandler = eventHandler;
-			this.method = method;
+			this.invoker = invoker;
+			this.wrapExceptions = !UNWRAPPED_EVENT_CLASSES.contains(eventClass);
 		}
 	}
 
+	/**
+	 * Exceptions thrown by handlers for these event classes are passed on unchanged, for all other classes they are wrapped into a
+	 * RuntimeException naming the handler and the event class.  These are the classes that were called directly before the invokers
+	 * were generated, so callers see the same exceptions as before.
+	 */
+	private static final Set<Class<? extends Event>> UNWRAPPED_EVENT_CLASSES = Set.of(LinkLeaveEvent.class, LinkEnterEvent.class,
+			VehicleEntersTrafficEvent.class, VehicleLeavesTrafficEvent.class, PersonArrivalEvent.class, PersonDepartureEvent.class,
+			ActivityEndEvent.class, ActivityStartEvent.class, TransitDriverStartsEvent.class, PersonStuckEvent.class, PersonMoneyEvent.class,
+			AgentWaitingForPtEvent.class, PersonEntersVehicleEvent.class, PersonLeavesVehicleEvent.class, VehicleDepartsAtFacilityEvent.class,
+			VehicleArrivesAtFacilityEvent.class, Event.class);
+
+	/**
+	 * Calls the handleEvent method of one handler for one event class.
+	 */
+	@FunctionalInterface
+	interface EventInvoker {
+		void invoke(Event event);
+	}
+
 	private final List<HandlerData> handlerData = new ArrayList<>();
 
 	private final Map<Class<? extends Event>, HandlerInfo[]> cacheHandlers = new ConcurrentHashMap<>(15);
 
+	/**
+	 * For every handleEvent method, a factory that creates an {@link EventInvoker} for a given handler.  Empty if no such factory could be
+	 * generated.  Remains valid when handlers are added or removed, so that the (somewhat expensive) code generation is done only once
+	 * per handler interface.
+	 */
+	private final Map<Method, Optional<MethodHandle>> invokerFactories = new ConcurrentHashMap<>();
+
 	private long counter = 0;
 	private long nextCounterMsg = 1;
 
@@ -116,15 +146,14 @@ public final class EventsManagerImpl implements EventsManager {
 		}
 		for (HandlerInfo info : getHandlersForClass( event.getClass() )) {
 			synchronized(info.eventHandler) {
-				if (callHandlerFast(info.eventClass, event, info.eventHandler )) {
+				if (!info.wrapExceptions) {
+					info.invoker.invoke(event);
 					continue;
 				}
 				try {
-					info.method.invoke(info.eventHandler, event );
-				} catch (IllegalArgumentException | IllegalAccessException e) {
+					info.invoker.invoke(event);
+				} catch (RuntimeException | Error e) {
 					throw new RuntimeException("problem invoking EventHandler " + info.eventHandler.getClass().getCanonicalName() + " for event-class " + info.eventClass.getCanonicalName(), e);
-				} catch (InvocationTargetException e) {
-					throw new RuntimeException("problem invoking EventHandler " + info.eventHandler.getClass().getCanonicalName() + " for event-class " + info.eventClass.getCanonicalName(), e.getCause());
 				}
 			}
 		}
@@ -228,7 +257,7 @@ public final class EventsManagerImpl implements EventsManager {
 			HandlerData dat = findHandler(eventKlass);
 			if (dat != null) {
 				for (EventHandler handler : dat.handlerList) {
-					info.add(new HandlerInfo(eventKlass, handler, dat.method));
+					info.add(new HandlerInfo(eventKlass, handler, createInvoker(handler, dat.method, eventKlass)));
 				}
 			}
 			klass = klass.getSuperclass();
@@ -239,62 +268,64 @@ public final class EventsManagerImpl implements EventsManager {
 		return cache;
 	}
 
-	// this method is purely for performance reasons and need not be implemented
-	private static boolean callHandlerFast(final Class<? extends Event> klass, final Event ev,
-			final EventHandler handler) {
-		if (klass == LinkLeaveEvent.class) {
-			((LinkLeaveEventHandler)handler).handleEvent((LinkLeaveEvent)ev);
-			return true;
-		} else if (klass == LinkEnterEvent.class) {
-			((LinkEnterEventHandler)handler).handleEvent((LinkEnterEvent)ev);
-			return true;
-		} else if (klass == VehicleEntersTrafficEvent.class) {
-			((VehicleEntersTrafficEventHandler) handler).handleEvent((VehicleEntersTrafficEvent) ev);
-			return true;
-		} else if (klass == VehicleLeavesTrafficEvent.class) {
-			((VehicleLeavesTrafficEventHandler) handler).handleEvent((VehicleLeavesTrafficEvent) ev);
-			return true;
-		} else if (klass == PersonArrivalEvent.class) {
-			((PersonArrivalEventHandler)handler).handleEvent((PersonArrivalEvent)ev);
-			return true;
-		} else if (klass == PersonDepartureEvent.class) {
-			((PersonDepartureEventHandler)handler).handleEvent((PersonDepartureEvent)ev);
-			return true;
-		} else if (klass == ActivityEndEvent.class) {
-			((ActivityEndEventHandler)handler).handleEvent((ActivityEndEvent)ev);
-			return true;
-		} else if (klass == ActivityStartEvent.class) {
-			((ActivityStartEventHandler)handler).handleEvent((ActivityStartEvent)ev);
-			return true;
-		} else if (klass == TransitDriverStartsEvent.class) {
-			((TransitDriverStartsEventHandler) handler).handleEvent((TransitDriverStartsEvent) ev);
-			return true;
-		} else if (klass == PersonStuckEvent.class) {
-			((PersonStuckEventHandler)handler).handleEvent((PersonStuckEvent)ev);
-			return true;
-		} else if (klass == PersonMoneyEvent.class) {
-			((PersonMoneyEventHandler)handler).handleEvent((PersonMoneyEvent)ev);
-			return true;
-		} else if (klass == AgentWaitingForPtEvent.class) {
-			((AgentWaitingForPtEventHandler)handler).handleEvent((AgentWaitingForPtEvent)ev);
-			return true;
-		} else if (klass == PersonEntersVehicleEvent.class) {
-			((PersonEntersVehicleEventHandler)handler).handleEvent((PersonEntersVehicleEvent)ev);
-			return true;
-		} else if (klass == PersonLeavesVehicleEvent.class) {
-			((PersonLeavesVehicleEventHandler)handler).handleEvent((PersonLeavesVehicleEvent)ev);
-			return true;
-		} else if (klass == VehicleDepartsAtFacilityEvent.class) {
-			((VehicleDepartsAtFacilityEventHandler) handler).handleEvent((VehicleDepartsAtFacilityEvent) ev);
-			return true;
-		} else if (klass == VehicleArrivesAtFacilityEvent.class) {
-			((VehicleArrivesAtFacilityEventHandler) handler).handleEvent((VehicleArrivesAtFacilityEvent) ev);
-			return true;
-		} else if (klass == Event.class) {
-			((BasicEventHandler)handler).handleEvent(ev);
-			return true;
+	private EventInvoker createInvoker(final EventHandler handler, final Method method, final Class<? extends Event> eventClass) {
+		Optional<MethodHandle> factory = this.invokerFactories.computeIfAbsent(method, EventsManagerImpl::createInvokerFactory);
+		if (factory.isPresent()) {
+			try {
+				return (EventInvoker) factory.get().invoke(handler);
+			} catch (Throwable e) {
+				throw new RuntimeException("problem creating invoker for EventHandler " + handler.getClass().getCanonicalName() + " for event-class " + eventClass.getCanonicalName(), e);
+			}
+		}
+		return event -> {
+			try {
+				method.invoke(handler, event);
+			} catch (IllegalAccessException e) {
+				throw new RuntimeException(e);
+			} catch (InvocationTargetException e) {
+				// unwrap, processEvent() adds the handler and event class
+				if (e.getCause() instanceof RuntimeException re) {
+					throw re;
+				} else if (e.getCause() instanceof Error err) {
+					throw err;
+				}
+				throw new RuntimeException(e.getCause());
+			}
+		};
+	}
+
+	/**
+	 * @return a method handle of type (EventHandler)EventInvoker, which binds a handler to a generated class that calls {@code method}
+	 * on it directly
+	 */
+	private static Optional<MethodHandle> createInvokerFactory(final Method method) {
+		Class<?> handlerInterface = method.getDeclaringClass();
+		Class<?> eventClass = method.getParameterTypes()[0];
+		if (!isVisible(handlerInterface) || !isVisible(eventClass)) {
+			// the generated class lives in the class loader of this class
+			log.info("calling " + handlerInterface.getName() + " via reflection, since it is not visible from " + EventsManagerImpl.class.getName());
+			return Optional.empty();
+		}
+		try {
+			MethodHandles.Lookup lookup = MethodHandles.lookup();
+			CallSite site = LambdaMetafactory.metafactory(lookup, "invoke",
+					MethodType.methodType(EventInvoker.class, handlerInterface),
+					MethodType.methodType(void.class, Event.class),
+					lookup.unreflect(method),
+					MethodType.methodType(void.class, eventClass));
+			return Optional.of(site.getTarget().asType(MethodType.methodType(EventInvoker.class, EventHandler.class)));
+		} catch (Throwable e) {
+			log.info("calling " + handlerInterface.getName() + " via reflection: " + e.getMessage());
+			return Optional.empty();
+		}
+	}
+
+	private static boolean isVisible(final Class<?> klass) {
+		try {
+			return Class.forName(klass.getName(), false, EventsManagerImpl.class.getClassLoader()) == klass;
+		} catch (ClassNotFoundException e) {
+			return false;
 		}
-		return false;
 	}
 
 	public void printEventHandlers() {
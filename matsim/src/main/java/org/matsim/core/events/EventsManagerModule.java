@@ -38,16 +38,24 @@ public final class EventsManagerModule extends AbstractModule {
 			bindEventsManager().to(ParallelEventsManager.class).in(Singleton.class);
 		} else if (getConfig().eventsManager().getNumberOfThreads() != null) {
 			if (BooleanUtils.isTrue(getConfig().eventsManager().getSynchronizeOnSimSteps())) {
-				bindEventsManager().to(SimStepParallelEventsManagerImpl.class).in(Singleton.class);
+				bindSimStepParallelEventsManager();
 			} else {
 				bindEventsManager().to(ParallelEventsManagerImpl.class).in(Singleton.class);
 			}
 		} else {
-			bindEventsManager().to(SimStepParallelEventsManagerImpl.class).in(Singleton.class);
+			bindSimStepParallelEventsManager();
 		}
 		bind(EventHandlerRegistrator.class).asEagerSingleton();
 	}
 
+	private void bindSimStepParallelEventsManager() {
+		if (BooleanUtils.isTrue(getConfig().eventsManager().getUseRingBuffer())) {
+			bindEventsManager().to(RingBufferEventsManagerImpl.class).in(Singleton.class);
+		} else {
+			bindEventsManager().to(SimStepParallelEventsManagerImpl.class).in(Singleton.class);
+		}
+	}
+
 	public static class EventHandlerRegistrator {
 		@Inject
 		EventHandlerRegistrator(EventsManager eventsManager, Set<EventHandler> eventHandlersDeclaredByModules) {
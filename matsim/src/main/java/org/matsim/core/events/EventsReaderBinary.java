@@ -0,0 +1,359 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * EventsReaderBinary.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2026 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.events;
+
+import static org.matsim.core.events.algorithms.BinaryEventsFormat.*;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.Stack;
+import java.util.TreeSet;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.matsim.api.core.v01.events.Event;
+import org.matsim.core.api.experimental.events.EventsManager;
+import org.matsim.core.events.MatsimEventsReader.CustomEventMapper;
+import org.matsim.core.events.algorithms.BinaryEventsFormat;
+import org.matsim.core.events.algorithms.EventWriterBinary;
+import org.xml.sax.helpers.AttributesImpl;
+
+import com.github.luben.zstd.Zstd;
+
+/**
+ * Reads events files written by {@link EventWriterBinary}.  The attributes of each event are converted to the corresponding event
+ * class in the same way as for xml files.
+ * <p>
+ * When reading from a file, the block index is used to skip all blocks outside of a given time range, and the sidecar index to
+ * skip all blocks that do not contain any of the selected persons, links or vehicles; only the dictionaries of the skipped blocks
+ * are decompressed.
+ *
+ * @see BinaryEventsFormat
+ */
+public final class EventsReaderBinary {
+
+	private final static Logger log = LogManager.getLogger(EventsReaderBinary.class);
+
+	/** converts the attributes into events, so there is only one place that knows about the attributes of all event types */
+	private final EventsReaderXMLv1 converter;
+	private final AttributesImpl attributes = new AttributesImpl();
+	private final Stack<String> context = new Stack<>();
+
+	private final List<String> strings = new ArrayList<>();
+	private final List<String[]> schemas = new ArrayList<>();
+	/** for each schema and entity key, the position of the key in the values of the events, or -1 */
+	private final List<int[]> entityPositions = new ArrayList<>();
+
+	public EventsReaderBinary(final EventsManager events) {
+		this.converter = new EventsReaderXMLv1(events);
+	}
+
+	public void addCustomEventMapper(String eventType, CustomEventMapper cem) {
+		this.converter.addCustomEventMapper(eventType, cem);
+	}
+
+	public void readFile(final String filename) {
+		readFile(filename, new EventsSelection());
+	}
+
+	/**
+	 * Reads only the events with {@code fromTime <= time <= toTime}.
+	 */
+	public void readFile(final String filename, final double fromTime, final double toTime) {
+		EventsSelection selection = new EventsSelection();
+		selection.setTimeRange(fromTime, toTime);
+		readFile(filename, selection);
+	}
+
+	public void readFile(final String filename, final EventsSelection selection) {
+		log.info("reading binary events from " + filename + " ...");
+		try (FileChannel channel = FileChannel.open(Path.of(filename), StandardOpenOption.READ)) {
+			DataInputStream in = new DataInputStream(Channels.newInputStream(channel));
+			readHeader(in);
+
+			// the trailer points to the block index
+			channel.position(channel.size() - 8 - MAGIC.length);
+			long indexOffset = in.readLong();
+			checkMagic(in);
+			channel.position(indexOffset);
+			if (in.readByte() != INDEX) {
+				throw new IOException("block index not found in " + filename);
+			}
+			int blockCount = in.readInt();
+			long[] offsets = new long[blockCount];
+			double[] firstTimes = new double[blockCount];
+			double[] lastTimes = new double[blockCount];
+			for (int i = 0; i < blockCount; i++) {
+				offsets[i] = in.readLong();
+				firstTimes[i] = in.readDouble();
+				lastTimes[i] = in.readDouble();
+				in.readInt(); // event count
+			}
+
+			boolean[] blocksWithIds = selection.hasIds() ? readSidecarIndex(filename, selection, blockCount) : null;
+
+			for (int i = 0; i < blockCount && firstTimes[i] <= selection.getToTime(); i++) {
+				channel.position(offsets[i]);
+				if (in.readByte() != BLOCK) {
+					throw new IOException("no block at offset " + offsets[i] + " in " + filename);
+				}
+				boolean readEvents = lastTimes[i] >= selection.getFromTime() && (blocksWithIds == null || blocksWithIds[i]);
+				readBlock(new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel), 1 << 16)), readEvents, selection);
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	public void parse(final InputStream stream) {
+		try {
+			DataInputStream in = new DataInputStream(new BufferedInputStream(stream, 1 << 16));
+			readHeader(in);
+			EventsSelection all = new EventsSelection();
+			while (in.readByte() == BLOCK) {
+				readBlock(in, true, all);
+			}
+			// the rest is the block index, which is not needed when reading everything
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private void readHeader(final DataInputStream in) throws IOException {
+		checkMagic(in);
+		int version = in.readInt();
+		if (version != VERSION) {
+			throw new IOException("unsupported version " + version + " of binary events file.");
+		}
+		this.strings.clear();
+		this.strings.add(null); // NULL_STRING
+		this.schemas.clear();
+		this.entityPositions.clear();
+	}
+
+	private static void checkMagic(final DataInputStream in) throws IOException {
+		byte[] magic = new byte[MAGIC.length];
+		in.readFully(magic);
+		if (!Arrays.equals(magic, MAGIC)) {
+			throw new IOException("not a binary events file.");
+		}
+	}
+
+	/**
+	 * Reads a block after its marker.  The dictionary is always read, the events only if requested.
+	 */
+	private void readBlock(final DataInputStream in, final boolean readEvents, final EventsSelection selection) throws IOException {
+		int eventCount = in.readInt();
+		in.readDouble(); // first time
+		in.readDouble(); // last time
+		readDictionary(ByteBuffer.wrap(decompress(in)));
+		if (readEvents) {
+			readEvents(ByteBuffer.wrap(decompress(in)), eventCount, selection);
+		} else {
+			in.readInt(); // length
+			in.skipNBytes(in.readInt());
+		}
+	}
+
+	private static byte[] decompress(final DataInputStream in) throws IOException {
+		int length = in.readInt();
+		byte[] compressed = new byte[in.readInt()];
+		in.readFully(compressed);
+		return Zstd.decompress(compressed, length);
+	}
+
+	private void readDictionary(final ByteBuffer in) {
+		int stringCount = readVarInt(in);
+		for (int i = 0; i < stringCount; i++) {
+			this.strings.add(readString(in));
+		}
+		int schemaCount = readVarInt(in);
+		for (int i = 0; i < schemaCount; i++) {
+			String[] schema = new String[readVarInt(in) + 1];
+			for (int k = 0; k < schema.length; k++) {
+				schema[k] = this.strings.get(readVarInt(in));
+			}
+			this.schemas.add(schema);
+			int[] positions = new int[ENTITY_KEYS.size()];
+			for (int k = 0; k < positions.length; k++) {
+				positions[k] = Arrays.asList(schema).indexOf(ENTITY_KEYS.get(k)) - 1;
+			}
+			this.entityPositions.add(positions);
+		}
+	}
+
+	/**
+	 * @return for each block whether it contains any of the selected ids, or {@code null} if there is no sidecar index
+	 */
+	private static boolean[] readSidecarIndex(final String filename, final EventsSelection selection, final int blockCount) throws IOException {
+		Path indexFile = Path.of(filename + INDEX_FILE_SUFFIX);
+		if (!Files.exists(indexFile)) {
+			log.warn("no index " + indexFile + " found, reading all events to find the selected ids.");
+			return null;
+		}
+		boolean[] blocks = new boolean[blockCount];
+		try (FileChannel channel = FileChannel.open(indexFile, StandardOpenOption.READ)) {
+			DataInputStream in = new DataInputStream(Channels.newInputStream(channel));
+			byte[] magic = new byte[INDEX_MAGIC.length];
+			in.readFully(magic);
+			int version = in.readInt();
+			if (!Arrays.equals(magic, INDEX_MAGIC) || version != VERSION) {
+				throw new IOException(indexFile + " is not an index of binary events.");
+			}
+			long tableEnd = channel.size() - 8 - INDEX_MAGIC.length;
+			channel.position(tableEnd);
+			long tableOffset = in.readLong();
+			ByteBuffer table = ByteBuffer.wrap(readBytes(channel, tableOffset, (int) (tableEnd - tableOffset)));
+
+			int keyCount = table.getInt();
+			for (int key = 0; key < keyCount; key++) {
+				int k = ENTITY_KEYS.indexOf(readString(table));
+				int bucketCount = table.getInt();
+				long[] bucketOffsets = new long[bucketCount];
+				int[] bucketLengths = new int[bucketCount];
+				int[] bucketCompressedLengths = new int[bucketCount];
+				for (int b = 0; b < bucketCount; b++) {
+					bucketOffsets[b] = table.getLong();
+					bucketLengths[b] = table.getInt();
+					bucketCompressedLengths[b] = table.getInt();
+				}
+				if (k < 0) {
+					continue;
+				}
+
+				Set<String> ids = selection.getIds(k);
+				Set<Integer> bucketsToRead = new TreeSet<>();
+				for (String id : ids) {
+					bucketsToRead.add(getBucket(id, bucketCount));
+				}
+				for (int b : bucketsToRead) {
+					byte[] compressed = readBytes(channel, bucketOffsets[b], bucketCompressedLengths[b]);
+					ByteBuffer bucket = ByteBuffer.wrap(Zstd.decompress(compressed, bucketLengths[b]));
+					int idCount = readVarInt(bucket);
+					for (int i = 0; i < idCount; i++) {
+						boolean selected = ids.contains(readString(bucket));
+						int count = readVarInt(bucket);
+						int block = 0;
+						for (int c = 0; c < count; c++) {
+							block += readVarInt(bucket);
+							if (selected) {
+								blocks[block] = true;
+							}
+						}
+					}
+				}
+			}
+		}
+		return blocks;
+	}
+
+	private static byte[] readBytes(final FileChannel channel, final long offset, final int length) throws IOException {
+		ByteBuffer buffer = ByteBuffer.allocate(length);
+		while (buffer.hasRemaining()) {
+			if (channel.read(buffer, offset + buffer.position()) < 0) {
+				throw new EOFException();
+			}
+		}
+		return buffer.array();
+	}
+
+	private void readEvents(final ByteBuffer in, final int eventCount, final EventsSelection selection) {
+		double[] times = new double[eventCount];
+		byte timeEncoding = in.get();
+		long last = 0;
+		for (int i = 0; i < eventCount; i++) {
+			if (timeEncoding == TIME_SECONDS) {
+				last += readZigZagLong(in);
+				times[i] = last;
+			} else {
+				times[i] = in.getDouble();
+			}
+		}
+
+		int[] eventSchemas = new int[eventCount];
+		int[] eventsPerSchema = new int[this.schemas.size()];
+		for (int i = 0; i < eventCount; i++) {
+			eventSchemas[i] = readVarInt(in);
+			eventsPerSchema[eventSchemas[i]]++;
+		}
+
+		// values[schema][key][n] is the value of key of the n-th event with this schema
+		String[][][] values = new String[this.schemas.size()][][];
+		for (int s = 0; s < values.length; s++) {
+			int count = eventsPerSchema[s];
+			if (count == 0) {
+				continue;
+			}
+			String[] schema = this.schemas.get(s);
+			values[s] = new String[schema.length - 1][count];
+			for (int k = 0; k < schema.length - 1; k++) {
+				String[] column = values[s][k];
+				byte encoding = in.get();
+				for (int n = 0; n < count; n++) {
+					column[n] = encoding == VALUE_DOUBLE ? Double.toString(in.getDouble()) : this.strings.get(readVarInt(in));
+				}
+			}
+			eventsPerSchema[s] = 0;
+		}
+
+		boolean filterIds = selection.hasIds();
+		for (int i = 0; i < eventCount; i++) {
+			int s = eventSchemas[i];
+			int n = eventsPerSchema[s]++;
+			double time = times[i];
+			if (!selection.matchesTime(time) || (filterIds && !matchesIds(selection, s, values[s], n))) {
+				continue;
+			}
+			String[] schema = this.schemas.get(s);
+			this.attributes.clear();
+			this.attributes.addAttribute("", Event.ATTRIBUTE_TIME, Event.ATTRIBUTE_TIME, "CDATA", Double.toString(time));
+			this.attributes.addAttribute("", Event.ATTRIBUTE_TYPE, Event.ATTRIBUTE_TYPE, "CDATA", schema[0]);
+			for (int k = 1; k < schema.length; k++) {
+				this.attributes.addAttribute("", schema[k], schema[k], "CDATA", values[s][k - 1][n]);
+			}
+			this.converter.startTag(EventsReaderXMLv1.EVENT, this.attributes, this.context);
+		}
+	}
+
+	private boolean matchesIds(final EventsSelection selection, final int schema, final String[][] values, final int n) {
+		int[] positions = this.entityPositions.get(schema);
+		for (int k = 0; k < positions.length; k++) {
+			if (positions[k] >= 0 && selection.getIds(k).contains(values[positions[k]][n])) {
+				return true;
+			}
+		}
+		return false;
+	}
+}
@@ -0,0 +1,119 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * EventsSelection.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2026 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.events;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.events.Event;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.population.Person;
+import org.matsim.core.events.algorithms.BinaryEventsFormat;
+import org.matsim.vehicles.Vehicle;
+
+/**
+ * Describes which events should be read by {@link EventsUtils#readEvents(org.matsim.core.api.experimental.events.EventsManager, String, EventsSelection)}:
+ * all events within a time range that, if any ids are given, have one of the given persons, links or vehicles as attribute
+ * ({@value org.matsim.api.core.v01.events.HasPersonId#ATTRIBUTE_PERSON}, {@value org.matsim.api.core.v01.events.HasLinkId#ATTRIBUTE_LINK} or
+ * {@value org.matsim.api.core.v01.events.HasVehicleId#ATTRIBUTE_VEHICLE}).
+ */
+public final class EventsSelection {
+
+	private double fromTime = Double.NEGATIVE_INFINITY;
+	private double toTime = Double.POSITIVE_INFINITY;
+	/** the selected ids, in the order of {@link BinaryEventsFormat#ENTITY_KEYS} */
+	private final List<Set<String>> ids = new ArrayList<>();
+
+	public EventsSelection() {
+		for (int k = 0; k < BinaryEventsFormat.ENTITY_KEYS.size(); k++) {
+			this.ids.add(new HashSet<>());
+		}
+	}
+
+	/**
+	 * Selects only events with {@code fromTime <= time <= toTime}.
+	 */
+	public void setTimeRange(final double fromTime, final double toTime) {
+		this.fromTime = fromTime;
+		this.toTime = toTime;
+	}
+
+	public void addPersonId(final Id<Person> personId) {
+		this.ids.get(0).add(personId.toString());
+	}
+
+	public void addLinkId(final Id<Link> linkId) {
+		this.ids.get(1).add(linkId.toString());
+	}
+
+	public void addVehicleId(final Id<Vehicle> vehicleId) {
+		this.ids.get(2).add(vehicleId.toString());
+	}
+
+	public double getFromTime() {
+		return this.fromTime;
+	}
+
+	public double getToTime() {
+		return this.toTime;
+	}
+
+	/**
+	 * @return the selected ids of the k-th of {@link BinaryEventsFormat#ENTITY_KEYS}
+	 */
+	Set<String> getIds(final int k) {
+		return this.ids.get(k);
+	}
+
+	boolean hasIds() {
+		for (Set<String> set : this.ids) {
+			if (!set.isEmpty()) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	boolean matchesTime(final double time) {
+		return time >= this.fromTime && time <= this.toTime;
+	}
+
+	public boolean matches(final Event event) {
+		if (!matchesTime(event.getTime())) {
+			return false;
+		}
+		if (!hasIds()) {
+			return true;
+		}
+		Map<String, String> attributes = event.getAttributes();
+		for (int k = 0; k < this.ids.size(); k++) {
+			String id = attributes.get(BinaryEventsFormat.ENTITY_KEYS.get(k));
+			if (id != null && this.ids.get(k).contains(id)) {
+				return true;
+			}
+		}
+		return false;
+	}
+}
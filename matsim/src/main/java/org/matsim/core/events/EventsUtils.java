@@ -21,9 +21,12 @@
 
 package org.matsim.core.events;
 
+import java.util.Locale;
+
 import org.matsim.core.api.experimental.events.EventsManager;
 import org.matsim.core.config.Config;
 import org.matsim.core.controler.Injector;
+import org.matsim.core.events.handler.BasicEventHandler;
 import org.matsim.utils.eventsfilecomparison.EventsFileComparator;
 
 public final class EventsUtils {
@@ -49,13 +52,15 @@ public final class EventsUtils {
 	}
 
 	/**
-	 * The SimStepParallelEventsManagerImpl can handle events from multiple threads.
+	 * The SimStepParallelEventsManagerImpl and the RingBufferEventsManagerImpl can handle events from multiple threads.
 	 * The (Parallel)EventsMangerImpl cannot, therefore it has to be wrapped into a
 	 * SynchronizedEventsManagerImpl.
 	 */
 	public static EventsManager getParallelFeedableInstance(EventsManager events) {
 		if (events instanceof SimStepParallelEventsManagerImpl) {
 			return events;
+		} else if (events instanceof RingBufferEventsManagerImpl) {
+			return events;
 		} else if (events instanceof ParallelEventsManager) {
 			return events;
 		}
@@ -70,6 +75,26 @@ public final class EventsUtils {
 		new MatsimEventsReader(events).readFile(filename) ;
 	}
 
+	/**
+	 * Passes only the selected events to the events manager.  For binary events files (see {@link org.matsim.core.events.algorithms.EventWriterBinary}),
+	 * only the parts of the file that may contain selected events are read; other formats are read completely and filtered.
+	 */
+	public static void readEvents( EventsManager events, String filename, EventsSelection selection ) {
+		if (filename.toLowerCase(Locale.ROOT).endsWith(".bin")) {
+			new EventsReaderBinary(events).readFile(filename, selection);
+		} else {
+			EventsManager allEvents = createEventsManager();
+			allEvents.addHandler((BasicEventHandler) event -> {
+				if (selection.matches(event)) {
+					events.processEvent(event);
+				}
+			});
+			allEvents.initProcessing();
+			new MatsimEventsReader(allEvents).readFile(filename);
+			allEvents.finishProcessing();
+		}
+	}
+
 	public static EventsFileComparator.Result compareEventsFiles( String filename1, String filename2 ) {
 		EventsFileComparator.Result result = EventsFileComparator.compare( filename1, filename2 );
 		return result ;
@@ -0,0 +1,366 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * RingBufferEventsManagerImpl.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2026 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.events;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+
+import jakarta.inject.Inject;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.matsim.api.core.v01.events.Event;
+import org.matsim.core.api.experimental.events.EventsManager;
+import org.matsim.core.config.groups.EventsManagerConfigGroup;
+import org.matsim.core.events.handler.EventHandler;
+
+/**
+ * An events manager with the same guarantees as {@link SimStepParallelEventsManagerImpl}: all events of a time step are processed
+ * before {@link #afterSimStep(double)} returns, and every handler sees the events in the order in which they were passed to
+ * {@link #processEvent(Event)}.
+ * <p>
+ * Instead of a chain of blocking queues, the events are written into one ring buffer with a fixed number of slots.  Producers claim
+ * slots with a single atomic increment, so events can be passed from several threads (e.g. the threads of the QNetsimEngine) without
+ * locking.  The handlers are distributed to a number of threads, each of which reads all events from the buffer and processes them in
+ * batches of everything that is published.  A producer only waits if the slowest of these threads is a full buffer behind.
+ * <p>
+ * Events that are created by handlers during parallel processing are collected separately and published at the end of the time step,
+ * so a handler thread never has to wait for itself.
+ */
+final class RingBufferEventsManagerImpl implements EventsManager {
+
+	private final static Logger log = LogManager.getLogger(RingBufferEventsManagerImpl.class);
+
+	private static final int SPIN_TRIES = 100;
+	private static final int YIELD_TRIES = 100;
+	private static final long PARK_NANOS = 100_000;
+
+	private final int numOfThreads;
+	private final int bufferSize;
+	private final int indexMask;
+	private final int indexShift;
+
+	private final EventsManagerImpl delegate;
+	private final EventsManagerImpl[] eventsManagers;
+	private int handlerCount = 0;
+
+	private Event[] entries;
+	/** for each slot, the round (sequence / bufferSize) of the event last published into it */
+	private AtomicIntegerArray published;
+	/** the highest sequence claimed by a producer */
+	private final AtomicLong cursor = new AtomicLong(-1);
+	/** the lowest consumer sequence seen by the producers, only used to avoid looking at all consumers for every event */
+	private volatile long gatingSequenceCache = -1;
+	private Consumer[] consumers;
+
+	private final Queue<Event> eventsFromHandlers = new ConcurrentLinkedQueue<>();
+	private final AtomicInteger sleepingConsumers = new AtomicInteger(0);
+	private volatile Thread waitingForConsumers = null;
+	private AtomicReference<Throwable> hadException = new AtomicReference<>();
+
+	private volatile boolean parallelMode = false;
+
+	@Inject
+	RingBufferEventsManagerImpl(EventsManagerConfigGroup config) {
+		this(config.getNumberOfThreads() != null ? config.getNumberOfThreads() : 1, config.getEventsQueueSize());
+	}
+
+	public RingBufferEventsManagerImpl(int numOfThreads) {
+		this(numOfThreads, 65536);
+	}
+
+	public RingBufferEventsManagerImpl(int numOfThreads, int bufferSize) {
+		if (numOfThreads < 1) {
+			throw new IllegalArgumentException("numOfThreads must be at least 1, but is " + numOfThreads);
+		}
+		this.numOfThreads = numOfThreads;
+		this.bufferSize = Integer.highestOneBit(Math.max(2, bufferSize - 1)) << 1; // next power of 2
+		this.indexMask = this.bufferSize - 1;
+		this.indexShift = Integer.numberOfTrailingZeros(this.bufferSize);
+		log.info("number of threads=" + numOfThreads + ", buffer size=" + this.bufferSize);
+
+		this.delegate = new EventsManagerImpl();
+		this.eventsManagers = new EventsManagerImpl[this.numOfThreads];
+		for (int i = 0; i < numOfThreads; i++) this.eventsManagers[i] = new EventsManagerImpl();
+	}
+
+	@Override
+	public void processEvent(final Event event) {
+		if (this.parallelMode) {
+			if (Thread.currentThread() instanceof Consumer consumer && consumer.getEventsManager() == this) {
+				this.eventsFromHandlers.add(event);
+			} else {
+				publish(event);
+			}
+		} else {
+			this.delegate.processEvent(event);
+		}
+	}
+
+	@Override
+	public void addHandler(final EventHandler handler) {
+		this.delegate.addHandler(handler);
+
+		this.eventsManagers[this.handlerCount % this.numOfThreads].addHandler(handler);
+		this.handlerCount++;
+	}
+
+	@Override
+	public void removeHandler(final EventHandler handler) {
+		this.delegate.removeHandler(handler);
+
+		for (EventsManager eventsManager : this.eventsManagers) eventsManager.removeHandler(handler);
+	}
+
+	@Override
+	public void resetHandlers(int iteration) {
+		this.delegate.resetHandlers(iteration);
+	}
+
+	@Override
+	public void initProcessing() {
+		this.delegate.initProcessing();
+		for (EventsManager eventsManager : this.eventsManagers) eventsManager.initProcessing();
+
+		this.entries = new Event[this.bufferSize];
+		this.published = new AtomicIntegerArray(this.bufferSize);
+		for (int i = 0; i < this.bufferSize; i++) this.published.set(i, -1);
+		this.cursor.set(-1);
+		this.gatingSequenceCache = -1;
+		this.eventsFromHandlers.clear();
+		this.hadException = new AtomicReference<>();
+
+		this.consumers = new Consumer[this.numOfThreads];
+		for (int i = 0; i < this.numOfThreads; i++) {
+			Consumer consumer = new Consumer(this.eventsManagers[i]);
+			consumer.setDaemon(true);
+			consumer.setName(Consumer.class.getSimpleName() + i);
+			this.consumers[i] = consumer;
+		}
+		for (Consumer consumer : this.consumers) consumer.start();
+
+		/*
+		 * During the simulation Events are processed in
+		 * the consumer threads.
+		 */
+		this.parallelMode = true;
+	}
+
+	@Override
+	public synchronized void finishProcessing() {
+		if (this.hadException.get() == null) {
+			awaitConsumers();
+		}
+
+		for (Consumer consumer : this.consumers) {
+			consumer.running = false;
+			LockSupport.unpark(consumer);
+		}
+		try {
+			for (Consumer consumer : this.consumers) consumer.join();
+		} catch (InterruptedException e) {
+			throw new RuntimeException(e);
+		}
+
+		this.delegate.finishProcessing();
+		for (EventsManager eventsManager : this.eventsManagers) eventsManager.finishProcessing();
+
+		/*
+		 * After the simulation Events are processed in
+		 * the Main Thread.
+		 */
+		this.parallelMode = false;
+		this.entries = null;
+
+		if (this.hadException.get() != null) {
+			throw new RuntimeException("Exception while processing events. Cannot guarantee that all events have been fully processed.", this.hadException.get());
+		}
+	}
+
+	@Override
+	public void afterSimStep(double time) {
+		if (this.hadException.get() != null) {
+			throw new RuntimeException(this.hadException.get());
+		}
+		awaitConsumers();
+		if (this.hadException.get() != null) {
+			throw new RuntimeException(this.hadException.get());
+		}
+	}
+
+	private void publish(final Event event) {
+		long sequence = this.cursor.incrementAndGet();
+		long wrapPoint = sequence - this.bufferSize;
+		if (wrapPoint > this.gatingSequenceCache) {
+			long minSequence;
+			while (wrapPoint > (minSequence = getMinimumConsumerSequence())) {
+				// the buffer is full, wait for the slowest consumer
+				LockSupport.parkNanos(1000);
+			}
+			this.gatingSequenceCache = minSequence;
+		}
+		int index = (int) sequence & this.indexMask;
+		this.entries[index] = event;
+		this.published.set(index, (int) (sequence >>> this.indexShift));
+
+		if (this.sleepingConsumers.get() > 0) {
+			for (Consumer consumer : this.consumers) LockSupport.unpark(consumer);
+		}
+	}
+
+	private boolean isPublished(final long sequence) {
+		return this.published.get((int) sequence & this.indexMask) == (int) (sequence >>> this.indexShift);
+	}
+
+	private long getMinimumConsumerSequence() {
+		long min = Long.MAX_VALUE;
+		for (Consumer consumer : this.consumers) {
+			min = Math.min(min, consumer.sequence.get());
+		}
+		return min;
+	}
+
+	/**
+	 * Waits until all events that were published so far are processed by all consumers.  Events created by handlers in the meantime
+	 * are then published, and this is repeated until no more events are created.  Only to be called when no other thread produces
+	 * events, i.e. at the end of a time step or of the iteration.
+	 */
+	private void awaitConsumers() {
+		while (true) {
+			long target = this.cursor.get();
+			this.waitingForConsumers = Thread.currentThread();
+			try {
+				int idle = 0;
+				while (getMinimumConsumerSequence() < target && this.hadException.get() == null) {
+					if (idle < SPIN_TRIES) {
+						Thread.onSpinWait();
+					} else {
+						LockSupport.parkNanos(this, PARK_NANOS);
+					}
+					idle++;
+				}
+			} finally {
+				this.waitingForConsumers = null;
+			}
+			if (this.hadException.get() != null || this.eventsFromHandlers.isEmpty()) {
+				return;
+			}
+			Event event;
+			while ((event = this.eventsFromHandlers.poll()) != null) {
+				publish(event);
+			}
+		}
+	}
+
+	/**
+	 * Processes all events of the ring buffer with the handlers of one events manager.
+	 */
+	private final class Consumer extends Thread {
+
+		private final EventsManager eventsManager;
+		/** the sequence of the last processed event */
+		private final AtomicLong sequence = new AtomicLong(-1);
+		private volatile boolean running = true;
+		private double lastEventTime = 0.0;
+
+		Consumer(EventsManager eventsManager) {
+			this.eventsManager = eventsManager;
+		}
+
+		RingBufferEventsManagerImpl getEventsManager() {
+			return RingBufferEventsManagerImpl.this;
+		}
+
+		@Override
+		public void run() {
+			try {
+				long next = 0;
+				int idle = 0;
+				while (true) {
+					long available = next - 1;
+					while (available - next < bufferSize - 1 && isPublished(available + 1)) {
+						available++;
+					}
+					if (available < next) {
+						if (!this.running) {
+							break;
+						}
+						idle = idle(next, idle);
+						continue;
+					}
+					idle = 0;
+
+					for (long s = next; s <= available; s++) {
+						Event event = entries[(int) s & indexMask];
+						if (event.getTime() < this.lastEventTime) {
+							throw new RuntimeException("Events are not ordered chronologically. " +
+									"This should never happen. Is the events manager registered " +
+									"as a MobsimAfterSimStepListener? LastEventTime = " + this.lastEventTime +
+									" currentEvent.time = " + event.getTime() + " currentEvent.type = " + event.getEventType() +
+									" full event: " + event.toString());
+						}
+						this.lastEventTime = event.getTime();
+						this.eventsManager.processEvent(event);
+					}
+					this.sequence.set(available);
+					next = available + 1;
+
+					Thread waiting = waitingForConsumers;
+					if (waiting != null) {
+						LockSupport.unpark(waiting);
+					}
+				}
+			} catch (Throwable e) {
+				hadException.compareAndSet(null, e);
+				log.error("Thread " + getName() + " died with exception while handling events.", e);
+				// do not block the producers or the main thread any longer
+				this.sequence.set(Long.MAX_VALUE);
+				Thread waiting = waitingForConsumers;
+				if (waiting != null) {
+					LockSupport.unpark(waiting);
+				}
+			}
+		}
+
+		private int idle(long next, int idle) {
+			if (idle < SPIN_TRIES) {
+				Thread.onSpinWait();
+			} else if (idle < SPIN_TRIES + YIELD_TRIES) {
+				Thread.yield();
+			} else {
+				sleepingConsumers.incrementAndGet();
+				try {
+					if (this.running && !isPublished(next)) {
+						LockSupport.parkNanos(this, PARK_NANOS);
+					}
+				} finally {
+					sleepingConsumers.decrementAndGet();
+				}
+			}
+			return idle + 1;
+		}
+	}
+}
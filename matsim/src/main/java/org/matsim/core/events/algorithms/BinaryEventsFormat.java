@@ -0,0 +1,183 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * BinaryEventsFormat.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2026 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.events.algorithms;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import org.matsim.api.core.v01.events.HasLinkId;
+import org.matsim.api.core.v01.events.HasPersonId;
+import org.matsim.api.core.v01.events.HasVehicleId;
+
+/**
+ * Constants and encoding helpers of the binary events format, written by {@link EventWriterBinary} and read by
+ * {@link org.matsim.core.events.EventsReaderBinary}.
+ * <p>
+ * A file consists of a header, a sequence of blocks and a block index:
+ * <pre>
+ * file     := MAGIC version:int (BLOCK block)* INDEX index indexOffset:long MAGIC
+ * block    := eventCount:int firstTime:double lastTime:double
+ *             dictionaryLength:int dictionaryCompressedLength:int dictionary
+ *             columnsLength:int columnsCompressedLength:int columns
+ * index    := blockCount:int (offset:long firstTime:double lastTime:double eventCount:int)*
+ * </pre>
+ * Dictionary and columns are compressed with zstd, independently of each other, so a reader can collect the dictionary of blocks
+ * it is not interested in without decompressing their events.
+ * <p>
+ * The dictionary of a block contains the strings and schemas that are used for the first time in this block; they are numbered
+ * consecutively over the whole file, string 0 is {@code null}.  A schema is the event type together with the keys of its
+ * attributes except time and type, in the order of {@link org.matsim.api.core.v01.events.Event#getAttributes()}:
+ * <pre>
+ * dictionary := stringCount:varint (length:varint utf8:byte[length])* schemaCount:varint (keyCount:varint type:varint key:varint*)*
+ * </pre>
+ * The columns of a block contain the times of all events, the schema of each event, and then, for each schema in order of their
+ * number, one column per attribute with the values of all events of this schema:
+ * <pre>
+ * columns := timeEncoding:byte time* schema:varint* (valueEncoding:byte value*)*
+ * </pre>
+ * Times are stored as zigzag varint deltas if all times of the block are whole seconds, otherwise as doubles.  Attribute values are
+ * stored as doubles if all values of the column are the string representation of a double, otherwise as dictionary entries.  Reading
+ * a file thus reproduces exactly the attributes that were written.
+ * <p>
+ * Next to the events file, a sidecar file with the ending {@value #INDEX_FILE_SUFFIX} lists for each value of the {@link #ENTITY_KEYS}
+ * the blocks in which it appears.  The ids of each key are distributed over buckets by the hash code of the id, so looking up an id
+ * only requires to decompress one bucket:
+ * <pre>
+ * sidecar := INDEX_MAGIC version:int bucket* table tableOffset:long INDEX_MAGIC
+ * bucket  := idCount:varint (id:string blockCount:varint blockDelta:varint*)*
+ * table   := keyCount:int (key:string bucketCount:int (offset:long length:int compressedLength:int)*)*
+ * </pre>
+ *
+ * @see EventWriterBinary
+ */
+public final class BinaryEventsFormat {
+
+	public static final byte[] MAGIC = "MATSIMEV".getBytes(StandardCharsets.US_ASCII);
+	public static final int VERSION = 1;
+
+	public static final byte BLOCK = 1;
+	public static final byte INDEX = 2;
+
+	public static final byte TIME_SECONDS = 0;
+	public static final byte TIME_DOUBLE = 1;
+
+	public static final byte VALUE_STRING = 0;
+	public static final byte VALUE_DOUBLE = 1;
+
+	public static final int NULL_STRING = 0;
+
+	public static final byte[] INDEX_MAGIC = "MATSIMEI".getBytes(StandardCharsets.US_ASCII);
+	public static final String INDEX_FILE_SUFFIX = ".idx";
+	/** the attributes whose values are listed in the sidecar index */
+	public static final List<String> ENTITY_KEYS = List.of(HasPersonId.ATTRIBUTE_PERSON, HasLinkId.ATTRIBUTE_LINK, HasVehicleId.ATTRIBUTE_VEHICLE);
+	public static final int IDS_PER_BUCKET = 1024;
+
+	private BinaryEventsFormat() {
+	}
+
+	public static void writeVarInt(final ByteArrayOutputStream out, final int value) {
+		writeVarLong(out, value & 0xFFFFFFFFL);
+	}
+
+	public static void writeVarLong(final ByteArrayOutputStream out, long value) {
+		while ((value & ~0x7FL) != 0) {
+			out.write((int) ((value & 0x7F) | 0x80));
+			value >>>= 7;
+		}
+		out.write((int) value);
+	}
+
+	public static void writeZigZagLong(final ByteArrayOutputStream out, final long value) {
+		writeVarLong(out, (value << 1) ^ (value >> 63));
+	}
+
+	public static void writeDouble(final ByteArrayOutputStream out, final double value) {
+		long bits = Double.doubleToRawLongBits(value);
+		for (int shift = 56; shift >= 0; shift -= 8) {
+			out.write((int) (bits >>> shift));
+		}
+	}
+
+	public static void writeString(final ByteArrayOutputStream out, final String value) {
+		byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+		writeVarInt(out, bytes.length);
+		out.writeBytes(bytes);
+	}
+
+	public static int readVarInt(final ByteBuffer in) {
+		return (int) readVarLong(in);
+	}
+
+	public static long readVarLong(final ByteBuffer in) {
+		long value = 0;
+		int shift = 0;
+		byte b;
+		do {
+			b = in.get();
+			value |= (long) (b & 0x7F) << shift;
+			shift += 7;
+		} while (b < 0);
+		return value;
+	}
+
+	public static long readZigZagLong(final ByteBuffer in) {
+		long value = readVarLong(in);
+		return (value >>> 1) ^ -(value & 1);
+	}
+
+	public static String readString(final ByteBuffer in) {
+		int length = readVarInt(in);
+		String value = new String(in.array(), in.arrayOffset() + in.position(), length, StandardCharsets.UTF_8);
+		in.position(in.position() + length);
+		return value;
+	}
+
+	public static int getBucket(final String id, final int bucketCount) {
+		return Math.floorMod(id.hashCode(), bucketCount);
+	}
+
+	/**
+	 * @return whether the time can be stored as whole seconds without changing its string representation
+	 */
+	public static boolean isWholeSeconds(final double time) {
+		return Math.abs(time) < 0x1p53 && Double.doubleToRawLongBits(time) == Double.doubleToRawLongBits((double) (long) time);
+	}
+
+	/**
+	 * @return whether the value can be stored as double without changing its string representation
+	 */
+	public static boolean isDouble(final String value) {
+		if (value == null || value.isEmpty()) {
+			return false;
+		}
+		char first = value.charAt(0);
+		if (first != '-' && (first < '0' || first > '9')) {
+			return false;
+		}
+		try {
+			return Double.toString(Double.parseDouble(value)).equals(value);
+		} catch (NumberFormatException e) {
+			return false;
+		}
+	}
+}
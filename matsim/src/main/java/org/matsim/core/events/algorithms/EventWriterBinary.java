@@ -0,0 +1,413 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * EventWriterBinary.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2026 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.events.algorithms;
+
+import static org.matsim.core.events.algorithms.BinaryEventsFormat.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.matsim.api.core.v01.events.Event;
+import org.matsim.core.events.handler.BasicEventHandler;
+import org.matsim.core.utils.io.IOUtils;
+
+import com.github.luben.zstd.Zstd;
+
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+
+/**
+ * Writes events in the compact binary format described in {@link BinaryEventsFormat}.  The events are collected in blocks of
+ * {@value #BLOCK_SIZE} events, which are stored column by column and compressed.  Such files can be read with
+ * {@link org.matsim.core.events.MatsimEventsReader} if their name ends with {@code .bin}.
+ * <p>
+ * The files are compressed by the writer itself, so the file name should not have a compression ending like {@code .gz}.
+ * <p>
+ * When writing to a file, a sidecar index is written next to it (see {@link BinaryEventsFormat}), which allows to read only the
+ * blocks that contain the events of some persons, links or vehicles.  The index is built in memory, with 8 bytes per block in which
+ * an entity appears.
+ */
+public final class EventWriterBinary implements EventWriter, BasicEventHandler {
+
+	static final int BLOCK_SIZE = 8192;
+	private static final int COMPRESSION_LEVEL = 3;
+
+	private final DataOutputStream out;
+	private long position = 0;
+	private final OutputStream indexOut;
+
+	private final Map<String, Integer> stringIds = new HashMap<>();
+	private final List<String> strings = new ArrayList<>();
+	private final List<String> newStrings = new ArrayList<>();
+	private final Map<List<String>, Integer> schemaIds = new HashMap<>();
+	private final List<List<String>> newSchemas = new ArrayList<>();
+	/** for each schema and entity key, the position of the key in the values of the events, or -1 */
+	private final List<int[]> entityPositions = new ArrayList<>();
+	private final Postings[] postings = new Postings[ENTITY_KEYS.size()];
+
+	private final double[] times = new double[BLOCK_SIZE];
+	private final int[] schemas = new int[BLOCK_SIZE];
+	private final String[][] values = new String[BLOCK_SIZE][];
+	private int size = 0;
+
+	private final List<BlockInfo> index = new ArrayList<>();
+
+	public EventWriterBinary(final String filename) {
+		this(IOUtils.getOutputStream(IOUtils.getFileUrl(filename), false),
+				IOUtils.getOutputStream(IOUtils.getFileUrl(filename + INDEX_FILE_SUFFIX), false));
+	}
+
+	/**
+	 * Writes the events without a sidecar index.
+	 */
+	public EventWriterBinary(final OutputStream stream) {
+		this(stream, null);
+	}
+
+	public EventWriterBinary(final OutputStream stream, final OutputStream indexStream) {
+		this.out = new DataOutputStream(stream);
+		this.indexOut = indexStream;
+		for (int k = 0; k < this.postings.length; k++) {
+			this.postings[k] = new Postings();
+		}
+		this.stringIds.put(null, NULL_STRING);
+		this.strings.add(null);
+		try {
+			this.out.write(MAGIC);
+			this.out.writeInt(VERSION);
+			this.position += MAGIC.length + 4;
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	@Override
+	public void handleEvent(final Event event) {
+		Map<String, String> attributes = event.getAttributes();
+		List<String> schema = new ArrayList<>(attributes.size() - 1);
+		schema.add(event.getEventType());
+		String[] eventValues = new String[attributes.size()];
+		int count = 0;
+		for (Map.Entry<String, String> e : attributes.entrySet()) {
+			String key = e.getKey();
+			if (!Event.ATTRIBUTE_TIME.equals(key) && !Event.ATTRIBUTE_TYPE.equals(key)) {
+				schema.add(key);
+				eventValues[count++] = e.getValue();
+			}
+		}
+
+		Integer schemaId = this.schemaIds.get(schema);
+		if (schemaId == null) {
+			schemaId = this.schemaIds.size();
+			this.schemaIds.put(schema, schemaId);
+			this.newSchemas.add(schema);
+			for (String s : schema) {
+				getStringId(s);
+			}
+			int[] positions = new int[ENTITY_KEYS.size()];
+			for (int k = 0; k < positions.length; k++) {
+				positions[k] = schema.indexOf(ENTITY_KEYS.get(k)) - 1;
+			}
+			this.entityPositions.add(positions);
+		}
+
+		this.times[this.size] = event.getTime();
+		this.schemas[this.size] = schemaId;
+		this.values[this.size] = count == eventValues.length ? eventValues : Arrays.copyOf(eventValues, count);
+		this.size++;
+		if (this.size == BLOCK_SIZE) {
+			writeBlock();
+		}
+	}
+
+	@Override
+	public void reset(final int iter) {
+	}
+
+	@Override
+	public void closeFile() {
+		try {
+			if (this.size > 0) {
+				writeBlock();
+			}
+			long indexOffset = this.position;
+			this.out.writeByte(INDEX);
+			this.out.writeInt(this.index.size());
+			for (BlockInfo block : this.index) {
+				this.out.writeLong(block.offset);
+				this.out.writeDouble(block.firstTime);
+				this.out.writeDouble(block.lastTime);
+				this.out.writeInt(block.eventCount);
+			}
+			this.out.writeLong(indexOffset);
+			this.out.write(MAGIC);
+			this.out.close();
+			if (this.indexOut != null) {
+				writeSidecarIndex();
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private int getStringId(final String s) {
+		Integer id = this.stringIds.get(s);
+		if (id == null) {
+			id = this.stringIds.size();
+			this.stringIds.put(s, id);
+			this.strings.add(s);
+			this.newStrings.add(s);
+		}
+		return id;
+	}
+
+	private void writeBlock() {
+		if (this.indexOut != null) {
+			int block = this.index.size();
+			for (int i = 0; i < this.size; i++) {
+				int[] positions = this.entityPositions.get(this.schemas[i]);
+				for (int k = 0; k < positions.length; k++) {
+					String id = positions[k] < 0 ? null : this.values[i][positions[k]];
+					if (id != null) {
+						this.postings[k].add(getStringId(id), block);
+					}
+				}
+			}
+		}
+
+		ByteArrayOutputStream columns = new ByteArrayOutputStream(this.size * 8);
+		writeTimes(columns);
+		for (int i = 0; i < this.size; i++) {
+			writeVarInt(columns, this.schemas[i]);
+		}
+		writeValues(columns);
+
+		// the dictionary last, as writing the values may have added strings
+		ByteArrayOutputStream dictionary = new ByteArrayOutputStream();
+		writeVarInt(dictionary, this.newStrings.size());
+		for (String s : this.newStrings) {
+			writeString(dictionary, s);
+		}
+		writeVarInt(dictionary, this.newSchemas.size());
+		for (List<String> schema : this.newSchemas) {
+			writeVarInt(dictionary, schema.size() - 1);
+			for (String s : schema) {
+				writeVarInt(dictionary, this.stringIds.get(s));
+			}
+		}
+		this.newStrings.clear();
+		this.newSchemas.clear();
+
+		try {
+			double firstTime = Double.POSITIVE_INFINITY;
+			double lastTime = Double.NEGATIVE_INFINITY;
+			for (int i = 0; i < this.size; i++) {
+				firstTime = Math.min(firstTime, this.times[i]);
+				lastTime = Math.max(lastTime, this.times[i]);
+			}
+			BlockInfo block = new BlockInfo(this.position, firstTime, lastTime, this.size);
+			this.index.add(block);
+			byte[] dictionaryBytes = dictionary.toByteArray();
+			byte[] dictionaryCompressed = Zstd.compress(dictionaryBytes, COMPRESSION_LEVEL);
+			byte[] columnsBytes = columns.toByteArray();
+			byte[] columnsCompressed = Zstd.compress(columnsBytes, COMPRESSION_LEVEL);
+			this.out.writeByte(BLOCK);
+			this.out.writeInt(block.eventCount);
+			this.out.writeDouble(block.firstTime);
+			this.out.writeDouble(block.lastTime);
+			this.out.writeInt(dictionaryBytes.length);
+			this.out.writeInt(dictionaryCompressed.length);
+			this.out.write(dictionaryCompressed);
+			this.out.writeInt(columnsBytes.length);
+			this.out.writeInt(columnsCompressed.length);
+			this.out.write(columnsCompressed);
+			this.position += 1 + 4 + 8 + 8 + 4 + 4 + dictionaryCompressed.length + 4 + 4 + columnsCompressed.length;
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+
+		Arrays.fill(this.values, 0, this.size, null);
+		this.size = 0;
+	}
+
+	private void writeTimes(final ByteArrayOutputStream columns) {
+		boolean wholeSeconds = true;
+		for (int i = 0; i < this.size && wholeSeconds; i++) {
+			wholeSeconds = isWholeSeconds(this.times[i]);
+		}
+		if (wholeSeconds) {
+			columns.write(TIME_SECONDS);
+			long last = 0;
+			for (int i = 0; i < this.size; i++) {
+				long time = (long) this.times[i];
+				writeZigZagLong(columns, time - last);
+				last = time;
+			}
+		} else {
+			columns.write(TIME_DOUBLE);
+			for (int i = 0; i < this.size; i++) {
+				writeDouble(columns, this.times[i]);
+			}
+		}
+	}
+
+	private void writeValues(final ByteArrayOutputStream columns) {
+		// group the events by schema, keeping their order
+		int schemaCount = this.schemaIds.size();
+		int[] eventsPerSchema = new int[schemaCount];
+		for (int i = 0; i < this.size; i++) {
+			eventsPerSchema[this.schemas[i]]++;
+		}
+		int[][] eventsOfSchema = new int[schemaCount][];
+		for (int s = 0; s < schemaCount; s++) {
+			if (eventsPerSchema[s] > 0) {
+				eventsOfSchema[s] = new int[eventsPerSchema[s]];
+				eventsPerSchema[s] = 0;
+			}
+		}
+		for (int i = 0; i < this.size; i++) {
+			int s = this.schemas[i];
+			eventsOfSchema[s][eventsPerSchema[s]++] = i;
+		}
+
+		for (int s = 0; s < schemaCount; s++) {
+			int[] events = eventsOfSchema[s];
+			if (events == null) {
+				continue;
+			}
+			int keyCount = this.values[events[0]].length;
+			for (int k = 0; k < keyCount; k++) {
+				boolean allDoubles = true;
+				for (int i = 0; i < events.length && allDoubles; i++) {
+					allDoubles = isDouble(this.values[events[i]][k]);
+				}
+				if (allDoubles) {
+					columns.write(VALUE_DOUBLE);
+					for (int event : events) {
+						writeDouble(columns, Double.parseDouble(this.values[event][k]));
+					}
+				} else {
+					columns.write(VALUE_STRING);
+					for (int event : events) {
+						writeVarInt(columns, getStringId(this.values[event][k]));
+					}
+				}
+			}
+		}
+	}
+
+	private void writeSidecarIndex() throws IOException {
+		DataOutputStream index = new DataOutputStream(this.indexOut);
+		index.write(INDEX_MAGIC);
+		index.writeInt(VERSION);
+		long indexPosition = INDEX_MAGIC.length + 4;
+
+		ByteArrayOutputStream table = new ByteArrayOutputStream();
+		DataOutputStream tableOut = new DataOutputStream(table);
+		tableOut.writeInt(ENTITY_KEYS.size());
+		for (int k = 0; k < ENTITY_KEYS.size(); k++) {
+			// sorting the postings groups them by id, each with ascending blocks
+			long[] entries = this.postings[k].entries.toLongArray();
+			this.postings[k] = null;
+			Arrays.sort(entries);
+
+			// the start of each id in entries, and the ids of each bucket
+			IntArrayList starts = new IntArrayList();
+			for (int i = 0; i < entries.length; i++) {
+				if (i == 0 || (entries[i] >>> 32) != (entries[i - 1] >>> 32)) {
+					starts.add(i);
+				}
+			}
+			int idCount = starts.size();
+			starts.add(entries.length);
+			int bucketCount = Math.max(1, idCount / IDS_PER_BUCKET);
+			List<IntArrayList> buckets = new ArrayList<>(bucketCount);
+			for (int b = 0; b < bucketCount; b++) {
+				buckets.add(new IntArrayList());
+			}
+			for (int i = 0; i < idCount; i++) {
+				String id = this.strings.get((int) (entries[starts.getInt(i)] >>> 32));
+				buckets.get(getBucket(id, bucketCount)).add(i);
+			}
+
+			writeString(table, ENTITY_KEYS.get(k));
+			tableOut.writeInt(bucketCount);
+			for (IntArrayList bucket : buckets) {
+				ByteArrayOutputStream data = new ByteArrayOutputStream();
+				writeVarInt(data, bucket.size());
+				for (int i : bucket) {
+					int start = starts.getInt(i);
+					int end = starts.getInt(i + 1);
+					writeString(data, this.strings.get((int) (entries[start] >>> 32)));
+					writeVarInt(data, end - start);
+					int last = 0;
+					for (int e = start; e < end; e++) {
+						int block = (int) entries[e];
+						writeVarInt(data, block - last);
+						last = block;
+					}
+				}
+				byte[] bytes = data.toByteArray();
+				byte[] compressed = Zstd.compress(bytes, COMPRESSION_LEVEL);
+				index.write(compressed);
+				tableOut.writeLong(indexPosition);
+				tableOut.writeInt(bytes.length);
+				tableOut.writeInt(compressed.length);
+				indexPosition += compressed.length;
+			}
+		}
+		tableOut.flush();
+		index.write(table.toByteArray());
+		index.writeLong(indexPosition);
+		index.write(INDEX_MAGIC);
+		index.close();
+	}
+
+	/**
+	 * The blocks in which entities appear, as (string id, block) pairs.
+	 */
+	private static final class Postings {
+		private final LongArrayList entries = new LongArrayList();
+		/** the last block added for each string id, to add each block only once */
+		private final IntArrayList lastBlock = new IntArrayList();
+
+		void add(final int stringId, final int block) {
+			while (this.lastBlock.size() <= stringId) {
+				this.lastBlock.add(-1);
+			}
+			if (this.lastBlock.getInt(stringId) != block) {
+				this.lastBlock.set(stringId, block);
+				this.entries.add(((long) stringId << 32) | block);
+			}
+		}
+	}
+
+	private record BlockInfo(long offset, double firstTime, double lastTime, int eventCount) {
+	}
+}
@@ -30,33 +30,149 @@ import java.util.List;
 
 class Agent {
 
+	/**
+	 * The plan entries of an agent, stored compactly in a byte array. Each entry is encoded as its highest byte (header),
+	 * the zigzag varint of the difference of its next 16 bits (mostly the event id) to those of the previous entry, and
+	 * the varint of its lowest 40 bits. A typical link entry thus takes about 6 bytes instead of 8.
+	 * <p>
+	 * The entries are decoded sequentially, the last few decoded entries are kept, which suits the access of the agents
+	 * to their current and next entries. Accessing older entries decodes the plan again from the start.
+	 * <p>
+	 * After {@link #rewind()}, the entries are added again, e.g. in the next iteration. As long as they are equal to the
+	 * existing entries, they are only compared, so unchanged plans are neither re-encoded nor re-allocated.
+	 */
 	public static class PlanArray {
-		long[] array;
-		int size;
+		private static final int RECENT = 4;
+		private static final int RECENT_MASK = RECENT - 1;
+
+		private byte[] bytes;
+		// number of valid entries
+		private int size;
+		// number of entries from before the last rewind which may still be re-used
+		private int retained;
+		// position after the last valid entry and its middle bits, where the next entry is added
+		private int writeOffset;
+		private int writeMiddle;
+		// position of the next entry to decode and the middle bits of the previous entry
+		private int readIndex;
+		private int readOffset;
+		private int readMiddle;
+		// the last decoded entries: recent[index & RECENT_MASK]
+		private final long[] recent = new long[RECENT];
 
 		public PlanArray() {
-			this.array = new long[32];
+			this.bytes = new byte[32];
 		}
 
 		public void add(long element) {
-			if (size == array.length) {
-				array = Arrays.copyOf(array, array.length * 2);
+			if (size < retained) {
+				// compare with the retained entry, the cursor is usually already positioned there
+				if (readIndex != size) {
+					resetCursor();
+					while (readIndex < size) {
+						decodeNext();
+					}
+				}
+				decodeNext();
+				if (recent[size & RECENT_MASK] == element) {
+					writeOffset = readOffset;
+					writeMiddle = readMiddle;
+					size++;
+					return;
+				}
+				// the plan changed, drop the rest of the retained entries
+				retained = size;
 			}
-			array[size++] = element;
+			// header byte, up to 3 bytes for the middle bits and up to 6 bytes for the lowest 40 bits
+			ensureCapacity(writeOffset + 10);
+			int middle = (int) ((element >>> 40) & 0xFFFF);
+			int delta = middle - writeMiddle;
+			bytes[writeOffset++] = (byte) (element >>> 56);
+			writeVarint((delta << 1) ^ (delta >> 31));
+			writeVarint(element & 0xFFFFFFFFFFL);
+			writeMiddle = middle;
+			size++;
+			resetCursor();
 		}
 
 		public int size() {
 			return size;
 		}
+
 		public long get(int index) {
-			return array[index];
+			if (index >= size || index < 0) {
+				throw new IndexOutOfBoundsException(index);
+			}
+			if (index < readIndex - RECENT) {
+				resetCursor();
+			}
+			while (readIndex <= index) {
+				decodeNext();
+			}
+			return recent[index & RECENT_MASK];
 		}
 
+		/**
+		 * Removes all entries.
+		 */
 		public void clear() {
-			for (int i = 0; i < size; i++) {
-				array[i] = 0;
-			}
 			size = 0;
+			retained = 0;
+			writeOffset = 0;
+			writeMiddle = 0;
+			resetCursor();
+		}
+
+		/**
+		 * Removes all entries, but keeps them to be re-used if the same entries are added again.
+		 */
+		public void rewind() {
+			retained = Math.max(retained, size);
+			size = 0;
+			writeOffset = 0;
+			writeMiddle = 0;
+			resetCursor();
+		}
+
+		private void resetCursor() {
+			readIndex = 0;
+			readOffset = 0;
+			readMiddle = 0;
+		}
+
+		private void decodeNext() {
+			long element = ((long) (bytes[readOffset++] & 0xFF)) << 56;
+			long delta = readVarint();
+			readMiddle += (int) ((delta >>> 1) ^ -(delta & 1));
+			element |= ((long) readMiddle) << 40;
+			element |= readVarint();
+			recent[readIndex & RECENT_MASK] = element;
+			readIndex++;
+		}
+
+		private long readVarint() {
+			long value = 0;
+			for (int shift = 0; ; shift += 7) {
+				byte b = bytes[readOffset++];
+				value |= (long) (b & 0x7F) << shift;
+				if (b >= 0) {
+					return value;
+				}
+			}
+		}
+
+		private void writeVarint(long value) {
+			while ((value & ~0x7FL) != 0) {
+				bytes[writeOffset++] = (byte) ((value & 0x7F) | 0x80);
+				value >>>= 7;
+			}
+			bytes[writeOffset++] = (byte) value;
+		}
+
+		private void ensureCapacity(int capacity) {
+			if (capacity > bytes.length) {
+				bytes = Arrays.copyOf(bytes, Math.max(capacity, bytes.length + (bytes.length >> 1)));
+			}
 		}
 	}
 
@@ -95,7 +211,7 @@ class Agent {
     // <0101> StopArriveType  | 4 bits unused | 16 bit event id  | 8 bits unused   | 16 bit route id | 16 station id
     // <1000> StopDelayType   | 20 departure sec                 | 8 bits unused   | 16 bit route id | 16 station id
     // <0110> StopDepartType  | 4 bits unused | 16 bit event id  | 8 bits unused   | 16 bit route id | 16 station id
-    protected final PlanArray plan; // TODO - use a byte buffer instead of a long[]...
+    protected final PlanArray plan;
 
     protected final EventArray events;
 
@@ -331,8 +447,16 @@ class Agent {
     }
 
     public void reset() {
-        plan.clear();
+        // the plan is generated again, but its entries are re-used as long as they did not change
+        plan.rewind();
         events.clear();
+        resetState();
+    }
+
+    /**
+     * Resets the progress of the agent, but keeps its plan and events to simulate them again.
+     */
+    public void resetState() {
         planIndex = 0;
         eventsIndex = 0;
         linkFinishTime = 0;
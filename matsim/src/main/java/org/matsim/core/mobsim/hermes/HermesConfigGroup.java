@@ -62,6 +62,12 @@ public final class HermesConfigGroup extends ReflectiveConfigGroup {
     private static final String MAINMODESPARAMDESC = "[comma-separated list] Modes that are handled in the mobsim along links. By default: car";
     private Set<String> mainModes = Set.of(TransportMode.car);
 
+    private static final String IMPORT_CHANGED_PLANS_ONLY = "importChangedPlansOnly";
+    private static final String IMPORT_CHANGED_PLANS_ONLY_DESC = "If true, only agents with a newly selected plan are imported again in each iteration, all other agents keep "
+            + "their imported plans and events. Requires that selected plans are not modified in place between iterations (replanning strategies "
+            + "modify copies of the plans) and that event handlers do not keep references to events across iterations. Default: false.";
+    private boolean importChangedPlansOnly = false;
+
     private static final String DETPTDESC = "treats PT as deterministic. PT vehicles will run with a steady speed. Should be used with separate network layers for PT and other network modes.";
     private boolean deterministicPt = false;
     public static final boolean DEBUG_REALMS = false;
@@ -113,6 +119,16 @@ public final class HermesConfigGroup extends ReflectiveConfigGroup {
         this.deterministicPt = deterministicPt;
     }
 
+    @StringGetter(IMPORT_CHANGED_PLANS_ONLY)
+    public boolean isImportChangedPlansOnly() {
+        return importChangedPlansOnly;
+    }
+
+    @StringSetter(IMPORT_CHANGED_PLANS_ONLY)
+    public void setImportChangedPlansOnly(boolean importChangedPlansOnly) {
+        this.importChangedPlansOnly = importChangedPlansOnly;
+    }
+
     @StringGetter(STUCKTIMEPARAM)
     public int getStuckTime() {
         return stuckTime;
@@ -159,6 +175,7 @@ public final class HermesConfigGroup extends ReflectiveConfigGroup {
         comments.put(END_TIME, "Simulation End Time");
         comments.put(STUCKTIMEPARAM, STUCKTIMEPARAMDESC);
         comments.put(DETPT, DETPTDESC);
+        comments.put(IMPORT_CHANGED_PLANS_ONLY, IMPORT_CHANGED_PLANS_ONLY_DESC);
         return comments;
     }
 
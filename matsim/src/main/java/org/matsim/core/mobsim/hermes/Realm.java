@@ -160,7 +160,7 @@ class Realm {
             //assures PT vehicles never update their PCUEs, as only they have a capacity > 0
             //check is not strictly necessary in current code, adding it just in case
         }
-        if (agent.plan.size < agent.planIndex + 3) {
+        if (agent.plan.size() < agent.planIndex + 3) {
             return;
         }
         if (Agent.getPlanHeader(agent.plan.get(agent.planIndex + 2)) == Agent.LinkType) {
@@ -47,6 +47,7 @@ import org.matsim.vehicles.VehicleType;
 import org.matsim.vehicles.VehicleUtils;
 
 import java.util.*;
+import java.util.concurrent.atomic.LongAdder;
 
 class ScenarioImporter {
 
@@ -88,6 +89,9 @@ class ScenarioImporter {
 	// Array of agents that participate in the simulation.
 	// Note: in order to make MATSim Agent ids, some positions in the array might be null.
 	protected Agent[] hermesAgents;
+	// Selected plans from which the agents were imported, only if only changed plans should be imported again.
+	// Note: indexed by the hermes id of the agents.
+	private Plan[] importedPlans;
 	protected final EventsManager eventsManager;
 	private final int numberOfThreads;
 	private final List<List<Event>> deterministicPtEvents;
@@ -173,9 +177,15 @@ class ScenarioImporter {
 					}
 				}
 				// reset agent plans and events
-				for (Agent hermes_agent : hermesAgents) {
+				for (int hermes_id = 0; hermes_id < hermesAgents.length; hermes_id++) {
+					Agent hermes_agent = hermesAgents[hermes_id];
 					if (hermes_agent != null) {
-						hermes_agent.reset();
+						if (importedPlans != null && hermes_id < agentPersons) {
+							// only reset if a new plan is selected, see generatePersonPlans
+							hermes_agent.resetState();
+						} else {
+							hermes_agent.reset();
+						}
 					}
 				}
 				// reset agent_stops
@@ -850,14 +860,26 @@ class ScenarioImporter {
 
 	private void generatePersonPlans() {
 		Population population = scenario.getPopulation();
+		LongAdder importedPlansCount = new LongAdder();
 		population.getPersons().values().parallelStream().forEach((person) -> {
 			int hermes_id = hermes_id(person.getId().index(), false);
+			if (importedPlans != null) {
+				Plan selectedPlan = person.getSelectedPlan();
+				if (importedPlans[hermes_id] == selectedPlan) {
+					// keep the plan and events imported in a previous iteration
+					return;
+				}
+				hermesAgents[hermes_id].reset();
+				importedPlans[hermes_id] = selectedPlan;
+			}
+			importedPlansCount.increment();
 			PlanArray plan = hermesAgents[hermes_id].plan();
 			EventArray events = hermesAgents[hermes_id].events();
 			for (PlanElement element : person.getSelectedPlan().getPlanElements()) {
 				processPlanElement(person, plan, events, element, hermesAgents[hermes_id]);
 			}
 		});
+		log.info(String.format("Hermes imported %d of %d plans", importedPlansCount.sum(), population.getPersons().size()));
 	}
 
 	private void generateAgents() {
@@ -866,6 +888,9 @@ class ScenarioImporter {
 		agentPersons = Id.getNumberOfIds(Person.class);
 		int nagents = agentPersons + Id.getNumberOfIds(Vehicle.class);
 		hermesAgents = new Agent[nagents];
+		if (scenario.getConfig().hermes().isImportChangedPlansOnly()) {
+			importedPlans = new Plan[agentPersons];
+		}
 
 		// Generate persons
 		for (Person person : population.getPersons().values()) {
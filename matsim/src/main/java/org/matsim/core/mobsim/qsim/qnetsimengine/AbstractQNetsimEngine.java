@@ -24,6 +24,7 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Collectors;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -31,6 +32,7 @@ import org.matsim.api.core.v01.Id;
 import org.matsim.api.core.v01.Scenario;
 import org.matsim.api.core.v01.events.PersonLeavesVehicleEvent;
 import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.network.Node;
 import org.matsim.api.core.v01.population.Person;
 import org.matsim.core.config.Config;
 import org.matsim.core.config.groups.QSimConfigGroup;
@@ -44,6 +46,7 @@ import org.matsim.core.mobsim.qsim.InternalInterface;
 import org.matsim.core.mobsim.qsim.QSim;
 import org.matsim.core.mobsim.qsim.interfaces.MobsimVehicle;
 import org.matsim.core.mobsim.qsim.interfaces.NetsimNetwork;
+import org.matsim.core.mobsim.qsim.qnetsimengine.partitioning.NetworkPartitioner;
 import org.matsim.core.utils.misc.Time;
 import org.matsim.vehicles.Vehicle;
 import org.matsim.vis.snapshotwriters.SnapshotLinkWidthCalculator;
@@ -83,13 +86,19 @@ abstract class AbstractQNetsimEngine<A extends AbstractQNetsimEngineRunner> impl
 	private final VehicularDepartureHandler dpHandler;
 //	private final Set<QLinkI> linksToActivateInitially = new HashSet<>();
 	protected final int numOfThreads;
+	protected final int numOfRunners;
 	protected final QNetwork qNetwork;
+	private final List<List<Node>> partitions;
 
 	private double infoTime = 0;
 	private List<A> engines;
 	private InternalInterface internalInterface = null;
 
-	AbstractQNetsimEngine(final QSim sim, QNetworkFactory netsimNetworkFactory) {
+	/**
+	 * @param runnersPerThread how many {@link AbstractQNetsimEngineRunner}s the implementation creates per thread; the network is partitioned
+	 *                         into that many parts per thread
+	 */
+	AbstractQNetsimEngine(final QSim sim, QNetworkFactory netsimNetworkFactory, NetworkPartitioner networkPartitioner, int runnersPerThread) {
 		this.qsim = sim;
 
 		final Config config = sim.getScenario().getConfig();
@@ -126,9 +135,18 @@ abstract class AbstractQNetsimEngine<A extends AbstractQNetsimEngineRunner> impl
 //			netsimNetworkFactory2.initializeFactory(agentCounter, mobsimTimer, ii );
 //			qNetwork = new QNetwork(sim.getScenario().getNetwork(), netsimNetworkFactory2 );
 		}
-		qNetwork.initialize(this, sim.getAgentCounter(), sim.getSimTimer() );
 
 		this.numOfThreads = sim.getScenario().getConfig().qsim().getNumberOfThreads();
+		this.numOfRunners = this.numOfThreads * runnersPerThread;
+
+		// partition before the netsim network is created, so that the elements of one runner can be created next to each other:
+		this.partitions = networkPartitioner.partition(sim.getScenario().getNetwork(), this.numOfRunners);
+		if (networkPartitioner.isDefiningCreationOrder()) {
+			List<Node> creationOrder = this.partitions.stream().flatMap(List::stream).collect(Collectors.toList());
+			qNetwork.initialize(this, sim.getAgentCounter(), sim.getSimTimer(), creationOrder);
+		} else {
+			qNetwork.initialize(this, sim.getAgentCounter(), sim.getSimTimer() );
+		}
 	}
 
 	static AbstractAgentSnapshotInfoBuilder createAgentSnapshotInfoBuilder(Scenario scenario, SnapshotLinkWidthCalculator linkWidthCalculator) {
@@ -383,50 +401,40 @@ abstract class AbstractQNetsimEngine<A extends AbstractQNetsimEngineRunner> impl
 	 * to the Thread that handles its InNode.
 	 */
 	private void assignNetElementActivators() {
+		if (this.partitions.size() != this.engines.size()) {
+			throw new RuntimeException("network was partitioned into " + this.partitions.size() + " parts, but there are "
+					+ this.engines.size() + " QSimEngineRunners.");
+		}
 
 		// only for statistics
 		int nodes[] = new int[this.engines.size()];
 		int links[] = new int[this.engines.size()];
 
-		int roundRobin = 0;
-		for (QNodeI node : qNetwork.getNetsimNodes().values()) {
-			int i = roundRobin % this.engines.size();
-			if( node instanceof AbstractQNode){
-				((AbstractQNode) node).setNetElementActivationRegistry(this.engines.get(i));
-			}
-			nodes[i]++;
-
-			// set activator for out links
-			for (Link outLink : node.getNode().getOutLinks().values()) {
-				AbstractQLink qLink = (AbstractQLink) qNetwork.getNetsimLink(outLink.getId() );
-				// (must be of this type to work.  kai, feb'12)
-
-				// removing qsim as "person in the middle".  not fully sure if this is the same in the parallel impl.  kai, oct'10
-				qLink.setNetElementActivationRegistry(this.engines.get(i));
-
-				/*
-				 * If the QLink contains agents that end their activity in the first time
-				 * step, the link should be activated.
-				 */
-				// this set is always empty...
-//				if (linksToActivateInitially.remove(qLink)
-//						|| qsim.getScenario().getConfig().qsim().getSimStarttimeInterpretation()==StarttimeInterpretation.onlyUseStarttime) {
-//					this.engines.get(i).registerLinkAsActive(qLink);
-//				}
-
-				links[i]++;
-
+		for (int i = 0; i < this.engines.size(); i++) {
+			for (Node n : this.partitions.get(i)) {
+				QNodeI node = qNetwork.getNetsimNodes().get(n.getId());
+				if( node instanceof AbstractQNode){
+					((AbstractQNode) node).setNetElementActivationRegistry(this.engines.get(i));
+				}
+				nodes[i]++;
+
+				// set activator for out links
+				for (Link outLink : n.getOutLinks().values()) {
+					AbstractQLink qLink = (AbstractQLink) qNetwork.getNetsimLink(outLink.getId() );
+					// (must be of this type to work.  kai, feb'12)
+
+					// removing qsim as "person in the middle".  not fully sure if this is the same in the parallel impl.  kai, oct'10
+					qLink.setNetElementActivationRegistry(this.engines.get(i));
+
+					links[i]++;
+				}
 			}
-
-			roundRobin++;
 		}
 
 		// print some statistics
 		for (int i = 0; i < this.engines.size(); i++) {
 			log.info("Assigned " + nodes[i] + " nodes and " + links[i] + " links to QSimEngineRunner #" + i);
 		}
-
-//		this.linksToActivateInitially.clear();
 	}
 
 	private final void arrangeNextAgentState(MobsimAgent pp) {
@@ -25,16 +25,30 @@ import com.google.inject.Singleton;
 import com.google.inject.multibindings.Multibinder;
 import org.matsim.core.mobsim.qsim.AbstractQSimModule;
 import org.matsim.core.mobsim.qsim.qnetsimengine.linkspeedcalculator.LinkSpeedCalculator;
+import org.matsim.core.mobsim.qsim.qnetsimengine.partitioning.MultilevelBisectionNetworkPartitioner;
+import org.matsim.core.mobsim.qsim.qnetsimengine.partitioning.NetworkPartitioner;
+import org.matsim.core.mobsim.qsim.qnetsimengine.partitioning.RoundRobinNetworkPartitioner;
 
 public final class QNetsimEngineModule extends AbstractQSimModule {
 	public final static String COMPONENT_NAME = "NetsimEngine";
 	
 	@Override
 	protected void configureQSim() {
-		bind(QNetsimEngineI.class).to(QNetsimEngineWithThreadpool.class).in( Singleton.class );
+		switch ( this.getConfig().qsim().getNetsimEngineScheduling() ) {
+			case threadpool -> bind(QNetsimEngineI.class).to(QNetsimEngineWithThreadpool.class).in( Singleton.class );
+			case workStealing -> bind(QNetsimEngineI.class).to(QNetsimEngineWithWorkStealing.class).in( Singleton.class );
+			default -> throw new IllegalStateException( "Unexpected value: " + this.getConfig().qsim().getNetsimEngineScheduling() );
+		}
 		bind(VehicularDepartureHandler.class).toProvider(QNetsimEngineDepartureHandlerProvider.class).in( Singleton.class );
 		// in the two lines above, I changed "asEagerSingleton" to "in( Singleton.class )", since forcing construction early often leads to problems.  kai, jun'23
 
+		switch ( this.getConfig().qsim().getNetsimEnginePartitioning() ) {
+			case roundRobin -> bind(NetworkPartitioner.class).to(RoundRobinNetworkPartitioner.class).in( Singleton.class );
+			case multilevelBisection -> bind(NetworkPartitioner.class).to(MultilevelBisectionNetworkPartitioner.class).in( Singleton.class );
+			default -> throw new IllegalStateException( "Unexpected value: " + this.getConfig().qsim().getNetsimEnginePartitioning() );
+		}
+		// (a different partitioner can be plugged in by overriding the binding of NetworkPartitioner)
+
 		if ( this.getConfig().qsim().isUseLanes() ) {
 			bind(QNetworkFactory.class).to( QLanesNetworkFactory.class ).in( Singleton.class ) ;
 			bind( DefaultQNetworkFactory.class ).in( Singleton.class );
@@ -0,0 +1,80 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * QNetsimEngineRunnerForWorkStealing.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2026 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.mobsim.qsim.qnetsimengine;
+
+import java.util.Comparator;
+import java.util.concurrent.Callable;
+
+/**
+ * One chunk of the network as used by {@link QNetsimEngineWithWorkStealing}. In contrast to
+ * {@link QNetsimEngineRunnerForThreadpool}, there are many more of these than threads, and each
+ * chunk remembers how expensive its nodes and its links were in the last time steps, so that the
+ * engine can hand out the expensive ones first.
+ */
+final class QNetsimEngineRunnerForWorkStealing extends AbstractQNetsimEngineRunner implements Callable<Boolean> {
+
+	/*
+	 * Weight of the newest measurement in the (exponentially) smoothed costs. Traffic changes
+	 * slowly compared to the time step, so a bit of smoothing avoids reacting to single outliers.
+	 */
+	private static final double SMOOTHING = 0.3;
+
+	static final Comparator<QNetsimEngineRunnerForWorkStealing> BY_NODES_COST_DESC =
+			(r1, r2) -> Double.compare(r2.nodesCost, r1.nodesCost);
+	static final Comparator<QNetsimEngineRunnerForWorkStealing> BY_LINKS_COST_DESC =
+			(r1, r2) -> Double.compare(r2.linksCost, r1.linksCost);
+
+	private volatile boolean simulationRunning = true;
+	private boolean movingNodes;
+
+	// smoothed wall time in ns; written by the worker, read by the engine after the futures have returned
+	private double nodesCost = 0.;
+	private double linksCost = 0.;
+
+	QNetsimEngineRunnerForWorkStealing() {
+	}
+
+	@Override
+	public Boolean call() {
+		if (!this.simulationRunning) {
+			return false;
+		}
+
+		long start = System.nanoTime();
+		if (this.movingNodes) {
+			moveNodes();
+			this.nodesCost += SMOOTHING * ((System.nanoTime() - start) - this.nodesCost);
+		} else {
+			moveLinks();
+			this.linksCost += SMOOTHING * ((System.nanoTime() - start) - this.linksCost);
+		}
+		return true;
+	}
+
+	@Override
+	public final void afterSim() {
+		this.simulationRunning = false;
+	}
+
+	final void setMovingNodes(boolean movingNodes) {
+		this.movingNodes = movingNodes;
+	}
+}
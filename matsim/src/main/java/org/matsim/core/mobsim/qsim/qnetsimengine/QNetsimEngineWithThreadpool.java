@@ -31,6 +31,7 @@ import java.util.concurrent.ThreadFactory;
 import jakarta.inject.Inject;
 
 import org.matsim.core.mobsim.qsim.QSim;
+import org.matsim.core.mobsim.qsim.qnetsimengine.partitioning.NetworkPartitioner;
 
 /**
  * Coordinates the movement of vehicles on the links and the nodes.
@@ -45,16 +46,14 @@ import org.matsim.core.mobsim.qsim.QSim;
  */
 final class QNetsimEngineWithThreadpool extends AbstractQNetsimEngine<QNetsimEngineRunnerForThreadpool> {
 
-	private final int numOfRunners;
 	private ExecutorService pool;
 
 //	public QNetsimEngineWithThreadpool(final QSim sim) {
 //		this(sim, null);
 //	}
 
-	@Inject QNetsimEngineWithThreadpool(final QSim sim, QNetworkFactory netsimNetworkFactory) {
-		super(sim, netsimNetworkFactory);
-		this.numOfRunners = this.numOfThreads;
+	@Inject QNetsimEngineWithThreadpool(final QSim sim, QNetworkFactory netsimNetworkFactory, NetworkPartitioner networkPartitioner) {
+		super(sim, netsimNetworkFactory, networkPartitioner, 1);
 	}
 
 	@Override public void finishMultiThreading() {
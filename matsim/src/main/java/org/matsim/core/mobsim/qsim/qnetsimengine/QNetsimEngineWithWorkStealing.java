@@ -0,0 +1,126 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * QNetsimEngineWithWorkStealing.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2026 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.mobsim.qsim.qnetsimengine;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.Future;
+
+import jakarta.inject.Inject;
+
+import org.matsim.core.config.groups.QSimConfigGroup;
+import org.matsim.core.mobsim.qsim.QSim;
+import org.matsim.core.mobsim.qsim.qnetsimengine.partitioning.NetworkPartitioner;
+
+/**
+ * Coordinates the movement of vehicles on the links and the nodes, like {@link QNetsimEngineWithThreadpool}, but
+ * splits the network into many more chunks than there are threads and hands these chunks to a {@link ForkJoinPool}.
+ * Idle threads steal chunks from busy ones, so that a single expensive region no longer stalls all other threads
+ * until the end of the node or link phase.
+ * <p>
+ * In addition, the chunks are submitted in order of their (smoothed) measured cost of the previous time steps, the most
+ * expensive first.  This is the usual "longest processing time first" heuristic: the small chunks at the end fill the gaps
+ * of the threads that are done early.
+ * <p>
+ * The two barriers per time step (after the nodes and after the links) remain: they are needed since nodes move vehicles
+ * from link buffers that are filled during the link phase, and vice versa.
+ *
+ * @see QSimConfigGroup.NetsimEngineScheduling
+ */
+final class QNetsimEngineWithWorkStealing extends AbstractQNetsimEngine<QNetsimEngineRunnerForWorkStealing> {
+
+	/**
+	 * Number of chunks per thread.  More chunks give finer load balancing, but cost some scheduling overhead per time step.
+	 */
+	static final int CHUNKS_PER_THREAD = 8;
+
+	private final List<QNetsimEngineRunnerForWorkStealing> nodesOrder = new ArrayList<>();
+	private final List<QNetsimEngineRunnerForWorkStealing> linksOrder = new ArrayList<>();
+	private ForkJoinPool pool;
+
+	@Inject QNetsimEngineWithWorkStealing(final QSim sim, QNetworkFactory netsimNetworkFactory, NetworkPartitioner networkPartitioner) {
+		super(sim, netsimNetworkFactory, networkPartitioner, CHUNKS_PER_THREAD);
+	}
+
+	@Override public void finishMultiThreading() {
+		this.pool.shutdown();
+	}
+
+	@Override
+	protected void run(double time) {
+		for (QNetsimEngineRunnerForWorkStealing engine : this.getQnetsimEngineRunner()) {
+			engine.setTime(time);
+			engine.setMovingNodes(true);
+		}
+
+		try {
+			// (lists are almost sorted from the previous time step, so sorting is cheap)
+			this.nodesOrder.sort(QNetsimEngineRunnerForWorkStealing.BY_NODES_COST_DESC);
+			for (Future<Boolean> future : pool.invokeAll(this.nodesOrder)) {
+				future.get();
+			}
+			for (QNetsimEngineRunnerForWorkStealing engine : this.getQnetsimEngineRunner()) {
+				engine.setMovingNodes(false);
+			}
+			this.linksOrder.sort(QNetsimEngineRunnerForWorkStealing.BY_LINKS_COST_DESC);
+			for (Future<Boolean> future : pool.invokeAll(this.linksOrder)) {
+				future.get();
+			}
+		} catch (InterruptedException e) {
+			throw new RuntimeException(e) ;
+		} catch (ExecutionException e) {
+			throw new RuntimeException(e.getCause());
+		}
+	}
+
+	private static class NamedForkJoinWorkerThreadFactory implements ForkJoinPool.ForkJoinWorkerThreadFactory {
+		private int count = 0;
+
+		@Override
+		public ForkJoinWorkerThread newThread(ForkJoinPool pool) {
+			ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+			thread.setName("QNetsimEngine_WorkStealingThread_" + count++);
+			return thread;
+		}
+	}
+
+	@Override
+	protected List<QNetsimEngineRunnerForWorkStealing> initQSimEngineRunners() {
+		List<QNetsimEngineRunnerForWorkStealing> engines = new ArrayList<>();
+		for (int i = 0; i < numOfRunners; i++) {
+			QNetsimEngineRunnerForWorkStealing engine = new QNetsimEngineRunnerForWorkStealing();
+			engines.add(engine);
+		}
+		this.nodesOrder.clear();
+		this.nodesOrder.addAll(engines);
+		this.linksOrder.clear();
+		this.linksOrder.addAll(engines);
+		return engines;
+	}
+
+	@Override
+	protected void initMultiThreading() {
+		this.pool = new ForkJoinPool(this.numOfThreads, new NamedForkJoinWorkerThreadFactory(), null, false);
+	}
+}
@@ -20,6 +20,7 @@
 
 package org.matsim.core.mobsim.qsim.qnetsimengine;
 
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Map;
 
@@ -74,6 +75,31 @@ public class QNetwork implements NetsimNetwork {
 			n.init();
 		}
 	}
+
+	/**
+	 * Same as {@link #initialize(QNetsimEngineI, AgentCounter, MobsimTimer)}, but creates the nodes in the given order, and the links in the
+	 * order of their from-nodes.
+	 */
+	void initialize(QNetsimEngineI simEngine, AgentCounter agentCounter, MobsimTimer simTimer, Collection<Node> creationOrder) {
+		if (creationOrder.size() != this.network.getNodes().size()) {
+			throw new IllegalArgumentException("creation order contains " + creationOrder.size() + " nodes, but the network has "
+					+ this.network.getNodes().size() + " nodes.");
+		}
+		this.simEngine = simEngine;
+		this.queueNetworkFactory.initializeFactory( agentCounter, simTimer, simEngine.getNetsimInternalInterface());
+		for (Node n : creationOrder) {
+			this.nodes.put(n.getId(), this.queueNetworkFactory.createNetsimNode(n));
+		}
+		for (Node n : creationOrder) {
+			for (Link l : n.getOutLinks().values()) {
+				final QLinkI qlink = this.queueNetworkFactory.createNetsimLink(l, this.nodes.get(l.getToNode().getId()));
+				this.links.put(l.getId(), qlink);
+			}
+		}
+		for (QNodeI n : this.nodes.values()) {
+			n.init();
+		}
+	}
 	
 	@Override
 	public Network getNetwork() {
@@ -0,0 +1,521 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * MultilevelBisectionNetworkPartitioner.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2026 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.mobsim.qsim.qnetsimengine.partitioning;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.network.Network;
+import org.matsim.api.core.v01.network.Node;
+
+/**
+ * Partitions the network by recursive bisection, where each bisection follows the multilevel scheme known from METIS:
+ * <ol>
+ * <li>the graph is coarsened by repeatedly contracting a heavy-edge matching,</li>
+ * <li>the coarsest graph is split by growing a region from a few random seeds, keeping the split with the smallest cut,</li>
+ * <li>the split is projected back level by level and improved by moving boundary nodes to the other side where this reduces the cut
+ * or the imbalance.</li>
+ * </ol>
+ * Links are treated as undirected edges; the weight of a node is the number of netsim elements it stands for (the node itself plus its
+ * in- and out-links), since that is roughly the work of a runner per time step.
+ * <p>
+ * The nodes within each partition are returned in breadth-first order, so that neighbouring nodes (and, since the links are created in the
+ * order of their from-nodes, neighbouring links) are created next to each other.
+ * <p>
+ * The result depends only on the network and the seed, not on the number of threads or the platform.
+ */
+public final class MultilevelBisectionNetworkPartitioner implements NetworkPartitioner {
+
+	private static final Logger log = LogManager.getLogger(MultilevelBisectionNetworkPartitioner.class);
+
+	private static final int COARSEST_GRAPH_SIZE = 100;
+	private static final double MIN_COARSENING_RATIO = 0.95;
+	private static final int INITIAL_BISECTION_TRIALS = 8;
+	private static final int REFINEMENT_PASSES = 8;
+	private static final double IMBALANCE_TOLERANCE = 0.03;
+
+	private final long seed;
+
+	public MultilevelBisectionNetworkPartitioner() {
+		this(4711);
+	}
+
+	public MultilevelBisectionNetworkPartitioner(long seed) {
+		this.seed = seed;
+	}
+
+	@Override
+	public List<List<Node>> partition(Network network, int numberOfPartitions) {
+		List<Node> nodes = new ArrayList<>(network.getNodes().values());
+		Graph graph = Graph.create(nodes);
+
+		int[] partOfNode = new int[graph.n];
+		int[] globalIndex = new int[graph.n];
+		for (int i = 0; i < graph.n; i++) {
+			globalIndex[i] = i;
+		}
+		recursiveBisection(graph, globalIndex, numberOfPartitions, 0, partOfNode, new Random(this.seed));
+
+		List<List<Node>> partitions = new ArrayList<>(numberOfPartitions);
+		for (int i = 0; i < numberOfPartitions; i++) {
+			partitions.add(new ArrayList<>());
+		}
+		for (int u : breadthFirstOrder(graph, partOfNode)) {
+			partitions.get(partOfNode[u]).add(nodes.get(u));
+		}
+
+		log.info("Partitioned network into " + numberOfPartitions + " parts; " + cutWeight(graph, partOfNode) + " of "
+				+ network.getLinks().size() + " links cross partition boundaries.");
+		return partitions;
+	}
+
+	private static void recursiveBisection(Graph graph, int[] globalIndex, int numberOfParts, int firstPart, int[] partOfNode, Random random) {
+		if (numberOfParts == 1 || graph.n <= 1) {
+			for (int u = 0; u < graph.n; u++) {
+				partOfNode[globalIndex[u]] = firstPart;
+			}
+			return;
+		}
+		int numberOfParts0 = numberOfParts / 2;
+		long targetWeight0 = graph.totalNodeWeight() * numberOfParts0 / numberOfParts;
+
+		int[] side = bisect(graph, targetWeight0, random);
+
+		for (int s = 0; s <= 1; s++) {
+			int[] localIndex = new int[graph.n];
+			int count = 0;
+			for (int u = 0; u < graph.n; u++) {
+				localIndex[u] = side[u] == s ? count++ : -1;
+			}
+			int[] subGlobalIndex = new int[count];
+			for (int u = 0; u < graph.n; u++) {
+				if (localIndex[u] >= 0) {
+					subGlobalIndex[localIndex[u]] = globalIndex[u];
+				}
+			}
+			Graph subGraph = graph.induced(localIndex, count);
+			if (s == 0) {
+				recursiveBisection(subGraph, subGlobalIndex, numberOfParts0, firstPart, partOfNode, random);
+			} else {
+				recursiveBisection(subGraph, subGlobalIndex, numberOfParts - numberOfParts0, firstPart + numberOfParts0, partOfNode, random);
+			}
+		}
+	}
+
+	/**
+	 * @return for every node 0 or 1, where the nodes on side 0 have a total weight close to {@code targetWeight0}
+	 */
+	private static int[] bisect(Graph graph, long targetWeight0, Random random) {
+		List<Graph> fineGraphs = new ArrayList<>();
+		List<int[]> coarseIndices = new ArrayList<>();
+
+		Graph current = graph;
+		while (current.n > COARSEST_GRAPH_SIZE) {
+			int[] coarseIndex = new int[current.n];
+			Graph coarse = current.coarsen(coarseIndex, random);
+			if (coarse.n > MIN_COARSENING_RATIO * current.n) {
+				break; // e.g. star-like or disconnected graphs; no point in going on
+			}
+			fineGraphs.add(current);
+			coarseIndices.add(coarseIndex);
+			current = coarse;
+		}
+
+		int[] side = initialBisection(current, targetWeight0, random);
+
+		for (int level = fineGraphs.size() - 1; level >= 0; level--) {
+			Graph fine = fineGraphs.get(level);
+			int[] coarseIndex = coarseIndices.get(level);
+			int[] fineSide = new int[fine.n];
+			for (int u = 0; u < fine.n; u++) {
+				fineSide[u] = side[coarseIndex[u]];
+			}
+			refine(fine, fineSide, targetWeight0);
+			side = fineSide;
+		}
+		return side;
+	}
+
+	private static int[] initialBisection(Graph graph, long targetWeight0, Random random) {
+		int[] best = null;
+		long bestCut = Long.MAX_VALUE;
+		for (int trial = 0; trial < INITIAL_BISECTION_TRIALS; trial++) {
+			int[] side = new int[graph.n];
+			Arrays.fill(side, 1);
+			boolean[] visited = new boolean[graph.n];
+			int[] queue = new int[graph.n];
+			int head = 0;
+			int tail = 0;
+			int nextUnvisited = 0;
+			long weight0 = 0;
+
+			int start = random.nextInt(graph.n);
+			visited[start] = true;
+			queue[tail++] = start;
+			while (weight0 < targetWeight0) {
+				if (head == tail) {
+					// region cannot grow any further, i.e. the graph is not connected: continue with another component
+					while (nextUnvisited < graph.n && visited[nextUnvisited]) {
+						nextUnvisited++;
+					}
+					if (nextUnvisited == graph.n) {
+						break;
+					}
+					visited[nextUnvisited] = true;
+					queue[tail++] = nextUnvisited;
+				}
+				int u = queue[head++];
+				side[u] = 0;
+				weight0 += graph.nodeWeights[u];
+				for (int e = graph.offsets[u]; e < graph.offsets[u + 1]; e++) {
+					int v = graph.adjacency[e];
+					if (!visited[v]) {
+						visited[v] = true;
+						queue[tail++] = v;
+					}
+				}
+			}
+
+			refine(graph, side, targetWeight0);
+			long cut = cutWeight(graph, side);
+			if (cut < bestCut) {
+				bestCut = cut;
+				best = side;
+			}
+		}
+		return best;
+	}
+
+	/**
+	 * Greedy boundary refinement: a boundary node is moved to the other side if that reduces the cut without violating the balance, or if
+	 * the partition is out of balance and the node is on the heavier side.
+	 */
+	private static void refine(Graph graph, int[] side, long targetWeight0) {
+		long weight0 = 0;
+		for (int u = 0; u < graph.n; u++) {
+			if (side[u] == 0) {
+				weight0 += graph.nodeWeights[u];
+			}
+		}
+		long tolerance = Math.max(1, (long) (IMBALANCE_TOLERANCE * graph.totalNodeWeight()));
+
+		for (int pass = 0; pass < REFINEMENT_PASSES; pass++) {
+			boolean moved = false;
+			for (int u = 0; u < graph.n; u++) {
+				int internal = 0;
+				int external = 0;
+				for (int e = graph.offsets[u]; e < graph.offsets[u + 1]; e++) {
+					if (side[graph.adjacency[e]] == side[u]) {
+						internal += graph.edgeWeights[e];
+					} else {
+						external += graph.edgeWeights[e];
+					}
+				}
+				if (external == 0) {
+					continue; // not on the boundary; moving it would tear the partition apart
+				}
+				int gain = external - internal;
+				long newWeight0 = side[u] == 0 ? weight0 - graph.nodeWeights[u] : weight0 + graph.nodeWeights[u];
+				long imbalance = Math.abs(weight0 - targetWeight0);
+				long newImbalance = Math.abs(newWeight0 - targetWeight0);
+
+				boolean move;
+				if (imbalance > tolerance) {
+					move = newImbalance < imbalance;
+				} else {
+					move = (gain > 0 && newImbalance <= tolerance) || (gain == 0 && newImbalance < imbalance);
+				}
+				if (move) {
+					side[u] = 1 - side[u];
+					weight0 = newWeight0;
+					moved = true;
+				}
+			}
+			if (!moved) {
+				break;
+			}
+		}
+	}
+
+	private static long cutWeight(Graph graph, int[] part) {
+		long cut = 0;
+		for (int u = 0; u < graph.n; u++) {
+			for (int e = graph.offsets[u]; e < graph.offsets[u + 1]; e++) {
+				if (part[graph.adjacency[e]] != part[u]) {
+					cut += graph.edgeWeights[e];
+				}
+			}
+		}
+		return cut / 2;
+	}
+
+	/**
+	 * @return all nodes, where each connected piece of a partition is visited breadth-first
+	 */
+	private static int[] breadthFirstOrder(Graph graph, int[] partOfNode) {
+		int[] order = new int[graph.n];
+		boolean[] visited = new boolean[graph.n];
+		int tail = 0;
+		for (int start = 0; start < graph.n; start++) {
+			if (visited[start]) {
+				continue;
+			}
+			int head = tail;
+			visited[start] = true;
+			order[tail++] = start;
+			while (head < tail) {
+				int u = order[head++];
+				for (int e = graph.offsets[u]; e < graph.offsets[u + 1]; e++) {
+					int v = graph.adjacency[e];
+					if (!visited[v] && partOfNode[v] == partOfNode[u]) {
+						visited[v] = true;
+						order[tail++] = v;
+					}
+				}
+			}
+		}
+		return order;
+	}
+
+	/**
+	 * Undirected, weighted graph in compressed sparse row format.
+	 */
+	private static final class Graph {
+		final int n;
+		final int[] nodeWeights;
+		final int[] offsets;
+		final int[] adjacency;
+		final int[] edgeWeights;
+
+		private Graph(int[] nodeWeights, int[] offsets, int[] adjacency, int[] edgeWeights) {
+			this.n = nodeWeights.length;
+			this.nodeWeights = nodeWeights;
+			this.offsets = offsets;
+			this.adjacency = adjacency;
+			this.edgeWeights = edgeWeights;
+		}
+
+		long totalNodeWeight() {
+			long sum = 0;
+			for (int w : this.nodeWeights) {
+				sum += w;
+			}
+			return sum;
+		}
+
+		static Graph create(List<Node> nodes) {
+			int n = nodes.size();
+			int[] index = new int[Id.getNumberOfIds(Node.class)];
+			Arrays.fill(index, -1);
+			for (int u = 0; u < n; u++) {
+				index[nodes.get(u).getId().index()] = u;
+			}
+
+			int[] nodeWeights = new int[n];
+			int[] degree = new int[n];
+			for (int u = 0; u < n; u++) {
+				Node node = nodes.get(u);
+				nodeWeights[u] = 1 + node.getInLinks().size() + node.getOutLinks().size();
+				for (Link link : node.getOutLinks().values()) {
+					int v = index[link.getToNode().getId().index()];
+					if (v >= 0 && v != u) {
+						degree[u]++;
+						degree[v]++;
+					}
+				}
+			}
+
+			int[] offsets = new int[n + 1];
+			for (int u = 0; u < n; u++) {
+				offsets[u + 1] = offsets[u] + degree[u];
+			}
+			int[] adjacency = new int[offsets[n]];
+			int[] fill = Arrays.copyOf(offsets, n);
+			for (int u = 0; u < n; u++) {
+				for (Link link : nodes.get(u).getOutLinks().values()) {
+					int v = index[link.getToNode().getId().index()];
+					if (v >= 0 && v != u) {
+						adjacency[fill[u]++] = v;
+						adjacency[fill[v]++] = u;
+					}
+				}
+			}
+
+			// merge parallel and opposite links into one edge each:
+			int[] edgeWeights = new int[adjacency.length];
+			Arrays.fill(edgeWeights, 1);
+			return new Graph(nodeWeights, offsets, adjacency, edgeWeights).mergeParallelEdges();
+		}
+
+		private Graph mergeParallelEdges() {
+			int[] newOffsets = new int[this.n + 1];
+			int[] newAdjacency = new int[this.adjacency.length];
+			int[] newEdgeWeights = new int[this.adjacency.length];
+			int[] position = new int[this.n];
+			Arrays.fill(position, -1);
+			int pos = 0;
+			for (int u = 0; u < this.n; u++) {
+				int start = pos;
+				newOffsets[u] = start;
+				for (int e = this.offsets[u]; e < this.offsets[u + 1]; e++) {
+					int v = this.adjacency[e];
+					if (position[v] >= start) {
+						newEdgeWeights[position[v]] += this.edgeWeights[e];
+					} else {
+						position[v] = pos;
+						newAdjacency[pos] = v;
+						newEdgeWeights[pos] = this.edgeWeights[e];
+						pos++;
+					}
+				}
+			}
+			newOffsets[this.n] = pos;
+			return new Graph(this.nodeWeights, newOffsets, Arrays.copyOf(newAdjacency, pos), Arrays.copyOf(newEdgeWeights, pos));
+		}
+
+		/**
+		 * Contracts a heavy-edge matching: every node is merged with the unmatched neighbour it shares the heaviest edge with.
+		 *
+		 * @param coarseIndex is filled with the index of the coarse node of each node of this graph
+		 */
+		Graph coarsen(int[] coarseIndex, Random random) {
+			int[] match = new int[this.n];
+			Arrays.fill(match, -1);
+			int[] order = new int[this.n];
+			for (int u = 0; u < this.n; u++) {
+				order[u] = u;
+			}
+			for (int i = this.n - 1; i > 0; i--) {
+				int j = random.nextInt(i + 1);
+				int tmp = order[i];
+				order[i] = order[j];
+				order[j] = tmp;
+			}
+
+			int coarseN = 0;
+			int[] members = new int[2 * this.n];
+			for (int u : order) {
+				if (match[u] >= 0) {
+					continue;
+				}
+				int partner = u;
+				int heaviest = 0;
+				for (int e = this.offsets[u]; e < this.offsets[u + 1]; e++) {
+					int v = this.adjacency[e];
+					if (match[v] < 0 && this.edgeWeights[e] > heaviest) {
+						partner = v;
+						heaviest = this.edgeWeights[e];
+					}
+				}
+				match[u] = partner;
+				match[partner] = u;
+				coarseIndex[u] = coarseN;
+				coarseIndex[partner] = coarseN;
+				members[2 * coarseN] = u;
+				members[2 * coarseN + 1] = partner;
+				coarseN++;
+			}
+
+			int[] coarseNodeWeights = new int[coarseN];
+			for (int u = 0; u < this.n; u++) {
+				coarseNodeWeights[coarseIndex[u]] += this.nodeWeights[u];
+			}
+
+			int[] coarseOffsets = new int[coarseN + 1];
+			int[] coarseAdjacency = new int[this.adjacency.length];
+			int[] coarseEdgeWeights = new int[this.adjacency.length];
+			int[] position = new int[coarseN];
+			Arrays.fill(position, -1);
+			int pos = 0;
+			for (int c = 0; c < coarseN; c++) {
+				int start = pos;
+				coarseOffsets[c] = start;
+				for (int k = 0; k < 2; k++) {
+					int u = members[2 * c + k];
+					if (k == 1 && u == members[2 * c]) {
+						break; // unmatched node
+					}
+					for (int e = this.offsets[u]; e < this.offsets[u + 1]; e++) {
+						int d = coarseIndex[this.adjacency[e]];
+						if (d == c) {
+							continue;
+						}
+						if (position[d] >= start) {
+							coarseEdgeWeights[position[d]] += this.edgeWeights[e];
+						} else {
+							position[d] = pos;
+							coarseAdjacency[pos] = d;
+							coarseEdgeWeights[pos] = this.edgeWeights[e];
+							pos++;
+						}
+					}
+				}
+			}
+			coarseOffsets[coarseN] = pos;
+			return new Graph(coarseNodeWeights, coarseOffsets, Arrays.copyOf(coarseAdjacency, pos), Arrays.copyOf(coarseEdgeWeights, pos));
+		}
+
+		/**
+		 * @param localIndex the index of each node in the subgraph, or -1 if the node is not part of it
+		 */
+		Graph induced(int[] localIndex, int subN) {
+			int[] subNodeWeights = new int[subN];
+			int[] subOffsets = new int[subN + 1];
+			int edges = 0;
+			for (int u = 0; u < this.n; u++) {
+				if (localIndex[u] < 0) {
+					continue;
+				}
+				subNodeWeights[localIndex[u]] = this.nodeWeights[u];
+				for (int e = this.offsets[u]; e < this.offsets[u + 1]; e++) {
+					if (localIndex[this.adjacency[e]] >= 0) {
+						edges++;
+					}
+				}
+			}
+			int[] subAdjacency = new int[edges];
+			int[] subEdgeWeights = new int[edges];
+			int pos = 0;
+			for (int u = 0; u < this.n; u++) {
+				if (localIndex[u] < 0) {
+					continue;
+				}
+				subOffsets[localIndex[u]] = pos;
+				for (int e = this.offsets[u]; e < this.offsets[u + 1]; e++) {
+					int v = localIndex[this.adjacency[e]];
+					if (v >= 0) {
+						subAdjacency[pos] = v;
+						subEdgeWeights[pos] = this.edgeWeights[e];
+						pos++;
+					}
+				}
+			}
+			subOffsets[subN] = pos;
+			return new Graph(subNodeWeights, subOffsets, subAdjacency, subEdgeWeights);
+		}
+	}
+}
@@ -0,0 +1,50 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * NetworkPartitioner.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2026 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.mobsim.qsim.qnetsimengine.partitioning;
+
+import java.util.List;
+
+import org.matsim.api.core.v01.network.Network;
+import org.matsim.api.core.v01.network.Node;
+
+/**
+ * Decides which nodes of the network are handled by which runner of the QNetsimEngine.  The out-links of a node are always handled by the
+ * runner of that node.
+ * <p>
+ * A different implementation can be bound in a qsim module via {@code bind(NetworkPartitioner.class).to(...)}.
+ */
+public interface NetworkPartitioner {
+
+	/**
+	 * @return exactly {@code numberOfPartitions} lists (some of them may be empty) that together contain every node of the network exactly once.
+	 * Within each list, nodes that are close to each other in the network should be close to each other in the list.
+	 */
+	List<List<Node>> partition(Network network, int numberOfPartitions);
+
+	/**
+	 * @return {@code true} if the mobsim should create its nodes and links in the order of the partitions, which keeps the data of one runner
+	 * close together in memory.  Note that the creation order also defines the random number streams of the nodes, so implementations that
+	 * want to reproduce results of earlier versions need to return {@code false}.
+	 */
+	default boolean isDefiningCreationOrder() {
+		return true;
+	}
+}
@@ -0,0 +1,53 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * RoundRobinNetworkPartitioner.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2026 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.mobsim.qsim.qnetsimengine.partitioning;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.matsim.api.core.v01.network.Network;
+import org.matsim.api.core.v01.network.Node;
+
+/**
+ * Assigns the nodes to the partitions one after the other, without looking at the network topology.  This is what the QNetsimEngine
+ * has always done; it balances the number of nodes very well, but almost every link connects two different partitions.
+ */
+public final class RoundRobinNetworkPartitioner implements NetworkPartitioner {
+
+	@Override
+	public List<List<Node>> partition(Network network, int numberOfPartitions) {
+		List<List<Node>> partitions = new ArrayList<>(numberOfPartitions);
+		for (int i = 0; i < numberOfPartitions; i++) {
+			partitions.add(new ArrayList<>());
+		}
+		int roundRobin = 0;
+		for (Node node : network.getNodes().values()) {
+			partitions.get(roundRobin % numberOfPartitions).add(node);
+			roundRobin++;
+		}
+		return partitions;
+	}
+
+	@Override
+	public boolean isDefiningCreationOrder() {
+		return false;
+	}
+}
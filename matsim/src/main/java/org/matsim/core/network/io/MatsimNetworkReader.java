@@ -31,6 +31,7 @@ import org.matsim.core.scenario.ProjectionUtils;
 import org.matsim.core.utils.geometry.transformations.IdentityTransformation;
 import org.matsim.core.utils.geometry.transformations.TransformationFactory;
 import org.matsim.core.utils.io.MatsimXmlParser;
+import org.matsim.utils.FeatureFlags;
 import org.matsim.utils.objectattributes.AttributeConverter;
 import org.xml.sax.Attributes;
 import org.xml.sax.SAXException;
@@ -75,6 +76,7 @@ public final class MatsimNetworkReader extends MatsimXmlParser {
 
 	public MatsimNetworkReader(String inputCRS, String targetCRS, Network network) {
 		super(ValidationType.DTD_ONLY);
+		setPipelined(FeatureFlags.useParallelIO());
 		this.inputCRS = inputCRS;
 		this.targetCRS = targetCRS;
 		this.network = network;
@@ -30,8 +30,9 @@ import org.matsim.core.replanning.ReplanningContext;
 import org.matsim.core.utils.misc.Counter;
 
 import java.lang.Thread.UncaughtExceptionHandler;
-import java.util.LinkedList;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
 
 /**
@@ -43,13 +44,18 @@ import java.util.concurrent.atomic.AtomicReference;
  * <p></p>
  * <code>initThreads()</code> creates the threads, but does not yet start them.
  * <p></p>
- * <code>handlePlan(Plan)</code> distributes the plans equally to all threads.
+ * <code>handlePlan(Plan)</code> collects the plans to be handled.
  * <p></p>
  * <code>finishReplanning()</code> finally starts the threads and waits for all threads to be finished.
  * <p></p>
- * While this approach does not lead to optimal performance gains ("slow threads" vs.
- * "fast threads"), it helps building reproducible runs.  Additionally, as the threads are only
- * started after all to-be-handled plans are added, we can use unsynchronized data structures.
+ * By default, the plans are distributed equally (round-robin) to all threads. While this approach does not lead to
+ * optimal performance gains ("slow threads" vs. "fast threads"), it helps building reproducible runs.  Additionally, as
+ * the threads are only started after all to-be-handled plans are added, we can use unsynchronized data structures.
+ * <p></p>
+ * With a batch size &gt; 0 (see {@link GlobalConfigGroup#getReplanningBatchSize()}), the threads instead take batches of
+ * plans from the shared list of plans until all are handled, so threads that get expensive plans (e.g. long pt trips)
+ * do not hold up the others.  Each thread still uses one plan algorithm instance for all its batches.  After each
+ * replanning, the throughput and the share of time the threads were idle are logged.
  * <p></p>
  * Design comments/questions:<ul>
  * <li> As a consequence of the design, the instances that getPlanAlgoInstance() returns, need to be thread-safe.  kai, dec'12
@@ -60,13 +66,14 @@ import java.util.concurrent.atomic.AtomicReference;
  */
 abstract public class AbstractMultithreadedModule implements PlanStrategyModule {
 	private final int numOfThreads;
+	private final int batchSize;
 
 	private PlanAlgoThread[] algothreads = null;
 	private Thread[] threads = null;
 	private PlanAlgorithm directAlgo = null;
 	private String name = null;
 
-	private int count = 0;
+	private final List<Plan> plans = new ArrayList<>();
 
 	private final AtomicReference<Throwable> hadException = new AtomicReference<>(null);
 	private final ExceptionHandler exceptionHandler = new ExceptionHandler(this.hadException);
@@ -84,11 +91,19 @@ abstract public class AbstractMultithreadedModule implements PlanStrategyModule
 	abstract public PlanAlgorithm getPlanAlgoInstance();
 
 	public AbstractMultithreadedModule(GlobalConfigGroup globalConfigGroup) {
-		this.numOfThreads = globalConfigGroup.getNumberOfThreads();
+		this(globalConfigGroup.getNumberOfThreads(), globalConfigGroup.getReplanningBatchSize());
 	}
 
 	public AbstractMultithreadedModule(final int numOfThreads) {
+		this(numOfThreads, 0);
+	}
+
+	/**
+	 * @param batchSize number of plans a thread takes at once from the shared list of plans, or 0 to distribute the plans round-robin
+	 */
+	public AbstractMultithreadedModule(final int numOfThreads, final int batchSize) {
 		this.numOfThreads = numOfThreads;
+		this.batchSize = batchSize;
 	}
 	
 	protected void beforePrepareReplanningHook(@SuppressWarnings("unused") ReplanningContext replanningContextTmp) {
@@ -119,8 +134,7 @@ abstract public class AbstractMultithreadedModule implements PlanStrategyModule
 	@Override
 	public final void handlePlan(final Plan plan) {
 		if (this.directAlgo == null) {
-			this.algothreads[this.count % this.numOfThreads].addPlanToThread(plan);
-			this.count++;
+			this.plans.add(plan);
 		} else {
 			this.directAlgo.run(plan);
 		}
@@ -139,9 +153,10 @@ abstract public class AbstractMultithreadedModule implements PlanStrategyModule
 		
 		if (this.directAlgo == null) {
 			// only try to start threads if we did not directly work on all the plans
-			log.info("[" + this.name + "] starting " + this.threads.length + " threads, handling " + this.count + " plans");
+			log.info("[" + this.name + "] starting " + this.threads.length + " threads, handling " + this.plans.size() + " plans");
 
 			// start threads
+			long startTime = System.nanoTime();
 			for (Thread thread : this.threads) {
 				thread.start();
 			}
@@ -155,6 +170,7 @@ abstract public class AbstractMultithreadedModule implements PlanStrategyModule
 				throw new RuntimeException(e);
 			}
 			log.info("[" + this.name + "] all " + this.threads.length + " threads finished.");
+			logThroughput(System.nanoTime() - startTime);
 			Throwable throwable = this.hadException.get();
 			if (throwable != null) {
 				throw new RuntimeException("Some threads crashed, thus not all plans may have been handled.", throwable);
@@ -164,7 +180,7 @@ abstract public class AbstractMultithreadedModule implements PlanStrategyModule
 		this.algothreads = null;
 		this.threads = null;
 		this.replanningContext = null;
-		this.count = 0;
+		this.plans.clear();
 		
 		this.afterFinishReplanningHook();
 	}
@@ -179,6 +195,7 @@ abstract public class AbstractMultithreadedModule implements PlanStrategyModule
 		this.algothreads = new PlanAlgoThread[this.numOfThreads];
 
 		Counter counter = null;
+		AtomicInteger nextBatchStart = new AtomicInteger(0);
 		// setup threads
 		for (int i = 0; i < this.numOfThreads; i++) {
 			PlanAlgorithm algo = getPlanAlgoInstance();
@@ -186,7 +203,9 @@ abstract public class AbstractMultithreadedModule implements PlanStrategyModule
 				this.name = algo.getClass().getSimpleName();
 				counter = new Counter("[" + this.name + "] handled plan # ");
 			}
-			PlanAlgoThread algothread = new PlanAlgoThread(algo, counter);
+			PlanAlgoThread algothread = this.batchSize > 0
+					? new PlanAlgoThread(algo, counter, this.plans, nextBatchStart, this.batchSize)
+					: new PlanAlgoThread(algo, counter, this.plans, i, this.numOfThreads);
 			Thread thread = new Thread(algothread, this.name + "." + i);
 			thread.setUncaughtExceptionHandler(this.exceptionHandler);
 			this.threads[i] = thread;
@@ -194,6 +213,22 @@ abstract public class AbstractMultithreadedModule implements PlanStrategyModule
 		}
 	}
 
+	private void logThroughput(long wallTimeNanos) {
+		long totalBusyNanos = 0;
+		long minBusyNanos = Long.MAX_VALUE;
+		long maxBusyNanos = 0;
+		for (PlanAlgoThread algothread : this.algothreads) {
+			totalBusyNanos += algothread.busyNanos;
+			minBusyNanos = Math.min(minBusyNanos, algothread.busyNanos);
+			maxBusyNanos = Math.max(maxBusyNanos, algothread.busyNanos);
+		}
+		double wallTime = wallTimeNanos / 1e9;
+		double idleShare = wallTimeNanos == 0 ? 0 : 1.0 - (double) totalBusyNanos / ((double) wallTimeNanos * this.algothreads.length);
+		log.info(String.format("[%s] handled %d plans in %.2f s (%.1f plans/s); busy time per thread min %.2f s, max %.2f s; threads were idle %.1f%% of the time.",
+				this.name, this.plans.size(), wallTime, wallTime == 0 ? 0 : this.plans.size() / wallTime,
+				minBusyNanos / 1e9, maxBusyNanos / 1e9, 100 * idleShare));
+	}
+
 	/* package (for a test) */ final int getNumOfThreads() {
 		return numOfThreads;
 	}
@@ -217,24 +252,67 @@ abstract public class AbstractMultithreadedModule implements PlanStrategyModule
 	private final static class PlanAlgoThread implements Runnable {
 
 		private final PlanAlgorithm planAlgo;
-		private final List<Plan> plans = new LinkedList<>();
 		private final Counter counter;
-
-		public PlanAlgoThread(final PlanAlgorithm algo, final Counter counter) {
+		private final List<Plan> plans;
+		/** only set when taking batches of plans from the shared list */
+		private final AtomicInteger nextBatchStart;
+		private final int batchSize;
+		/** only set when handling every n-th plan */
+		private final int firstIndex;
+		private final int step;
+		private long busyNanos = 0;
+
+		/**
+		 * Handles every <code>step</code>-th plan, starting with the plan at <code>firstIndex</code>.
+		 */
+		public PlanAlgoThread(final PlanAlgorithm algo, final Counter counter, final List<Plan> plans, final int firstIndex, final int step) {
 			this.planAlgo = algo;
 			this.counter = counter;
+			this.plans = plans;
+			this.nextBatchStart = null;
+			this.batchSize = 0;
+			this.firstIndex = firstIndex;
+			this.step = step;
 		}
 
-		public void addPlanToThread(final Plan plan) {
-			this.plans.add(plan);
+		/**
+		 * Takes batches of <code>batchSize</code> plans until all plans are handled.
+		 */
+		public PlanAlgoThread(final PlanAlgorithm algo, final Counter counter, final List<Plan> plans, final AtomicInteger nextBatchStart, final int batchSize) {
+			this.planAlgo = algo;
+			this.counter = counter;
+			this.plans = plans;
+			this.nextBatchStart = nextBatchStart;
+			this.batchSize = batchSize;
+			this.firstIndex = 0;
+			this.step = 0;
 		}
 
 		@Override
 		public void run() {
-			for (Plan plan : this.plans) {
-				this.planAlgo.run(plan);
-				this.counter.incCounter();
+			long start = System.nanoTime();
+			try {
+				if (this.nextBatchStart == null) {
+					for (int i = this.firstIndex; i < this.plans.size(); i += this.step) {
+						handlePlan(this.plans.get(i));
+					}
+				} else {
+					int batchStart;
+					while ((batchStart = this.nextBatchStart.getAndAdd(this.batchSize)) < this.plans.size()) {
+						int batchEnd = Math.min(batchStart + this.batchSize, this.plans.size());
+						for (int i = batchStart; i < batchEnd; i++) {
+							handlePlan(this.plans.get(i));
+						}
+					}
+				}
+			} finally {
+				this.busyNanos = System.nanoTime() - start;
 			}
 		}
+
+		private void handlePlan(final Plan plan) {
+			this.planAlgo.run(plan);
+			this.counter.incCounter();
+		}
 	}
 }
@@ -34,6 +34,7 @@ import org.matsim.core.config.groups.RoutingConfigGroup;
 import org.matsim.core.network.NetworkUtils;
 import org.matsim.core.network.algorithms.TransportModeNetworkFilter;
 import org.matsim.core.router.costcalculators.TravelDisutilityFactory;
+import org.matsim.core.router.speedy.SpeedyCHFactory;
 import org.matsim.core.router.util.LeastCostPathCalculator;
 import org.matsim.core.router.util.LeastCostPathCalculatorFactory;
 import org.matsim.core.router.util.TravelTime;
@@ -42,6 +43,7 @@ import org.matsim.core.utils.timing.TimeInterpretation;
 import com.google.inject.name.Named;
 
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
@@ -123,11 +125,17 @@ public class NetworkRoutingProvider implements Provider<RoutingModule>{
 		if (travelTime == null) {
 			throw new RuntimeException("No TravelTime bound for mode "+routingMode+".");
 		}
-		LeastCostPathCalculator routeAlgo =
-				leastCostPathCalculatorFactory.createPathCalculator(
-						filteredNetwork,
-						travelDisutilityFactory.createTravelDisutility(travelTime),
-						travelTime);
+		LeastCostPathCalculator routeAlgo;
+		if (leastCostPathCalculatorFactory instanceof SpeedyCHFactory chFactory) {
+			// the disutilities created by the same factory for the same routing mode are equal, so their customization can be shared
+			routeAlgo = chFactory.createPathCalculator(filteredNetwork, travelDisutilityFactory.createTravelDisutility(travelTime), travelTime,
+					List.of(travelDisutilityFactory, routingMode));
+		} else {
+			routeAlgo = leastCostPathCalculatorFactory.createPathCalculator(
+					filteredNetwork,
+					travelDisutilityFactory.createTravelDisutility(travelTime),
+					travelTime);
+		}
 
 		// the following again refers to the (transport)mode, since it will determine the mode of the leg on the network:
 		if ( !routingConfigGroup.getAccessEgressType().equals(RoutingConfigGroup.AccessEgressType.none) ) {
@@ -0,0 +1,283 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * RouteCache.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2023 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.router;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import jakarta.inject.Inject;
+import jakarta.inject.Provider;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.matsim.api.core.v01.Coord;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.network.Network;
+import org.matsim.api.core.v01.population.Activity;
+import org.matsim.api.core.v01.population.Leg;
+import org.matsim.api.core.v01.population.Person;
+import org.matsim.api.core.v01.population.PlanElement;
+import org.matsim.api.core.v01.population.Route;
+import org.matsim.core.config.groups.RoutingConfigGroup;
+import org.matsim.core.controler.events.IterationStartsEvent;
+import org.matsim.core.controler.listener.IterationStartsListener;
+import org.matsim.core.population.PopulationUtils;
+import org.matsim.core.population.routes.GenericRouteImpl;
+import org.matsim.core.population.routes.NetworkRoute;
+import org.matsim.core.router.util.TravelTime;
+import org.matsim.facilities.Facility;
+import org.matsim.vehicles.VehicleUtils;
+
+/**
+ * Caches the trips calculated by the {@link TripRouter}, so trips with the same origin, destination, main mode and departure
+ * time bin do not need to be routed again, e.g. when many agents re-route the same trips in every iteration.
+ * <p>
+ * Only trips whose legs all have either a {@link NetworkRoute} of a mode with a {@link TravelTime} or a teleported
+ * {@link GenericRouteImpl} are cached. The travel times of other routes, e.g. of public transport, depend on the
+ * departure time in ways the cache cannot check, so such trips are always routed.
+ * <p>
+ * At the start of each iteration, the travel time along the network routes of each cached trip is re-calculated with
+ * the current {@link TravelTime}. Trips whose travel time changed by more than the configured fraction since they were
+ * routed are removed from the cache. This only checks the links of the cached route, so a route stays cached even if
+ * another route became faster in the meantime. Therefore, all trips are additionally removed after a maximum number of
+ * iterations. Until then, all agents re-routing the same trip get the same, possibly outdated, route, which slows down
+ * the convergence towards the equilibrium; a smaller maximum age reduces this effect at the cost of fewer cache hits.
+ * <p>
+ * The number of cached trips is bounded; when the cache is full, no new trips are added until unused trips are removed
+ * at the start of the next iteration.
+ * <p>
+ * Cached trips are shared between all persons, so person-specific routing (e.g. routing randomness, person-specific
+ * disutilities or vehicle types) is not taken into account. Only the vehicle ids of network routes are set per person.
+ * This class is thread-safe.
+ *
+ * @see RoutingConfigGroup#getRouteCacheSize()
+ */
+public final class RouteCache implements IterationStartsListener {
+	private static final Logger log = LogManager.getLogger(RouteCache.class);
+
+	private final Network network;
+	private final Map<String, TravelTime> travelTimes;
+	private final int maxSize;
+	private final double timeBinSize;
+	private final double maxTravelTimeChange;
+	private final int maxAge;
+
+	private final Map<Key, CachedTrip> cache = new ConcurrentHashMap<>();
+	private final AtomicLong hits = new AtomicLong();
+	private final AtomicLong misses = new AtomicLong();
+	private volatile int iteration = 0;
+
+	RouteCache(Network network, Map<String, TravelTime> travelTimes, int maxSize, double timeBinSize, double maxTravelTimeChange, int maxAge) {
+		this.network = network;
+		this.travelTimes = travelTimes;
+		this.maxSize = maxSize;
+		this.timeBinSize = timeBinSize;
+		this.maxTravelTimeChange = maxTravelTimeChange;
+		this.maxAge = maxAge;
+	}
+
+	/**
+	 * @return a copy of the cached trip, shifted to the given departure time, or <code>null</code> if no trip is cached.
+	 */
+	List<? extends PlanElement> getTrip(String mainMode, Facility fromFacility, Facility toFacility, double departureTime, Person person) {
+		CachedTrip cachedTrip = this.cache.get(createKey(mainMode, fromFacility, toFacility, departureTime));
+		if (cachedTrip == null) {
+			this.misses.incrementAndGet();
+			return null;
+		}
+		this.hits.incrementAndGet();
+		cachedTrip.lastUsedIteration = this.iteration;
+		return copyTrip(cachedTrip.trip, departureTime - cachedTrip.departureTime, person);
+	}
+
+	/**
+	 * Adds a copy of the trip to the cache, if it is not full yet and the trip can be cached.
+	 */
+	void addTrip(String mainMode, Facility fromFacility, Facility toFacility, double departureTime, List<? extends PlanElement> trip) {
+		if (this.cache.size() >= this.maxSize || !isCacheable(trip)) {
+			return;
+		}
+		List<PlanElement> copy = copyTrip(trip, 0, null);
+		CachedTrip cachedTrip = new CachedTrip(copy, departureTime, calcNetworkTravelTime(copy, departureTime), this.iteration);
+		this.cache.putIfAbsent(createKey(mainMode, fromFacility, toFacility, departureTime), cachedTrip);
+	}
+
+	int size() {
+		return this.cache.size();
+	}
+
+	long getHits() {
+		return this.hits.get();
+	}
+
+	long getMisses() {
+		return this.misses.get();
+	}
+
+	@Override
+	public void notifyIterationStarts(IterationStartsEvent event) {
+		long hits = this.hits.getAndSet(0);
+		long misses = this.misses.getAndSet(0);
+		if (hits + misses > 0) {
+			log.info("route cache: " + hits + " hits, " + misses + " misses, hit rate " + (100 * hits / (hits + misses)) + "%, " + this.cache.size() + " cached trips.");
+		}
+		this.iteration = event.getIteration();
+		invalidate();
+	}
+
+	/**
+	 * Removes all trips that reached the maximum age or whose travel time changed too much, and, if the cache is still
+	 * full, all trips that were not used in the previous iteration.
+	 */
+	void invalidate() {
+		int expired = 0;
+		int invalidated = 0;
+		for (Iterator<CachedTrip> iterator = this.cache.values().iterator(); iterator.hasNext(); ) {
+			CachedTrip cachedTrip = iterator.next();
+			if (this.iteration - cachedTrip.routedIteration >= this.maxAge) {
+				iterator.remove();
+				expired++;
+				continue;
+			}
+			double travelTime = calcNetworkTravelTime(cachedTrip.trip, cachedTrip.departureTime);
+			if (Math.abs(travelTime - cachedTrip.networkTravelTime) > this.maxTravelTimeChange * cachedTrip.networkTravelTime) {
+				iterator.remove();
+				invalidated++;
+			}
+		}
+		int evicted = 0;
+		if (this.cache.size() >= this.maxSize) {
+			for (Iterator<CachedTrip> iterator = this.cache.values().iterator(); iterator.hasNext(); ) {
+				if (iterator.next().lastUsedIteration < this.iteration - 1) {
+					iterator.remove();
+					evicted++;
+				}
+			}
+		}
+		if (expired + invalidated + evicted > 0) {
+			log.info("route cache: removed " + expired + " expired trips, " + invalidated + " trips with changed travel times and "
+					+ evicted + " unused trips.");
+		}
+	}
+
+	private Key createKey(String mainMode, Facility fromFacility, Facility toFacility, double departureTime) {
+		return new Key(mainMode, fromFacility.getLinkId(), fromFacility.getCoord(), toFacility.getLinkId(), toFacility.getCoord(),
+				(int) (departureTime / this.timeBinSize));
+	}
+
+	/**
+	 * A trip can be cached if the travel times of all its legs are either checked by {@link #calcNetworkTravelTime} or
+	 * do not depend on the departure time.
+	 */
+	private boolean isCacheable(List<? extends PlanElement> trip) {
+		for (Leg leg : TripStructureUtils.getLegs(trip)) {
+			Route route = leg.getRoute();
+			boolean checkedNetworkRoute = route instanceof NetworkRoute && this.travelTimes.containsKey(leg.getMode());
+			boolean teleported = route instanceof GenericRouteImpl;
+			if (!checkedNetworkRoute && !teleported) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Calculates the travel time along the links of all network routes of the trip, without a specific person or vehicle.
+	 */
+	private double calcNetworkTravelTime(List<? extends PlanElement> trip, double departureTime) {
+		double sum = 0;
+		for (Leg leg : TripStructureUtils.getLegs(trip)) {
+			TravelTime travelTime = this.travelTimes.get(leg.getMode());
+			if (travelTime == null || !(leg.getRoute() instanceof NetworkRoute route)) {
+				continue;
+			}
+			double time = leg.getDepartureTime().orElse(departureTime);
+			for (Id<Link> linkId : route.getLinkIds()) {
+				time += travelTime.getLinkTravelTime(this.network.getLinks().get(linkId), time, null, null);
+			}
+			Link endLink = this.network.getLinks().get(route.getEndLinkId());
+			if (endLink != null && !route.getEndLinkId().equals(route.getStartLinkId())) {
+				time += travelTime.getLinkTravelTime(endLink, time, null, null);
+			}
+			sum += time - leg.getDepartureTime().orElse(departureTime);
+		}
+		return sum;
+	}
+
+	private static List<PlanElement> copyTrip(List<? extends PlanElement> trip, double timeShift, Person person) {
+		List<PlanElement> copy = new ArrayList<>(trip.size());
+		for (PlanElement element : trip) {
+			if (element instanceof Leg leg) {
+				Leg legCopy = PopulationUtils.createLeg(leg);
+				leg.getDepartureTime().ifDefined(time -> legCopy.setDepartureTime(time + timeShift));
+				if (person != null && legCopy.getRoute() instanceof NetworkRoute route && route.getVehicleId() != null) {
+					route.setVehicleId(VehicleUtils.getVehicleId(person, legCopy.getMode()));
+				}
+				copy.add(legCopy);
+			} else {
+				Activity activity = (Activity) element;
+				Activity activityCopy = StageActivityTypeIdentifier.isStageActivity(activity.getType()) ?
+						PopulationUtils.createInteractionActivity(activity) : PopulationUtils.createActivity(activity);
+				activity.getStartTime().ifDefined(time -> activityCopy.setStartTime(time + timeShift));
+				activity.getEndTime().ifDefined(time -> activityCopy.setEndTime(time + timeShift));
+				copy.add(activityCopy);
+			}
+		}
+		return copy;
+	}
+
+	private record Key(String mode, Id<Link> fromLinkId, Coord fromCoord, Id<Link> toLinkId, Coord toCoord, int timeBin) {
+	}
+
+	private static final class CachedTrip {
+		private final List<PlanElement> trip;
+		private final double departureTime;
+		private final double networkTravelTime;
+		private final int routedIteration;
+		private volatile int lastUsedIteration;
+
+		private CachedTrip(List<PlanElement> trip, double departureTime, double networkTravelTime, int routedIteration) {
+			this.trip = trip;
+			this.departureTime = departureTime;
+			this.networkTravelTime = networkTravelTime;
+			this.routedIteration = routedIteration;
+			this.lastUsedIteration = routedIteration;
+		}
+	}
+
+	static final class RouteCacheProvider implements Provider<RouteCache> {
+		@Inject private Network network;
+		@Inject private Map<String, TravelTime> travelTimes;
+		@Inject private RoutingConfigGroup routingConfig;
+
+		@Override
+		public RouteCache get() {
+			return new RouteCache(this.network, this.travelTimes, this.routingConfig.getRouteCacheSize(),
+					this.routingConfig.getRouteCacheTimeBinSize(), this.routingConfig.getRouteCacheMaxTravelTimeChange(),
+					this.routingConfig.getRouteCacheMaxAge());
+		}
+	}
+}
@@ -62,6 +62,7 @@ public final class TripRouter implements MatsimExtensionPoint {
 
 	private final Map<String, RoutingModule> routingModules = new HashMap<>();
 	private final FallbackRoutingModule fallbackRoutingModule;
+	private RouteCache routeCache = null;
 
 	private Config config;
 	// (I need the config in the PlanRouter to figure out activity end times. And since the PlanRouter is not
@@ -108,6 +109,12 @@ public final class TripRouter implements MatsimExtensionPoint {
 		this.config = config ;
 	}
 
+	@com.google.inject.Inject(optional = true)
+	void setRouteCache( RouteCache routeCache ) {
+		// only bound if enabled in the config, see TripRouterModule
+		this.routeCache = routeCache;
+	}
+
 	// /////////////////////////////////////////////////////////////////////////
 	// constructors
 	// /////////////////////////////////////////////////////////////////////////
@@ -170,6 +177,14 @@ public final class TripRouter implements MatsimExtensionPoint {
 		RoutingModule module = routingModules.get( mainMode );
 
 		if (module != null) {
+			boolean cacheable = routeCache != null && (routingAttributes == null || routingAttributes.isEmpty());
+			if ( cacheable ) {
+				List<? extends PlanElement> cachedTrip = routeCache.getTrip( mainMode, fromFacility, toFacility, departureTime, person );
+				if ( cachedTrip != null ) {
+					return cachedTrip;
+				}
+			}
+
 			RoutingRequest request = DefaultRoutingRequest.of(
 					fromFacility,
 					toFacility,
@@ -181,10 +196,14 @@ public final class TripRouter implements MatsimExtensionPoint {
 
 			if ( trip == null ) {
 				trip = fallbackRoutingModule.calcRoute(request) ;
+				cacheable = false;
 			}
 			for (Leg leg: TripStructureUtils.getLegs(trip)) {
 				TripStructureUtils.setRoutingMode(leg, mainMode);
 			}
+			if ( cacheable ) {
+				routeCache.addTrip( mainMode, fromFacility, toFacility, departureTime, trip );
+			}
 			return trip;
 		}
 
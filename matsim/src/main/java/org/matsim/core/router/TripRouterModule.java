@@ -22,6 +22,7 @@
 
 package org.matsim.core.router;
 
+import com.google.inject.Singleton;
 import org.matsim.core.config.groups.RoutingConfigGroup;
 import org.matsim.core.controler.AbstractModule;
 import org.matsim.core.network.algorithms.NetworkTurnInfoBuilder;
@@ -77,6 +78,11 @@ public class TripRouterModule extends AbstractModule {
             }
         }
 
+        if (routeConfigGroup.getRouteCacheSize() > 0) {
+            bind(RouteCache.class).toProvider(RouteCache.RouteCacheProvider.class).in(Singleton.class);
+            addControlerListenerBinding().to(RouteCache.class);
+        }
+
         this.bind( FallbackRoutingModule.class ).to( FallbackRoutingModuleDefaultImpl.class ) ;
     }
 }
@@ -7,6 +7,14 @@ import org.matsim.api.core.v01.network.Node;
 import org.matsim.core.router.speedy.SpeedyGraph.LinkIterator;
 import org.matsim.core.router.util.TravelDisutility;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
@@ -18,6 +26,11 @@ import java.util.concurrent.Future;
 /**
  * Preprocessed data for the ALT algorithm, see {@link SpeedyALT}.
  *
+ * The travel costs from and to the landmarks are calculated with the minimum travel disutility of each link, and are thus lower
+ * bounds for any travel costs that are at least as high. If the minimum travel disutility of some links decreases, e.g. due to
+ * network change events, {@link #update(double[])} repairs the affected travel costs instead of starting from scratch.
+ * The data can be stored to a file with {@link #write(Path)} and restored with {@link #read(SpeedyGraph, int, Path)}.
+ *
  * This class is thread-safe and can safely be used by multiple threads.
  *
  * @author mrieser / Simunto, sponsored by SBB Swiss Federal Railways
@@ -26,27 +39,215 @@ class SpeedyALTData {
 
 	private final static Logger LOG = LogManager.getLogger(SpeedyALTData.class);
 
+	private static final int FILE_MAGIC = 0x53414c54; // "SALT"
+	private static final int DEFAULT_NUMBER_OF_THREADS = 4;
+	private static final int FILE_VERSION = 1;
+
 	final SpeedyGraph graph;
 	private final int landmarksCount;
-	private final TravelDisutility travelCosts;
+	private final double[] linkMinCosts; // for each link: the minimum travel disutility the data is calculated with
 	private final int[] landmarksNodeIndices;
 	private final double[] nodesData; // for each node: 2 values per landmark
 	private final int[] deadendData;
 	private final double minTravelCostPerLength;
 
 	public SpeedyALTData(SpeedyGraph graph, int landmarksCount, TravelDisutility travelCosts) {
+		this(graph, landmarksCount, calcLinkMinCosts(graph, travelCosts), DEFAULT_NUMBER_OF_THREADS);
+	}
+
+	SpeedyALTData(SpeedyGraph graph, int landmarksCount, double[] linkMinCosts) {
+		this(graph, landmarksCount, linkMinCosts, DEFAULT_NUMBER_OF_THREADS);
+	}
+
+	/**
+	 * @param numberOfThreads the number of threads used to calculate the travel costs from and to the landmarks
+	 */
+	SpeedyALTData(SpeedyGraph graph, int landmarksCount, double[] linkMinCosts, int numberOfThreads) {
 		this.graph = graph;
 		this.landmarksCount = landmarksCount;
-		this.travelCosts = travelCosts;
+		this.linkMinCosts = linkMinCosts;
 		this.landmarksNodeIndices = new int[landmarksCount];
 		this.nodesData = new double[graph.nodeCount * (landmarksCount * 2)];
 		this.deadendData = new int[graph.nodeCount];
 
 		this.findDeadEnds();
-		this.calcLandmarks();
+		this.calcLandmarks(numberOfThreads);
 		this.minTravelCostPerLength = this.calcMinTravelCostPerLength();
 	}
 
+	private SpeedyALTData(SpeedyGraph graph, double[] linkMinCosts, int[] landmarksNodeIndices, double[] nodesData, int[] deadendData) {
+		this.graph = graph;
+		this.landmarksCount = landmarksNodeIndices.length;
+		this.linkMinCosts = linkMinCosts;
+		this.landmarksNodeIndices = landmarksNodeIndices;
+		this.nodesData = nodesData;
+		this.deadendData = deadendData;
+		this.minTravelCostPerLength = this.calcMinTravelCostPerLength();
+	}
+
+	/**
+	 * @return for each link index, the minimum travel disutility of the link, or infinity if the index is not in use
+	 */
+	static double[] calcLinkMinCosts(SpeedyGraph graph, TravelDisutility travelCosts) {
+		double[] costs = new double[graph.linkCount];
+		for (int linkIdx = 0; linkIdx < graph.linkCount; linkIdx++) {
+			Link link = graph.getLink(linkIdx);
+			costs[linkIdx] = link == null ? Double.POSITIVE_INFINITY : travelCosts.getLinkMinimumTravelDisutility(link);
+		}
+		return costs;
+	}
+
+	/**
+	 * @return <code>true</code> if no link has a lower minimum travel disutility than used for this data, i.e. if the travel costs
+	 * from and to the landmarks are still valid lower bounds.
+	 */
+	boolean isLowerBound(double[] linkMinCosts) {
+		for (int linkIdx = 0; linkIdx < this.linkMinCosts.length; linkIdx++) {
+			if (linkMinCosts[linkIdx] < this.linkMinCosts[linkIdx]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Creates a copy of this data that is valid for links with the given minimum travel disutilities, too. The landmarks and dead ends
+	 * do not depend on travel costs and are kept. Starting from the links whose minimum travel disutility decreased, only the travel
+	 * costs from and to the landmarks that become lower are updated. Links whose minimum travel disutility increased keep their old
+	 * value, which is still a lower bound. If the repair fails, the data is calculated from scratch.
+	 *
+	 * @param numberOfThreads the number of threads used to repair the travel costs from and to the landmarks
+	 */
+	SpeedyALTData update(double[] linkMinCosts, int numberOfThreads) {
+		double[] newLinkMinCosts = this.linkMinCosts.clone();
+		int changedCount = 0;
+		for (int linkIdx = 0; linkIdx < newLinkMinCosts.length; linkIdx++) {
+			if (linkMinCosts[linkIdx] < newLinkMinCosts[linkIdx]) {
+				newLinkMinCosts[linkIdx] = linkMinCosts[linkIdx];
+				changedCount++;
+			}
+		}
+		int[] changedLinks = new int[changedCount];
+		for (int linkIdx = 0, i = 0; linkIdx < newLinkMinCosts.length; linkIdx++) {
+			if (newLinkMinCosts[linkIdx] < this.linkMinCosts[linkIdx]) {
+				changedLinks[i++] = linkIdx;
+			}
+		}
+		LOG.info("update landmarks for " + changedCount + " links with lower minimum travel disutility...");
+
+		SpeedyALTData updated = new SpeedyALTData(this.graph, newLinkMinCosts, this.landmarksNodeIndices, this.nodesData.clone(), this.deadendData);
+		ExecutorService executor = Executors.newFixedThreadPool(numberOfThreads);
+		try {
+			Future<double[]>[] trees = new Future[this.landmarksCount * 2];
+			for (int i = 0; i < this.landmarksCount * 2; i++) {
+				int offset = i;
+				boolean forward = (i % 2) == 0;
+				trees[i] = executor.submit(() -> updated.repairTree(getNodeData(offset), changedLinks, forward));
+			}
+			for (int i = 0; i < trees.length; i++) {
+				updated.setNodeData(trees[i].get(), i);
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new RuntimeException(e);
+		} catch (ExecutionException e) {
+			// stale travel costs would no longer be lower bounds, so the landmarks must not be used without them
+			LOG.warn("could not update landmarks, calculating them from scratch.", e.getCause());
+			return new SpeedyALTData(this.graph, this.landmarksCount, newLinkMinCosts, numberOfThreads);
+		} finally {
+			executor.shutdownNow();
+		}
+		return updated;
+	}
+
+	/**
+	 * Writes the data to a file, which is first written to a temporary file with a unique name in the same directory and then moved,
+	 * so other processes never read an incomplete file, even if several processes write the same file at the same time.
+	 */
+	void write(Path file) throws IOException {
+		Path directory = file.toAbsolutePath().getParent();
+		Path tmpFile = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+		try {
+			try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmpFile), 1 << 16))) {
+				out.writeInt(FILE_MAGIC);
+				out.writeInt(FILE_VERSION);
+				out.writeLong(calcGraphFingerprint(this.graph));
+				out.writeInt(this.graph.nodeCount);
+				out.writeInt(this.graph.linkCount);
+				out.writeInt(this.landmarksCount);
+				for (double cost : this.linkMinCosts) {
+					out.writeDouble(cost);
+				}
+				for (int nodeIdx : this.landmarksNodeIndices) {
+					out.writeInt(nodeIdx);
+				}
+				for (int deadend : this.deadendData) {
+					out.writeInt(deadend);
+				}
+				for (double value : this.nodesData) {
+					out.writeDouble(value);
+				}
+			}
+			Files.move(tmpFile, file, StandardCopyOption.REPLACE_EXISTING);
+		} finally {
+			Files.deleteIfExists(tmpFile);
+		}
+	}
+
+	/**
+	 * @return the data stored in the file, or <code>null</code> if the file does not exist or was written for another graph
+	 * or number of landmarks.
+	 */
+	static SpeedyALTData read(SpeedyGraph graph, int landmarksCount, Path file) throws IOException {
+		if (!Files.exists(file)) {
+			return null;
+		}
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 1 << 16))) {
+			if (in.readInt() != FILE_MAGIC || in.readInt() != FILE_VERSION || in.readLong() != calcGraphFingerprint(graph)
+					|| in.readInt() != graph.nodeCount || in.readInt() != graph.linkCount || in.readInt() != landmarksCount) {
+				return null;
+			}
+			double[] linkMinCosts = new double[graph.linkCount];
+			for (int i = 0; i < linkMinCosts.length; i++) {
+				linkMinCosts[i] = in.readDouble();
+			}
+			int[] landmarksNodeIndices = new int[landmarksCount];
+			for (int i = 0; i < landmarksCount; i++) {
+				landmarksNodeIndices[i] = in.readInt();
+			}
+			int[] deadendData = new int[graph.nodeCount];
+			for (int i = 0; i < deadendData.length; i++) {
+				deadendData[i] = in.readInt();
+			}
+			double[] nodesData = new double[graph.nodeCount * (landmarksCount * 2)];
+			for (int i = 0; i < nodesData.length; i++) {
+				nodesData[i] = in.readDouble();
+			}
+			return new SpeedyALTData(graph, linkMinCosts, landmarksNodeIndices, nodesData, deadendData);
+		}
+	}
+
+	/**
+	 * @return a hash of the structure of the graph, i.e. of the nodes connected by each link index. The landmarks data depends
+	 * only on this structure and the minimum travel disutilities of the links.
+	 */
+	static long calcGraphFingerprint(SpeedyGraph graph) {
+		long hash = 1125899906842597L;
+		hash = 31 * hash + graph.nodeCount;
+		hash = 31 * hash + graph.linkCount;
+		for (int linkIdx = 0; linkIdx < graph.linkCount; linkIdx++) {
+			Link link = graph.getLink(linkIdx);
+			if (link == null) {
+				hash = 31 * hash - 1;
+			} else {
+				hash = 31 * hash + link.getFromNode().getId().index();
+				hash = 31 * hash + link.getToNode().getId().index();
+				hash = 31 * hash + Double.hashCode(link.getLength());
+			}
+		}
+		return hash;
+	}
+
 	private void findDeadEnds() {
 		LOG.info("find dead ends...");
 
@@ -128,7 +329,7 @@ class SpeedyALTData {
 		return otherNodeIndex;
 	}
 
-	private void calcLandmarks() {
+	private void calcLandmarks(int numberOfThreads) {
 		LOG.info("calculate landmarks...");
 		Node firstNode = null;
 		for (int i = 0; i < this.graph.nodeCount; i++) {
@@ -143,30 +344,34 @@ class SpeedyALTData {
 		}
 
 		Future<double[]>[] trees = new Future[this.landmarksCount * 2];
-		ExecutorService executor = Executors.newFixedThreadPool(4);
-
-		int firstLandmarkIndex = firstNode.getId().index();
-		this.landmarksNodeIndices[0] = firstLandmarkIndex;
-		trees[0] = executor.submit(() -> calculateTreeForward(firstLandmarkIndex));
-		trees[1] = executor.submit(() -> calculateTreeBackward(firstLandmarkIndex));
-
-		for (int i = 1; i < this.landmarksCount; i++) {
-			int nextLandmark = calculateNextLandmark(i);
-			this.landmarksNodeIndices[i] = nextLandmark;
-
-			trees[i * 2] = executor.submit(() -> calculateTreeForward(nextLandmark));
-			trees[i * 2 + 1] = executor.submit(() -> calculateTreeBackward(nextLandmark));
-		}
+		ExecutorService executor = Executors.newFixedThreadPool(numberOfThreads);
+		try {
+			int firstLandmarkIndex = firstNode.getId().index();
+			this.landmarksNodeIndices[0] = firstLandmarkIndex;
+			trees[0] = executor.submit(() -> calculateTreeForward(firstLandmarkIndex));
+			trees[1] = executor.submit(() -> calculateTreeBackward(firstLandmarkIndex));
+
+			for (int i = 1; i < this.landmarksCount; i++) {
+				int nextLandmark = calculateNextLandmark(i);
+				this.landmarksNodeIndices[i] = nextLandmark;
+
+				trees[i * 2] = executor.submit(() -> calculateTreeForward(nextLandmark));
+				trees[i * 2 + 1] = executor.submit(() -> calculateTreeBackward(nextLandmark));
+			}
 
-		for (int i = 0; i < trees.length; i++) {
-			try {
+			for (int i = 0; i < trees.length; i++) {
 				double[] data = trees[i].get();
 				setNodeData(data, i);
-			} catch (InterruptedException | ExecutionException e) {
-				LOG.error(e);
 			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new RuntimeException(e);
+		} catch (ExecutionException e) {
+			// without the travel costs of all landmarks, the heuristic would not be admissible
+			throw new RuntimeException("could not calculate the travel costs from and to the landmarks", e.getCause());
+		} finally {
+			executor.shutdownNow();
 		}
-		executor.shutdown();
 	}
 
 	private double calcMinTravelCostPerLength() {
@@ -175,7 +380,7 @@ class SpeedyALTData {
 		for (int linkIdx = 0; linkIdx < graph.linkCount; linkIdx++) {
 			Link link = this.graph.getLink(linkIdx);
 			if (link != null) {
-				double cost = this.travelCosts.getLinkMinimumTravelDisutility(link) / link.getLength();
+				double cost = this.linkMinCosts[linkIdx] / link.getLength();
 				if (cost < minCost) {
 					minCost = cost;
 				}
@@ -184,6 +389,15 @@ class SpeedyALTData {
 		return minCost;
 	}
 
+	private double[] getNodeData(int offset) {
+		int multiplier = this.landmarksCount * 2;
+		double[] data = new double[this.graph.nodeCount];
+		for (int i = 0; i < this.graph.nodeCount; i++) {
+			data[i] = this.nodesData[i * multiplier + offset];
+		}
+		return data;
+	}
+
 	private void setNodeData(double[] data, int offset) {
 		int multiplier = this.landmarksCount * 2;
 		for (int i = 0; i < this.graph.nodeCount; i++) {
@@ -249,7 +463,7 @@ class SpeedyALTData {
 			while (outLI.next()) {
 				int toNode = outLI.getToNodeIndex();
 
-				double newCost = currCost + this.travelCosts.getLinkMinimumTravelDisutility(this.graph.getLink(outLI.getLinkIndex()));
+				double newCost = currCost + this.linkMinCosts[outLI.getLinkIndex()];
 
 				double oldCost = data[toNode];
 				if (Double.isFinite(oldCost)) {
@@ -283,7 +497,7 @@ class SpeedyALTData {
 			while (inLI.next()) {
 				int fromNode = inLI.getFromNodeIndex();
 
-				double newCost = currCost + this.travelCosts.getLinkMinimumTravelDisutility(this.graph.getLink(inLI.getLinkIndex()));
+				double newCost = currCost + this.linkMinCosts[inLI.getLinkIndex()];
 
 				double oldCost = data[fromNode];
 				if (Double.isFinite(oldCost)) {
@@ -299,6 +513,54 @@ class SpeedyALTData {
 		return data;
 	}
 
+	/**
+	 * Lowers the travel costs in the tree of a landmark that can be reached cheaper over one of the changed links,
+	 * and propagates the lower travel costs like Dijkstra's algorithm. Nodes whose travel cost does not change are not visited.
+	 */
+	private double[] repairTree(double[] data, int[] changedLinks, boolean forward) {
+		LinkIterator li = forward ? this.graph.getOutLinkIterator() : this.graph.getInLinkIterator();
+		DAryMinHeap pq = new DAryMinHeap(this.graph.nodeCount, 6);
+		boolean[] inQueue = new boolean[this.graph.nodeCount];
+
+		for (int linkIdx : changedLinks) {
+			Link link = this.graph.getLink(linkIdx);
+			int fromNode = forward ? link.getFromNode().getId().index() : link.getToNode().getId().index();
+			int toNode = forward ? link.getToNode().getId().index() : link.getFromNode().getId().index();
+			double newCost = data[fromNode] + this.linkMinCosts[linkIdx];
+			if (newCost < data[toNode]) {
+				data[toNode] = newCost;
+				if (inQueue[toNode]) {
+					pq.decreaseKey(toNode, newCost);
+				} else {
+					pq.insert(toNode, newCost);
+					inQueue[toNode] = true;
+				}
+			}
+		}
+
+		while (!pq.isEmpty()) {
+			final int nodeIdx = pq.poll();
+			inQueue[nodeIdx] = false;
+			double currCost = data[nodeIdx];
+
+			li.reset(nodeIdx);
+			while (li.next()) {
+				int toNode = forward ? li.getToNodeIndex() : li.getFromNodeIndex();
+				double newCost = currCost + this.linkMinCosts[li.getLinkIndex()];
+				if (newCost < data[toNode]) {
+					data[toNode] = newCost;
+					if (inQueue[toNode]) {
+						pq.decreaseKey(toNode, newCost);
+					} else {
+						pq.insert(toNode, newCost);
+						inQueue[toNode] = true;
+					}
+				}
+			}
+		}
+		return data;
+	}
+
 	int getNodeDeadend(int nodeIndex) {
 		return this.deadendData[nodeIndex];
 	}
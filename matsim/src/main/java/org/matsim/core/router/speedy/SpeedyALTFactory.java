@@ -1,36 +1,125 @@
 package org.matsim.core.router.speedy;
 
+import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
 import org.matsim.api.core.v01.network.Network;
+import org.matsim.core.config.groups.GlobalConfigGroup;
+import org.matsim.core.config.groups.RoutingConfigGroup;
 import org.matsim.core.router.util.LeastCostPathCalculator;
 import org.matsim.core.router.util.LeastCostPathCalculatorFactory;
 import org.matsim.core.router.util.TravelDisutility;
 import org.matsim.core.router.util.TravelTime;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 
 /**
+ * Creates {@link SpeedyALT} routers. The landmarks of a network are calculated once and shared by all routers on the same network,
+ * as long as the minimum travel disutilities of the links do not decrease. Otherwise, the landmarks are updated for the lower
+ * minimum travel disutilities.
+ * <p>
+ * If a cache directory is given, the landmarks are stored there and read again by later runs on the same network.
+ *
  * @author mrieser / Simunto, sponsored by SBB Swiss Federal Railways
  */
+@Singleton
 public class SpeedyALTFactory implements LeastCostPathCalculatorFactory {
 
+	private final static Logger LOG = LogManager.getLogger(SpeedyALTFactory.class);
+
+	private final Path cacheDirectory;
+	private final int numberOfThreads;
 	private final Map<Network, SpeedyGraph> graphs = new ConcurrentHashMap<>();
 	private final Map<SpeedyGraph, SpeedyALTData> landmarksData = new ConcurrentHashMap<>();
 
+	public SpeedyALTFactory() {
+		this((Path) null);
+	}
+
+	@Inject
+	public SpeedyALTFactory(RoutingConfigGroup routingConfigGroup, GlobalConfigGroup globalConfigGroup) {
+		this(routingConfigGroup.getLandmarksCacheDirectory() == null ? null : Path.of(routingConfigGroup.getLandmarksCacheDirectory()),
+				globalConfigGroup.getNumberOfThreads());
+	}
+
+	/**
+	 * @param cacheDirectory the directory in which the landmarks are stored, or <code>null</code> to not store them
+	 */
+	public SpeedyALTFactory(Path cacheDirectory) {
+		this(cacheDirectory, 4);
+	}
+
+	/**
+	 * @param cacheDirectory the directory in which the landmarks are stored, or <code>null</code> to not store them
+	 * @param numberOfThreads the number of threads used to calculate the landmarks
+	 */
+	public SpeedyALTFactory(Path cacheDirectory, int numberOfThreads) {
+		this.cacheDirectory = cacheDirectory;
+		this.numberOfThreads = Math.max(1, numberOfThreads);
+	}
+
 	@Override
 	public LeastCostPathCalculator createPathCalculator(Network network, TravelDisutility travelCosts, TravelTime travelTimes) {
-		SpeedyGraph graph = this.graphs.get(network);
-		if (graph == null) {
-			graph = new SpeedyGraph(network);
-			this.graphs.put(network, graph);
+		SpeedyGraph graph = this.graphs.computeIfAbsent(network, SpeedyGraph::new);
+		double[] linkMinCosts = SpeedyALTData.calcLinkMinCosts(graph, travelCosts);
+		SpeedyALTData landmarks = this.landmarksData.compute(graph, (g, data) -> getLandmarks(g, data, linkMinCosts));
+		return new SpeedyALT(landmarks, travelTimes, travelCosts);
+	}
+
+	private SpeedyALTData getLandmarks(SpeedyGraph graph, SpeedyALTData data, double[] linkMinCosts) {
+		int landmarksCount = Math.min(16, graph.nodeCount);
+		if (data == null) {
+			data = readLandmarks(graph, landmarksCount);
 		}
-		SpeedyALTData landmarks = this.landmarksData.get(graph);
-		if (landmarks == null) {
-			int landmarksCount = Math.min(16, graph.nodeCount);
-			landmarks = new SpeedyALTData(graph, landmarksCount, travelCosts);
-			this.landmarksData.put(graph, landmarks);
+		if (data == null) {
+			data = new SpeedyALTData(graph, landmarksCount, linkMinCosts, this.numberOfThreads);
+		} else if (data.isLowerBound(linkMinCosts)) {
+			return data;
+		} else {
+			data = data.update(linkMinCosts, this.numberOfThreads);
 		}
-		return new SpeedyALT(landmarks, travelTimes, travelCosts);
+		writeLandmarks(data);
+		return data;
+	}
+
+	private SpeedyALTData readLandmarks(SpeedyGraph graph, int landmarksCount) {
+		if (this.cacheDirectory == null) {
+			return null;
+		}
+		Path file = getCacheFile(graph);
+		try {
+			SpeedyALTData data = SpeedyALTData.read(graph, landmarksCount, file);
+			if (data != null) {
+				LOG.info("read landmarks from " + file);
+			}
+			return data;
+		} catch (IOException e) {
+			LOG.warn("could not read landmarks from " + file + ", calculating them again.", e);
+			return null;
+		}
+	}
+
+	private void writeLandmarks(SpeedyALTData data) {
+		if (this.cacheDirectory == null) {
+			return;
+		}
+		Path file = getCacheFile(data.graph);
+		try {
+			Files.createDirectories(this.cacheDirectory);
+			data.write(file);
+			LOG.info("wrote landmarks to " + file);
+		} catch (IOException e) {
+			LOG.warn("could not write landmarks to " + file, e);
+		}
+	}
+
+	private Path getCacheFile(SpeedyGraph graph) {
+		return this.cacheDirectory.resolve("speedyALT_" + Long.toHexString(SpeedyALTData.calcGraphFingerprint(graph)) + ".bin");
 	}
 
 }
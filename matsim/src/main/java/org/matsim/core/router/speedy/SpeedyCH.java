@@ -0,0 +1,269 @@
+package org.matsim.core.router.speedy;
+
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.network.Node;
+import org.matsim.api.core.v01.population.Person;
+import org.matsim.core.router.util.LeastCostPathCalculator;
+import org.matsim.core.router.util.TravelDisutility;
+import org.matsim.core.router.util.TravelTime;
+import org.matsim.vehicles.Vehicle;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A router using a customizable contraction hierarchy (CCH), see {@link SpeedyCHData} and {@link SpeedyCHCustomization}.
+ * <p>
+ * A query searches upwards in the hierarchy from both the start and the end node. The least-cost path goes over the node
+ * at which the two searches meet with the lowest total cost. As both searches only visit a small part of the network, this is much faster
+ * than a search on the network itself, at the price of some simplifications:
+ * <ul>
+ *     <li>The route is searched with the travel costs of the time bin of the departure time, for all links of the route.</li>
+ *     <li>The travel costs are calculated for the person and vehicle of the customization, not for the routed person and vehicle.
+ *     Person-specific travel disutilities, e.g. randomized ones, are thus not respected.</li>
+ * </ul>
+ * The travel time and travel cost of the returned path are calculated with the given {@link TravelTime} and {@link TravelDisutility}
+ * along the route, as by other routers.
+ * <p>
+ * This implementation is not thread-safe. In the case of multi-threading, every thread should use
+ * a separate instance. (But the used {@link SpeedyCHCustomization} is thread-safe and can be shared by multiple
+ * instances).
+ */
+public class SpeedyCH implements LeastCostPathCalculator {
+
+	private final static Logger LOG = LogManager.getLogger(SpeedyCH.class);
+
+	private final SpeedyCHData chData;
+	private final SpeedyCHCustomization customization;
+	private final SpeedyGraph graph;
+	private final TravelTime tt;
+	private final TravelDisutility td;
+	private final Search forward;
+	private final Search backward;
+	private int currentIteration = Integer.MIN_VALUE;
+	private final IntArrayList unpackStack = new IntArrayList();
+
+	SpeedyCH(SpeedyCHCustomization customization, TravelTime tt, TravelDisutility td) {
+		this.chData = customization.chData;
+		this.customization = customization;
+		this.graph = this.chData.graph;
+		this.tt = tt;
+		this.td = td;
+		this.forward = new Search(this.chData.nodeCount);
+		this.backward = new Search(this.chData.nodeCount);
+	}
+
+	@Override
+	public Path calcLeastCostPath(Node startNode, Node endNode, double startTime, Person person, Vehicle vehicle) {
+		int startRank = this.chData.nodeToRank[startNode.getId().index()];
+		int endRank = this.chData.nodeToRank[endNode.getId().index()];
+		int bin = this.customization.getBin(startTime);
+		float[] upCosts = this.customization.getUpCosts(bin);
+		float[] downCosts = this.customization.getDownCosts(bin);
+
+		this.currentIteration++;
+		if (this.currentIteration == Integer.MAX_VALUE) {
+			// reset iteration as we overflow
+			this.forward.reset();
+			this.backward.reset();
+			this.currentIteration = Integer.MIN_VALUE + 1;
+		}
+		this.forward.start(startRank, this.currentIteration);
+		this.backward.start(endRank, this.currentIteration);
+
+		// All nodes reachable upwards from a node are its ancestors in the elimination tree, so instead of a Dijkstra search, both
+		// searches just process the ancestors of the start and end node in the order of their rank. The least-cost path goes over
+		// a common ancestor.
+		double bestCost = Double.POSITIVE_INFINITY;
+		int meetingRank = -1;
+		int forwardRank = startRank;
+		int backwardRank = endRank;
+		while (forwardRank >= 0 || backwardRank >= 0) {
+			if (backwardRank < 0 || (forwardRank >= 0 && forwardRank < backwardRank)) {
+				this.forward.relaxUpEdges(forwardRank, upCosts, bestCost, this.currentIteration);
+				forwardRank = this.chData.parent[forwardRank];
+			} else if (forwardRank < 0 || backwardRank < forwardRank) {
+				this.backward.relaxUpEdges(backwardRank, downCosts, bestCost, this.currentIteration);
+				backwardRank = this.chData.parent[backwardRank];
+			} else {
+				int rank = forwardRank;
+				double totalCost = this.forward.getCost(rank, this.currentIteration) + this.backward.getCost(rank, this.currentIteration);
+				if (totalCost < bestCost) {
+					bestCost = totalCost;
+					meetingRank = rank;
+				}
+				this.forward.relaxUpEdges(rank, upCosts, bestCost, this.currentIteration);
+				this.backward.relaxUpEdges(rank, downCosts, bestCost, this.currentIteration);
+				forwardRank = this.chData.parent[rank];
+				backwardRank = forwardRank;
+			}
+		}
+
+		if (meetingRank < 0) {
+			LOG.warn("No route was found from node " + startNode.getId() + " to node " + endNode.getId() + ". Some possible reasons:");
+			LOG.warn("  * Network is not connected.  Run NetworkCleaner().") ;
+			LOG.warn("  * Network for considered mode does not even exist.  Modes need to be entered for each link in network.xml.");
+			LOG.warn("  * Network for considered mode is not connected to starting or ending point of route.  Setting insertingAccessEgressWalk to true may help.");
+			LOG.warn("This will now return null, but it may fail later with a NullPointerException.");
+			return null;
+		}
+		return constructPath(startRank, endRank, meetingRank, bin, startTime, person, vehicle);
+	}
+
+	private Path constructPath(int startRank, int endRank, int meetingRank, int bin, double startTime, Person person, Vehicle vehicle) {
+		// the edges from the start up to the meeting node, in reverse order
+		IntArrayList upEdges = new IntArrayList();
+		for (int rank = meetingRank; rank != startRank; ) {
+			int e = this.forward.comingFrom[rank];
+			upEdges.add(e);
+			rank = this.chData.getTail(e);
+		}
+
+		List<Link> links = new ArrayList<>();
+		int from = startRank;
+		for (int i = upEdges.size() - 1; i >= 0; i--) {
+			int e = upEdges.getInt(i);
+			int to = this.chData.upHead[e];
+			unpack(from, to, e, bin, links);
+			from = to;
+		}
+		for (int rank = meetingRank; rank != endRank; ) {
+			int e = this.backward.comingFrom[rank];
+			int to = this.chData.getTail(e);
+			unpack(rank, to, e, bin, links);
+			rank = to;
+		}
+
+		List<Node> nodes = new ArrayList<>(links.size() + 1);
+		nodes.add(this.graph.getNode(this.chData.rankToNode[startRank]));
+		double time = startTime;
+		double travelCost = 0;
+		for (Link link : links) {
+			travelCost += this.td.getLinkTravelDisutility(link, time, person, vehicle);
+			time += this.tt.getLinkTravelTime(link, time, person, vehicle);
+			nodes.add(link.getToNode());
+		}
+		return new Path(nodes, links, time - startTime, travelCost);
+	}
+
+	/**
+	 * Appends the links of the path represented by the edge between the two ranks. Such a path goes either over a link between
+	 * the two nodes, or over a lower-ranked node connected to both, whose edges are unpacked recursively.
+	 */
+	private void unpack(int fromRank, int toRank, int edge, int bin, List<Link> links) {
+		float[] upCosts = this.customization.getUpCosts(bin);
+		float[] downCosts = this.customization.getDownCosts(bin);
+		IntArrayList stack = this.unpackStack;
+		stack.clear();
+		stack.add(fromRank);
+		stack.add(toRank);
+		stack.add(edge);
+		while (!stack.isEmpty()) {
+			int e = stack.popInt();
+			int to = stack.popInt();
+			int from = stack.popInt();
+			float cost = from < to ? upCosts[e] : downCosts[e];
+			int lower = Math.min(from, to);
+			int higher = Math.max(from, to);
+
+			boolean found = false;
+			for (int d = this.chData.downFirst[lower], end = this.chData.downFirst[lower + 1]; d < end && !found; d++) {
+				int v = this.chData.downTail[d];
+				int vHigher = this.chData.findEdge(v, higher);
+				if (vHigher < 0) {
+					continue;
+				}
+				int fromV = from == lower ? this.chData.downEdge[d] : vHigher;
+				int vTo = from == lower ? vHigher : this.chData.downEdge[d];
+				if (downCosts[fromV] + upCosts[vTo] == cost) {
+					// push the second part first, so the first part is unpacked first
+					stack.add(v);
+					stack.add(to);
+					stack.add(vTo);
+					stack.add(from);
+					stack.add(v);
+					stack.add(fromV);
+					found = true;
+				}
+			}
+			if (!found) {
+				links.add(findCheapestLink(from, to, bin));
+			}
+		}
+	}
+
+	private Link findCheapestLink(int fromRank, int toRank, int bin) {
+		int toNode = this.chData.rankToNode[toRank];
+		double time = this.customization.getBinStartTime(bin);
+		Link bestLink = null;
+		double bestCost = Double.POSITIVE_INFINITY;
+		SpeedyGraph.LinkIterator outLI = this.graph.getOutLinkIterator();
+		outLI.reset(this.chData.rankToNode[fromRank]);
+		while (outLI.next()) {
+			if (outLI.getToNodeIndex() == toNode) {
+				Link link = this.graph.getLink(outLI.getLinkIndex());
+				double cost = this.td.getLinkTravelDisutility(link, time, this.customization.person, this.customization.vehicle);
+				if (bestLink == null || cost < bestCost) {
+					bestLink = link;
+					bestCost = cost;
+				}
+			}
+		}
+		if (bestLink == null) {
+			throw new IllegalStateException("no link from node " + this.graph.getNode(this.chData.rankToNode[fromRank]).getId()
+					+ " to node " + this.graph.getNode(toNode).getId() + " found.");
+		}
+		return bestLink;
+	}
+
+	private final class Search {
+		private final double[] cost;
+		private final int[] comingFrom; // the edge over which a node was reached
+		private final int[] iterationIds;
+
+		Search(int nodeCount) {
+			this.cost = new double[nodeCount];
+			this.comingFrom = new int[nodeCount];
+			this.iterationIds = new int[nodeCount];
+			reset();
+		}
+
+		void reset() {
+			Arrays.fill(this.iterationIds, Integer.MIN_VALUE);
+		}
+
+		void start(int rank, int iteration) {
+			this.cost[rank] = 0;
+			this.comingFrom[rank] = -1;
+			this.iterationIds[rank] = iteration;
+		}
+
+		double getCost(int rank, int iteration) {
+			return this.iterationIds[rank] == iteration ? this.cost[rank] : Double.POSITIVE_INFINITY;
+		}
+
+		/**
+		 * @param bound paths with at least this cost are not of interest
+		 */
+		void relaxUpEdges(int rank, float[] costs, double bound, int iteration) {
+			double currCost = getCost(rank, iteration);
+			if (currCost >= bound) {
+				return;
+			}
+			SpeedyCHData ch = SpeedyCH.this.chData;
+			for (int e = ch.upFirst[rank], end = ch.upFirst[rank + 1]; e < end; e++) {
+				int head = ch.upHead[e];
+				double newCost = currCost + costs[e];
+				if (this.iterationIds[head] != iteration || newCost < this.cost[head]) {
+					this.iterationIds[head] = iteration;
+					this.cost[head] = newCost;
+					this.comingFrom[head] = e;
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,151 @@
+package org.matsim.core.router.speedy;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.population.Person;
+import org.matsim.core.router.util.TravelDisutility;
+import org.matsim.vehicles.Vehicle;
+
+import java.util.Arrays;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * The travel costs of the edges of a {@link SpeedyCHData} contraction hierarchy, for a number of time bins.
+ * <p>
+ * For each time bin, the travel disutility of each link at the start of the time bin is assigned to the edge between its nodes,
+ * and then each edge gets the cost of the cheapest path over lower-ranked nodes (see {@link SpeedyCHData}).  This takes much less time
+ * than the preprocessing of the contraction hierarchy and can thus be repeated whenever the travel times change, e.g. every iteration.
+ * The travel disutilities are calculated by the calling thread, the time bins are then processed in parallel.
+ * <p>
+ * This class is thread-safe and can safely be used by multiple threads.
+ */
+class SpeedyCHCustomization {
+
+	private final static Logger LOG = LogManager.getLogger(SpeedyCHCustomization.class);
+
+	final SpeedyCHData chData;
+	final double binSize;
+	final Person person;
+	final Vehicle vehicle;
+	/** for each time bin and edge, the cost from the lower- to the higher-ranked node */
+	private final float[][] upCosts;
+	/** for each time bin and edge, the cost from the higher- to the lower-ranked node */
+	private final float[][] downCosts;
+
+	/**
+	 * @param person the person for which the travel disutilities are calculated, as the customization cannot be done for each person
+	 * @param vehicle the vehicle for which the travel disutilities are calculated
+	 */
+	SpeedyCHCustomization(SpeedyCHData chData, TravelDisutility td, double binSize, double maxTime, Person person, Vehicle vehicle, int numberOfThreads) {
+		this.chData = chData;
+		this.binSize = binSize;
+		this.person = person;
+		this.vehicle = vehicle;
+		int binCount = (int) Math.ceil(maxTime / binSize);
+		this.upCosts = new float[binCount][];
+		this.downCosts = new float[binCount][];
+
+		LOG.info("customize contraction hierarchy for " + binCount + " time bins...");
+		ExecutorService executor = Executors.newFixedThreadPool(numberOfThreads);
+		Future<?>[] futures = new Future[binCount];
+		for (int bin = 0; bin < binCount; bin++) {
+			// the travel disutility might not be thread-safe, so only the triangles are processed in parallel
+			setLinkCosts(bin, td);
+			int b = bin;
+			futures[bin] = executor.submit(() -> processTriangles(this.upCosts[b], this.downCosts[b]));
+		}
+		try {
+			for (Future<?> future : futures) {
+				future.get();
+			}
+		} catch (InterruptedException e) {
+			throw new RuntimeException(e);
+		} catch (ExecutionException e) {
+			throw new RuntimeException(e.getCause());
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	int getBin(double time) {
+		return Math.max(0, Math.min(this.upCosts.length - 1, (int) (time / this.binSize)));
+	}
+
+	double getBinStartTime(int bin) {
+		return bin * this.binSize;
+	}
+
+	float[] getUpCosts(int bin) {
+		return this.upCosts[bin];
+	}
+
+	float[] getDownCosts(int bin) {
+		return this.downCosts[bin];
+	}
+
+	private void setLinkCosts(int bin, TravelDisutility td) {
+		SpeedyCHData ch = this.chData;
+		float[] up = new float[ch.edgeCount];
+		float[] down = new float[ch.edgeCount];
+		Arrays.fill(up, Float.POSITIVE_INFINITY);
+		Arrays.fill(down, Float.POSITIVE_INFINITY);
+
+		double time = getBinStartTime(bin);
+		for (int linkIdx = 0; linkIdx < ch.graph.linkCount; linkIdx++) {
+			Link link = ch.graph.getLink(linkIdx);
+			if (link == null) {
+				continue;
+			}
+			int fromRank = ch.nodeToRank[link.getFromNode().getId().index()];
+			int toRank = ch.nodeToRank[link.getToNode().getId().index()];
+			if (fromRank == toRank) {
+				continue;
+			}
+			float cost = (float) td.getLinkTravelDisutility(link, time, this.person, this.vehicle);
+			if (fromRank < toRank) {
+				int e = ch.findEdge(fromRank, toRank);
+				up[e] = Math.min(up[e], cost);
+			} else {
+				int e = ch.findEdge(toRank, fromRank);
+				down[e] = Math.min(down[e], cost);
+			}
+		}
+		this.upCosts[bin] = up;
+		this.downCosts[bin] = down;
+	}
+
+	private void processTriangles(float[] up, float[] down) {
+		SpeedyCHData ch = this.chData;
+		// process the lower triangles of all edges bottom-up: for an edge (u, w), each node v with lower rank than u and w that is
+		// connected to both provides a path u -> v -> w, whose edges are already final when v is processed.
+		int[] edgeTo = new int[ch.nodeCount];
+		Arrays.fill(edgeTo, -1);
+		for (int v = 0; v < ch.nodeCount; v++) {
+			int end = ch.upFirst[v + 1];
+			for (int i = ch.upFirst[v]; i < end; i++) {
+				int u = ch.upHead[i];
+				for (int j = ch.upFirst[u]; j < ch.upFirst[u + 1]; j++) {
+					edgeTo[ch.upHead[j]] = j;
+				}
+				for (int k = i + 1; k < end; k++) {
+					int uw = edgeTo[ch.upHead[k]];
+					float uvw = down[i] + up[k];
+					if (uvw < up[uw]) {
+						up[uw] = uvw;
+					}
+					float wvu = down[k] + up[i];
+					if (wvu < down[uw]) {
+						down[uw] = wvu;
+					}
+				}
+				for (int j = ch.upFirst[u]; j < ch.upFirst[u + 1]; j++) {
+					edgeTo[ch.upHead[j]] = -1;
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,274 @@
+package org.matsim.core.router.speedy;
+
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.ints.IntArrays;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.matsim.api.core.v01.Coord;
+import org.matsim.api.core.v01.network.Node;
+import org.matsim.core.router.speedy.SpeedyGraph.LinkIterator;
+
+import java.util.Arrays;
+
+/**
+ * The metric-independent part of a customizable contraction hierarchy (CCH) for a {@link SpeedyGraph}, see {@link SpeedyCH}.
+ * <p>
+ * Based on "Customizable Contraction Hierarchies" by Julian Dibbelt, Ben Strasser and Dorothea Wagner, 2014.
+ * <p>
+ * The nodes are ordered by a nested dissection of the network: the nodes are recursively split into two halves along the median of
+ * their x- or y-coordinate, and the nodes of one half that are connected to the other half (the separator) get a higher rank than all
+ * other nodes of this part.  Contracting the nodes in this order results in a graph in which each pair of higher-ranked neighbors
+ * of a node is connected (a chordal graph).  Its edges are stored per lower-ranked node, sorted by the rank of the higher-ranked node.
+ * Nodes are referred to by their rank in this class.
+ * <p>
+ * The travel costs of the edges are calculated by {@link SpeedyCHCustomization}, which can be repeated with new travel costs
+ * without repeating this preprocessing.
+ * <p>
+ * This class is thread-safe and can safely be used by multiple threads.
+ */
+class SpeedyCHData {
+
+	private final static Logger LOG = LogManager.getLogger(SpeedyCHData.class);
+
+	/**
+	 * Parts with at most this number of nodes are not split further.
+	 */
+	private static final int LEAF_SIZE = 8;
+
+	final SpeedyGraph graph;
+	final int nodeCount;
+	final int edgeCount;
+	final int[] nodeToRank;
+	final int[] rankToNode;
+	/** for each rank, the index of its first upward edge, plus one entry after the last rank */
+	final int[] upFirst;
+	/** for each edge, the rank of the higher-ranked node */
+	final int[] upHead;
+	/** for each rank, the index of its first downward edge in {@link #downTail}, plus one entry after the last rank */
+	final int[] downFirst;
+	/** for each downward edge, the rank of the lower-ranked node */
+	final int[] downTail;
+	/** for each downward edge, the index of the edge in {@link #upHead} */
+	final int[] downEdge;
+	/** for each rank, its parent in the elimination tree, i.e. the lowest-ranked of its higher-ranked neighbors, or -1 */
+	final int[] parent;
+
+	SpeedyCHData(SpeedyGraph graph) {
+		this.graph = graph;
+		this.nodeToRank = new int[graph.nodeCount];
+		Arrays.fill(this.nodeToRank, -1);
+
+		LOG.info("order nodes by nested dissection...");
+		this.rankToNode = orderNodes();
+		this.nodeCount = this.rankToNode.length;
+		for (int rank = 0; rank < this.nodeCount; rank++) {
+			this.nodeToRank[this.rankToNode[rank]] = rank;
+		}
+
+		LOG.info("contract nodes...");
+		IntArrayList[] upNeighbors = contractNodes();
+		this.upFirst = new int[this.nodeCount + 1];
+		int edges = 0;
+		for (int rank = 0; rank < this.nodeCount; rank++) {
+			this.upFirst[rank] = edges;
+			edges += upNeighbors[rank].size();
+		}
+		this.upFirst[this.nodeCount] = edges;
+		this.edgeCount = edges;
+		this.upHead = new int[edges];
+		int[] downCounts = new int[this.nodeCount + 1];
+		for (int rank = 0; rank < this.nodeCount; rank++) {
+			IntArrayList neighbors = upNeighbors[rank];
+			neighbors.getElements(0, this.upHead, this.upFirst[rank], neighbors.size());
+			for (int i = 0; i < neighbors.size(); i++) {
+				downCounts[neighbors.getInt(i)]++;
+			}
+			upNeighbors[rank] = null;
+		}
+
+		this.downFirst = new int[this.nodeCount + 1];
+		for (int rank = 0; rank < this.nodeCount; rank++) {
+			this.downFirst[rank + 1] = this.downFirst[rank] + downCounts[rank];
+		}
+		this.downTail = new int[edges];
+		this.downEdge = new int[edges];
+		int[] next = Arrays.copyOf(this.downFirst, this.nodeCount);
+		for (int rank = 0; rank < this.nodeCount; rank++) {
+			for (int e = this.upFirst[rank]; e < this.upFirst[rank + 1]; e++) {
+				int d = next[this.upHead[e]]++;
+				this.downTail[d] = rank;
+				this.downEdge[d] = e;
+			}
+		}
+		this.parent = new int[this.nodeCount];
+		for (int rank = 0; rank < this.nodeCount; rank++) {
+			this.parent[rank] = this.upFirst[rank] < this.upFirst[rank + 1] ? this.upHead[this.upFirst[rank]] : -1;
+		}
+		LOG.info("contraction hierarchy has " + this.nodeCount + " nodes and " + this.edgeCount + " edges.");
+	}
+
+	/**
+	 * @return the index of the edge between the two ranks, or -1 if there is none
+	 */
+	int findEdge(int lowerRank, int higherRank) {
+		int index = Arrays.binarySearch(this.upHead, this.upFirst[lowerRank], this.upFirst[lowerRank + 1], higherRank);
+		return index >= 0 ? index : -1;
+	}
+
+	/**
+	 * @return the rank of the lower-ranked node of the edge
+	 */
+	int getTail(int edge) {
+		int low = 0;
+		int high = this.nodeCount - 1;
+		while (low < high) {
+			int mid = (low + high + 1) >>> 1;
+			if (this.upFirst[mid] <= edge) {
+				low = mid;
+			} else {
+				high = mid - 1;
+			}
+		}
+		return low;
+	}
+
+	private int[] orderNodes() {
+		IntArrayList nodes = new IntArrayList();
+		for (int nodeIdx = 0; nodeIdx < this.graph.nodeCount; nodeIdx++) {
+			if (this.graph.getNode(nodeIdx) != null) {
+				nodes.add(nodeIdx);
+			}
+		}
+		double[] xs = new double[this.graph.nodeCount];
+		double[] ys = new double[this.graph.nodeCount];
+		for (int i = 0; i < nodes.size(); i++) {
+			int nodeIdx = nodes.getInt(i);
+			Coord coord = this.graph.getNode(nodeIdx).getCoord();
+			xs[nodeIdx] = coord.getX();
+			ys[nodeIdx] = coord.getY();
+		}
+		IntArrayList order = new IntArrayList(nodes.size());
+		int[] side = new int[this.graph.nodeCount];
+		dissect(nodes.toIntArray(), xs, ys, side, new int[] {0}, order);
+		return order.toIntArray();
+	}
+
+	/**
+	 * Appends the nodes of the part to the order: first both halves recursively, then the separator.
+	 */
+	private void dissect(int[] part, double[] xs, double[] ys, int[] side, int[] stamp, IntArrayList order) {
+		if (part.length <= LEAF_SIZE) {
+			order.addElements(order.size(), part);
+			return;
+		}
+		double minX = Double.POSITIVE_INFINITY;
+		double maxX = Double.NEGATIVE_INFINITY;
+		double minY = Double.POSITIVE_INFINITY;
+		double maxY = Double.NEGATIVE_INFINITY;
+		for (int nodeIdx : part) {
+			minX = Math.min(minX, xs[nodeIdx]);
+			maxX = Math.max(maxX, xs[nodeIdx]);
+			minY = Math.min(minY, ys[nodeIdx]);
+			maxY = Math.max(maxY, ys[nodeIdx]);
+		}
+		double[] coords = (maxX - minX) >= (maxY - minY) ? xs : ys;
+		IntArrays.quickSort(part, (a, b) -> Double.compare(coords[a], coords[b]));
+		int mid = part.length / 2;
+
+		int stampB = ++stamp[0];
+		for (int i = mid; i < part.length; i++) {
+			side[part[i]] = stampB;
+		}
+		IntArrayList halfA = new IntArrayList(mid);
+		IntArrayList separator = new IntArrayList();
+		LinkIterator outLI = this.graph.getOutLinkIterator();
+		LinkIterator inLI = this.graph.getInLinkIterator();
+		for (int i = 0; i < mid; i++) {
+			int nodeIdx = part[i];
+			boolean connected = false;
+			outLI.reset(nodeIdx);
+			while (!connected && outLI.next()) {
+				connected = side[outLI.getToNodeIndex()] == stampB;
+			}
+			inLI.reset(nodeIdx);
+			while (!connected && inLI.next()) {
+				connected = side[inLI.getFromNodeIndex()] == stampB;
+			}
+			(connected ? separator : halfA).add(nodeIdx);
+		}
+		int[] halfB = Arrays.copyOfRange(part, mid, part.length);
+
+		dissect(halfA.toIntArray(), xs, ys, side, stamp, order);
+		dissect(halfB, xs, ys, side, stamp, order);
+		order.addAll(separator);
+	}
+
+	/**
+	 * @return for each rank, the sorted ranks of its higher-ranked neighbors in the chordal graph
+	 */
+	private IntArrayList[] contractNodes() {
+		IntArrayList[] upNeighbors = new IntArrayList[this.nodeCount];
+		LinkIterator outLI = this.graph.getOutLinkIterator();
+		LinkIterator inLI = this.graph.getInLinkIterator();
+		for (int rank = 0; rank < this.nodeCount; rank++) {
+			int nodeIdx = this.rankToNode[rank];
+			IntArrayList neighbors = new IntArrayList();
+			outLI.reset(nodeIdx);
+			while (outLI.next()) {
+				int other = this.nodeToRank[outLI.getToNodeIndex()];
+				if (other > rank) {
+					neighbors.add(other);
+				}
+			}
+			inLI.reset(nodeIdx);
+			while (inLI.next()) {
+				int other = this.nodeToRank[inLI.getFromNodeIndex()];
+				if (other > rank) {
+					neighbors.add(other);
+				}
+			}
+			upNeighbors[rank] = sortedUnique(neighbors);
+		}
+
+		// contracting a node connects all its higher-ranked neighbors with each other. It is sufficient to connect the lowest-ranked
+		// of them with the others, as it will in turn connect them with each other when it is contracted.
+		for (int rank = 0; rank < this.nodeCount; rank++) {
+			IntArrayList neighbors = upNeighbors[rank];
+			if (neighbors.size() > 1) {
+				int lowest = neighbors.getInt(0);
+				upNeighbors[lowest] = merge(upNeighbors[lowest], neighbors, 1);
+			}
+		}
+		return upNeighbors;
+	}
+
+	private static IntArrayList sortedUnique(IntArrayList values) {
+		int[] array = values.toIntArray();
+		Arrays.sort(array);
+		IntArrayList result = new IntArrayList(array.length);
+		for (int i = 0; i < array.length; i++) {
+			if (i == 0 || array[i] != array[i - 1]) {
+				result.add(array[i]);
+			}
+		}
+		return result;
+	}
+
+	private static IntArrayList merge(IntArrayList a, IntArrayList b, int bStart) {
+		IntArrayList result = new IntArrayList(a.size() + b.size() - bStart);
+		int i = 0;
+		int j = bStart;
+		while (i < a.size() || j < b.size()) {
+			int value;
+			if (j == b.size() || (i < a.size() && a.getInt(i) <= b.getInt(j))) {
+				value = a.getInt(i++);
+			} else {
+				value = b.getInt(j++);
+			}
+			if (result.isEmpty() || result.getInt(result.size() - 1) != value) {
+				result.add(value);
+			}
+		}
+		return result;
+	}
+}
@@ -0,0 +1,96 @@
+package org.matsim.core.router.speedy;
+
+import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.network.Network;
+import org.matsim.api.core.v01.population.Person;
+import org.matsim.core.config.groups.GlobalConfigGroup;
+import org.matsim.core.controler.events.IterationStartsEvent;
+import org.matsim.core.controler.listener.IterationStartsListener;
+import org.matsim.core.population.PopulationUtils;
+import org.matsim.core.router.util.LeastCostPathCalculator;
+import org.matsim.core.router.util.LeastCostPathCalculatorFactory;
+import org.matsim.core.router.util.TravelDisutility;
+import org.matsim.core.router.util.TravelTime;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Creates {@link SpeedyCH} routers.  The contraction hierarchy of a network is calculated once, its customization with the travel
+ * disutilities is calculated once per iteration.  For this, the factory must be registered as controler listener, otherwise the
+ * customization is never updated.
+ * <p>
+ * Routers share a customization only if they use the same network, travel time and travel disutility instance.  As the travel
+ * disutilities are usually created anew for every router, callers that know that their disutilities are equal (e.g. because they
+ * are created by the same factory for the same mode) should pass a customization key to
+ * {@link #createPathCalculator(Network, TravelDisutility, TravelTime, Object)}, as {@link org.matsim.core.router.NetworkRoutingProvider}
+ * does.
+ * <p>
+ * The customization can only be done for one person and vehicle, so SpeedyCH does not support travel disutilities that depend on
+ * the person or the vehicle, e.g. {@link org.matsim.core.router.costcalculators.RandomizingTimeDistanceTravelDisutilityFactory} with
+ * a routing randomness other than 0.  All routes are searched with the disutilities of a person without attributes and without a
+ * vehicle (the travel times and costs of the found routes are then calculated for the actual person and vehicle).
+ */
+@Singleton
+public class SpeedyCHFactory implements LeastCostPathCalculatorFactory, IterationStartsListener {
+
+	private static final double DEFAULT_BIN_SIZE = 3600;
+	private static final double DEFAULT_MAX_TIME = 30 * 3600;
+
+	private final double binSize;
+	private final double maxTime;
+	private final int numberOfThreads;
+	private final Person customizationPerson = PopulationUtils.getFactory().createPerson(Id.createPersonId("SpeedyCH"));
+	private final Map<Network, SpeedyGraph> graphs = new ConcurrentHashMap<>();
+	private final Map<SpeedyGraph, SpeedyCHData> chData = new ConcurrentHashMap<>();
+	private final Map<CustomizationKey, SpeedyCHCustomization> customizations = new ConcurrentHashMap<>();
+
+	public SpeedyCHFactory() {
+		this(DEFAULT_BIN_SIZE, DEFAULT_MAX_TIME, 1);
+	}
+
+	@Inject
+	public SpeedyCHFactory(GlobalConfigGroup globalConfig) {
+		this(DEFAULT_BIN_SIZE, DEFAULT_MAX_TIME, globalConfig.getNumberOfThreads());
+	}
+
+	/**
+	 * @param binSize the length of the time bins for which the travel costs are customized
+	 * @param maxTime departures after this time use the travel costs of the last time bin
+	 * @param numberOfThreads the number of threads used to customize the time bins
+	 */
+	public SpeedyCHFactory(double binSize, double maxTime, int numberOfThreads) {
+		this.binSize = binSize;
+		this.maxTime = maxTime;
+		this.numberOfThreads = Math.max(1, numberOfThreads);
+	}
+
+	@Override
+	public LeastCostPathCalculator createPathCalculator(Network network, TravelDisutility travelCosts, TravelTime travelTimes) {
+		return createPathCalculator(network, travelCosts, travelTimes, travelCosts);
+	}
+
+	/**
+	 * @param customizationKey routers with the same network, travel time and an equal customization key share the customization, so
+	 *                         the key must only be equal for equal travel disutilities
+	 */
+	public LeastCostPathCalculator createPathCalculator(Network network, TravelDisutility travelCosts, TravelTime travelTimes, Object customizationKey) {
+		SpeedyGraph graph = this.graphs.computeIfAbsent(network, SpeedyGraph::new);
+		SpeedyCHData ch = this.chData.computeIfAbsent(graph, SpeedyCHData::new);
+		CustomizationKey key = new CustomizationKey(ch, travelTimes, customizationKey);
+		SpeedyCHCustomization customization = this.customizations.computeIfAbsent(key,
+				k -> new SpeedyCHCustomization(ch, travelCosts, this.binSize, this.maxTime, this.customizationPerson, null, this.numberOfThreads));
+		return new SpeedyCH(customization, travelTimes, travelCosts);
+	}
+
+	@Override
+	public void notifyIterationStarts(IterationStartsEvent event) {
+		// the travel times have changed
+		this.customizations.clear();
+	}
+
+	private record CustomizationKey(SpeedyCHData chData, TravelTime travelTime, Object customizationKey) {
+	}
+}
@@ -0,0 +1,250 @@
+package org.matsim.core.router.speedy;
+
+import org.matsim.api.core.v01.network.Node;
+import org.matsim.api.core.v01.population.Person;
+import org.matsim.core.router.util.TravelDisutility;
+import org.matsim.core.router.util.TravelTime;
+import org.matsim.vehicles.Vehicle;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * Calculates the least-cost paths from many origin nodes to many destination nodes on a {@link SpeedyGraph} and stores the
+ * travel time, distance and travel disutility of each origin-destination pair in dense float matrices.  If only travel times
+ * are needed, {@link #calculateTravelTimes(int[], int[], double, Person, Vehicle, RowHandler)} passes them on row by row
+ * instead, so no dense matrix is allocated at all.
+ * <p>
+ * The origins are split into batches which are processed in parallel by a {@link ForkJoinPool} that is created once per calculator.
+ * Each batch uses a {@link LeastCostPathTree}, so the memory for the tree and its priority queue is allocated once per thread and not
+ * once per origin. The trees are kept between calls. The search from an origin stops as soon as all destinations are reached.
+ * <p>
+ * This class is thread-safe, but the {@link TravelTime} and {@link TravelDisutility} must be thread-safe as well.
+ */
+public final class SpeedyManyToManyCalculator {
+
+    /**
+     * The origins are split into this many batches per thread, so threads that finish early can take over work from others.
+     */
+    static final int BATCHES_PER_THREAD = 8;
+
+    /**
+     * The largest number of origin-destination pairs a {@link Matrices} can hold, as the values are stored in one array each.
+     */
+    static final long MAX_MATRIX_SIZE = Integer.MAX_VALUE - 8;
+
+    private final SpeedyGraph graph;
+    private final TravelTime tt;
+    private final TravelDisutility td;
+    private final int numberOfThreads;
+    // the worker threads are daemon threads and terminate when they are idle, so the pool needs not be shut down
+    private final ForkJoinPool pool;
+    private final Queue<LeastCostPathTree> trees = new ConcurrentLinkedQueue<>();
+
+    public SpeedyManyToManyCalculator(SpeedyGraph graph, TravelTime tt, TravelDisutility td, int numberOfThreads) {
+        this.graph = graph;
+        this.tt = tt;
+        this.td = td;
+        this.numberOfThreads = numberOfThreads;
+        this.pool = new ForkJoinPool(numberOfThreads);
+    }
+
+    /**
+     * Receives the travel times from one origin to all destinations.
+     */
+    public interface RowHandler {
+        /**
+         * Called once for every origin, possibly concurrently from several threads.
+         *
+         * @param row the index of the origin
+         * @param travelTimes the travel times to all destinations, {@link Float#POSITIVE_INFINITY} for destinations that cannot be reached.
+         *                    The array is re-used for the next row.
+         */
+        void handleRow(int row, float[] travelTimes);
+    }
+
+    public Matrices calculate(List<? extends Node> fromNodes, List<? extends Node> toNodes, double departureTime, Person person, Vehicle vehicle) {
+        return calculate(getNodeIndices(fromNodes), getNodeIndices(toNodes), departureTime, person, vehicle);
+    }
+
+    /**
+     * @param fromNodes the indices of the origin nodes, see {@link org.matsim.api.core.v01.Id#index()}
+     * @param toNodes the indices of the destination nodes
+     */
+    public Matrices calculate(int[] fromNodes, int[] toNodes, double departureTime, Person person, Vehicle vehicle) {
+        Matrices matrices = new Matrices(fromNodes.length, toNodes.length);
+        calculate(fromNodes, toNodes, departureTime, person, vehicle, (tree, row, travelTimes) -> {
+            int offset = (int) ((long) row * matrices.columns);
+            System.arraycopy(travelTimes, 0, matrices.travelTimes, offset, travelTimes.length);
+            for (int col = 0; col < toNodes.length; col++) {
+                matrices.distances[offset + col] = (float) tree.getDistance(toNodes[col]);
+                matrices.disutilities[offset + col] = (float) tree.getCost(toNodes[col]);
+            }
+        });
+        return matrices;
+    }
+
+    public void calculateTravelTimes(List<? extends Node> fromNodes, List<? extends Node> toNodes, double departureTime, Person person,
+                                     Vehicle vehicle, RowHandler handler) {
+        calculateTravelTimes(getNodeIndices(fromNodes), getNodeIndices(toNodes), departureTime, person, vehicle, handler);
+    }
+
+    /**
+     * Calculates only the travel times and passes them on row by row, without storing them.
+     *
+     * @param fromNodes the indices of the origin nodes, see {@link org.matsim.api.core.v01.Id#index()}
+     * @param toNodes the indices of the destination nodes
+     */
+    public void calculateTravelTimes(int[] fromNodes, int[] toNodes, double departureTime, Person person, Vehicle vehicle, RowHandler handler) {
+        calculate(fromNodes, toNodes, departureTime, person, vehicle, (tree, row, travelTimes) -> handler.handleRow(row, travelTimes));
+    }
+
+    private interface TreeRowHandler {
+        void handleRow(LeastCostPathTree tree, int row, float[] travelTimes);
+    }
+
+    private void calculate(int[] fromNodes, int[] toNodes, double departureTime, Person person, Vehicle vehicle, TreeRowHandler handler) {
+        boolean[] isDestination = new boolean[this.graph.nodeCount];
+        int destinationCount = 0;
+        for (int toNode : toNodes) {
+            if (!isDestination[toNode]) {
+                isDestination[toNode] = true;
+                destinationCount++;
+            }
+        }
+        final int distinctDestinations = destinationCount;
+
+        int batchCount = Math.min(fromNodes.length, this.numberOfThreads * BATCHES_PER_THREAD);
+        List<Callable<Void>> batches = new ArrayList<>(batchCount);
+        for (int b = 0; b < batchCount; b++) {
+            int start = (int) ((long) fromNodes.length * b / batchCount);
+            int end = (int) ((long) fromNodes.length * (b + 1) / batchCount);
+            batches.add(() -> {
+                LeastCostPathTree tree = acquireTree();
+                float[] travelTimes = new float[toNodes.length];
+                try {
+                    for (int row = start; row < end; row++) {
+                        calculateRow(tree, fromNodes[row], toNodes, isDestination, distinctDestinations, departureTime, person, vehicle, travelTimes);
+                        handler.handleRow(tree, row, travelTimes);
+                    }
+                } finally {
+                    this.trees.add(tree);
+                }
+                return null;
+            });
+        }
+
+        try {
+            for (Future<Void> future : this.pool.invokeAll(batches)) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            throw new RuntimeException(e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException(e.getCause());
+        }
+    }
+
+    private LeastCostPathTree acquireTree() {
+        LeastCostPathTree tree = this.trees.poll();
+        return tree != null ? tree : new LeastCostPathTree(this.graph, this.tt, this.td);
+    }
+
+    private static void calculateRow(LeastCostPathTree tree, int fromNode, int[] toNodes, boolean[] isDestination, int destinationCount,
+                                     double departureTime, Person person, Vehicle vehicle, float[] travelTimes) {
+        int[] reached = new int[1];
+        tree.calculate(fromNode, departureTime, person, vehicle,
+                (node, arrTime, cost, distance, depTime) -> isDestination[node] && ++reached[0] == destinationCount);
+
+        for (int col = 0; col < toNodes.length; col++) {
+            double time = tree.getTime(toNodes[col]).orElse(Double.POSITIVE_INFINITY);
+            travelTimes[col] = (float) (time - departureTime);
+        }
+    }
+
+    private static int[] getNodeIndices(List<? extends Node> nodes) {
+        int[] indices = new int[nodes.size()];
+        for (int i = 0; i < indices.length; i++) {
+            indices[i] = nodes.get(i).getId().index();
+        }
+        return indices;
+    }
+
+    /**
+     * The results of a many-to-many calculation.  The values are stored row by row, i.e. the value from the i-th origin to the j-th
+     * destination is at index {@code i * getColumnCount() + j} of the arrays.  Destinations that cannot be reached from an origin
+     * have the value {@link Float#POSITIVE_INFINITY}.
+     */
+    public static final class Matrices {
+
+        private final int rows;
+        private final int columns;
+        private final float[] travelTimes;
+        private final float[] distances;
+        private final float[] disutilities;
+
+        Matrices(int rows, int columns) {
+            long size = (long) rows * columns;
+            if (size > MAX_MATRIX_SIZE) {
+                throw new IllegalArgumentException("Too many origin-destination pairs for one matrix: " + rows + " x " + columns
+                        + ". Split the origins or use calculateTravelTimes() instead.");
+            }
+            this.rows = rows;
+            this.columns = columns;
+            this.travelTimes = new float[(int) size];
+            this.distances = new float[(int) size];
+            this.disutilities = new float[(int) size];
+        }
+
+        public int getRowCount() {
+            return this.rows;
+        }
+
+        public int getColumnCount() {
+            return this.columns;
+        }
+
+        public float getTravelTime(int fromIndex, int toIndex) {
+            return this.travelTimes[index(fromIndex, toIndex)];
+        }
+
+        public float getDistance(int fromIndex, int toIndex) {
+            return this.distances[index(fromIndex, toIndex)];
+        }
+
+        public float getDisutility(int fromIndex, int toIndex) {
+            return this.disutilities[index(fromIndex, toIndex)];
+        }
+
+        private int index(int fromIndex, int toIndex) {
+            return (int) ((long) fromIndex * this.columns + toIndex);
+        }
+
+        /**
+         * @return the travel times of all pairs, not a copy
+         */
+        public float[] getTravelTimes() {
+            return this.travelTimes;
+        }
+
+        /**
+         * @return the distances of all pairs, not a copy
+         */
+        public float[] getDistances() {
+            return this.distances;
+        }
+
+        /**
+         * @return the travel disutilities of all pairs, not a copy
+         */
+        public float[] getDisutilities() {
+            return this.disutilities;
+        }
+    }
+}
@@ -126,6 +126,28 @@ class ScenarioLoaderImpl {
 		return this.scenario;
 	}
 
+	/**
+	 * Loads the network, the facilities and the population from a snapshot written by {@link ScenarioSnapshotWriter}
+	 * instead of the files named in the config, and all other elements like {@link #loadScenario()}.
+	 * @return the Scenario
+	 */
+	Scenario loadScenarioFromSnapshot(String snapshotFile) {
+		new ScenarioSnapshotReader(this.scenario, this.attributeConverters).read(snapshotFile);
+		if (this.config.network() != null) {
+			this.loadNetworkChangeEvents();
+		}
+		this.loadHouseholds(); // tests internally if the file is there
+		this.loadTransit(); // tests internally if the file is there
+		this.loadTransitVehicles(); // tests internally if the file is there
+		if (this.config.vehicles().getVehiclesFile()!=null ) {
+			this.loadVehicles() ;
+		}
+		if (this.config.network().getLaneDefinitionsFile()!=null ) {
+			this.loadLanes();
+		}
+		return this.scenario;
+	}
+
 	/**
 	 * Loads the network into the scenario of this class
 	 */
@@ -143,14 +165,18 @@ class ScenarioLoaderImpl {
             reader.putAttributeConverters( attributeConverters );
             reader.parse(networkUrl);
 
-			if ((this.config.network().getChangeEventsInputFile()!= null) && this.config.network().isTimeVariantNetwork()) {
-				log.info("loading network change events from " + this.config.network().getChangeEventsInputFileUrl(this.config.getContext()).getFile());
-				Network network = this.scenario.getNetwork();
-				List<NetworkChangeEvent> changeEvents = new ArrayList<>() ;
-				NetworkChangeEventsParser parser = new NetworkChangeEventsParser(network,changeEvents);
-				parser.parse(this.config.network().getChangeEventsInputFileUrl(config.getContext()));
-				NetworkUtils.setNetworkChangeEvents(network,changeEvents);
-			}
+			this.loadNetworkChangeEvents();
+		}
+	}
+
+	private void loadNetworkChangeEvents() {
+		if ((this.config.network().getChangeEventsInputFile()!= null) && this.config.network().isTimeVariantNetwork()) {
+			log.info("loading network change events from " + this.config.network().getChangeEventsInputFileUrl(this.config.getContext()).getFile());
+			Network network = this.scenario.getNetwork();
+			List<NetworkChangeEvent> changeEvents = new ArrayList<>() ;
+			NetworkChangeEventsParser parser = new NetworkChangeEventsParser(network,changeEvents);
+			parser.parse(this.config.network().getChangeEventsInputFileUrl(config.getContext()));
+			NetworkUtils.setNetworkChangeEvents(network,changeEvents);
 		}
 	}
 
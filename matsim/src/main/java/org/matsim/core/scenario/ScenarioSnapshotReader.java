@@ -0,0 +1,463 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * ScenarioSnapshotReader.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2023 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.scenario;
+
+import static org.matsim.core.scenario.ScenarioSnapshotWriter.*;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.matsim.api.core.v01.Coord;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.Scenario;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.network.Network;
+import org.matsim.api.core.v01.network.NetworkFactory;
+import org.matsim.api.core.v01.network.Node;
+import org.matsim.api.core.v01.population.Activity;
+import org.matsim.api.core.v01.population.Leg;
+import org.matsim.api.core.v01.population.Person;
+import org.matsim.api.core.v01.population.Plan;
+import org.matsim.api.core.v01.population.Population;
+import org.matsim.api.core.v01.population.PopulationFactory;
+import org.matsim.api.core.v01.population.Route;
+import org.matsim.core.gbl.Gbl;
+import org.matsim.core.network.NetworkUtils;
+import org.matsim.core.population.PopulationUtils;
+import org.matsim.core.population.routes.NetworkRoute;
+import org.matsim.core.population.routes.RouteFactories;
+import org.matsim.core.router.StageActivityTypeIdentifier;
+import org.matsim.facilities.ActivityFacilities;
+import org.matsim.facilities.ActivityFacilitiesFactory;
+import org.matsim.facilities.ActivityFacility;
+import org.matsim.facilities.ActivityFacilityImpl;
+import org.matsim.facilities.ActivityOption;
+import org.matsim.facilities.OpeningTimeImpl;
+import org.matsim.utils.objectattributes.AttributeConverter;
+import org.matsim.utils.objectattributes.ObjectAttributesConverter;
+import org.matsim.utils.objectattributes.attributable.Attributes;
+import org.matsim.vehicles.Vehicle;
+
+/**
+ * Reads a binary snapshot written by {@link ScenarioSnapshotWriter} into the network, the facilities and the population
+ * of a scenario. The containers should be empty before reading.
+ * <p></p>
+ * The snapshot is read sequentially as a buffered stream; it is not memory-mapped, so reading it still copies all
+ * data through the stream buffer.
+ *
+ * @see ScenarioUtils#loadScenarioFromSnapshot(org.matsim.core.config.Config, String)
+ */
+public final class ScenarioSnapshotReader {
+	private static final Logger log = LogManager.getLogger(ScenarioSnapshotReader.class);
+
+	private final Scenario scenario;
+	private final ObjectAttributesConverter attributesConverter = new ObjectAttributesConverter();
+	private final List<String> strings = new ArrayList<>();
+	// the id created from each string, as long as the string is only used for ids of one type
+	private Id<?>[] ids = new Id<?>[1024];
+	private Class<?>[] idTypes = new Class<?>[1024];
+	private DataInputStream in;
+
+	public ScenarioSnapshotReader(Scenario scenario) {
+		this(scenario, Collections.emptyMap());
+	}
+
+	public ScenarioSnapshotReader(Scenario scenario, Map<Class<?>, AttributeConverter<?>> attributeConverters) {
+		this.scenario = scenario;
+		this.attributesConverter.putAttributeConverters(attributeConverters);
+	}
+
+	public void read(String filename) throws UncheckedIOException {
+		log.info("reading scenario snapshot from " + filename);
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(filename), 1 << 20))) {
+			this.in = in;
+			if (!MAGIC.equals(in.readUTF()) || in.readInt() != VERSION) {
+				throw new IOException("File " + filename + " is not a scenario snapshot of this MATSim version.");
+			}
+			checkInputs(filename);
+			readNetwork(this.scenario.getNetwork());
+			readFacilities(this.scenario.getActivityFacilities());
+			readPopulation(this.scenario.getPopulation());
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		} finally {
+			this.in = null;
+		}
+		log.info("read " + this.scenario.getNetwork().getLinks().size() + " links, " + this.scenario.getActivityFacilities().getFacilities().size()
+				+ " facilities and " + this.scenario.getPopulation().getPersons().size() + " persons from the scenario snapshot.");
+	}
+
+	/**
+	 * Refuses snapshots written by another MATSim build or from other input files than the ones named in the config.
+	 */
+	private void checkInputs(String filename) throws IOException {
+		String buildInfo = this.in.readUTF();
+		if (!buildInfo.equals(Gbl.getBuildInfoString())) {
+			throw new IOException("The scenario snapshot " + filename + " was written by " + buildInfo + ", but this is "
+					+ Gbl.getBuildInfoString() + ". Please write the snapshot again.");
+		}
+		int inputCount = this.in.readInt();
+		List<String> inputs = new ArrayList<>(inputCount);
+		for (int i = 0; i < inputCount; i++) {
+			inputs.add(this.in.readUTF());
+		}
+		List<String> configuredInputs = describeInputs(this.scenario.getConfig());
+		if (!inputs.equals(configuredInputs)) {
+			throw new IOException("The scenario snapshot " + filename + " was written from the inputs " + inputs
+					+ ", but the config names the inputs " + configuredInputs + ". Please write the snapshot again.");
+		}
+	}
+
+	private void readNetwork(Network network) throws IOException {
+		String name = readString();
+		if (name != null) {
+			network.setName(name);
+		}
+		network.setCapacityPeriod(this.in.readDouble());
+		network.setEffectiveLaneWidth(this.in.readDouble());
+		network.setEffectiveCellSize(this.in.readDouble());
+		readAttributes(network.getAttributes());
+
+		NetworkFactory factory = network.getFactory();
+		int nodeCount = readVarInt();
+		for (int i = 0; i < nodeCount; i++) {
+			Node node = factory.createNode(readId(Node.class), readCoord());
+			String type = readString();
+			if (type != null) {
+				NetworkUtils.setType(node, type);
+			}
+			String origId = readString();
+			if (origId != null) {
+				NetworkUtils.setOrigId(node, origId);
+			}
+			readAttributes(node.getAttributes());
+			network.addNode(node);
+		}
+
+		int linkCount = readVarInt();
+		for (int i = 0; i < linkCount; i++) {
+			Id<Link> id = readId(Link.class);
+			Node fromNode = network.getNodes().get(readId(Node.class));
+			Node toNode = network.getNodes().get(readId(Node.class));
+			Link link = factory.createLink(id, fromNode, toNode);
+			link.setLength(this.in.readDouble());
+			link.setFreespeed(this.in.readDouble());
+			link.setCapacity(this.in.readDouble());
+			link.setNumberOfLanes(this.in.readDouble());
+			int modeCount = readVarInt();
+			Set<String> allowedModes = new HashSet<>(modeCount);
+			for (int m = 0; m < modeCount; m++) {
+				allowedModes.add(readString());
+			}
+			link.setAllowedModes(allowedModes);
+			readAttributes(link.getAttributes());
+			network.addLink(link);
+		}
+	}
+
+	private void readFacilities(ActivityFacilities facilities) throws IOException {
+		String name = readString();
+		if (name != null) {
+			facilities.setName(name);
+		}
+		readAttributes(facilities.getAttributes());
+
+		ActivityFacilitiesFactory factory = facilities.getFactory();
+		int facilityCount = readVarInt();
+		for (int i = 0; i < facilityCount; i++) {
+			Id<ActivityFacility> id = readId(ActivityFacility.class);
+			Id<Link> linkId = readId(Link.class);
+			Coord coord = readOptionalCoord();
+			ActivityFacility facility = coord == null ? factory.createActivityFacility(id, linkId) : factory.createActivityFacility(id, coord, linkId);
+			String desc = readString();
+			if (facility instanceof ActivityFacilityImpl impl) {
+				impl.setDesc(desc);
+			}
+			int optionCount = readVarInt();
+			for (int o = 0; o < optionCount; o++) {
+				ActivityOption option = factory.createActivityOption(readString());
+				option.setCapacity(this.in.readDouble());
+				int openingTimeCount = readVarInt();
+				for (int t = 0; t < openingTimeCount; t++) {
+					option.addOpeningTime(new OpeningTimeImpl(this.in.readDouble(), this.in.readDouble()));
+				}
+				facility.addActivityOption(option);
+			}
+			readAttributes(facility.getAttributes());
+			facilities.addActivityFacility(facility);
+		}
+	}
+
+	private void readPopulation(Population population) throws IOException {
+		String name = readString();
+		if (name != null) {
+			population.setName(name);
+		}
+		readAttributes(population.getAttributes());
+
+		PopulationFactory factory = population.getFactory();
+		RouteFactories routeFactories = factory.getRouteFactories();
+		int personCount = readVarInt();
+		for (int i = 0; i < personCount; i++) {
+			Person person = factory.createPerson(readId(Person.class));
+			readAttributes(person.getAttributes());
+			int planCount = readVarInt();
+			int selectedPlan = readVarInt() - 1;
+			for (int p = 0; p < planCount; p++) {
+				Plan plan = readPlan(factory, routeFactories);
+				person.addPlan(plan);
+				if (p == selectedPlan) {
+					person.setSelectedPlan(plan);
+				}
+			}
+			population.addPerson(person);
+		}
+	}
+
+	private Plan readPlan(PopulationFactory factory, RouteFactories routeFactories) throws IOException {
+		Plan plan = factory.createPlan();
+		if (this.in.readBoolean()) {
+			plan.setScore(this.in.readDouble());
+		}
+		String type = readString();
+		if (type != null) {
+			plan.setType(type);
+		}
+		readAttributes(plan.getAttributes());
+
+		int elementCount = readVarInt();
+		for (int e = 0; e < elementCount; e++) {
+			if (this.in.readByte() == ELEMENT_ACTIVITY) {
+				plan.addActivity(readActivity());
+			} else {
+				plan.addLeg(readLeg(routeFactories));
+			}
+		}
+		return plan;
+	}
+
+	private Activity readActivity() throws IOException {
+		String type = readString();
+		Id<Link> linkId = readId(Link.class);
+		Id<ActivityFacility> facilityId = readId(ActivityFacility.class);
+		Coord coord = readOptionalCoord();
+		double startTime = this.in.readDouble();
+		double maximumDuration = this.in.readDouble();
+		double endTime = this.in.readDouble();
+
+		// create the same kind of activity as the population reader does
+		boolean isInteraction = StageActivityTypeIdentifier.isStageActivity(type) && Double.isNaN(startTime) && Double.isNaN(endTime)
+				&& maximumDuration == 0.0;
+		Activity activity;
+		if (facilityId != null) {
+			activity = isInteraction ? PopulationUtils.createInteractionActivityFromFacilityId(type, facilityId) :
+					PopulationUtils.createActivityFromFacilityId(type, facilityId);
+			if (linkId != null) {
+				activity.setLinkId(linkId);
+			}
+			if (coord != null) {
+				activity.setCoord(coord);
+			}
+		} else if (linkId != null) {
+			activity = isInteraction ? PopulationUtils.createInteractionActivityFromLinkId(type, linkId) :
+					PopulationUtils.createActivityFromLinkId(type, linkId);
+			if (coord != null) {
+				activity.setCoord(coord);
+			}
+		} else {
+			activity = isInteraction ? PopulationUtils.createInteractionActivityFromCoord(type, coord) :
+					PopulationUtils.createActivityFromCoord(type, coord);
+		}
+		if (!isInteraction) {
+			if (Double.isNaN(startTime)) {
+				activity.setStartTimeUndefined();
+			} else {
+				activity.setStartTime(startTime);
+			}
+			if (Double.isNaN(maximumDuration)) {
+				activity.setMaximumDurationUndefined();
+			} else {
+				activity.setMaximumDuration(maximumDuration);
+			}
+			if (Double.isNaN(endTime)) {
+				activity.setEndTimeUndefined();
+			} else {
+				activity.setEndTime(endTime);
+			}
+		}
+		readAttributes(activity.getAttributes());
+		return activity;
+	}
+
+	private Leg readLeg(RouteFactories routeFactories) throws IOException {
+		Leg leg = PopulationUtils.createLeg(readString());
+		String routingMode = readString();
+		if (routingMode != null) {
+			leg.setRoutingMode(routingMode);
+		}
+		double departureTime = this.in.readDouble();
+		if (!Double.isNaN(departureTime)) {
+			leg.setDepartureTime(departureTime);
+		}
+		double travelTime = this.in.readDouble();
+		if (!Double.isNaN(travelTime)) {
+			leg.setTravelTime(travelTime);
+		}
+		readAttributes(leg.getAttributes());
+
+		byte routeKind = this.in.readByte();
+		if (routeKind == ROUTE_NONE) {
+			return leg;
+		}
+		Class<? extends Route> routeClass = routeFactories.getRouteClassForType(readString());
+		Id<Link> startLinkId = readId(Link.class);
+		Id<Link> endLinkId = readId(Link.class);
+		Route route = routeFactories.createRoute(routeClass, startLinkId, endLinkId);
+		double routeTravelTime = this.in.readDouble();
+		if (Double.isNaN(routeTravelTime)) {
+			route.setTravelTimeUndefined();
+		} else {
+			route.setTravelTime(routeTravelTime);
+		}
+		route.setDistance(this.in.readDouble());
+		if (routeKind == ROUTE_NETWORK) {
+			NetworkRoute networkRoute = (NetworkRoute) route;
+			networkRoute.setVehicleId(readId(Vehicle.class));
+			int linkCount = readVarInt();
+			List<Id<Link>> routeLinkIds = new ArrayList<>(linkCount);
+			for (int l = 0; l < linkCount; l++) {
+				routeLinkIds.add(readId(Link.class));
+			}
+			networkRoute.setLinkIds(startLinkId, routeLinkIds, endLinkId);
+		} else {
+			String description = readString();
+			if (description != null) {
+				route.setRouteDescription(description);
+			}
+		}
+		leg.setRoute(route);
+		return leg;
+	}
+
+	private void readAttributes(Attributes attributes) throws IOException {
+		int count = readVarInt();
+		for (int i = 0; i < count; i++) {
+			String name = readString();
+			Object value = switch (this.in.readByte()) {
+				case ATTRIBUTE_STRING -> readString();
+				case ATTRIBUTE_DOUBLE -> this.in.readDouble();
+				case ATTRIBUTE_INTEGER -> this.in.readInt();
+				case ATTRIBUTE_LONG -> this.in.readLong();
+				case ATTRIBUTE_BOOLEAN -> this.in.readBoolean();
+				case ATTRIBUTE_CONVERTED -> {
+					String className = readString();
+					String converted = readString();
+					yield converted == null ? null : this.attributesConverter.convert(className, converted);
+				}
+				default -> throw new IOException("Unknown attribute type.");
+			};
+			if (value != null) {
+				attributes.putAttribute(name, value);
+			}
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private <T> Id<T> readId(Class<T> type) throws IOException {
+		int index = readStringIndex();
+		if (index < 0) {
+			return null;
+		}
+		if (index >= this.ids.length) {
+			int length = Math.max(index + 1, 2 * this.ids.length);
+			this.ids = Arrays.copyOf(this.ids, length);
+			this.idTypes = Arrays.copyOf(this.idTypes, length);
+		}
+		if (this.idTypes[index] == type) {
+			return (Id<T>) this.ids[index];
+		}
+		Id<T> id = Id.create(this.strings.get(index), type);
+		if (this.idTypes[index] == null) {
+			this.ids[index] = id;
+			this.idTypes[index] = type;
+		}
+		return id;
+	}
+
+	private Coord readCoord() throws IOException {
+		boolean hasZ = this.in.readBoolean();
+		double x = this.in.readDouble();
+		double y = this.in.readDouble();
+		return hasZ ? new Coord(x, y, this.in.readDouble()) : new Coord(x, y);
+	}
+
+	private Coord readOptionalCoord() throws IOException {
+		return this.in.readBoolean() ? readCoord() : null;
+	}
+
+	private String readString() throws IOException {
+		int index = readStringIndex();
+		return index < 0 ? null : this.strings.get(index);
+	}
+
+	/**
+	 * @return the index of the string, or -1 for <code>null</code>.
+	 */
+	private int readStringIndex() throws IOException {
+		int reference = readVarInt();
+		if (reference == STRING_NULL) {
+			return -1;
+		}
+		if (reference == STRING_NEW) {
+			byte[] bytes = new byte[readVarInt()];
+			this.in.readFully(bytes);
+			this.strings.add(new String(bytes, StandardCharsets.UTF_8));
+			return this.strings.size() - 1;
+		}
+		return reference - 2;
+	}
+
+	private int readVarInt() throws IOException {
+		int value = 0;
+		int shift = 0;
+		int b;
+		do {
+			b = this.in.readUnsignedByte();
+			value |= (b & 0x7F) << shift;
+			shift += 7;
+		} while ((b & 0x80) != 0);
+		return value;
+	}
+
+}
@@ -0,0 +1,412 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * ScenarioSnapshotWriter.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2023 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.scenario;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.matsim.api.core.v01.Coord;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.Scenario;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.network.Network;
+import org.matsim.api.core.v01.network.Node;
+import org.matsim.api.core.v01.population.Activity;
+import org.matsim.api.core.v01.population.Leg;
+import org.matsim.api.core.v01.population.Person;
+import org.matsim.api.core.v01.population.Plan;
+import org.matsim.api.core.v01.population.PlanElement;
+import org.matsim.api.core.v01.population.Population;
+import org.matsim.api.core.v01.population.Route;
+import org.matsim.core.config.Config;
+import org.matsim.core.gbl.Gbl;
+import org.matsim.core.network.NetworkUtils;
+import org.matsim.core.population.routes.NetworkRoute;
+import org.matsim.core.utils.misc.OptionalTime;
+import org.matsim.facilities.ActivityFacilities;
+import org.matsim.facilities.ActivityFacility;
+import org.matsim.facilities.ActivityFacilityImpl;
+import org.matsim.facilities.ActivityOption;
+import org.matsim.facilities.OpeningTime;
+import org.matsim.utils.objectattributes.AttributeConverter;
+import org.matsim.utils.objectattributes.ObjectAttributesConverter;
+import org.matsim.utils.objectattributes.attributable.Attributes;
+
+/**
+ * Writes the network, the facilities and the population of a scenario into a binary snapshot, which can be loaded
+ * again much faster than the XML files with {@link ScenarioSnapshotReader}.
+ * <p></p>
+ * The snapshot contains the data exactly as it is in memory, i.e. with coordinates already transformed into the
+ * coordinate system of the scenario. All strings (ids, modes, activity types, ...) are stored only once and afterwards
+ * referenced by their index. Attributes of types without a built-in encoding are stored as strings using the
+ * {@link AttributeConverter}s, like in the XML files. The snapshot is meant as a cache for repeated runs with the same
+ * input files, not as an exchange format: it may only be read with the same MATSim build it was written with.
+ * <p></p>
+ * To detect outdated snapshots, the snapshot starts with the MATSim build, the coordinate system of the scenario and
+ * the network, facilities and population input files named in the config of the scenario, with their coordinate
+ * systems and, for local files, their size and time of the last modification. {@link ScenarioSnapshotReader} refuses
+ * to read a snapshot if any of them differ.
+ *
+ * @see ScenarioUtils#loadScenarioFromSnapshot(org.matsim.core.config.Config, String)
+ */
+public final class ScenarioSnapshotWriter {
+	private static final Logger log = LogManager.getLogger(ScenarioSnapshotWriter.class);
+
+	static final String MAGIC = "MATSim-scenario-snapshot";
+	static final int VERSION = 2;
+
+	static final byte STRING_NULL = 0;
+	static final byte STRING_NEW = 1;
+	// existing strings are referenced by their index + 2
+
+	static final byte ATTRIBUTE_STRING = 0;
+	static final byte ATTRIBUTE_DOUBLE = 1;
+	static final byte ATTRIBUTE_INTEGER = 2;
+	static final byte ATTRIBUTE_LONG = 3;
+	static final byte ATTRIBUTE_BOOLEAN = 4;
+	static final byte ATTRIBUTE_CONVERTED = 5;
+
+	static final byte ELEMENT_ACTIVITY = 0;
+	static final byte ELEMENT_LEG = 1;
+
+	static final byte ROUTE_NONE = 0;
+	static final byte ROUTE_NETWORK = 1;
+	static final byte ROUTE_GENERIC = 2;
+
+	private final Scenario scenario;
+	private final ObjectAttributesConverter attributesConverter = new ObjectAttributesConverter();
+	private final Map<String, Integer> strings = new HashMap<>();
+	private DataOutputStream out;
+
+	public ScenarioSnapshotWriter(Scenario scenario) {
+		this(scenario, Collections.emptyMap());
+	}
+
+	public ScenarioSnapshotWriter(Scenario scenario, Map<Class<?>, AttributeConverter<?>> attributeConverters) {
+		this.scenario = scenario;
+		this.attributesConverter.putAttributeConverters(attributeConverters);
+	}
+
+	public void write(String filename) throws UncheckedIOException {
+		log.info("writing scenario snapshot to " + filename);
+		this.strings.clear();
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(filename), 1 << 20))) {
+			this.out = out;
+			out.writeUTF(MAGIC);
+			out.writeInt(VERSION);
+			out.writeUTF(Gbl.getBuildInfoString());
+			List<String> inputs = describeInputs(this.scenario.getConfig());
+			out.writeInt(inputs.size());
+			for (String input : inputs) {
+				out.writeUTF(input);
+			}
+			writeNetwork(this.scenario.getNetwork());
+			writeFacilities(this.scenario.getActivityFacilities());
+			writePopulation(this.scenario.getPopulation());
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		} finally {
+			this.out = null;
+		}
+		log.info("wrote " + this.strings.size() + " distinct strings to the scenario snapshot.");
+	}
+
+	private void writeNetwork(Network network) throws IOException {
+		writeString(network.getName());
+		this.out.writeDouble(network.getCapacityPeriod());
+		this.out.writeDouble(network.getEffectiveLaneWidth());
+		this.out.writeDouble(network.getEffectiveCellSize());
+		writeAttributes(network.getAttributes());
+
+		writeVarInt(network.getNodes().size());
+		for (Node node : network.getNodes().values()) {
+			writeId(node.getId());
+			writeCoord(node.getCoord());
+			writeString(NetworkUtils.getType(node));
+			writeString(NetworkUtils.getOrigId(node));
+			writeAttributes(node.getAttributes());
+		}
+
+		writeVarInt(network.getLinks().size());
+		for (Link link : network.getLinks().values()) {
+			writeId(link.getId());
+			writeId(link.getFromNode().getId());
+			writeId(link.getToNode().getId());
+			this.out.writeDouble(link.getLength());
+			this.out.writeDouble(link.getFreespeed());
+			this.out.writeDouble(link.getCapacity());
+			this.out.writeDouble(link.getNumberOfLanes());
+			Set<String> allowedModes = link.getAllowedModes();
+			writeVarInt(allowedModes.size());
+			for (String mode : allowedModes) {
+				writeString(mode);
+			}
+			writeAttributes(link.getAttributes());
+		}
+	}
+
+	/**
+	 * Describes the network, facilities and population input files named in the config by their URL and, for local files,
+	 * their size and time of the last modification.
+	 */
+	static List<String> describeInputs(Config config) {
+		List<String> descriptions = new ArrayList<>();
+		// the coordinates are stored transformed, so the snapshot is only valid for the same coordinate systems
+		descriptions.add("coordinateSystem " + config.global().getCoordinateSystem());
+		if (config.network().getInputFile() != null) {
+			descriptions.add("network " + describeInputFile(config.network().getInputFileURL(config.getContext()))
+					+ " crs " + config.network().getInputCRS());
+		}
+		if (config.facilities().getInputFile() != null) {
+			descriptions.add("facilities " + describeInputFile(config.facilities().getInputFileURL(config.getContext()))
+					+ " crs " + config.facilities().getInputCRS());
+		}
+		if (config.plans().getInputFile() != null) {
+			descriptions.add("plans " + describeInputFile(config.plans().getInputFileURL(config.getContext()))
+					+ " crs " + config.plans().getInputCRS());
+		}
+		return descriptions;
+	}
+
+	private static String describeInputFile(URL url) {
+		if (!"file".equals(url.getProtocol())) {
+			return url.toString();
+		}
+		try {
+			Path path = Paths.get(url.toURI());
+			if (!Files.exists(path)) {
+				return url + " (missing)";
+			}
+			return url + " (" + Files.size(path) + " bytes, modified " + Files.getLastModifiedTime(path) + ")";
+		} catch (URISyntaxException e) {
+			return url.toString();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private void writeFacilities(ActivityFacilities facilities) throws IOException {
+		writeString(facilities.getName());
+		writeAttributes(facilities.getAttributes());
+
+		writeVarInt(facilities.getFacilities().size());
+		for (ActivityFacility facility : facilities.getFacilities().values()) {
+			writeId(facility.getId());
+			writeId(facility.getLinkId());
+			writeOptionalCoord(facility.getCoord());
+			writeString(facility instanceof ActivityFacilityImpl impl ? impl.getDesc() : null);
+			writeVarInt(facility.getActivityOptions().size());
+			for (ActivityOption option : facility.getActivityOptions().values()) {
+				writeString(option.getType());
+				this.out.writeDouble(option.getCapacity());
+				writeVarInt(option.getOpeningTimes().size());
+				for (OpeningTime openingTime : option.getOpeningTimes()) {
+					this.out.writeDouble(openingTime.getStartTime());
+					this.out.writeDouble(openingTime.getEndTime());
+				}
+			}
+			writeAttributes(facility.getAttributes());
+		}
+	}
+
+	private void writePopulation(Population population) throws IOException {
+		writeString(population.getName());
+		writeAttributes(population.getAttributes());
+
+		writeVarInt(population.getPersons().size());
+		for (Person person : population.getPersons().values()) {
+			writeId(person.getId());
+			writeAttributes(person.getAttributes());
+			List<? extends Plan> plans = person.getPlans();
+			writeVarInt(plans.size());
+			writeVarInt(plans.indexOf(person.getSelectedPlan()) + 1);
+			for (Plan plan : plans) {
+				writePlan(plan);
+			}
+		}
+	}
+
+	private void writePlan(Plan plan) throws IOException {
+		Double score = plan.getScore();
+		this.out.writeBoolean(score != null);
+		if (score != null) {
+			this.out.writeDouble(score);
+		}
+		writeString(plan.getType());
+		writeAttributes(plan.getAttributes());
+
+		writeVarInt(plan.getPlanElements().size());
+		for (PlanElement element : plan.getPlanElements()) {
+			if (element instanceof Activity activity) {
+				this.out.writeByte(ELEMENT_ACTIVITY);
+				writeActivity(activity);
+			} else {
+				this.out.writeByte(ELEMENT_LEG);
+				writeLeg((Leg) element);
+			}
+		}
+	}
+
+	private void writeActivity(Activity activity) throws IOException {
+		writeString(activity.getType());
+		writeId(activity.getLinkId());
+		writeId(activity.getFacilityId());
+		writeOptionalCoord(activity.getCoord());
+		writeTime(activity.getStartTime());
+		writeTime(activity.getMaximumDuration());
+		writeTime(activity.getEndTime());
+		writeAttributes(activity.getAttributes());
+	}
+
+	private void writeLeg(Leg leg) throws IOException {
+		writeString(leg.getMode());
+		writeString(leg.getRoutingMode());
+		writeTime(leg.getDepartureTime());
+		writeTime(leg.getTravelTime());
+		writeAttributes(leg.getAttributes());
+
+		Route route = leg.getRoute();
+		if (route == null) {
+			this.out.writeByte(ROUTE_NONE);
+			return;
+		}
+		this.out.writeByte(route instanceof NetworkRoute ? ROUTE_NETWORK : ROUTE_GENERIC);
+		writeString(route.getRouteType());
+		writeId(route.getStartLinkId());
+		writeId(route.getEndLinkId());
+		writeTime(route.getTravelTime());
+		this.out.writeDouble(route.getDistance());
+		if (route instanceof NetworkRoute networkRoute) {
+			writeId(networkRoute.getVehicleId());
+			List<Id<Link>> linkIds = networkRoute.getLinkIds();
+			writeVarInt(linkIds.size());
+			for (Id<Link> linkId : linkIds) {
+				writeId(linkId);
+			}
+		} else {
+			writeString(route.getRouteDescription());
+		}
+	}
+
+	private void writeAttributes(Attributes attributes) throws IOException {
+		int size = 0;
+		for (Map.Entry<String, Object> entry : attributes.getAsMap().entrySet()) {
+			if (entry.getValue() != null) {
+				size++;
+			}
+		}
+		writeVarInt(size);
+		for (Map.Entry<String, Object> entry : attributes.getAsMap().entrySet()) {
+			Object value = entry.getValue();
+			if (value == null) {
+				continue;
+			}
+			writeString(entry.getKey());
+			if (value instanceof String s) {
+				this.out.writeByte(ATTRIBUTE_STRING);
+				writeString(s);
+			} else if (value instanceof Double d) {
+				this.out.writeByte(ATTRIBUTE_DOUBLE);
+				this.out.writeDouble(d);
+			} else if (value instanceof Integer i) {
+				this.out.writeByte(ATTRIBUTE_INTEGER);
+				this.out.writeInt(i);
+			} else if (value instanceof Long l) {
+				this.out.writeByte(ATTRIBUTE_LONG);
+				this.out.writeLong(l);
+			} else if (value instanceof Boolean b) {
+				this.out.writeByte(ATTRIBUTE_BOOLEAN);
+				this.out.writeBoolean(b);
+			} else {
+				// values without converter are written as null and skipped when reading, like in the XML files
+				this.out.writeByte(ATTRIBUTE_CONVERTED);
+				writeString(value.getClass().getName());
+				writeString(this.attributesConverter.convertToString(value));
+			}
+		}
+	}
+
+	private void writeId(Id<?> id) throws IOException {
+		writeString(id == null ? null : id.toString());
+	}
+
+	private void writeCoord(Coord coord) throws IOException {
+		this.out.writeBoolean(coord.hasZ());
+		this.out.writeDouble(coord.getX());
+		this.out.writeDouble(coord.getY());
+		if (coord.hasZ()) {
+			this.out.writeDouble(coord.getZ());
+		}
+	}
+
+	private void writeOptionalCoord(Coord coord) throws IOException {
+		this.out.writeBoolean(coord != null);
+		if (coord != null) {
+			writeCoord(coord);
+		}
+	}
+
+	private void writeTime(OptionalTime time) throws IOException {
+		this.out.writeDouble(time.isDefined() ? time.seconds() : Double.NaN);
+	}
+
+	private void writeString(String s) throws IOException {
+		if (s == null) {
+			this.out.writeByte(STRING_NULL);
+			return;
+		}
+		Integer index = this.strings.get(s);
+		if (index != null) {
+			writeVarInt(index + 2);
+			return;
+		}
+		this.strings.put(s, this.strings.size());
+		this.out.writeByte(STRING_NEW);
+		byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+		writeVarInt(bytes.length);
+		this.out.write(bytes);
+	}
+
+	private void writeVarInt(int value) throws IOException {
+		while ((value & ~0x7F) != 0) {
+			this.out.writeByte((value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+		this.out.writeByte(value);
+	}
+}
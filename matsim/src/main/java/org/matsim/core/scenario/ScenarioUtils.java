@@ -116,6 +116,41 @@ public final class ScenarioUtils {
 		scenarioLoader.loadScenario();
 	}
 	
+	/**
+	 *
+	 * Initializes a scenario and populates its network, facilities and population with data read from the given snapshot,
+	 * which was written by {@link #writeScenarioSnapshot(Scenario, String)}. All other elements are read from the input
+	 * files which are named in the config.
+	 *
+	 */
+	public static Scenario loadScenarioFromSnapshot(final Config config, final String snapshotFile) {
+		return loadScenarioFromSnapshot(config, snapshotFile, Collections.emptyMap());
+	}
+
+	/**
+	 *
+	 * Initializes a scenario and populates its network, facilities and population with data read from the given snapshot,
+	 * which was written by {@link #writeScenarioSnapshot(Scenario, String)}. All other elements are read from the input
+	 * files which are named in the config. Uses provided {@link AttributeConverter}s when loading the scenario.
+	 *
+	 */
+	public static Scenario loadScenarioFromSnapshot(final Config config, final String snapshotFile, Map<Class<?>, AttributeConverter<?>> attributeConverters) {
+		ScenarioLoaderImpl scenarioLoader = new ScenarioLoaderImpl(config);
+		scenarioLoader.setAttributeConverters(attributeConverters);
+		return scenarioLoader.loadScenarioFromSnapshot(snapshotFile);
+	}
+
+	/**
+	 *
+	 * Writes the network, facilities and population of the scenario into a binary snapshot, which can be loaded much faster
+	 * than the XML files, e.g. for many runs with the same input files.
+	 *
+	 * @see ScenarioSnapshotWriter
+	 */
+	public static void writeScenarioSnapshot(final Scenario scenario, final String snapshotFile) {
+		new ScenarioSnapshotWriter(scenario).write(snapshotFile);
+	}
+
 	public final static class ScenarioBuilder {
 		private MutableScenario scenario;
 		public ScenarioBuilder( Config config ) {
@@ -55,14 +55,23 @@ public final class EventsToActivities implements ActivityStartEventHandler, Acti
 	}
 
     private final IdMap<Person, Activity> activities = new IdMap<>(Person.class);
-    private final List<ActivityHandler> activityHandlers = new ArrayList<>();
+    private final List<ActivityHandler> activityHandlers;
 
     public EventsToActivities() {
+        this.activityHandlers = new ArrayList<>();
+    }
 
+    /**
+     * Creates an instance with its own state, but with the activity handlers of the given instance.
+     * Activity handlers added to either instance later on are shared as well.
+     */
+    EventsToActivities(EventsToActivities template) {
+        this.activityHandlers = template.activityHandlers;
     }
 
     @Inject
     EventsToActivities(ControlerListenerManager controlerListenerManager) {
+        this.activityHandlers = new ArrayList<>();
         controlerListenerManager.addControlerListener(new AfterMobsimListener() {
             @Override
             public void notifyAfterMobsim(AfterMobsimEvent event) {
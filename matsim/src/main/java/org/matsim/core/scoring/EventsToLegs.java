@@ -151,9 +151,10 @@ public final class EventsToLegs
 	private Map<Id<Vehicle>, LineAndRoute> transitVehicle2currentRoute = new HashMap<>();
 	private Map<Id<Vehicle>, VehicleRoute> vehicle2route = new HashMap<>();
 
-	private List<LegHandler> legHandlers = new ArrayList<>();
+	private final List<LegHandler> legHandlers;
 
 	public EventsToLegs(Scenario scenario) {
+		this.legHandlers = new ArrayList<>();
 		this.network = scenario.getNetwork();
 		if (scenario.getConfig().transit().isUseTransit()) {
 			this.transitSchedule = scenario.getTransitSchedule();
@@ -162,9 +163,20 @@ public final class EventsToLegs
 
 	@Inject
 	EventsToLegs(Network network) {
+		this.legHandlers = new ArrayList<>();
 		this.network = network;
 	}
 
+	/**
+	 * Creates an instance with its own state, but with the network, transit schedule and leg handlers of the given
+	 * instance. Leg handlers added to either instance later on are shared as well.
+	 */
+	EventsToLegs(EventsToLegs template) {
+		this.legHandlers = template.legHandlers;
+		this.network = template.network;
+		this.transitSchedule = template.transitSchedule;
+	}
+
 	@Override
 	public void reset(int iteration) {
 		legs.clear();
@@ -361,6 +373,17 @@ public final class EventsToLegs
 		transitVehicle2currentRoute.put(event.getVehicleId(), lineAndRoute);
 	}
 
+	/**
+	 * Sets the link a vehicle is currently on, for an instance that only sees the events of a vehicle while some of its
+	 * persons are in it. The route of a person entering the vehicle then starts at the right link.
+	 */
+	void setCurrentLinkOfVehicle(Id<Vehicle> vehicleId, Id<Link> linkId) {
+		VehicleRoute route = vehicle2route.computeIfAbsent(vehicleId, id -> new VehicleRoute());
+		if (route.links.isEmpty() || !route.links.get(route.links.size() - 1).equals(linkId)) {
+			route.links.add(linkId);
+		}
+	}
+
 	public void addLegHandler(LegHandler legHandler) {
 		this.legHandlers.add(legHandler);
 	}
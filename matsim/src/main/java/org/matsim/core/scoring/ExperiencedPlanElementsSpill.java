@@ -0,0 +1,341 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * ExperiencedPlanElementsSpill.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2023 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.scoring;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.matsim.api.core.v01.Coord;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.population.Activity;
+import org.matsim.api.core.v01.population.Leg;
+import org.matsim.api.core.v01.population.Person;
+import org.matsim.api.core.v01.population.PlanElement;
+import org.matsim.api.core.v01.population.Route;
+import org.matsim.core.population.PopulationUtils;
+import org.matsim.core.population.routes.RouteFactories;
+import org.matsim.core.utils.misc.OptionalTime;
+import org.matsim.facilities.ActivityFacility;
+import org.matsim.utils.objectattributes.ObjectAttributesConverter;
+import org.matsim.utils.objectattributes.attributable.Attributes;
+import org.matsim.vehicles.Vehicle;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+/**
+ * Writes experienced activities and legs to temporary files as soon as they are completed, so they do not have to be kept
+ * in memory while the mobsim is running. The elements are partitioned into buckets by the index of the person id, so the
+ * experienced plans can later be read back bucket by bucket with bounded memory.
+ * <p>
+ * The data set by {@link EventsToActivities} and {@link EventsToLegs} is stored in a compact binary form. Other attributes
+ * of the activities and legs are stored as strings if an {@link ObjectAttributesConverter} can convert them, otherwise
+ * their values are kept in memory until the spill is deleted. Such values are thus not bounded by the buckets, a warning
+ * is logged for the first one. Ids are stored by their index and thus can only be read back in the same JVM.
+ * This class is not thread-safe.
+ */
+final class ExperiencedPlanElementsSpill {
+	private static final Logger log = LogManager.getLogger(ExperiencedPlanElementsSpill.class);
+
+	private static final byte ACTIVITY = 0;
+	private static final byte LEG = 1;
+
+	private static final byte CONVERTED_ATTRIBUTE = 0;
+	private static final byte KEPT_ATTRIBUTE = 1;
+
+	private final Path directory;
+	private final RouteFactories routeFactories;
+	private final DataOutputStream[] buckets;
+	private final int[] recordCounts;
+	private final ObjectAttributesConverter attributesConverter = new ObjectAttributesConverter();
+	private final List<Object> keptAttributeValues = new ArrayList<>();
+
+	ExperiencedPlanElementsSpill(Path directory, int bucketCount, RouteFactories routeFactories) {
+		this.directory = directory;
+		this.routeFactories = routeFactories;
+		this.buckets = new DataOutputStream[bucketCount];
+		this.recordCounts = new int[bucketCount];
+		try {
+			Files.createDirectories(directory);
+			for (int i = 0; i < bucketCount; i++) {
+				this.buckets[i] = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(getBucketFile(i))));
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	int getBucketCount() {
+		return this.buckets.length;
+	}
+
+	int getBucket(Id<Person> personId) {
+		return personId.index() % this.buckets.length;
+	}
+
+	void addActivity(Id<Person> personId, Activity activity) {
+		int bucket = getBucket(personId);
+		DataOutputStream out = this.buckets[bucket];
+		try {
+			out.writeByte(ACTIVITY);
+			out.writeInt(personId.index());
+			out.writeUTF(activity.getType());
+			writeId(out, activity.getLinkId());
+			writeId(out, activity.getFacilityId());
+			Coord coord = activity.getCoord();
+			out.writeBoolean(coord != null);
+			if (coord != null) {
+				out.writeDouble(coord.getX());
+				out.writeDouble(coord.getY());
+			}
+			writeTime(out, activity.getStartTime());
+			writeTime(out, activity.getEndTime());
+			writeAttributes(out, activity.getAttributes());
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		this.recordCounts[bucket]++;
+	}
+
+	void addLeg(Id<Person> personId, Leg leg) {
+		int bucket = getBucket(personId);
+		DataOutputStream out = this.buckets[bucket];
+		try {
+			out.writeByte(LEG);
+			out.writeInt(personId.index());
+			out.writeUTF(leg.getMode());
+			writeString(out, leg.getRoutingMode());
+			writeTime(out, leg.getDepartureTime());
+			writeTime(out, leg.getTravelTime());
+			Object enterVehicleTime = leg.getAttributes().getAttribute(EventsToLegs.ENTER_VEHICLE_TIME_ATTRIBUTE_NAME);
+			out.writeDouble(enterVehicleTime == null ? Double.NaN : (Double) enterVehicleTime);
+			writeId(out, (Id<?>) leg.getAttributes().getAttribute(EventsToLegs.VEHICLE_ID_ATTRIBUTE_NAME));
+			Route route = leg.getRoute();
+			out.writeBoolean(route != null);
+			if (route != null) {
+				out.writeUTF(route.getRouteType());
+				writeId(out, route.getStartLinkId());
+				writeId(out, route.getEndLinkId());
+				writeString(out, route.getRouteDescription());
+				out.writeDouble(route.getDistance());
+				writeTime(out, route.getTravelTime());
+			}
+			writeAttributes(out, leg.getAttributes());
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		this.recordCounts[bucket]++;
+	}
+
+	/**
+	 * Passes all elements of the bucket to the consumer, in the order they were added.
+	 */
+	void readBucket(int bucket, BiConsumer<Id<Person>, PlanElement> consumer) {
+		try {
+			this.buckets[bucket].flush();
+			try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(getBucketFile(bucket))))) {
+				for (int i = 0; i < this.recordCounts[bucket]; i++) {
+					byte type = in.readByte();
+					Id<Person> personId = Id.get(in.readInt(), Person.class);
+					consumer.accept(personId, type == ACTIVITY ? readActivity(in) : readLeg(in));
+				}
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * Closes and deletes the temporary files.
+	 */
+	void delete() {
+		this.keptAttributeValues.clear();
+		try {
+			for (int i = 0; i < this.buckets.length; i++) {
+				this.buckets[i].close();
+				Files.deleteIfExists(getBucketFile(i));
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private Activity readActivity(DataInputStream in) throws IOException {
+		Activity activity = PopulationUtils.createActivityFromLinkId(in.readUTF(), readId(in, Link.class));
+		activity.setFacilityId(readId(in, ActivityFacility.class));
+		if (in.readBoolean()) {
+			activity.setCoord(new Coord(in.readDouble(), in.readDouble()));
+		}
+		double startTime = in.readDouble();
+		if (!Double.isNaN(startTime)) {
+			activity.setStartTime(startTime);
+		}
+		double endTime = in.readDouble();
+		if (!Double.isNaN(endTime)) {
+			activity.setEndTime(endTime);
+		}
+		readAttributes(in, activity.getAttributes());
+		return activity;
+	}
+
+	private Leg readLeg(DataInputStream in) throws IOException {
+		Leg leg = PopulationUtils.createLeg(in.readUTF());
+		leg.setRoutingMode(readString(in));
+		double departureTime = in.readDouble();
+		if (!Double.isNaN(departureTime)) {
+			leg.setDepartureTime(departureTime);
+		}
+		double travelTime = in.readDouble();
+		if (!Double.isNaN(travelTime)) {
+			leg.setTravelTime(travelTime);
+		}
+		double enterVehicleTime = in.readDouble();
+		if (!Double.isNaN(enterVehicleTime)) {
+			leg.getAttributes().putAttribute(EventsToLegs.ENTER_VEHICLE_TIME_ATTRIBUTE_NAME, enterVehicleTime);
+		}
+		Id<Vehicle> vehicleId = readId(in, Vehicle.class);
+		if (vehicleId != null) {
+			leg.getAttributes().putAttribute(EventsToLegs.VEHICLE_ID_ATTRIBUTE_NAME, vehicleId);
+		}
+		if (in.readBoolean()) {
+			Class<? extends Route> routeClass = this.routeFactories.getRouteClassForType(in.readUTF());
+			Route route = this.routeFactories.createRoute(routeClass, readId(in, Link.class), readId(in, Link.class));
+			String routeDescription = readString(in);
+			if (routeDescription != null) {
+				route.setRouteDescription(routeDescription);
+			}
+			route.setDistance(in.readDouble());
+			double routeTravelTime = in.readDouble();
+			if (!Double.isNaN(routeTravelTime)) {
+				route.setTravelTime(routeTravelTime);
+			}
+			leg.setRoute(route);
+		}
+		readAttributes(in, leg.getAttributes());
+		return leg;
+	}
+
+	/**
+	 * Writes the attributes, except the ones EventsToLegs sets, which are already stored separately.
+	 */
+	private void writeAttributes(DataOutputStream out, Attributes attributes) throws IOException {
+		Map<String, Object> map = attributes.getAsMap();
+		int count = 0;
+		for (String name : map.keySet()) {
+			if (!isStoredSeparately(name)) {
+				count++;
+			}
+		}
+		out.writeInt(count);
+		for (Map.Entry<String, Object> e : map.entrySet()) {
+			if (isStoredSeparately(e.getKey())) {
+				continue;
+			}
+			writeString(out, e.getKey());
+			Object value = e.getValue();
+			String converted = this.attributesConverter.convertToString(value);
+			if (converted != null) {
+				out.writeByte(CONVERTED_ATTRIBUTE);
+				writeString(out, value.getClass().getName());
+				writeString(out, converted);
+			} else {
+				if (this.keptAttributeValues.isEmpty()) {
+					log.warn("The attribute " + e.getKey() + " of type " + value.getClass().getName() + " of an experienced plan element cannot be "
+							+ "converted to a string, so its values are kept in memory while the experienced plans are streamed. Add an "
+							+ "AttributeConverter to store them on disk. This message is only given once.");
+				}
+				out.writeByte(KEPT_ATTRIBUTE);
+				out.writeInt(this.keptAttributeValues.size());
+				this.keptAttributeValues.add(value);
+			}
+		}
+	}
+
+	private void readAttributes(DataInputStream in, Attributes attributes) throws IOException {
+		int count = in.readInt();
+		for (int i = 0; i < count; i++) {
+			String name = readString(in);
+			Object value;
+			if (in.readByte() == CONVERTED_ATTRIBUTE) {
+				String className = readString(in);
+				value = this.attributesConverter.convert(className, readString(in));
+			} else {
+				value = this.keptAttributeValues.get(in.readInt());
+			}
+			attributes.putAttribute(name, value);
+		}
+	}
+
+	private static boolean isStoredSeparately(String attributeName) {
+		return attributeName.equals(EventsToLegs.ENTER_VEHICLE_TIME_ATTRIBUTE_NAME) || attributeName.equals(EventsToLegs.VEHICLE_ID_ATTRIBUTE_NAME);
+	}
+
+	private Path getBucketFile(int bucket) {
+		return this.directory.resolve("experiencedPlanElements_" + bucket + ".bin");
+	}
+
+	private static void writeTime(DataOutputStream out, OptionalTime time) throws IOException {
+		out.writeDouble(time.orElse(Double.NaN));
+	}
+
+	private static void writeId(DataOutputStream out, Id<?> id) throws IOException {
+		out.writeInt(id == null ? -1 : id.index());
+	}
+
+	private static <T> Id<T> readId(DataInputStream in, Class<T> type) throws IOException {
+		int index = in.readInt();
+		return index < 0 ? null : Id.get(index, type);
+	}
+
+	/**
+	 * Unlike {@link DataOutputStream#writeUTF}, supports <code>null</code> and strings longer than 64kB, e.g. descriptions of long network routes.
+	 */
+	private static void writeString(DataOutputStream out, String value) throws IOException {
+		if (value == null) {
+			out.writeInt(-1);
+		} else {
+			byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+			out.writeInt(bytes.length);
+			out.write(bytes);
+		}
+	}
+
+	private static String readString(DataInputStream in) throws IOException {
+		int length = in.readInt();
+		if (length < 0) {
+			return null;
+		}
+		byte[] bytes = new byte[length];
+		in.readFully(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+}
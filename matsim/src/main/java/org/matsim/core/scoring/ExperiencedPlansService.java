@@ -22,16 +22,29 @@
  package org.matsim.core.scoring;
 
 
+import org.matsim.api.core.v01.Id;
 import org.matsim.api.core.v01.IdMap;
 import org.matsim.api.core.v01.population.Person;
 import org.matsim.api.core.v01.population.Plan;
 
+import java.util.function.BiConsumer;
+
 public interface ExperiencedPlansService {
 
 	void writeExperiencedPlans(String filename);
 
 	IdMap<Person, Plan> getExperiencedPlans();
 
+	/**
+	 * Passes the experienced plans to the consumer one after the other. In contrast to {@link #getExperiencedPlans()},
+	 * this does not load all experienced plans into memory if they are streamed to disk, see
+	 * {@link org.matsim.core.config.groups.ScoringConfigGroup#isStreamExperiencedPlans()}. The consumer must thus not
+	 * keep the plans.
+	 */
+	default void forEachExperiencedPlan(BiConsumer<Id<Person>, Plan> consumer) {
+		getExperiencedPlans().forEach(consumer);
+	}
+
 	void finishIteration();
 
 }
@@ -30,11 +30,19 @@ import org.matsim.api.core.v01.Scenario;
 import org.matsim.api.core.v01.population.*;
 import org.matsim.core.config.Config;
 import org.matsim.core.controler.ControlerListenerManager;
+import org.matsim.core.controler.OutputDirectoryHierarchy;
 import org.matsim.core.controler.events.IterationStartsEvent;
 import org.matsim.core.controler.listener.IterationStartsListener;
 import org.matsim.core.population.PopulationUtils;
+import org.matsim.core.population.io.StreamingPopulationWriter;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.Map;
+import java.util.function.BiConsumer;
 
 class ExperiencedPlansServiceImpl implements ExperiencedPlansService, EventsToLegs.LegHandler, EventsToActivities.ActivityHandler {
 
@@ -43,17 +51,24 @@ class ExperiencedPlansServiceImpl implements ExperiencedPlansService, EventsToLe
 	@Inject private Config config;
 	@Inject private Population population;
 	@Inject(optional = true) private ScoringFunctionsForPopulation scoringFunctionsForPopulation;
+	@Inject(optional = true) private OutputDirectoryHierarchy controlerIO;
 
 	private final IdMap<Person, Plan> agentRecords = new IdMap<>(Person.class);
 
+	/**
+	 * Only used if the experienced plans are streamed, see {@link org.matsim.core.config.groups.ScoringConfigGroup#isStreamExperiencedPlans()}.
+	 * Is <code>null</code> again once the experienced plans were loaded into memory.
+	 */
+	private ExperiencedPlanElementsSpill spill = null;
+	private boolean iterationFinished = false;
+	private boolean memorizingWarningShown = false;
+
 	@Inject
     ExperiencedPlansServiceImpl(ControlerListenerManager controlerListenerManager, EventsToActivities eventsToActivities, EventsToLegs eventsToLegs) {
         controlerListenerManager.addControlerListener(new IterationStartsListener() {
             @Override
             public void notifyIterationStarts(IterationStartsEvent event) {
-                for (Person person : population.getPersons().values()) {
-                    agentRecords.put(person.getId(), PopulationUtils.createPlan());
-                }
+                startIteration();
             }
         });
         eventsToActivities.addActivityHandler(this);
@@ -62,21 +77,64 @@ class ExperiencedPlansServiceImpl implements ExperiencedPlansService, EventsToLe
 
     ExperiencedPlansServiceImpl(EventsToActivities eventsToActivities, EventsToLegs eventsToLegs, Scenario scenario) {
         this.population = scenario.getPopulation();
+        this.config = scenario.getConfig();
 
-        for (Person person : population.getPersons().values()) {
-            agentRecords.put(person.getId(), PopulationUtils.createPlan());
-        }
+        startIteration();
         eventsToActivities.addActivityHandler(this);
         eventsToLegs.addLegHandler(this);
-        this.config = scenario.getConfig();
     }
 
+	private void startIteration() {
+		this.iterationFinished = false;
+		this.agentRecords.clear();
+		if (this.spill != null) {
+			this.spill.delete();
+			this.spill = null;
+		}
+		boolean stream = this.config.scoring().isStreamExperiencedPlans();
+		if (stream && this.config.scoring().isMemorizingExperiencedPlans()) {
+			// the experienced plans are needed in memory to memorize them in the selected plans, see PlansScoringImpl
+			if (!this.memorizingWarningShown) {
+				log.warn("The experienced plans are memorized in the selected plans, so they are kept in memory and not streamed to disk.");
+				this.memorizingWarningShown = true;
+			}
+			stream = false;
+		}
+		if (stream) {
+			// each bucket is loaded into memory at once, so its number of persons bounds the memory used
+			int bucketSize = Math.max(1, this.config.scoring().getExperiencedPlansSpillBucketSize());
+			int bucketCount = Math.max(1, (this.population.getPersons().size() + bucketSize - 1) / bucketSize);
+			this.spill = new ExperiencedPlanElementsSpill(getSpillDirectory(), bucketCount, this.population.getFactory().getRouteFactories());
+		} else {
+			for (Person person : this.population.getPersons().values()) {
+				this.agentRecords.put(person.getId(), PopulationUtils.createPlan());
+			}
+		}
+	}
+
+	private Path getSpillDirectory() {
+		if (this.controlerIO != null) {
+			return Paths.get(this.controlerIO.getTempPath(), "experiencedPlans");
+		}
+		try {
+			return Files.createTempDirectory("experiencedPlans");
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
 	@Override
 	synchronized public void handleLeg(PersonExperiencedLeg o) {
 		// Has to be synchronized because the thing which sends Legs and the thing which sends Activities can run
 		// on different threads. Will go away when/if we get a more Actor or Reactive Streams like event infrastructure.
 		Id<Person> agentId = o.getAgentId();
 		Leg leg = o.getLeg();
+		if (this.spill != null) {
+			if (this.population.getPersons().containsKey(agentId)) {
+				this.spill.addLeg(agentId, leg);
+			}
+			return;
+		}
 		Plan plan = agentRecords.get(agentId);
 		if (plan != null) {
 			plan.addLeg(leg);
@@ -89,6 +147,12 @@ class ExperiencedPlansServiceImpl implements ExperiencedPlansService, EventsToLe
 		// on different threads. Will go away when/if we get a more Actor or Reactive Streams like event infrastructure.
 		Id<Person> agentId = o.getAgentId();
 		Activity activity = o.getActivity();
+		if (this.spill != null) {
+			if (this.population.getPersons().containsKey(agentId)) {
+				this.spill.addActivity(agentId, activity);
+			}
+			return;
+		}
 		Plan plan = agentRecords.get(agentId);
 		if (plan != null) {
 			agentRecords.get(agentId).addActivity(activity);
@@ -98,6 +162,10 @@ class ExperiencedPlansServiceImpl implements ExperiencedPlansService, EventsToLe
 	@Override
 	public void writeExperiencedPlans(String iterationFilename) {
 //		finishIteration(); // already called somewhere else in pgm flow.
+		if (this.spill != null) {
+			writeSpilledExperiencedPlans(iterationFilename);
+			return;
+		}
 		Population tmpPop = PopulationUtils.createPopulation(config);
 		for (Map.Entry<Id<Person>, Plan> entry : this.agentRecords.entrySet()) {
 			Person person = PopulationUtils.getFactory().createPerson(entry.getKey());
@@ -114,20 +182,90 @@ class ExperiencedPlansServiceImpl implements ExperiencedPlansService, EventsToLe
 	public final void finishIteration() {
 		// I separated this from "writeExperiencedPlans" so that it can be called separately even when nothing is written.  Can't say
 		// if the design might be better served by an iteration ends listener.  kai, feb'17
+		this.iterationFinished = true;
 		for (Map.Entry<Id<Person>, Plan> entry : this.agentRecords.entrySet()) {
-			Plan plan = entry.getValue();
-			if (scoringFunctionsForPopulation != null) {
-				plan.setScore(scoringFunctionsForPopulation.getScoringFunctionForAgent(entry.getKey()).getScore());
-				if (plan.getScore().isNaN()) {
-					log.warn("score is NaN; plan:" + plan.toString());
-				}
+			setScore(entry.getKey(), entry.getValue());
+		}
+	}
+
+	private void setScore(Id<Person> personId, Plan plan) {
+		if (scoringFunctionsForPopulation != null) {
+			plan.setScore(scoringFunctionsForPopulation.getScoringFunctionForAgent(personId).getScore());
+			if (plan.getScore().isNaN()) {
+				log.warn("score is NaN; plan:" + plan.toString());
 			}
 		}
 	}
 
+	/**
+	 * If the experienced plans are streamed, this loads all of them into memory. Later experienced activities and legs
+	 * are then added to the plans in memory directly.
+	 */
 	@Override
-	public IdMap<Person, Plan> getExperiencedPlans() {
+	synchronized public IdMap<Person, Plan> getExperiencedPlans() {
+		if (this.spill != null) {
+			for (Person person : this.population.getPersons().values()) {
+				this.agentRecords.put(person.getId(), PopulationUtils.createPlan());
+			}
+			for (int bucket = 0; bucket < this.spill.getBucketCount(); bucket++) {
+				this.spill.readBucket(bucket, (personId, planElement) -> addPlanElement(this.agentRecords.get(personId), planElement));
+			}
+			this.spill.delete();
+			this.spill = null;
+			if (this.iterationFinished) {
+				finishIteration();
+			}
+		}
 		return this.agentRecords;
 	}
 
+	/**
+	 * If the experienced plans are streamed, they are read back bucket by bucket, so only the experienced plans of one
+	 * spill bucket are in memory at the same time. The spill is kept, so the plans can be passed on several times.
+	 */
+	@Override
+	synchronized public void forEachExperiencedPlan(BiConsumer<Id<Person>, Plan> consumer) {
+		if (this.spill == null) {
+			this.agentRecords.forEach(consumer);
+			return;
+		}
+		for (int bucket = 0; bucket < this.spill.getBucketCount(); bucket++) {
+			IdMap<Person, Plan> plans = new IdMap<>(Person.class);
+			for (Person person : this.population.getPersons().values()) {
+				if (this.spill.getBucket(person.getId()) == bucket) {
+					plans.put(person.getId(), PopulationUtils.createPlan());
+				}
+			}
+			this.spill.readBucket(bucket, (personId, planElement) -> addPlanElement(plans.get(personId), planElement));
+			for (Map.Entry<Id<Person>, Plan> entry : plans.entrySet()) {
+				if (this.iterationFinished) {
+					setScore(entry.getKey(), entry.getValue());
+				}
+				consumer.accept(entry.getKey(), entry.getValue());
+			}
+		}
+	}
+
+	/**
+	 * Writes the streamed experienced plans person by person, with bounded memory.
+	 */
+	private void writeSpilledExperiencedPlans(String iterationFilename) {
+		StreamingPopulationWriter writer = new StreamingPopulationWriter();
+		writer.startStreaming(iterationFilename);
+		forEachExperiencedPlan((personId, plan) -> {
+			Person person = PopulationUtils.getFactory().createPerson(personId);
+			person.addPlan(plan);
+			writer.run(person);
+		});
+		writer.closeStreaming();
+	}
+
+	private static void addPlanElement(Plan plan, PlanElement planElement) {
+		if (planElement instanceof Activity) {
+			plan.addActivity((Activity) planElement);
+		} else {
+			plan.addLeg((Leg) planElement);
+		}
+	}
+
 }
@@ -26,6 +26,7 @@ import gnu.trove.iterator.TDoubleIterator;
 import gnu.trove.list.array.TDoubleArrayList;
 import org.matsim.api.core.v01.Id;
 import org.matsim.api.core.v01.IdMap;
+import org.matsim.api.core.v01.network.Link;
 import org.matsim.api.core.v01.events.ActivityEndEvent;
 import org.matsim.api.core.v01.events.ActivityStartEvent;
 import org.matsim.api.core.v01.events.Event;
@@ -34,6 +35,7 @@ import org.matsim.api.core.v01.events.LinkEnterEvent;
 import org.matsim.api.core.v01.events.PersonArrivalEvent;
 import org.matsim.api.core.v01.events.PersonDepartureEvent;
 import org.matsim.api.core.v01.events.PersonEntersVehicleEvent;
+import org.matsim.api.core.v01.events.PersonLeavesVehicleEvent;
 import org.matsim.api.core.v01.events.PersonMoneyEvent;
 import org.matsim.api.core.v01.events.PersonScoreEvent;
 import org.matsim.api.core.v01.events.PersonStuckEvent;
@@ -51,6 +53,7 @@ import org.matsim.core.api.experimental.events.VehicleArrivesAtFacilityEvent;
 import org.matsim.core.config.Config;
 import org.matsim.core.config.groups.ControllerConfigGroup;
 import org.matsim.core.controler.ControlerListenerManager;
+import org.matsim.core.controler.listener.AfterMobsimListener;
 import org.matsim.core.controler.listener.BeforeMobsimListener;
 import org.matsim.core.controler.listener.IterationStartsListener;
 import org.matsim.core.events.algorithms.Vehicle2DriverEventHandler;
@@ -65,6 +68,8 @@ import java.io.BufferedWriter;
 import java.io.IOException;
 import java.util.List;
 import java.util.Map.Entry;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.atomic.AtomicReference;
 
 import static org.matsim.core.router.TripStructureUtils.Trip;
@@ -73,6 +78,14 @@ import static org.matsim.core.router.TripStructureUtils.Trip;
  * This class helps EventsToScore by keeping ScoringFunctions for the entire Population - one per Person -, and dispatching Activities
  * and Legs to the ScoringFunctions. It also gives out the ScoringFunctions, so they can be given other events by EventsToScore.
  * It is not independently useful. Please do not make public.
+ * <p>
+ * If {@link ControllerConfigGroup#getNumberOfScoringThreads()} is larger than 0, the persons are partitioned by their id
+ * into that many shards, each processed by its own thread with its own EventsToActivities and EventsToLegs state.
+ * The events thread then only resolves vehicles to drivers and hands the events over to the shards: events of a person
+ * go to the shard of that person, events of a vehicle go to the shards of the persons currently in the vehicle (driver
+ * and passengers). When the first person of a shard enters a vehicle, the shard is first told the current state of the
+ * vehicle (its transit route and last stop, or its current link), as it did not see the earlier events of the vehicle.
+ * Activity and leg handlers are then called from the shard threads and must be thread-safe.
  *
  * @author michaz
  *
@@ -92,6 +105,10 @@ import static org.matsim.core.router.TripStructureUtils.Trip;
 
 	private final Vehicle2DriverEventHandler vehicles2Drivers = new Vehicle2DriverEventHandler();
 
+	private final Shard[] shards;
+	private final IdMap<Vehicle, VehicleState> vehicleStates = new IdMap<>(Vehicle.class);
+	private boolean shardsRunning = false;
+
 	@Inject
 	ScoringFunctionsForPopulation(ControlerListenerManager controlerListenerManager, EventsManager eventsManager, EventsToActivities eventsToActivities, EventsToLegs eventsToLegs,
 						 Population population, ScoringFunctionFactory scoringFunctionFactory, Config config) {
@@ -113,6 +130,18 @@ import static org.matsim.core.router.TripStructureUtils.Trip;
 		eventsManager.addHandler(this);
 		eventsToActivities.addActivityHandler(this::handleActivity);
 		eventsToLegs.addLegHandler(this::handleLeg);
+
+		int numberOfScoringThreads = controllerConfigGroup.getNumberOfScoringThreads();
+		if (numberOfScoringThreads > 0) {
+			this.shards = new Shard[numberOfScoringThreads];
+			for (int i = 0; i < numberOfScoringThreads; i++) {
+				this.shards[i] = new Shard(new EventsToLegs(eventsToLegs), new EventsToActivities(eventsToActivities));
+			}
+			// the activities still open at the end of the mobsim are in the shards, not in eventsToActivities
+			controlerListenerManager.addControlerListener((AfterMobsimListener) event -> finishShardActivities());
+		} else {
+			this.shards = null;
+		}
 	}
 
 	private void init() {
@@ -125,24 +154,16 @@ import static org.matsim.core.router.TripStructureUtils.Trip;
 
 	@Override
 	public void handleEvent(Event o) {
+		if (this.shards != null) {
+			dispatchToShards(o);
+			return;
+		}
+
 		// this is for the stuff that is directly based on events. note that this passes on _all_ person events, even those which are
 		// aggregated into legs and activities. for the time being, not all PersonEvents may "implement HasPersonId". link enter/leave events
 		// are NOT passed on, for performance reasons. kai/dominik, dec'12
 		if (o instanceof HasPersonId) {
-			ScoringFunction scoringFunction = getScoringFunctionForAgent(((HasPersonId) o).getPersonId());
-			if (scoringFunction != null) {
-				if (o instanceof PersonStuckEvent) {
-					scoringFunction.agentStuck(o.getTime());
-				} else if (o instanceof PersonMoneyEvent) {
-					scoringFunction.addMoney(((PersonMoneyEvent) o).getAmount());
-					// yy looking at this, I am a bit skeptic if it truly makes sense to not pass this additionally into the general events handling function below.
-					// A use case might be different utilities of money by money transaction type (e.g. toll, fare, reimbursement, ...).  kai, mar'17
-				} else if (o instanceof PersonScoreEvent) {
-					scoringFunction.addScore(((PersonScoreEvent) o).getAmount());
-				}
-				scoringFunction.handleEvent(o);
-				// passing this on in any case, see comment above.  kai, mar'17
-			}
+			passToScoringFunction(o, getScoringFunctionForAgent(((HasPersonId) o).getPersonId()));
 		}
 
 		// Establish and end connection between driver and vehicle
@@ -164,13 +185,30 @@ import static org.matsim.core.router.TripStructureUtils.Trip;
 		if (o instanceof LinkEnterEvent) {
 			Id<Vehicle> vehicleId = ((LinkEnterEvent)o).getVehicleId();
 			Id<Person> driverId = this.vehicles2Drivers.getDriverOfVehicle(vehicleId);
-			ScoringFunction scoringFunction = getScoringFunctionForAgent( driverId );
+			passToScoringFunction(o, getScoringFunctionForAgent( driverId ));
 			// (this will NOT do the scoring function lookup twice since LinkEnterEvent is not an instance of HasPersonId.  kai, mar'17)
-			if (scoringFunction != null) {
-				scoringFunction.handleEvent(o);
+		}
+
+		passToDelegates(o, this.legsDelegate, this.actsDelegate);
+	}
+
+	private static void passToScoringFunction(Event o, ScoringFunction scoringFunction) {
+		if (scoringFunction != null) {
+			if (o instanceof PersonStuckEvent) {
+				scoringFunction.agentStuck(o.getTime());
+			} else if (o instanceof PersonMoneyEvent) {
+				scoringFunction.addMoney(((PersonMoneyEvent) o).getAmount());
+				// yy looking at this, I am a bit skeptic if it truly makes sense to not pass this additionally into the general events handling function below.
+				// A use case might be different utilities of money by money transaction type (e.g. toll, fare, reimbursement, ...).  kai, mar'17
+			} else if (o instanceof PersonScoreEvent) {
+				scoringFunction.addScore(((PersonScoreEvent) o).getAmount());
 			}
+			scoringFunction.handleEvent(o);
+			// passing this on in any case, see comment above.  kai, mar'17
 		}
+	}
 
+	private void passToDelegates(Event o, EventsToLegs legs, EventsToActivities acts) {
 		/* Now also handle events for eventsToLegs and eventsToActivities.
 		 * This class deliberately only implements BasicEventHandler and not the individual event handlers required
 		 * by EventsToLegs and EventsToActivities to better control the order in which events are passed to scoring
@@ -178,27 +216,149 @@ import static org.matsim.core.router.TripStructureUtils.Trip;
 		 * makes sure that the corresponding event was already seen by a scoring function when the call to handleActivity(),
 		 * handleLeg() or handleTrip() is done.
 		 */
-		if (o instanceof ActivityStartEvent) this.handleActivityStart((ActivityStartEvent) o);
-		if (o instanceof ActivityEndEvent) this.actsDelegate.handleEvent((ActivityEndEvent) o);
-
-		if (o instanceof PersonDepartureEvent) this.legsDelegate.handleEvent((PersonDepartureEvent) o);
-		if (o instanceof PersonArrivalEvent) this.legsDelegate.handleEvent((PersonArrivalEvent) o);
-		if (o instanceof LinkEnterEvent) this.legsDelegate.handleEvent((LinkEnterEvent) o);
-		if (o instanceof TeleportationArrivalEvent) this.legsDelegate.handleEvent((TeleportationArrivalEvent) o);
-		if (o instanceof TransitDriverStartsEvent) this.legsDelegate.handleEvent((TransitDriverStartsEvent) o);
-		if (o instanceof PersonEntersVehicleEvent) this.legsDelegate.handleEvent((PersonEntersVehicleEvent) o);
-		if (o instanceof VehicleArrivesAtFacilityEvent) this.legsDelegate.handleEvent((VehicleArrivesAtFacilityEvent) o);
-		if (o instanceof VehicleEntersTrafficEvent) this.legsDelegate.handleEvent((VehicleEntersTrafficEvent) o);
-		if (o instanceof VehicleLeavesTrafficEvent) this.legsDelegate.handleEvent((VehicleLeavesTrafficEvent) o);
+		if (o instanceof ActivityStartEvent) this.handleActivityStart((ActivityStartEvent) o, acts);
+		if (o instanceof ActivityEndEvent) acts.handleEvent((ActivityEndEvent) o);
+
+		if (o instanceof PersonDepartureEvent) legs.handleEvent((PersonDepartureEvent) o);
+		if (o instanceof PersonArrivalEvent) legs.handleEvent((PersonArrivalEvent) o);
+		if (o instanceof LinkEnterEvent) legs.handleEvent((LinkEnterEvent) o);
+		if (o instanceof TeleportationArrivalEvent) legs.handleEvent((TeleportationArrivalEvent) o);
+		if (o instanceof TransitDriverStartsEvent) legs.handleEvent((TransitDriverStartsEvent) o);
+		if (o instanceof PersonEntersVehicleEvent) legs.handleEvent((PersonEntersVehicleEvent) o);
+		if (o instanceof VehicleArrivesAtFacilityEvent) legs.handleEvent((VehicleArrivesAtFacilityEvent) o);
+		if (o instanceof VehicleEntersTrafficEvent) legs.handleEvent((VehicleEntersTrafficEvent) o);
+		if (o instanceof VehicleLeavesTrafficEvent) legs.handleEvent((VehicleLeavesTrafficEvent) o);
 	}
 
-	private void handleActivityStart(ActivityStartEvent event) {
-		this.actsDelegate.handleEvent(event);
+	private void handleActivityStart(ActivityStartEvent event, EventsToActivities acts) {
+		acts.handleEvent(event);
 		if (!StageActivityTypeIdentifier.isStageActivity( event.getActType() ) ) {
 			this.callTripScoring(event);
 		}
 	}
 
+	/**
+	 * Resolves the person to be scored for the event once on the events thread, and hands the event over to the shard of
+	 * that person. Events that EventsToLegs tracks per vehicle go to the shards of the persons in the vehicle.
+	 */
+	private void dispatchToShards(Event o) {
+		if (!this.shardsRunning) {
+			startShards();
+		}
+
+		if (o instanceof VehicleEntersTrafficEvent) {
+			this.vehicles2Drivers.handleEvent((VehicleEntersTrafficEvent) o);
+		}
+		if (o instanceof VehicleLeavesTrafficEvent) {
+			this.vehicles2Drivers.handleEvent((VehicleLeavesTrafficEvent) o);
+		}
+
+		Id<Person> personId = null;
+		if (o instanceof HasPersonId) {
+			personId = ((HasPersonId) o).getPersonId();
+		} else if (o instanceof LinkEnterEvent) {
+			personId = this.vehicles2Drivers.getDriverOfVehicle(((LinkEnterEvent) o).getVehicleId());
+		}
+		int personShard = personId == null ? -1 : personId.index() % this.shards.length;
+
+		Id<Vehicle> vehicleId = null;
+		if (o instanceof LinkEnterEvent) {
+			vehicleId = ((LinkEnterEvent) o).getVehicleId();
+			getVehicleState(vehicleId).currentLinkId = ((LinkEnterEvent) o).getLinkId();
+		} else if (o instanceof VehicleEntersTrafficEvent) {
+			vehicleId = ((VehicleEntersTrafficEvent) o).getVehicleId();
+			getVehicleState(vehicleId).currentLinkId = ((VehicleEntersTrafficEvent) o).getLinkId();
+		} else if (o instanceof VehicleLeavesTrafficEvent) {
+			vehicleId = ((VehicleLeavesTrafficEvent) o).getVehicleId();
+		} else if (o instanceof TransitDriverStartsEvent) {
+			vehicleId = ((TransitDriverStartsEvent) o).getVehicleId();
+			VehicleState state = getVehicleState(vehicleId);
+			state.transitDriverStarts = (TransitDriverStartsEvent) o;
+			state.lastFacility = null;
+		} else if (o instanceof VehicleArrivesAtFacilityEvent) {
+			vehicleId = ((VehicleArrivesAtFacilityEvent) o).getVehicleId();
+			getVehicleState(vehicleId).lastFacility = (VehicleArrivesAtFacilityEvent) o;
+		} else if (o instanceof PersonEntersVehicleEvent) {
+			VehicleState state = getVehicleState(((PersonEntersVehicleEvent) o).getVehicleId());
+			if (state.occupants[personShard] == 0) {
+				passVehicleState(((PersonEntersVehicleEvent) o).getVehicleId(), state, this.shards[personShard]);
+			}
+			state.occupants[personShard]++;
+		} else if (o instanceof PersonLeavesVehicleEvent) {
+			VehicleState state = this.vehicleStates.get(((PersonLeavesVehicleEvent) o).getVehicleId());
+			if (state != null && state.occupants[personShard] > 0) {
+				state.occupants[personShard]--;
+			}
+		}
+
+		if (vehicleId != null) {
+			int[] occupants = getVehicleState(vehicleId).occupants;
+			for (int i = 0; i < this.shards.length; i++) {
+				if (i == personShard) {
+					this.shards[i].add(o, personId);
+				} else if (occupants[i] > 0) {
+					this.shards[i].add(o, null);
+				}
+			}
+		} else if (personShard >= 0) {
+			this.shards[personShard].add(o, personId);
+		}
+	}
+
+	private VehicleState getVehicleState(Id<Vehicle> vehicleId) {
+		VehicleState state = this.vehicleStates.get(vehicleId);
+		if (state == null) {
+			state = new VehicleState(this.shards.length);
+			this.vehicleStates.put(vehicleId, state);
+		}
+		return state;
+	}
+
+	/**
+	 * Passes the state of a vehicle to a shard in which no person was in the vehicle so far, so the shard's EventsToLegs
+	 * knows the vehicle like it would have after seeing all of its events.
+	 */
+	private void passVehicleState(Id<Vehicle> vehicleId, VehicleState state, Shard shard) {
+		if (state.transitDriverStarts != null) {
+			shard.add(state.transitDriverStarts, null);
+			if (state.lastFacility != null) {
+				shard.add(state.lastFacility, null);
+			}
+		} else if (state.currentLinkId != null) {
+			shard.add(new VehiclePositionEvent(vehicleId, state.currentLinkId), null);
+		}
+	}
+
+	private void startShards() {
+		for (int i = 0; i < this.shards.length; i++) {
+			this.shards[i].start("ScoringShard-" + i);
+		}
+		this.shardsRunning = true;
+	}
+
+	/**
+	 * Waits until the shards have processed all events handed over to them.
+	 */
+	private void stopShards() {
+		if (this.shards == null || !this.shardsRunning) {
+			return;
+		}
+		for (Shard shard : this.shards) {
+			shard.stop();
+		}
+		for (Shard shard : this.shards) {
+			shard.join();
+		}
+		this.shardsRunning = false;
+	}
+
+	private void finishShardActivities() {
+		stopShards();
+		for (Shard shard : this.shards) {
+			shard.acts.finish();
+		}
+	}
+
 	private void callTripScoring(ActivityStartEvent event) {
 		Plan plan = this.tripRecords.get(event.getPersonId()); // as container for trip
 		if (plan != null) {
@@ -270,6 +430,7 @@ import static org.matsim.core.router.TripStructureUtils.Trip;
 	}
 
 	void finishScoringFunctions() {
+		stopShards();
 		// Rethrow an exception in a scoring function (user code) if there was one.
 		Throwable throwable = this.exception.get();
 		if (throwable != null) {
@@ -307,6 +468,154 @@ import static org.matsim.core.router.TripStructureUtils.Trip;
 	public void reset(int iteration) {
 		this.legsDelegate.reset(iteration);
 		this.actsDelegate.reset(iteration);
+		if (this.shards != null) {
+			stopShards();
+			this.vehicleStates.clear();
+			for (Shard shard : this.shards) {
+				shard.legs.reset(iteration);
+				shard.acts.reset(iteration);
+			}
+		}
+	}
+
+	/**
+	 * What the events thread knows about a vehicle: the number of persons in it per shard, and what a shard needs to know
+	 * when one of its persons enters the vehicle.
+	 */
+	private static final class VehicleState {
+		private final int[] occupants;
+		private TransitDriverStartsEvent transitDriverStarts = null;
+		private VehicleArrivesAtFacilityEvent lastFacility = null;
+		private Id<Link> currentLinkId = null;
+
+		private VehicleState(int shardCount) {
+			this.occupants = new int[shardCount];
+		}
+	}
+
+	/**
+	 * Tells a shard on which link a vehicle currently is. Only used within this class.
+	 */
+	private static final class VehiclePositionEvent extends Event {
+		private final Id<Vehicle> vehicleId;
+		private final Id<Link> linkId;
+
+		private VehiclePositionEvent(Id<Vehicle> vehicleId, Id<Link> linkId) {
+			super(Double.NaN);
+			this.vehicleId = vehicleId;
+			this.linkId = linkId;
+		}
+
+		@Override
+		public String getEventType() {
+			return "scoringShardVehiclePosition";
+		}
+	}
+
+	/**
+	 * Events handed over to a shard, together with the person whose scoring function should see the event, if any.
+	 */
+	private static final class Batch {
+		private final Event[] events;
+		private final Id<Person>[] personIds;
+		private int size = 0;
+
+		@SuppressWarnings("unchecked")
+		private Batch(int capacity) {
+			this.events = new Event[capacity];
+			this.personIds = new Id[capacity];
+		}
+	}
+
+	private final class Shard implements Runnable {
+
+		private static final int BATCH_SIZE = 1024;
+		private static final int QUEUE_CAPACITY = 64;
+
+		private final Batch end = new Batch(0);
+		private final BlockingQueue<Batch> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+		private final EventsToLegs legs;
+		private final EventsToActivities acts;
+		private Batch batch = new Batch(BATCH_SIZE);
+		private Thread thread = null;
+
+		private Shard(EventsToLegs legs, EventsToActivities acts) {
+			this.legs = legs;
+			this.acts = acts;
+		}
+
+		private void start(String name) {
+			this.thread = new Thread(this, name);
+			this.thread.setDaemon(true);
+			this.thread.start();
+		}
+
+		private void add(Event event, Id<Person> personId) {
+			this.batch.events[this.batch.size] = event;
+			this.batch.personIds[this.batch.size] = personId;
+			this.batch.size++;
+			if (this.batch.size == BATCH_SIZE) {
+				put(this.batch);
+				this.batch = new Batch(BATCH_SIZE);
+			}
+		}
+
+		private void stop() {
+			if (this.batch.size > 0) {
+				put(this.batch);
+				this.batch = new Batch(BATCH_SIZE);
+			}
+			put(this.end);
+		}
+
+		private void join() {
+			try {
+				this.thread.join();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new RuntimeException(e);
+			}
+			this.thread = null;
+		}
+
+		private void put(Batch batch) {
+			try {
+				this.queue.put(batch);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new RuntimeException(e);
+			}
+		}
+
+		@Override
+		public void run() {
+			try {
+				Batch batch;
+				while ((batch = this.queue.take()) != this.end) {
+					// after an exception, keep on taking batches so the events thread is not blocked
+					if (exception.get() != null) {
+						continue;
+					}
+					try {
+						for (int i = 0; i < batch.size; i++) {
+							if (batch.events[i] instanceof VehiclePositionEvent position) {
+								this.legs.setCurrentLinkOfVehicle(position.vehicleId, position.linkId);
+								continue;
+							}
+							Id<Person> personId = batch.personIds[i];
+							if (personId != null) {
+								passToScoringFunction(batch.events[i], getScoringFunctionForAgent(personId));
+							}
+							passToDelegates(batch.events[i], this.legs, this.acts);
+						}
+					} catch (Throwable t) {
+						exception.compareAndSet(null, t);
+					}
+				}
+			} catch (InterruptedException e) {
+				exception.compareAndSet(null, e);
+			}
+		}
 	}
 
 }
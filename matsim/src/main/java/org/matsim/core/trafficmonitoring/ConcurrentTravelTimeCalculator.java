@@ -0,0 +1,350 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * ConcurrentTravelTimeCalculator.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2023 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+package org.matsim.core.trafficmonitoring;
+
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.events.LinkEnterEvent;
+import org.matsim.api.core.v01.events.LinkLeaveEvent;
+import org.matsim.api.core.v01.events.VehicleAbortsEvent;
+import org.matsim.api.core.v01.events.VehicleEntersTrafficEvent;
+import org.matsim.api.core.v01.events.VehicleLeavesTrafficEvent;
+import org.matsim.api.core.v01.events.handler.LinkEnterEventHandler;
+import org.matsim.api.core.v01.events.handler.LinkLeaveEventHandler;
+import org.matsim.api.core.v01.events.handler.VehicleAbortsEventHandler;
+import org.matsim.api.core.v01.events.handler.VehicleEntersTrafficEventHandler;
+import org.matsim.api.core.v01.events.handler.VehicleLeavesTrafficEventHandler;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.network.Network;
+import org.matsim.core.api.experimental.events.VehicleArrivesAtFacilityEvent;
+import org.matsim.core.api.experimental.events.handler.VehicleArrivesAtFacilityEventHandler;
+import org.matsim.core.config.groups.TravelTimeCalculatorConfigGroup;
+import org.matsim.core.router.util.TravelTime;
+import org.matsim.core.utils.collections.CollectionUtils;
+import org.matsim.vehicles.Vehicle;
+
+import java.util.Arrays;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * A variant of {@link TravelTimeCalculator} that can be fed with events from multiple threads at the same time,
+ * e.g. when events are processed in parallel, without the threads contending for shared data structures.
+ * <p>
+ * The state of each vehicle (the link it entered and when) is stored in primitive arrays indexed by the index of the
+ * vehicle's {@link Id}. The observed travel times are accumulated in link/time-bin buffers owned by the thread handling
+ * the event. A buffer holds a fixed number of link/time-bin entries; when it is full, it is flushed into the travel time
+ * data of the links, so the memory used by the buffers does not depend on the network size. The remaining entries are
+ * merged when travel times are requested the next time, typically after the mobsim. Requesting travel times must thus
+ * not happen at the same time as events are handled.
+ * The events of a single vehicle may be handled by different threads, as long as they are handled in the correct order.
+ * <p>
+ * In contrast to {@link TravelTimeCalculator}, only link travel times are calculated, link-to-link travel times are not supported.
+ */
+public final class ConcurrentTravelTimeCalculator implements LinkEnterEventHandler, LinkLeaveEventHandler,
+		VehicleEntersTrafficEventHandler, VehicleLeavesTrafficEventHandler, VehicleArrivesAtFacilityEventHandler,
+		VehicleAbortsEventHandler {
+
+	private static final int CHUNK_BITS = 12;
+	private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+	private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+	private final Network network;
+	private final double timeSlice;
+	private final int numSlots;
+	private final TimeSlotComputation aggregator;
+	private final TravelTimeGetter travelTimeGetter;
+	private final boolean filterAnalyzedModes;
+	private final Set<String> analyzedModes;
+
+	private volatile VehicleChunk[] vehicleChunks = new VehicleChunk[0];
+	private final Queue<LinkBuffer> buffers = new ConcurrentLinkedQueue<>();
+	private volatile ThreadLocal<LinkBuffer> localBuffer = ThreadLocal.withInitial(this::createBuffer);
+	private volatile boolean merged = true;
+	private TravelTimeDataArray[] linkData = new TravelTimeDataArray[0];
+
+	public ConcurrentTravelTimeCalculator(Network network, TravelTimeCalculatorConfigGroup config) {
+		this(network, config, config.isFilterModes(), CollectionUtils.stringToSet(config.getAnalyzedModesAsString()));
+	}
+
+	/**
+	 * Creates a calculator only considering vehicles of the given modes, e.g. when the modes are analyzed separately.
+	 */
+	public ConcurrentTravelTimeCalculator(Network network, TravelTimeCalculatorConfigGroup config, Set<String> analyzedModes) {
+		this(network, config, true, analyzedModes);
+	}
+
+	private ConcurrentTravelTimeCalculator(Network network, TravelTimeCalculatorConfigGroup config, boolean filterModes, Set<String> analyzedModes) {
+		if (config.isCalculateLinkToLinkTravelTimes()) {
+			throw new IllegalArgumentException("Link-to-link travel times are not supported by " + getClass().getSimpleName() + ", use " + TravelTimeCalculator.class.getSimpleName() + " instead.");
+		}
+		this.network = network;
+		this.timeSlice = config.getTraveltimeBinSize();
+		this.numSlots = TimeBinUtils.getTimeBinCount(config.getMaxTime(), this.timeSlice);
+		this.aggregator = new TimeSlotComputation(this.numSlots, this.timeSlice);
+		this.filterAnalyzedModes = filterModes;
+		this.analyzedModes = analyzedModes;
+		switch (config.getTravelTimeGetterType()) {
+			case "average":
+				this.travelTimeGetter = new AveragingTravelTimeGetter(this.aggregator);
+				break;
+			case "linearinterpolation":
+				this.travelTimeGetter = new LinearInterpolatingTravelTimeGetter(this.numSlots, this.timeSlice, this.aggregator);
+				break;
+			default:
+				throw new RuntimeException(config.getTravelTimeGetterType() + " is unknown!");
+		}
+	}
+
+	@Override
+	public void handleEvent(LinkEnterEvent event) {
+		int index = event.getVehicleId().index();
+		VehicleChunk chunk = getVehicleChunk(index);
+		int i = index & CHUNK_MASK;
+		if (this.filterAnalyzedModes && chunk.ignored[i]) {
+			return;
+		}
+		chunk.linkIndices[i] = event.getLinkId().index();
+		chunk.enterTimes[i] = event.getTime();
+	}
+
+	@Override
+	public void handleEvent(LinkLeaveEvent event) {
+		int index = event.getVehicleId().index();
+		VehicleChunk chunk = getVehicleChunk(index);
+		int i = index & CHUNK_MASK;
+		if (chunk.linkIndices[i] >= 0) {
+			double enterTime = chunk.enterTimes[i];
+			LinkBuffer buffer = this.localBuffer.get();
+			if (buffer.add(event.getLinkId().index(), this.aggregator.getTimeSlotIndex(enterTime), event.getTime() - enterTime)) {
+				flush(buffer);
+			}
+			if (this.merged) {
+				this.merged = false;
+			}
+		}
+	}
+
+	@Override
+	public void handleEvent(VehicleEntersTrafficEvent event) {
+		/* if filtering transport modes is enabled and the vehicles
+		 * starts a leg on a non analyzed transport mode, ignore the vehicle. */
+		if (this.filterAnalyzedModes && !this.analyzedModes.contains(event.getNetworkMode())) {
+			int index = event.getVehicleId().index();
+			getVehicleChunk(index).ignored[index & CHUNK_MASK] = true;
+		}
+	}
+
+	@Override
+	public void handleEvent(VehicleLeavesTrafficEvent event) {
+		/* forget the link the vehicle entered, otherwise the activity duration would
+		 * be counted as travel time, when the vehicle departs again and leaves the link! */
+		removeVehicle(event.getVehicleId());
+	}
+
+	@Override
+	public void handleEvent(VehicleArrivesAtFacilityEvent event) {
+		/* forget the link the vehicle entered, otherwise the stop time would be counted
+		 * as travel time, when the bus departs again and leaves the link! */
+		int index = event.getVehicleId().index();
+		getVehicleChunk(index).linkIndices[index & CHUNK_MASK] = -1;
+	}
+
+	@Override
+	public void handleEvent(VehicleAbortsEvent event) {
+		removeVehicle(event.getVehicleId());
+	}
+
+	private void removeVehicle(Id<Vehicle> vehicleId) {
+		int index = vehicleId.index();
+		VehicleChunk chunk = getVehicleChunk(index);
+		chunk.linkIndices[index & CHUNK_MASK] = -1;
+		chunk.ignored[index & CHUNK_MASK] = false;
+	}
+
+	@Override
+	public void reset(int iteration) {
+		this.vehicleChunks = new VehicleChunk[0];
+		// drop the buffers of this iteration's threads; threads handling events later on get fresh ones
+		this.buffers.clear();
+		this.localBuffer = ThreadLocal.withInitial(this::createBuffer);
+		for (TravelTimeDataArray data : this.linkData) {
+			if (data != null) {
+				data.resetTravelTimes();
+				data.setNeedsConsolidation(false);
+			}
+		}
+		this.merged = true;
+	}
+
+	private VehicleChunk getVehicleChunk(int vehicleIndex) {
+		int chunkIndex = vehicleIndex >>> CHUNK_BITS;
+		VehicleChunk[] chunks = this.vehicleChunks;
+		if (chunkIndex < chunks.length && chunks[chunkIndex] != null) {
+			return chunks[chunkIndex];
+		}
+		return createVehicleChunk(chunkIndex);
+	}
+
+	private synchronized VehicleChunk createVehicleChunk(int chunkIndex) {
+		VehicleChunk[] chunks = this.vehicleChunks;
+		if (chunkIndex < chunks.length && chunks[chunkIndex] != null) {
+			return chunks[chunkIndex];
+		}
+		// always publish a new array, so other threads never see a partially initialized one
+		chunks = Arrays.copyOf(chunks, Math.max(chunks.length, chunkIndex + 1));
+		VehicleChunk chunk = new VehicleChunk();
+		chunks[chunkIndex] = chunk;
+		this.vehicleChunks = chunks;
+		return chunk;
+	}
+
+	private LinkBuffer createBuffer() {
+		LinkBuffer buffer = new LinkBuffer();
+		this.buffers.add(buffer);
+		return buffer;
+	}
+
+	/*package*/ int getBufferCount() {
+		return this.buffers.size();
+	}
+
+	private synchronized void merge() {
+		if (this.merged) {
+			return;
+		}
+		for (LinkBuffer buffer : this.buffers) {
+			flush(buffer);
+		}
+		this.merged = true;
+	}
+
+	private synchronized void flush(LinkBuffer buffer) {
+		int linkCount = Id.getNumberOfIds(Link.class);
+		if (this.linkData.length < linkCount) {
+			this.linkData = Arrays.copyOf(this.linkData, linkCount);
+		}
+		for (int i = 0; i < LinkBuffer.CAPACITY; i++) {
+			long key = buffer.keys[i];
+			if (key == LinkBuffer.EMPTY) {
+				continue;
+			}
+			int linkIndex = (int) (key >>> 32);
+			TravelTimeDataArray data = this.linkData[linkIndex];
+			if (data == null) {
+				Link link = this.network.getLinks().get(Id.get(linkIndex, Link.class));
+				if (link == null) {
+					continue;
+				}
+				data = new TravelTimeDataArray(link, this.numSlots);
+				this.linkData[linkIndex] = data;
+			}
+			data.addTravelTimes((int) key, buffer.travelTimeSums[i], buffer.counts[i]);
+			data.setNeedsConsolidation(true);
+		}
+		buffer.clear();
+	}
+
+	private double getLinkTravelTime(Link link, double time) {
+		if (!this.merged) {
+			merge();
+		}
+		int linkIndex = link.getId().index();
+		TravelTimeDataArray[] linkData = this.linkData;
+		TravelTimeDataArray data = linkIndex < linkData.length ? linkData[linkIndex] : null;
+		if (data == null) {
+			// no vehicle left the link yet
+			return link.getLength() / link.getFreespeed(time);
+		}
+		if (data.isNeedingConsolidation()) {
+			TravelTimeCalculator.consolidateData(data, this.numSlots, this.timeSlice);
+		}
+		return this.travelTimeGetter.getTravelTime(data, time);
+	}
+
+	public TravelTime getLinkTravelTimes() {
+		return (link, time, person, vehicle) -> {
+			double linkTtimeFromVehicle = 0.0;
+			if (vehicle != null && vehicle.getType() != null) {
+				linkTtimeFromVehicle = link.getLength() / vehicle.getType().getMaximumVelocity();
+			}
+			// the observed travel time must not be lower than what the vehicle can achieve, see TravelTimeCalculator
+			return Math.max(linkTtimeFromVehicle, getLinkTravelTime(link, time));
+		};
+	}
+
+	private static final class VehicleChunk {
+		final int[] linkIndices = new int[CHUNK_SIZE]; // -1 if the vehicle did not enter a link
+		final double[] enterTimes = new double[CHUNK_SIZE];
+		final boolean[] ignored = new boolean[CHUNK_SIZE];
+
+		VehicleChunk() {
+			Arrays.fill(this.linkIndices, -1);
+		}
+	}
+
+	/**
+	 * Sums up the travel times per link and time bin observed by a single thread, in an open addressing hash table of
+	 * fixed size.
+	 */
+	private static final class LinkBuffer {
+		private static final int CAPACITY_BITS = 14;
+		static final int CAPACITY = 1 << CAPACITY_BITS;
+		private static final int MAX_SIZE = CAPACITY / 4 * 3;
+		static final long EMPTY = -1;
+
+		final long[] keys = new long[CAPACITY]; // link index in the upper, time slot in the lower 32 bits
+		final double[] travelTimeSums = new double[CAPACITY];
+		final int[] counts = new int[CAPACITY];
+		private int size = 0;
+
+		LinkBuffer() {
+			Arrays.fill(this.keys, EMPTY);
+		}
+
+		/**
+		 * @return <code>true</code> if the buffer is full and has to be flushed
+		 */
+		boolean add(int linkIndex, int timeSlot, double travelTime) {
+			long key = ((long) linkIndex << 32) | timeSlot;
+			int i = (int) ((key * 0x9E3779B97F4A7C15L) >>> (64 - CAPACITY_BITS));
+			while (this.keys[i] != key) {
+				if (this.keys[i] == EMPTY) {
+					this.keys[i] = key;
+					this.size++;
+					break;
+				}
+				i = (i + 1) & (CAPACITY - 1);
+			}
+			this.counts[i]++;
+			this.travelTimeSums[i] += travelTime;
+			return this.size >= MAX_SIZE;
+		}
+
+		void clear() {
+			if (this.size > 0) {
+				Arrays.fill(this.keys, EMPTY);
+				Arrays.fill(this.travelTimeSums, 0);
+				Arrays.fill(this.counts, 0);
+				this.size = 0;
+			}
+		}
+	}
+}
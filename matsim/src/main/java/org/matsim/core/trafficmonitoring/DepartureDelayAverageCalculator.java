@@ -23,7 +23,6 @@ package org.matsim.core.trafficmonitoring;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.matsim.api.core.v01.Id;
-import org.matsim.api.core.v01.IdMap;
 import org.matsim.api.core.v01.events.LinkLeaveEvent;
 import org.matsim.api.core.v01.events.PersonDepartureEvent;
 import org.matsim.api.core.v01.events.VehicleEntersTrafficEvent;
@@ -36,6 +35,7 @@ import org.matsim.api.core.v01.network.Link;
 import org.matsim.api.core.v01.network.Network;
 import org.matsim.core.events.algorithms.Vehicle2DriverEventHandler;
 
+import java.util.Arrays;
 import java.util.HashMap;
 
 /**
@@ -47,8 +47,11 @@ class DepartureDelayAverageCalculator implements PersonDepartureEventHandler, Li
 
 	private Network network;
 	private int timeBinSize;
+	private final int timeBinCount;
 	private HashMap<DepartureEvent, Double> departureEventsTimes = new HashMap<DepartureEvent, Double>();
-	private final IdMap<Link, DepartureDelayData> linkData;
+	// per link index, so sums and counts keep their full precision
+	private double[][] delaySums = new double[0][];
+	private int[][] delayCounts = new int[0][];
 	
 	private Vehicle2DriverEventHandler delegate = new Vehicle2DriverEventHandler();
 	
@@ -62,7 +65,7 @@ class DepartureDelayAverageCalculator implements PersonDepartureEventHandler, Li
 		super();
 		this.network = network;
 		this.timeBinSize = timeBinSize;
-		this.linkData = new IdMap<>(Link.class);
+		this.timeBinCount = (27*3600)/timeBinSize;	// default number of slots
 		this.resetDepartureDelays();
 	}
 
@@ -74,70 +77,31 @@ class DepartureDelayAverageCalculator implements PersonDepartureEventHandler, Li
 	 * @return departure delay estimation
 	 */
 	public double getLinkDepartureDelay(Id<Link> linkId, double departureTime) {
-		DepartureDelayData ddd = this.getDepartureDelayRole(linkId);
-		if (ddd == null) {
+		int index = getTimeSlotIndex(departureTime);
+		if (index < 0) {
+			log.warn("A departure delay for an invalid value of time was requested. Returning departureDelay = 0.0. time = " + Double.toString(departureTime));
 			return 0.0;
 		}
-		return ddd.getDepartureDelay(departureTime);
-	}
-
-	//////////////////////////////////////////////////////////////////////
-	// Implementation of link role
-	//////////////////////////////////////////////////////////////////////
-
-	/*package*/ class DepartureDelayData {
-		private double[] timeSum = null;
-		private int[] timeCnt = null;
-
-		private DepartureDelayData() {
-			this.resetDepartureDelays();
-		}
-
-		private int getTimeSlotIndex(double time) {
-			int slice = (int)(time/DepartureDelayAverageCalculator.this.timeBinSize);
-			if (slice >= timeSum.length) {
-				slice = timeSum.length - 1;
-			}
-			return slice;
-		}
-
-		public void addDepartureDelay(double departureTime, double departureDelay) {
-			int index = getTimeSlotIndex(departureTime);
-			this.timeSum[index] += departureDelay;
-			this.timeCnt[index]++;
+		int linkIndex = linkId.index();
+		if (linkIndex >= this.delaySums.length || this.delaySums[linkIndex] == null) {
+			return 0.0;
 		}
-
-		public double getDepartureDelay(double time) {
-			double departureDelay = 0.0;
-
-			try {
-				int index = getTimeSlotIndex(time);
-				double sum = 0.0;
-				sum = this.timeSum[index];
-				if (sum > 0.0) {
-					int cnt = this.timeCnt[index];
-					if (cnt > 0) {
-						departureDelay = sum / cnt;
-					}
-				}
-			} catch (ArrayIndexOutOfBoundsException e) {
-				log.warn("A departure delay for an invalid value of time was requested. Returning departureDelay = 0.0. time = " + Double.toString(time));
+		double sum = this.delaySums[linkIndex][index];
+		if (sum > 0.0) {
+			int cnt = this.delayCounts[linkIndex][index];
+			if (cnt > 0) {
+				return sum / cnt;
 			}
-
-			return departureDelay;
-
 		}
-
-		public void resetDepartureDelays() {
-			int nofSlots = ((27*3600)/DepartureDelayAverageCalculator.this.timeBinSize);	// default number of slots
-			this.timeSum = new double[nofSlots];
-			this.timeCnt = new int[nofSlots];
-		}
-
+		return 0.0;
 	}
 
-	private DepartureDelayData getDepartureDelayRole(Id<Link> linkId) {
-		return this.linkData.get(linkId);
+	private int getTimeSlotIndex(double time) {
+		int slice = (int)(time/this.timeBinSize);
+		if (slice >= this.timeBinCount) {
+			slice = this.timeBinCount - 1;
+		}
+		return slice;
 	}
 
 	@Override
@@ -155,18 +119,25 @@ class DepartureDelayAverageCalculator implements PersonDepartureEventHandler, Li
 			if (departureDelay < 0) {
 				throw new RuntimeException("departureDelay cannot be < 0.");
 			}
-			Id<Link> linkId = event.getLinkId();
-			DepartureDelayData ddd = this.getDepartureDelayRole(linkId);
-			if (ddd == null) {
-				ddd = new DepartureDelayData();
-				this.linkData.put(linkId, ddd);
+			int index = getTimeSlotIndex(departureTime);
+			int linkIndex = event.getLinkId().index();
+			if (linkIndex >= this.delaySums.length) {
+				int length = Math.max(linkIndex + 1, Id.getNumberOfIds(Link.class));
+				this.delaySums = Arrays.copyOf(this.delaySums, length);
+				this.delayCounts = Arrays.copyOf(this.delayCounts, length);
+			}
+			if (this.delaySums[linkIndex] == null) {
+				this.delaySums[linkIndex] = new double[this.timeBinCount];
+				this.delayCounts[linkIndex] = new int[this.timeBinCount];
 			}
-			ddd.addDepartureDelay(departureTime, departureDelay);
+			this.delaySums[linkIndex][index] += departureDelay;
+			this.delayCounts[linkIndex][index]++;
 		}
 	}
 
 	public void resetDepartureDelays() {
-		this.linkData.clear();
+		Arrays.fill(this.delaySums, null);
+		Arrays.fill(this.delayCounts, null);
 		this.departureEventsTimes.clear();
 	}
 
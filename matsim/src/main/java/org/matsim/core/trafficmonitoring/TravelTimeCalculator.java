@@ -400,6 +400,10 @@ public final class TravelTimeCalculator implements LinkEnterEventHandler, LinkLe
 	 *
 	 */
 	private void consolidateData(final TravelTimeData data) {
+		consolidateData(data, this.numSlots, this.timeSlice);
+	}
+
+	/* package */ static void consolidateData(final TravelTimeData data, final int numSlots, final double timeSlice) {
 		synchronized(data) {
 			if ( data.isNeedingConsolidation() ) {
 
@@ -411,13 +415,13 @@ public final class TravelTimeCalculator implements LinkEnterEventHandler, LinkLe
 				// unit tests.  kai, oct'11
 
 				// go from time slot 1 forward in time:
-				for (int i = 1; i < this.numSlots; i++) {
+				for (int i = 1; i < numSlots; i++) {
 
 					// once more the getter is weird since it needs both the time slot and the time:
-					double travelTime = data.getTravelTime(i, i * this.timeSlice );
+					double travelTime = data.getTravelTime(i, i * timeSlice );
 
 					// if the travel time in the previous time slice was X, then now it is X-S, where S is the time slice:
-					double minTravelTime = prevTravelTime - this.timeSlice;
+					double minTravelTime = prevTravelTime - timeSlice;
 
 					// if the travel time that has been measured so far is less than that minimum travel time, then do something:
 					if (travelTime < minTravelTime) {
@@ -35,6 +35,8 @@ import org.matsim.core.router.util.LinkToLinkTravelTime;
 import org.matsim.core.router.util.TravelTime;
 import org.matsim.core.utils.collections.CollectionUtils;
 
+import java.util.Set;
+
 import jakarta.inject.Inject;
 import jakarta.inject.Provider;
 
@@ -50,6 +52,10 @@ public class TravelTimeCalculatorModule extends AbstractModule {
 
 	@Override
 	public void install() {
+		if (getConfig().travelTimeCalculator().getCalculatorType() == TravelTimeCalculatorConfigGroup.CalculatorType.concurrent) {
+			installConcurrent();
+			return;
+		}
 		if (getConfig().travelTimeCalculator().getSeparateModes()) {
 			// (this is the default)
 
@@ -99,6 +105,31 @@ public class TravelTimeCalculatorModule extends AbstractModule {
 
 	}
 
+	private void installConcurrent() {
+		if (getConfig().travelTimeCalculator().isCalculateLinkToLinkTravelTimes()) {
+			throw new RuntimeException("link-to-link travel times are not supported by " + ConcurrentTravelTimeCalculator.class.getSimpleName()
+					+ ", use the standard travel time calculator instead.");
+		}
+		if (getConfig().travelTimeCalculator().getSeparateModes()) {
+			for (final String mode : getConfig().routing().getNetworkModes()) {
+				bind(ConcurrentTravelTimeCalculator.class).annotatedWith(Names.named(mode)).toProvider(new ConcurrentTravelTimeCalculatorProvider(Set.of(mode))).in(Singleton.class);
+				addTravelTimeBinding(mode).toProvider(new Provider<TravelTime>() {
+					@Inject Injector injector;
+					@Override public TravelTime get() {
+						return injector.getInstance(Key.get(ConcurrentTravelTimeCalculator.class, Names.named(mode))).getLinkTravelTimes();
+					}
+				}).in(Singleton.class);
+			}
+		} else {
+			bind(ConcurrentTravelTimeCalculator.class).toProvider(new ConcurrentTravelTimeCalculatorProvider(null)).in(Singleton.class);
+			if (getConfig().travelTimeCalculator().isCalculateLinkTravelTimes()) {
+				for (String mode : getConfig().routing().getNetworkModes()) {
+					addTravelTimeBinding(mode).toProvider(ObservedConcurrentLinkTravelTimes.class);
+				}
+			}
+		}
+	}
+
 	private static class SingleModeTravelTimeCalculatorProvider implements Provider<TravelTimeCalculator> {
 
 		@Inject TravelTimeCalculatorConfigGroup config;
@@ -131,6 +162,42 @@ public class TravelTimeCalculatorModule extends AbstractModule {
 		}
 	}
 
+	private static class ConcurrentTravelTimeCalculatorProvider implements Provider<ConcurrentTravelTimeCalculator> {
+
+		@Inject TravelTimeCalculatorConfigGroup config;
+		@Inject EventsManager eventsManager;
+		@Inject Network network;
+
+		private final Set<String> modes;
+
+		/**
+		 * @param modes the analyzed modes, or <code>null</code> to use the modes from the config
+		 */
+		ConcurrentTravelTimeCalculatorProvider(Set<String> modes) {
+			this.modes = modes;
+		}
+
+		@Override
+		public ConcurrentTravelTimeCalculator get() {
+			ConcurrentTravelTimeCalculator calculator = this.modes == null ? new ConcurrentTravelTimeCalculator(network, config)
+					: new ConcurrentTravelTimeCalculator(network, config, this.modes);
+			eventsManager.addHandler(calculator);
+			return calculator;
+		}
+	}
+
+	private static class ObservedConcurrentLinkTravelTimes implements Provider<TravelTime> {
+
+		@Inject
+		ConcurrentTravelTimeCalculator travelTimeCalculator;
+
+		@Override
+		public TravelTime get() {
+			return travelTimeCalculator.getLinkTravelTimes();
+		}
+
+	}
+
 	private static class ObservedLinkTravelTimes implements Provider<TravelTime> {
 
 		@Inject
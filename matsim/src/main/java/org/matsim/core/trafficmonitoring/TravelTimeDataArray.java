@@ -105,6 +105,20 @@ class TravelTimeDataArray extends TravelTimeData {
 		this.data[timeSlot] = encode(cnt, sum / cnt);
 	}
 
+	/**
+	 * Adds several travel times at once, e.g. when merging data collected by different threads.
+	 */
+	void addTravelTimes(final int timeSlot, final double traveltimeSum, final int count) {
+		long val = this.data[timeSlot];
+		int cnt = count(val);
+		double sum = traveltime(val) * cnt;
+
+		sum += traveltimeSum;
+		cnt += count;
+
+		this.data[timeSlot] = encode(cnt, sum / cnt);
+	}
+
 	@Override
 	public double getTravelTime(final int timeSlot, final double now) {
 		long val = this.data[timeSlot];
@@ -72,6 +72,7 @@ public abstract class MatsimXmlParser extends DefaultHandler implements MatsimRe
 	private final boolean preferLocalDtds;
 
 	private String doctype = null;
+	private boolean pipelined = false;
 	/**
 	 * As the mechanism implemented in InputSource is not really working for error handling
 	 * the source to be parsed is stored here for error handling.
@@ -129,6 +130,20 @@ public abstract class MatsimXmlParser extends DefaultHandler implements MatsimRe
 		this.isNamespaceAware = awareness;
 	}
 
+	/**
+	 * Sets, if the XML should be parsed in a pipeline of threads: one thread reads and decompresses the input, one thread
+	 * tokenizes the XML, and the calling thread receives the tags in batches and calls {@link #startTag} and {@link #endTag}.
+	 * This is useful for large files where creating the objects for the tags takes about as long as parsing the XML.
+	 * <p></p>
+	 * Only the tags and {@link #endDocument()} are passed to the calling thread. Subclasses enabling the pipeline must
+	 * thus not override the other methods of the <code>ContentHandler</code>, like {@link #characters}.
+	 *
+	 * @param pipelined Whether the XML should be parsed in a pipeline of threads or not.
+	 */
+	public final void setPipelined(final boolean pipelined) {
+		this.pipelined = pipelined;
+	}
+
 	/**
 	 * Sets the directory where to look for DTD and XSD files if they are not found
 	 * at the location specified in the XML.
@@ -178,6 +193,17 @@ public abstract class MatsimXmlParser extends DefaultHandler implements MatsimRe
 	}
 
 	public final void parse(final InputSource input) throws UncheckedIOException {
+		if (this.pipelined) {
+			new XmlParsingPipeline(this).parse(input);
+		} else {
+			parse(input, this);
+		}
+	}
+
+	/**
+	 * Parses the input with the given handler, which receives all callbacks of the SAX parser.
+	 */
+	final void parse(final InputSource input, final DefaultHandler handler) throws UncheckedIOException {
 		try {
 			boolean validating = this.isValidating && this.validationType != ValidationType.NO_VALIDATION;
 			boolean useWstxParser = !validating || this.validationType == ValidationType.DTD_ONLY;
@@ -194,13 +220,13 @@ public abstract class MatsimXmlParser extends DefaultHandler implements MatsimRe
 					factory.setFeature("http://xml.org/sax/features/validation", true); // required to enable DTD validation in Woodstox
 					SAXParser parser = factory.newSAXParser();
 					XMLReader reader = parser.getXMLReader();
-					reader.setContentHandler(this);
-					reader.setErrorHandler(this);
-					reader.setEntityResolver(this);
+					reader.setContentHandler(handler);
+					reader.setErrorHandler(handler);
+					reader.setEntityResolver(handler);
 					reader.parse(input);
 				} else {
 					SAXParser parser = factory.newSAXParser();
-					parser.parse(input, this);
+					parser.parse(input, handler);
 				}
 
 			} else {
@@ -216,13 +242,13 @@ public abstract class MatsimXmlParser extends DefaultHandler implements MatsimRe
 					factory.setFeature("http://apache.org/xml/features/validation/schema", true);
 					SAXParser parser = factory.newSAXParser();
 					XMLReader reader = parser.getXMLReader();
-					reader.setContentHandler(this);
-					reader.setErrorHandler(this);
-					reader.setEntityResolver(this);
+					reader.setContentHandler(handler);
+					reader.setErrorHandler(handler);
+					reader.setEntityResolver(handler);
 					reader.parse(input);
 				} else {
 					SAXParser parser = factory.newSAXParser();
-					parser.parse(input, this);
+					parser.parse(input, handler);
 				}
 			}
 		} catch (IOException e) {
@@ -378,6 +404,18 @@ public abstract class MatsimXmlParser extends DefaultHandler implements MatsimRe
 		this.endTag(tag, buffer.toString(), this.theContext);
 	}
 
+	/* called by XmlParsingPipeline on the thread that started parsing */
+
+	final void pipelinedStartTag(final String name, final Attributes atts) {
+		this.startTag(name, atts, this.theContext);
+		this.theContext.push(name);
+	}
+
+	final void pipelinedEndTag(final String name, final String content) {
+		this.theContext.pop();
+		this.endTag(name, content, this.theContext);
+	}
+
 	/* implement ErrorHandler */
 
 	@Override
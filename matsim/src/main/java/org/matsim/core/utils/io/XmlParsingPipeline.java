@@ -0,0 +1,318 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * XmlParsingPipeline.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2023 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.utils.io;
+
+import org.xml.sax.Attributes;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.SAXParseException;
+import org.xml.sax.helpers.AttributesImpl;
+import org.xml.sax.helpers.DefaultHandler;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Stack;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Parses XML for a {@link MatsimXmlParser} in a pipeline of threads. If the input is a character stream, a read-ahead
+ * thread reads (and thereby decompresses) it in chunks. The SAX parser runs in a second thread and passes the tags in
+ * batches to the calling thread, which calls {@link MatsimXmlParser#startTag} and {@link MatsimXmlParser#endTag}. The
+ * tags are thus passed to the parser in the same order and on the same thread as without the pipeline.
+ *
+ * @see MatsimXmlParser#setPipelined(boolean)
+ */
+final class XmlParsingPipeline {
+
+	private static final int BATCH_SIZE = 1024;
+	private static final int QUEUED_BATCHES = 32;
+
+	private final MatsimXmlParser parser;
+	private final BlockingQueue<List<Tag>> queue = new ArrayBlockingQueue<>(QUEUED_BATCHES);
+	private volatile boolean aborted = false;
+	private volatile Throwable producerException = null;
+
+	XmlParsingPipeline(MatsimXmlParser parser) {
+		this.parser = parser;
+	}
+
+	void parse(InputSource input) throws UncheckedIOException {
+		ReadAheadReader readAheadReader = null;
+		if (input.getCharacterStream() != null) {
+			readAheadReader = new ReadAheadReader(input.getCharacterStream());
+			input.setCharacterStream(readAheadReader);
+		}
+
+		Producer handler = new Producer();
+		Thread producer = new Thread(() -> {
+			try {
+				this.parser.parse(input, handler);
+			} catch (Throwable e) {
+				this.producerException = e;
+			} finally {
+				// also passes the tags before an error to the consumer, like a parser without pipeline does
+				handler.flushLast();
+			}
+		}, "XmlParsingPipeline");
+		producer.setDaemon(true);
+		producer.start();
+
+		try {
+			consume();
+		} catch (RuntimeException | Error e) {
+			// stop the producer, it might wait for space in the queue
+			this.aborted = true;
+			this.queue.clear();
+			producer.interrupt();
+			throw e;
+		} finally {
+			try {
+				producer.join();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			if (readAheadReader != null) {
+				readAheadReader.stop();
+			}
+		}
+
+		Throwable e = this.producerException;
+		if (e instanceof RuntimeException re) {
+			throw re;
+		}
+		if (e instanceof Error error) {
+			throw error;
+		}
+		if (e != null) {
+			throw new UncheckedIOException(new IOException(e));
+		}
+	}
+
+	private void consume() {
+		try {
+			while (true) {
+				for (Tag tag : this.queue.take()) {
+					switch (tag.type) {
+						case START -> this.parser.pipelinedStartTag(tag.name, tag.atts);
+						case END -> this.parser.pipelinedEndTag(tag.name, tag.content);
+						case END_DOCUMENT -> this.parser.endDocument();
+						case LAST -> {
+							return;
+						}
+					}
+				}
+			}
+		} catch (InterruptedException e) {
+			throw new RuntimeException(e);
+		} catch (SAXException e) {
+			throw new UncheckedIOException(new IOException(e));
+		}
+	}
+
+	private enum TagType { START, END, END_DOCUMENT, LAST }
+
+	private record Tag(TagType type, String name, Attributes atts, String content) {
+	}
+
+	/**
+	 * Receives the callbacks of the SAX parser and collects the tags in batches.
+	 */
+	private final class Producer extends DefaultHandler {
+
+		private final Stack<StringBuilder> buffers = new Stack<>();
+		private List<Tag> batch = new ArrayList<>(BATCH_SIZE);
+
+		@Override
+		public void characters(char[] ch, int start, int length) {
+			if (!this.buffers.isEmpty()) {
+				this.buffers.peek().append(ch, start, length);
+			}
+		}
+
+		@Override
+		public void startElement(String uri, String localName, String qName, Attributes atts) throws SAXException {
+			String tag = (uri.length() == 0) ? qName : localName;
+			this.buffers.push(new StringBuilder());
+			// the attributes have to be copied, as the parser re-uses the object
+			add(new Tag(TagType.START, tag, new AttributesImpl(atts), null));
+		}
+
+		@Override
+		public void endElement(String uri, String localName, String qName) throws SAXException {
+			String tag = (uri.length() == 0) ? qName : localName;
+			add(new Tag(TagType.END, tag, null, this.buffers.pop().toString()));
+		}
+
+		@Override
+		public void endDocument() throws SAXException {
+			add(new Tag(TagType.END_DOCUMENT, null, null, null));
+		}
+
+		private void add(Tag tag) throws SAXException {
+			this.batch.add(tag);
+			if (this.batch.size() == BATCH_SIZE) {
+				flush();
+			}
+		}
+
+		private void flush() throws SAXException {
+			if (aborted) {
+				throw new SAXException("parsing was aborted.");
+			}
+			try {
+				queue.put(this.batch);
+			} catch (InterruptedException e) {
+				throw new SAXException(e);
+			}
+			this.batch = new ArrayList<>(BATCH_SIZE);
+		}
+
+		private void flushLast() {
+			if (aborted) {
+				return;
+			}
+			this.batch.add(new Tag(TagType.LAST, null, null, null));
+			try {
+				queue.put(this.batch);
+			} catch (InterruptedException e) {
+				// the consumer stopped
+			}
+		}
+
+		@Override
+		public InputSource resolveEntity(String publicId, String systemId) {
+			return parser.resolveEntity(publicId, systemId);
+		}
+
+		@Override
+		public void error(SAXParseException ex) throws SAXException {
+			parser.error(ex);
+		}
+
+		@Override
+		public void fatalError(SAXParseException ex) throws SAXException {
+			parser.fatalError(ex);
+		}
+
+		@Override
+		public void warning(SAXParseException ex) throws SAXException {
+			parser.warning(ex);
+		}
+	}
+
+	/**
+	 * Reads the underlying reader in a separate thread into a queue of chunks.
+	 */
+	private static final class ReadAheadReader extends Reader {
+
+		private static final int CHUNK_SIZE = 64 * 1024;
+		private static final char[] END = new char[0];
+
+		private final Reader reader;
+		private final BlockingQueue<char[]> chunks = new ArrayBlockingQueue<>(16);
+		private final Thread thread;
+		private volatile IOException exception = null;
+		private volatile boolean stopped = false;
+		private char[] chunk = null;
+		private int position = 0;
+
+		ReadAheadReader(Reader reader) {
+			this.reader = reader;
+			this.thread = new Thread(this::readAhead, "XmlParsingPipeline-read");
+			this.thread.setDaemon(true);
+			this.thread.start();
+		}
+
+		private void readAhead() {
+			try {
+				while (!this.stopped) {
+					char[] buffer = new char[CHUNK_SIZE];
+					int length = this.reader.read(buffer, 0, CHUNK_SIZE);
+					if (length < 0) {
+						break;
+					}
+					this.chunks.put(length == CHUNK_SIZE ? buffer : Arrays.copyOf(buffer, length));
+				}
+			} catch (IOException e) {
+				this.exception = e;
+			} catch (InterruptedException e) {
+				return;
+			}
+			try {
+				this.chunks.put(END);
+			} catch (InterruptedException e) {
+				// stopped
+			}
+		}
+
+		@Override
+		public int read(char[] cbuf, int off, int len) throws IOException {
+			if (len == 0) {
+				return 0;
+			}
+			if (this.chunk == null || this.position == this.chunk.length) {
+				if (this.chunk == END) {
+					return -1;
+				}
+				try {
+					this.chunk = this.chunks.take();
+				} catch (InterruptedException e) {
+					throw new IOException(e);
+				}
+				this.position = 0;
+				if (this.chunk == END) {
+					if (this.exception != null) {
+						throw this.exception;
+					}
+					return -1;
+				}
+			}
+			int length = Math.min(len, this.chunk.length - this.position);
+			System.arraycopy(this.chunk, this.position, cbuf, off, length);
+			this.position += length;
+			return length;
+		}
+
+		@Override
+		public void close() {
+			// the parser might close the stream before it was read completely, so only stop at the end of parsing
+		}
+
+		void stop() {
+			this.stopped = true;
+			this.thread.interrupt();
+			this.chunks.clear();
+			try {
+				this.thread.join();
+				this.reader.close();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}
+	}
+}
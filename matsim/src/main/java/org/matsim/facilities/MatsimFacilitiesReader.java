@@ -25,6 +25,7 @@ import org.apache.logging.log4j.Logger;
 import org.matsim.api.core.v01.Scenario;
 import org.matsim.core.utils.geometry.CoordinateTransformation;
 import org.matsim.core.utils.io.MatsimXmlParser;
+import org.matsim.utils.FeatureFlags;
 import org.matsim.utils.objectattributes.AttributeConverter;
 import org.xml.sax.Attributes;
 
@@ -107,6 +108,7 @@ public class MatsimFacilitiesReader extends MatsimXmlParser {
             final String targetCRS,
             final ActivityFacilities facilities) {
         super(ValidationType.DTD_ONLY);
+        setPipelined(FeatureFlags.useParallelIO());
         this.externalInputCRS = externalInputCRS;
         this.targetCRS = targetCRS;
         this.facilities = facilities;
@@ -21,11 +21,36 @@
 
  package org.matsim.pt.router;
 
+import org.matsim.api.core.v01.Id;
 import org.matsim.api.core.v01.events.Event;
+import org.matsim.pt.transitSchedule.api.TransitLine;
+
+import java.util.Collections;
+import java.util.Set;
 
 public class TransitScheduleChangedEvent extends Event {
+
+    private final Set<Id<TransitLine>> changedTransitLineIds;
+
     public TransitScheduleChangedEvent(double time) {
+        this(time, null);
+    }
+
+    /**
+     * @param changedTransitLineIds the ids of all transit lines that were added, removed or modified, allowing routers to
+     *                              only update the data of these lines. <code>null</code> if the changes are not known.
+     */
+    public TransitScheduleChangedEvent(double time, Set<Id<TransitLine>> changedTransitLineIds) {
         super(time);
+        this.changedTransitLineIds = changedTransitLineIds == null ? null : Collections.unmodifiableSet(changedTransitLineIds);
+    }
+
+    /**
+     * @return the ids of all changed transit lines, or <code>null</code> if the changes are not known and the complete
+     * transit schedule has to be considered as changed.
+     */
+    public Set<Id<TransitLine>> getChangedTransitLineIds() {
+        return this.changedTransitLineIds;
     }
 
     @Override
@@ -28,6 +28,7 @@ import org.matsim.core.utils.geometry.transformations.TransformationFactory;
 import org.matsim.core.utils.io.MatsimXmlParser;
 import org.matsim.pt.transitSchedule.TransitScheduleReaderV1;
 import org.matsim.pt.transitSchedule.TransitScheduleReaderV2;
+import org.matsim.utils.FeatureFlags;
 import org.xml.sax.Attributes;
 import org.xml.sax.SAXException;
 
@@ -90,6 +91,7 @@ public class TransitScheduleReader implements MatsimReader {
 
 		public XmlScheduleReader(String externalInputCRS, String targetCRS, Scenario scenario) {
 			super(ValidationType.DTD_ONLY);
+			setPipelined(FeatureFlags.useParallelIO());
 			this.externalInputCRS = externalInputCRS;
 			this.targetCRS = targetCRS;
 			this.scenario = scenario;
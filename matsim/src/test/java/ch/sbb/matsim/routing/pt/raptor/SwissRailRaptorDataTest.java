@@ -21,14 +21,26 @@ package ch.sbb.matsim.routing.pt.raptor;
 
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
 import org.matsim.api.core.v01.Id;
+import org.matsim.pt.transitSchedule.api.TransitLine;
 import org.matsim.pt.transitSchedule.api.TransitStopFacility;
+import org.matsim.testcases.MatsimTestUtils;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
 
 /**
  * @author mrieser / SBB
  */
 public class SwissRailRaptorDataTest {
 
+	@RegisterExtension
+	private MatsimTestUtils utils = new MatsimTestUtils();
+
 	@Test
 	void testTransfersFromSchedule() {
         Fixture f = new Fixture();
@@ -97,4 +109,87 @@ public class SwissRailRaptorDataTest {
         Assertions.assertEquals(data2.transfers.length, data4.transfers.length, "number of transfers should have stayed the same.");
     }
 
+	@Test
+	void testTransfersFromCache() {
+		Fixture f = new Fixture();
+		f.init();
+
+		RaptorStaticConfig raptorConfig = RaptorUtils.createStaticConfig(f.config);
+		raptorConfig.setDataCacheDirectory(Path.of(this.utils.getOutputDirectory()));
+		SwissRailRaptorData data = SwissRailRaptorData.create(f.schedule, null, raptorConfig, f.network, null);
+		File[] cacheFiles = new File(this.utils.getOutputDirectory()).listFiles((dir, name) -> name.endsWith(".bin"));
+		Assertions.assertEquals(1, cacheFiles.length, "cache file should have been written.");
+
+		SwissRailRaptorData cachedData = SwissRailRaptorData.create(f.schedule, null, raptorConfig, f.network, null);
+		Assertions.assertEquals(data.transfers.length, cachedData.transfers.length, "wrong number of cached transfers.");
+		for (int i = 0; i < data.transfers.length; i++) {
+			SwissRailRaptorData.RTransfer expected = data.transfers[i];
+			SwissRailRaptorData.RTransfer actual = cachedData.transfers[i];
+			Assertions.assertEquals(expected.fromRouteStop, actual.fromRouteStop);
+			Assertions.assertEquals(expected.toRouteStop, actual.toRouteStop);
+			Assertions.assertEquals(expected.transferTime, actual.transferTime);
+			Assertions.assertEquals(expected.transferDistance, actual.transferDistance);
+		}
+		for (int i = 0; i < data.routeStops.length; i++) {
+			Assertions.assertEquals(data.routeStops[i].indexFirstTransfer, cachedData.routeStops[i].indexFirstTransfer);
+			Assertions.assertEquals(data.routeStops[i].countTransfers, cachedData.routeStops[i].countTransfers);
+		}
+
+		// a changed minimal transfer time must not use the cached transfers
+		Id<TransitStopFacility> stopId9 = Id.create(9, TransitStopFacility.class);
+		Id<TransitStopFacility> stopId19 = Id.create(19, TransitStopFacility.class);
+		f.schedule.getMinimalTransferTimes().set(stopId19, stopId9, 345);
+		SwissRailRaptorData data2 = SwissRailRaptorData.create(f.schedule, null, raptorConfig, f.network, null);
+		Assertions.assertEquals(data.transfers.length + 1, data2.transfers.length, "number of transfers should have increased.");
+		cacheFiles = new File(this.utils.getOutputDirectory()).listFiles((dir, name) -> name.endsWith(".bin"));
+		Assertions.assertEquals(2, cacheFiles.length, "a second cache file should have been written.");
+	}
+
+	@Test
+	void testUpdate() {
+		Fixture f = new Fixture();
+		f.init();
+
+		RaptorStaticConfig raptorConfig = RaptorUtils.createStaticConfig(f.config);
+		SwissRailRaptorData data = SwissRailRaptorData.create(f.schedule, null, raptorConfig, f.network, null);
+		Set<Id<TransitLine>> changedLineIds = Set.of(f.blueLine.getId());
+
+		// remove a line
+		f.schedule.removeTransitLine(f.blueLine);
+		SwissRailRaptorData updatedData = data.update(f.schedule, null, f.network, changedLineIds);
+		SwissRailRaptorData expectedData = SwissRailRaptorData.create(f.schedule, null, raptorConfig, f.network, null);
+		Assertions.assertTrue(updatedData.transfers.length < data.transfers.length, "number of transfers should have decreased.");
+		Assertions.assertEquals(describeTransfers(expectedData), describeTransfers(updatedData));
+		assertTransferIndices(updatedData);
+
+		// add the line again
+		f.schedule.addTransitLine(f.blueLine);
+		SwissRailRaptorData updatedData2 = updatedData.update(f.schedule, null, f.network, changedLineIds);
+		Assertions.assertEquals(describeTransfers(data), describeTransfers(updatedData2));
+		assertTransferIndices(updatedData2);
+	}
+
+	private static List<String> describeTransfers(SwissRailRaptorData data) {
+		List<String> transfers = new ArrayList<>();
+		for (SwissRailRaptorData.RTransfer t : data.transfers) {
+			transfers.add(describeRouteStop(data, t.fromRouteStop) + " > " + describeRouteStop(data, t.toRouteStop) + " " + t.transferTime + " " + t.transferDistance);
+		}
+		transfers.sort(null);
+		return transfers;
+	}
+
+	private static String describeRouteStop(SwissRailRaptorData data, int routeStopIndex) {
+		SwissRailRaptorData.RRouteStop routeStop = data.routeStops[routeStopIndex];
+		int indexInRoute = routeStopIndex - data.routes[routeStop.transitRouteIndex].indexFirstRouteStop;
+		return routeStop.line.getId() + "/" + routeStop.route.getId() + "/" + indexInRoute;
+	}
+
+	private static void assertTransferIndices(SwissRailRaptorData data) {
+		for (SwissRailRaptorData.RRouteStop routeStop : data.routeStops) {
+			for (int i = 0; i < routeStop.countTransfers; i++) {
+				Assertions.assertEquals(routeStop.index, data.transfers[routeStop.indexFirstTransfer + i].fromRouteStop);
+			}
+		}
+	}
+
 }
@@ -400,6 +400,122 @@ public class SwissRailRaptorTreeTest {
         Assertions.assertNull(stage5.line); // egress_walk
     }
 
+	@Test
+	void testTreeProfile_singleDeparture() {
+        Fixture f = new Fixture();
+        f.init();
+
+        RaptorStaticConfig config = RaptorUtils.createStaticConfig(f.config);
+        config.setOptimization(RaptorStaticConfig.RaptorOptimization.OneToAllRouting);
+        SwissRailRaptorData data = SwissRailRaptorData.create(f.scenario.getTransitSchedule(), null, config, f.scenario.getNetwork(), null);
+        SwissRailRaptor raptor = new SwissRailRaptor.Builder(data, f.scenario.getConfig()).build();
+
+        RaptorParameters raptorParams = RaptorUtils.createParameters(f.config);
+
+        // the green line departs at N every 10 minutes, so only the departure at 07:41 is in this range
+        TransitStopFacility fromStop = f.schedule.getFacilities().get(Id.create(23, TransitStopFacility.class));
+        Map<Id<TransitStopFacility>, TravelInfo> tree = raptor.calcTree(fromStop, 7*3600 + 40*60, raptorParams, null);
+        Map<Id<TransitStopFacility>, List<TravelInfo>> profile = raptor.calcTreeProfile(List.of(fromStop), 7*3600 + 40*60, 7*3600 + 42*60, raptorParams, null);
+
+        for (Map.Entry<Id<TransitStopFacility>, TravelInfo> e : tree.entrySet()) {
+            TravelInfo expected = e.getValue();
+            if (expected.isWalkOnly()) {
+                continue;
+            }
+            List<TravelInfo> infos = profile.get(e.getKey());
+            Assertions.assertNotNull(infos, "Stop " + e.getKey() + " is not reachable.");
+            Assertions.assertEquals(1, infos.size(), "Stop " + e.getKey() + " should be reached by exactly one journey.");
+            TravelInfo actual = infos.get(0);
+            Assertions.assertEquals(expected.transferCount, actual.transferCount, "wrong number of transfers to stop " + e.getKey());
+            Assertions.assertEquals(expected.ptDepartureTime, actual.ptDepartureTime, 1e-7, "wrong departure time to stop " + e.getKey());
+            Assertions.assertEquals(expected.ptArrivalTime, actual.ptArrivalTime, 1e-7, "wrong arrival time at stop " + e.getKey());
+        }
+    }
+
+	@Test
+	void testTreeProfile_range() {
+        Fixture f = new Fixture();
+        f.init();
+
+        RaptorStaticConfig config = RaptorUtils.createStaticConfig(f.config);
+        config.setOptimization(RaptorStaticConfig.RaptorOptimization.OneToAllRouting);
+        SwissRailRaptorData data = SwissRailRaptorData.create(f.scenario.getTransitSchedule(), null, config, f.scenario.getNetwork(), null);
+        SwissRailRaptor raptor = new SwissRailRaptor.Builder(data, f.scenario.getConfig()).build();
+
+        RaptorParameters raptorParams = RaptorUtils.createParameters(f.config);
+
+        TransitStopFacility fromStop = f.schedule.getFacilities().get(Id.create(23, TransitStopFacility.class));
+        double earliestDepTime = 7*3600 + 30*60;
+        double latestDepTime = 8*3600;
+        Map<Id<TransitStopFacility>, List<TravelInfo>> profile = raptor.calcTreeProfile(List.of(fromStop), earliestDepTime, latestDepTime, raptorParams, null);
+
+        // the departures at 07:31, 07:41 and 07:51 are in the range
+        assertJourneyCount(profile, 18, 3);
+        for (Map.Entry<Id<TransitStopFacility>, List<TravelInfo>> e : profile.entrySet()) {
+            List<TravelInfo> infos = e.getValue();
+            Assertions.assertFalse(infos.isEmpty());
+            for (int i = 0; i < infos.size(); i++) {
+                TravelInfo info = infos.get(i);
+                Assertions.assertTrue(info.ptDepartureTime >= earliestDepTime && info.ptDepartureTime <= latestDepTime, "departure out of range to stop " + e.getKey());
+                if (i > 0) {
+                    Assertions.assertTrue(info.ptDepartureTime < infos.get(i - 1).ptDepartureTime, "journeys to stop " + e.getKey() + " are not ordered by departure time");
+                }
+            }
+        }
+    }
+
+	@Test
+	void testTreeProfile_noStateBetweenDepartures() {
+        Fixture f = new Fixture();
+        f.init();
+
+        RaptorStaticConfig config = RaptorUtils.createStaticConfig(f.config);
+        config.setOptimization(RaptorStaticConfig.RaptorOptimization.OneToAllRouting);
+        SwissRailRaptorData data = SwissRailRaptorData.create(f.scenario.getTransitSchedule(), null, config, f.scenario.getNetwork(), null);
+        SwissRailRaptor raptor = new SwissRailRaptor.Builder(data, f.scenario.getConfig()).build();
+
+        RaptorParameters raptorParams = RaptorUtils.createParameters(f.config);
+
+        TransitStopFacility fromStop = f.schedule.getFacilities().get(Id.create(23, TransitStopFacility.class));
+        Map<Id<TransitStopFacility>, List<TravelInfo>> range = raptor.calcTreeProfile(List.of(fromStop), 7*3600 + 30*60, 8*3600, raptorParams, null);
+        // only the departure at 07:31
+        Map<Id<TransitStopFacility>, List<TravelInfo>> single = raptor.calcTreeProfile(List.of(fromStop), 7*3600 + 30*60, 7*3600 + 32*60, raptorParams, null);
+
+        // the journeys of the earliest departure, which is handled last, must be the same as without the later departures
+        for (Map.Entry<Id<TransitStopFacility>, List<TravelInfo>> e : range.entrySet()) {
+            for (TravelInfo actual : e.getValue()) {
+                if (actual.ptDepartureTime > 7*3600 + 32*60) {
+                    continue;
+                }
+                List<TravelInfo> infos = single.get(e.getKey());
+                Assertions.assertNotNull(infos, "Stop " + e.getKey() + " is not reachable by the single departure.");
+                TravelInfo expected = infos.get(0);
+                Assertions.assertEquals(expected.transferCount, actual.transferCount, "wrong number of transfers to stop " + e.getKey());
+                Assertions.assertEquals(expected.ptDepartureTime, actual.ptDepartureTime, 1e-7, "wrong departure time to stop " + e.getKey());
+                Assertions.assertEquals(expected.ptArrivalTime, actual.ptArrivalTime, 1e-7, "wrong arrival time at stop " + e.getKey());
+                Assertions.assertEquals(expected.travelCost, actual.travelCost, 1e-7, "wrong cost to stop " + e.getKey());
+            }
+        }
+
+        // a second calculation with the same instance must not see any state of the first one
+        Map<Id<TransitStopFacility>, List<TravelInfo>> again = raptor.calcTreeProfile(List.of(fromStop), 7*3600 + 30*60, 8*3600, raptorParams, null);
+        Assertions.assertEquals(range.keySet(), again.keySet());
+        for (Map.Entry<Id<TransitStopFacility>, List<TravelInfo>> e : range.entrySet()) {
+            List<TravelInfo> infos = again.get(e.getKey());
+            Assertions.assertEquals(e.getValue().size(), infos.size(), "wrong number of journeys to stop " + e.getKey());
+            for (int i = 0; i < infos.size(); i++) {
+                Assertions.assertEquals(e.getValue().get(i).ptArrivalTime, infos.get(i).ptArrivalTime, 1e-7, "wrong arrival time at stop " + e.getKey());
+                Assertions.assertEquals(e.getValue().get(i).travelCost, infos.get(i).travelCost, 1e-7, "wrong cost to stop " + e.getKey());
+            }
+        }
+    }
+
+    private void assertJourneyCount(Map<Id<TransitStopFacility>, List<TravelInfo>> profile, int stopId, int expectedJourneys) {
+        List<TravelInfo> infos = profile.get(Id.create(stopId, TransitStopFacility.class));
+        Assertions.assertNotNull(infos, "Stop " + stopId + " is not reachable.");
+        Assertions.assertEquals(expectedJourneys, infos.size(), "wrong number of journeys to stop " + stopId);
+    }
+
     private void assertTravelInfo(Map<Id<TransitStopFacility>, TravelInfo> map, int stopId, String expectedDepartureStop, int expectedTransfers, String expectedDepartureTime, String expectedArrivalTime) {
         TravelInfo info = map.get(Id.create(stopId, TransitStopFacility.class));
         Assertions.assertNotNull(info, "Stop " + stopId + " is not reachable.");
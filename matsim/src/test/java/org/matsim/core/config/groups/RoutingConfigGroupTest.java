@@ -121,6 +121,28 @@ public class RoutingConfigGroupTest {
 		}
 	}
 
+	@Test
+	void testRouteCacheParamsWriteRead() {
+		final String filename = utils.getOutputDirectory() + "config.xml";
+		{
+			Config config = ConfigUtils.createConfig();
+			RoutingConfigGroup group = config.routing();
+			group.setRouteCacheSize( 1000 );
+			group.setRouteCacheTimeBinSize( 300. );
+			group.setRouteCacheMaxTravelTimeChange( 0.1 );
+			group.setRouteCacheMaxAge( 5 );
+			ConfigUtils.writeConfig( config, filename );
+		}
+		{
+			Config config = ConfigUtils.loadConfig( filename ) ;
+			RoutingConfigGroup group = config.routing();
+			Assertions.assertEquals( 1000, group.getRouteCacheSize() );
+			Assertions.assertEquals( 300., group.getRouteCacheTimeBinSize(), 0. );
+			Assertions.assertEquals( 0.1, group.getRouteCacheMaxTravelTimeChange(), 0. );
+			Assertions.assertEquals( 5, group.getRouteCacheMaxAge() );
+		}
+	}
+
 	@Test
 	void testClearDefaults() {
 		Config config = ConfigUtils.createConfig(  ) ;
@@ -23,7 +23,10 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
+import org.matsim.api.core.v01.Id;
 import org.matsim.api.core.v01.events.Event;
+import org.matsim.api.core.v01.events.LinkEnterEvent;
+import org.matsim.api.core.v01.events.handler.LinkEnterEventHandler;
 import org.matsim.core.api.experimental.events.EventsManager;
 import org.matsim.core.events.handler.EventHandler;
 
@@ -69,6 +72,26 @@ public class EventsManagerImplTest {
 		}
 	}
 
+	@Test
+	void testProcessEvent_ExceptionInEventHandler_propagation() {
+		EventsManagerImpl manager = new EventsManagerImpl();
+		IllegalStateException exception = new IllegalStateException("handler failed");
+		manager.addHandler((LinkEnterEventHandler) event -> {
+			throw exception;
+		});
+		manager.addHandler(new CrashingMyEventHandler());
+
+		// exceptions of handlers for the core network events are passed on unchanged
+		RuntimeException e = Assertions.assertThrows(RuntimeException.class,
+				() -> manager.processEvent(new LinkEnterEvent(1.0, Id.createVehicleId(1), Id.createLinkId(1))));
+		Assertions.assertSame(exception, e);
+
+		// for other event classes, they are wrapped with the name of the handler and the event class
+		e = Assertions.assertThrows(RuntimeException.class, () -> manager.processEvent(new MyEvent(2.0)));
+		Assertions.assertTrue(e.getCause() instanceof ArithmeticException);
+		Assertions.assertTrue(e.getMessage().contains(MyEvent.class.getCanonicalName()));
+	}
+
 	/*package*/ static class MyEvent extends Event {
 		public MyEvent(final double time) {
 			super(time);
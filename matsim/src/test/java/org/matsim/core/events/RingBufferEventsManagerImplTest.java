@@ -0,0 +1,132 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * RingBufferEventsManagerImplTest.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2026 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.events;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.events.Event;
+import org.matsim.api.core.v01.events.LinkEnterEvent;
+import org.matsim.api.core.v01.events.LinkLeaveEvent;
+import org.matsim.api.core.v01.events.PersonStuckEvent;
+import org.matsim.api.core.v01.events.handler.LinkEnterEventHandler;
+import org.matsim.testcases.utils.EventsCollector;
+
+public class RingBufferEventsManagerImplTest {
+
+	@Test
+	void testEventHandlerCanProduceAdditionalEventLateInSimStep() {
+		final RingBufferEventsManagerImpl events = new RingBufferEventsManagerImpl(8);
+		events.addHandler(new LinkEnterEventHandler() {
+			@Override
+			public void handleEvent(LinkEnterEvent event) {
+				try {
+					Thread.sleep(10);
+				} catch (InterruptedException e) {
+					e.printStackTrace();
+				}
+				events.processEvent(new PersonStuckEvent(event.getTime(), Id.createPersonId(0), Id.createLinkId(0), "car"));
+			}
+
+			@Override
+			public void reset(int iteration) {}
+		});
+		EventsCollector collector = new EventsCollector();
+		events.addHandler(collector);
+		events.initProcessing();
+		events.processEvent(new LinkEnterEvent(0.0, Id.createVehicleId(0), Id.createLinkId(0)));
+		events.processEvent(new LinkLeaveEvent(0.0, Id.createVehicleId(0), Id.createLinkId(0)));
+		events.afterSimStep(0.0);
+		Assertions.assertThat(collector.getEvents()).hasSize(3);
+		events.processEvent(new LinkEnterEvent(1.0, Id.createVehicleId(0), Id.createLinkId(0)));
+		events.processEvent(new LinkLeaveEvent(1.0, Id.createVehicleId(0), Id.createLinkId(0)));
+		events.afterSimStep(1.0);
+		events.finishProcessing();
+
+		Assertions.assertThat(collector.getEvents()).containsExactly(
+					new LinkEnterEvent(0.0, Id.createVehicleId(0), Id.createLinkId(0)),
+					new LinkLeaveEvent(0.0, Id.createVehicleId(0), Id.createLinkId(0)),
+					new PersonStuckEvent(0.0, Id.createPersonId(0), Id.createLinkId(0), "car"),
+					new LinkEnterEvent(1.0, Id.createVehicleId(0), Id.createLinkId(0)),
+					new LinkLeaveEvent(1.0, Id.createVehicleId(0), Id.createLinkId(0)),
+					new PersonStuckEvent(1.0, Id.createPersonId(0), Id.createLinkId(0), "car"));
+	}
+
+	@Test
+	void testEventsAreChronologicallyOrdered() {
+		RingBufferEventsManagerImpl events = new RingBufferEventsManagerImpl(2);
+		EventsCollector collector = new EventsCollector();
+		events.addHandler(collector);
+		events.initProcessing();
+		events.processEvent(new LinkEnterEvent(10.0, Id.createVehicleId(0), Id.createLinkId(0)));
+		events.processEvent(new LinkLeaveEvent(50.0, Id.createVehicleId(0), Id.createLinkId(0)));
+		events.processEvent(new LinkEnterEvent(49.0, Id.createVehicleId(0), Id.createLinkId(0)));
+		events.processEvent(new LinkLeaveEvent(69.0, Id.createVehicleId(0), Id.createLinkId(0)));
+		Assertions.assertThatThrownBy(events::finishProcessing).isInstanceOf(RuntimeException.class);
+	}
+
+	/**
+	 * Passes many more events than the buffer has slots from several threads, and checks that all handlers see all events in the
+	 * same order.
+	 */
+	@Test
+	void testAllHandlersSeeSameOrderWithMultipleProducers() throws InterruptedException {
+		final int numberOfProducers = 4;
+		final int eventsPerStep = 1000;
+		RingBufferEventsManagerImpl events = new RingBufferEventsManagerImpl(3, 64);
+		List<EventsCollector> collectors = new ArrayList<>();
+		for (int i = 0; i < 5; i++) {
+			EventsCollector collector = new EventsCollector();
+			collectors.add(collector);
+			events.addHandler(collector);
+		}
+		events.initProcessing();
+		for (int time = 0; time < 10; time++) {
+			final double now = time;
+			List<Thread> producers = new ArrayList<>();
+			for (int p = 0; p < numberOfProducers; p++) {
+				final int producer = p;
+				Thread thread = new Thread(() -> {
+					for (int i = 0; i < eventsPerStep; i++) {
+						events.processEvent(new LinkEnterEvent(now, Id.createVehicleId(producer), Id.createLinkId(i)));
+					}
+				});
+				producers.add(thread);
+				thread.start();
+			}
+			for (Thread thread : producers) {
+				thread.join();
+			}
+			events.afterSimStep(now);
+			Assertions.assertThat(collectors.get(0).getEvents()).hasSize((time + 1) * numberOfProducers * eventsPerStep);
+		}
+		events.finishProcessing();
+
+		List<Event> expected = new ArrayList<>(collectors.get(0).getEvents());
+		for (EventsCollector collector : collectors) {
+			Assertions.assertThat(collector.getEvents()).containsExactlyElementsOf(expected);
+		}
+	}
+
+}
@@ -0,0 +1,161 @@
+package org.matsim.core.events.algorithms;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.matsim.api.core.v01.Coord;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.events.ActivityEndEvent;
+import org.matsim.api.core.v01.events.Event;
+import org.matsim.api.core.v01.events.GenericEvent;
+import org.matsim.api.core.v01.events.LinkEnterEvent;
+import org.matsim.api.core.v01.events.LinkLeaveEvent;
+import org.matsim.api.core.v01.events.PersonMoneyEvent;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.core.api.experimental.events.EventsManager;
+import org.matsim.core.config.groups.ControllerConfigGroup;
+import org.matsim.core.events.EventsReaderBinary;
+import org.matsim.core.events.EventsSelection;
+import org.matsim.core.events.EventsUtils;
+import org.matsim.core.events.MatsimEventsReader;
+import org.matsim.testcases.MatsimTestUtils;
+import org.matsim.testcases.utils.EventsCollector;
+import org.matsim.vehicles.Vehicle;
+
+public class EventWriterBinaryTest {
+
+	@RegisterExtension
+	private MatsimTestUtils utils = new MatsimTestUtils();
+
+	@Test
+	void testRoundTrip() {
+		List<Event> written = new ArrayList<>();
+		// more than one block, with whole and fractional times
+		for (int i = 0; i < 3 * EventWriterBinary.BLOCK_SIZE; i++) {
+			double time = i < EventWriterBinary.BLOCK_SIZE ? i : i + 0.25;
+			Id<Vehicle> vehicleId = Id.create("v" + (i % 17), Vehicle.class);
+			Id<Link> linkId = Id.create(i % 101, Link.class);
+			switch (i % 4) {
+				case 0 -> written.add(new LinkEnterEvent(time, vehicleId, linkId));
+				case 1 -> written.add(new LinkLeaveEvent(time, vehicleId, linkId));
+				case 2 -> written.add(new PersonMoneyEvent(time, Id.createPersonId(i), i * 0.1, "toll", null));
+				default -> written.add(new ActivityEndEvent(time, Id.createPersonId(i), linkId, null, "work", new Coord(i * 1.5, -i)));
+			}
+		}
+		String filename = this.utils.getOutputDirectory() + "events.bin";
+		EventWriterBinary writer = new EventWriterBinary(filename);
+		written.forEach(writer::handleEvent);
+		writer.closeFile();
+
+		EventsManager events = EventsUtils.createEventsManager();
+		EventsCollector collector = new EventsCollector();
+		events.addHandler(collector);
+		events.initProcessing();
+		new MatsimEventsReader(events).readFile(filename);
+		events.finishProcessing();
+
+		Assertions.assertEquals(written, collector.getEvents());
+	}
+
+	@Test
+	void testReadTimeRange() {
+		String filename = this.utils.getOutputDirectory() + "events.bin";
+		EventWriterBinary writer = new EventWriterBinary(filename);
+		for (int i = 0; i < 5 * EventWriterBinary.BLOCK_SIZE; i++) {
+			writer.handleEvent(new LinkEnterEvent(i / 2, Id.create("v" + i, Vehicle.class), Id.create(i % 7, Link.class)));
+		}
+		writer.closeFile();
+
+		EventsManager events = EventsUtils.createEventsManager();
+		EventsCollector collector = new EventsCollector();
+		events.addHandler(collector);
+		events.initProcessing();
+		new EventsReaderBinary(events).readFile(filename, 10000.0, 10999.0);
+		events.finishProcessing();
+
+		Assertions.assertEquals(2000, collector.getEvents().size());
+		Assertions.assertEquals(10000.0, collector.getEvents().get(0).getTime(), 0.0);
+		Assertions.assertEquals("v20000", ((LinkEnterEvent) collector.getEvents().get(0)).getVehicleId().toString());
+		Assertions.assertEquals(10999.0, collector.getEvents().get(1999).getTime(), 0.0);
+	}
+
+	@Test
+	void testReadSelection() throws IOException {
+		String filename = this.utils.getOutputDirectory() + "events.bin";
+		EventWriterBinary writer = new EventWriterBinary(filename);
+		for (int i = 0; i < 5 * EventWriterBinary.BLOCK_SIZE; i++) {
+			writer.handleEvent(new LinkEnterEvent(i, Id.create("v" + (i % 5000), Vehicle.class), Id.create(i % 7, Link.class)));
+			if (i % 1000 == 0) {
+				writer.handleEvent(new PersonMoneyEvent(i, Id.createPersonId("p" + i), 1.0, "toll", null));
+			}
+		}
+		writer.closeFile();
+		Assertions.assertTrue(new File(filename + BinaryEventsFormat.INDEX_FILE_SUFFIX).exists());
+
+		EventsSelection selection = new EventsSelection();
+		selection.addVehicleId(Id.create("v42", Vehicle.class));
+		selection.addPersonId(Id.createPersonId("p20000"));
+		selection.setTimeRange(0.0, 30000.0);
+
+		List<Event> selected = readSelection(filename, selection);
+		Assertions.assertEquals(List.of(
+				new LinkEnterEvent(42, Id.create("v42", Vehicle.class), Id.create(0, Link.class)),
+				new LinkEnterEvent(5042, Id.create("v42", Vehicle.class), Id.create(2, Link.class)),
+				new LinkEnterEvent(10042, Id.create("v42", Vehicle.class), Id.create(4, Link.class)),
+				new LinkEnterEvent(15042, Id.create("v42", Vehicle.class), Id.create(6, Link.class)),
+				new PersonMoneyEvent(20000, Id.createPersonId("p20000"), 1.0, "toll", null),
+				new LinkEnterEvent(20042, Id.create("v42", Vehicle.class), Id.create(1, Link.class)),
+				new LinkEnterEvent(25042, Id.create("v42", Vehicle.class), Id.create(3, Link.class))), selected);
+
+		// without the index, the same events are found by reading the whole file
+		Files.delete(Path.of(filename + BinaryEventsFormat.INDEX_FILE_SUFFIX));
+		Assertions.assertEquals(selected, readSelection(filename, selection));
+	}
+
+	private static List<Event> readSelection(final String filename, final EventsSelection selection) {
+		EventsManager events = EventsUtils.createEventsManager();
+		EventsCollector collector = new EventsCollector();
+		events.addHandler(collector);
+		events.initProcessing();
+		EventsUtils.readEvents(events, filename, selection);
+		events.finishProcessing();
+		return collector.getEvents();
+	}
+
+	@Test
+	void testNullAttribute() {
+		ByteArrayOutputStream baos = new ByteArrayOutputStream();
+		EventWriterBinary writer = new EventWriterBinary(baos);
+
+		GenericEvent event = new GenericEvent("TEST", 3600.0);
+		event.getAttributes().put("dummy", null);
+		event.getAttributes().put("value", "1.5");
+		writer.handleEvent(event);
+		writer.closeFile();
+
+		ByteArrayInputStream bios = new ByteArrayInputStream(baos.toByteArray());
+
+		EventsManager events = EventsUtils.createEventsManager();
+		EventsCollector collector = new EventsCollector();
+		events.addHandler(collector);
+		events.initProcessing();
+		new MatsimEventsReader(events).readStream(bios, ControllerConfigGroup.EventsFileFormat.binary);
+		events.finishProcessing();
+
+		Assertions.assertEquals(1, collector.getEvents().size(), "there must be 1 event.");
+
+		GenericEvent event1 = (GenericEvent) collector.getEvents().get(0);
+		Assertions.assertTrue(event1.getAttributes().containsKey("dummy"));
+		Assertions.assertNull(event1.getAttributes().get("dummy"));
+		Assertions.assertEquals("1.5", event1.getAttributes().get("value"));
+	}
+}
@@ -118,4 +118,87 @@ public class AgentTest {
 		double testedVelocity = Agent.getVelocityPlanEntry(flatPlanEntry);
 		assertEquals(3.4, testedVelocity, 0.0);
 	}
+
+	@Test
+	void planArrayStoresEntries() {
+		Agent.PlanArray plan = new Agent.PlanArray();
+		long[] entries = createPlanEntries(1000, 0);
+		for (long entry : entries) {
+			plan.add(entry);
+		}
+		assertEquals(entries.length, plan.size());
+		for (int i = 0; i < entries.length; i++) {
+			assertEquals(entries[i], plan.get(i));
+		}
+		// access like the agents: previous, current and next entries
+		for (int i = 1; i < entries.length - 1; i++) {
+			assertEquals(entries[i + 1], plan.get(i + 1));
+			assertEquals(entries[i - 1], plan.get(i - 1));
+			assertEquals(entries[i], plan.get(i));
+		}
+		assertEquals(entries[3], plan.get(3));
+		// all bits are kept
+		assertEquals(-1L, addAndGet(-1L).get(0));
+		assertEquals(Long.MIN_VALUE, addAndGet(Long.MIN_VALUE).get(0));
+	}
+
+	@Test
+	void planArrayReusesEntriesAfterRewind() {
+		Agent.PlanArray plan = new Agent.PlanArray();
+		long[] entries = createPlanEntries(100, 0);
+		for (long entry : entries) {
+			plan.add(entry);
+		}
+
+		// same plan
+		plan.rewind();
+		assertEquals(0, plan.size());
+		for (long entry : entries) {
+			plan.add(entry);
+		}
+		assertEquals(entries.length, plan.size());
+		for (int i = 0; i < entries.length; i++) {
+			assertEquals(entries[i], plan.get(i));
+		}
+
+		// changed and shorter plan
+		plan.rewind();
+		long[] changedEntries = createPlanEntries(60, 50);
+		for (long entry : changedEntries) {
+			plan.add(entry);
+		}
+		assertEquals(changedEntries.length, plan.size());
+		for (int i = 0; i < changedEntries.length; i++) {
+			assertEquals(changedEntries[i], plan.get(i));
+		}
+
+		plan.clear();
+		assertEquals(0, plan.size());
+		plan.add(entries[5]);
+		assertEquals(entries[5], plan.get(0));
+	}
+
+	private static Agent.PlanArray addAndGet(long entry) {
+		Agent.PlanArray plan = new Agent.PlanArray();
+		plan.add(entry);
+		return plan;
+	}
+
+	/**
+	 * @return a plan with activities and link entries, the entries from changedFrom on use other links.
+	 */
+	private static long[] createPlanEntries(int size, int changedFrom) {
+		long[] entries = new long[size];
+		int eventId = 0;
+		for (int i = 0; i < size; i++) {
+			if (i % 10 == 0) {
+				entries[i] = Agent.prepareSleepUntilEntry(eventId++, 6 * 3600 + i);
+			} else {
+				int linkId = i < changedFrom || changedFrom == 0 ? 100_000 + i * 37 : 2_000_000 + i;
+				entries[i] = Agent.prepareLinkEntry(eventId, linkId, 13.9, i % 3);
+			}
+			eventId += 2;
+		}
+		return entries;
+	}
 }
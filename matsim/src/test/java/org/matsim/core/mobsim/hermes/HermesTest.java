@@ -237,6 +237,56 @@ public class HermesTest {
 		Assertions.assertEquals(7.0*3600 + 11, collector.events.get(3).getTime(), MatsimTestUtils.EPSILON, "wrong time in second event.");
 	}
 
+	/**
+	 * Two agents are simulated in several iterations, but only the agent with a newly selected plan is imported again.
+	 */
+	@Test
+	void testImportChangedPlansOnly() {
+		Fixture f = new Fixture();
+		f.config.hermes().setImportChangedPlansOnly(true);
+
+		for (int i = 0; i < 2; i++) {
+			Person person = PopulationUtils.getFactory().createPerson(Id.create(i, Person.class));
+			Plan plan = PersonUtils.createAndAddPlan(person, true);
+			Activity a1 = PopulationUtils.createAndAddActivityFromLinkId(plan, "h", f.link1.getId());
+			a1.setEndTime((6+i)*3600);
+			Leg leg = PopulationUtils.createAndAddLeg( plan, TransportMode.car );
+			TripStructureUtils.setRoutingMode( leg, TransportMode.car );
+			NetworkRoute route = f.scenario.getPopulation().getFactory().getRouteFactories().createRoute(NetworkRoute.class, f.link1.getId(), f.link3.getId());
+			route.setLinkIds(f.link1.getId(), f.linkIds2, f.link3.getId());
+			leg.setRoute(route);
+			PopulationUtils.createAndAddActivityFromLinkId(plan, "w", f.link3.getId());
+			f.plans.addPerson(person);
+		}
+
+		EventsManager events = EventsUtils.createEventsManager();
+		LinkEnterEventCollector collector = new LinkEnterEventCollector();
+		events.addHandler(collector);
+
+		// first iteration imports both plans, the second one re-uses them
+		createHermes(f, events).run();
+		assertLinkEnterTimes(collector, 6.0*3600, 7.0*3600);
+		collector.events.clear();
+		createHermes(f.scenario, events, false).run();
+		assertLinkEnterTimes(collector, 6.0*3600, 7.0*3600);
+
+		// the second person selects a modified copy of its plan, which must be imported again
+		Person person = f.plans.getPersons().get(Id.create(1, Person.class));
+		Plan plan = person.createCopyOfSelectedPlanAndMakeSelected();
+		((Activity) plan.getPlanElements().get(0)).setEndTime(8*3600);
+		collector.events.clear();
+		createHermes(f.scenario, events, false).run();
+		assertLinkEnterTimes(collector, 6.0*3600, 8.0*3600);
+	}
+
+	private static void assertLinkEnterTimes(LinkEnterEventCollector collector, double departure0, double departure1) {
+		Assertions.assertEquals(4, collector.events.size(), "wrong number of link enter events.");
+		Assertions.assertEquals(departure0, collector.events.get(0).getTime(), MatsimTestUtils.EPSILON, "wrong time in first event.");
+		Assertions.assertEquals(departure0 + 11, collector.events.get(1).getTime(), MatsimTestUtils.EPSILON, "wrong time in second event.");
+		Assertions.assertEquals(departure1, collector.events.get(2).getTime(), MatsimTestUtils.EPSILON, "wrong time in third event.");
+		Assertions.assertEquals(departure1 + 11, collector.events.get(3).getTime(), MatsimTestUtils.EPSILON, "wrong time in fourth event.");
+	}
+
 	/**
 	 * A single agent is simulated that uses teleportation for its one and only leg.
 	 *
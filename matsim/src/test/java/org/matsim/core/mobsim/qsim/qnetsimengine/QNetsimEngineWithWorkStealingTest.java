@@ -0,0 +1,80 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * QNetsimEngineWithWorkStealingTest.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2026 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.mobsim.qsim.qnetsimengine;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.matsim.api.core.v01.Scenario;
+import org.matsim.core.api.experimental.events.EventsManager;
+import org.matsim.core.config.Config;
+import org.matsim.core.config.groups.QSimConfigGroup.NetsimEngineScheduling;
+import org.matsim.core.controler.PrepareForSimUtils;
+import org.matsim.core.events.EventsUtils;
+import org.matsim.core.mobsim.qsim.QSimBuilder;
+import org.matsim.core.scenario.ScenarioUtils;
+import org.matsim.core.utils.io.IOUtils;
+import org.matsim.examples.ExamplesUtils;
+import org.matsim.testcases.MatsimTestUtils;
+import org.matsim.testcases.utils.EventsCollector;
+
+public class QNetsimEngineWithWorkStealingTest {
+
+	@RegisterExtension
+	private MatsimTestUtils utils = new MatsimTestUtils();
+
+	/**
+	 * The scheduling must not change the outcome of the simulation.  The order of events within one time step
+	 * may differ between threads, so the events are compared after sorting.
+	 */
+	@ParameterizedTest
+	@ValueSource(ints = {1, 2, 4})
+	void testSameEventsAsThreadpool(int numberOfThreads) {
+		List<String> expected = runEquil(NetsimEngineScheduling.threadpool, numberOfThreads);
+		List<String> actual = runEquil(NetsimEngineScheduling.workStealing, numberOfThreads);
+
+		Assertions.assertFalse(expected.isEmpty());
+		Assertions.assertEquals(expected, actual);
+	}
+
+	private List<String> runEquil(NetsimEngineScheduling scheduling, int numberOfThreads) {
+		Config config = utils.loadConfig(IOUtils.extendUrl(ExamplesUtils.getTestScenarioURL("equil"), "config.xml"));
+		config.qsim().setNumberOfThreads(numberOfThreads);
+		config.qsim().setNetsimEngineScheduling(scheduling);
+		Scenario scenario = ScenarioUtils.loadScenario(config);
+		PrepareForSimUtils.createDefaultPrepareForSim(scenario).run();
+
+		EventsManager events = EventsUtils.createEventsManager();
+		EventsCollector collector = new EventsCollector();
+		events.addHandler(collector);
+
+		new QSimBuilder(config) //
+				.useDefaults() //
+				.build(scenario, events) //
+				.run();
+
+		return collector.getEvents().stream().map(Object::toString).sorted().collect(Collectors.toList());
+	}
+}
@@ -0,0 +1,126 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * MultilevelBisectionNetworkPartitionerTest.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2026 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.mobsim.qsim.qnetsimengine.partitioning;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.matsim.api.core.v01.Coord;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.network.Network;
+import org.matsim.api.core.v01.network.Node;
+import org.matsim.core.network.NetworkUtils;
+
+public class MultilevelBisectionNetworkPartitionerTest {
+
+	private static final int GRID_SIZE = 40;
+
+	@Test
+	void testAllNodesAssignedOnce() {
+		Network network = createGrid();
+		for (int numberOfPartitions : new int[] {1, 2, 3, 7, 16}) {
+			List<List<Node>> partitions = new MultilevelBisectionNetworkPartitioner().partition(network, numberOfPartitions);
+			Assertions.assertEquals(numberOfPartitions, partitions.size());
+
+			Map<Id<Node>, Integer> partOfNode = partOfNode(partitions);
+			Assertions.assertEquals(network.getNodes().size(), partOfNode.size());
+			Assertions.assertEquals(network.getNodes().size(), partitions.stream().mapToInt(List::size).sum(), "a node was assigned twice");
+		}
+	}
+
+	@Test
+	void testBalancedAndSmallCut() {
+		Network network = createGrid();
+		int numberOfPartitions = 4;
+
+		List<List<Node>> bisection = new MultilevelBisectionNetworkPartitioner().partition(network, numberOfPartitions);
+		List<List<Node>> roundRobin = new RoundRobinNetworkPartitioner().partition(network, numberOfPartitions);
+
+		double average = (double) network.getNodes().size() / numberOfPartitions;
+		for (List<Node> partition : bisection) {
+			Assertions.assertEquals(average, partition.size(), 0.1 * average, "partitions are not balanced");
+		}
+
+		int bisectionCut = countCutLinks(network, partOfNode(bisection));
+		int roundRobinCut = countCutLinks(network, partOfNode(roundRobin));
+		// a 40x40 grid can be split into 4 squares by cutting 2*40 pairs of links:
+		Assertions.assertTrue(bisectionCut <= 2 * 2 * GRID_SIZE * 2, "cut too large: " + bisectionCut);
+		Assertions.assertTrue(bisectionCut * 10 < roundRobinCut, "bisection: " + bisectionCut + "; round robin: " + roundRobinCut);
+	}
+
+	@Test
+	void testDeterministic() {
+		Network network = createGrid();
+		List<List<Node>> first = new MultilevelBisectionNetworkPartitioner().partition(network, 5);
+		List<List<Node>> second = new MultilevelBisectionNetworkPartitioner().partition(network, 5);
+		Assertions.assertEquals(first, second);
+	}
+
+	private static Map<Id<Node>, Integer> partOfNode(List<List<Node>> partitions) {
+		Map<Id<Node>, Integer> partOfNode = new HashMap<>();
+		for (int i = 0; i < partitions.size(); i++) {
+			for (Node node : partitions.get(i)) {
+				partOfNode.put(node.getId(), i);
+			}
+		}
+		return partOfNode;
+	}
+
+	private static int countCutLinks(Network network, Map<Id<Node>, Integer> partOfNode) {
+		int cut = 0;
+		for (Link link : network.getLinks().values()) {
+			if (!partOfNode.get(link.getFromNode().getId()).equals(partOfNode.get(link.getToNode().getId()))) {
+				cut++;
+			}
+		}
+		return cut;
+	}
+
+	private static Network createGrid() {
+		Network network = NetworkUtils.createNetwork();
+		Node[][] nodes = new Node[GRID_SIZE][GRID_SIZE];
+		for (int x = 0; x < GRID_SIZE; x++) {
+			for (int y = 0; y < GRID_SIZE; y++) {
+				nodes[x][y] = NetworkUtils.createAndAddNode(network, Id.createNodeId(x + "_" + y), new Coord(100. * x, 100. * y));
+			}
+		}
+		for (int x = 0; x < GRID_SIZE; x++) {
+			for (int y = 0; y < GRID_SIZE; y++) {
+				if (x + 1 < GRID_SIZE) {
+					addLinkPair(network, nodes[x][y], nodes[x + 1][y]);
+				}
+				if (y + 1 < GRID_SIZE) {
+					addLinkPair(network, nodes[x][y], nodes[x][y + 1]);
+				}
+			}
+		}
+		return network;
+	}
+
+	private static void addLinkPair(Network network, Node a, Node b) {
+		NetworkUtils.createAndAddLink(network, Id.createLinkId(a.getId() + "-" + b.getId()), a, b, 100., 10., 1000., 1.);
+		NetworkUtils.createAndAddLink(network, Id.createLinkId(b.getId() + "-" + a.getId()), b, a, 100., 10., 1000., 1.);
+	}
+}
@@ -27,8 +27,15 @@ import org.junit.jupiter.api.Test;
 import org.matsim.api.core.v01.population.Plan;
 import org.matsim.core.config.Config;
 import org.matsim.core.config.groups.GlobalConfigGroup;
+import org.matsim.core.population.PopulationUtils;
 import org.matsim.core.population.algorithms.PlanAlgorithm;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
 /**
  * @author mrieser
  */
@@ -61,6 +68,39 @@ public class AbstractMultithreadedModuleTest {
 
 	}
 
+	@Test
+	void testBatches() {
+		for (int batchSize : new int[] { 0, 1, 4, 1000 }) {
+			Map<Plan, AtomicInteger> handledPlans = new ConcurrentHashMap<>();
+			CountingModule testee = new CountingModule(3, batchSize, handledPlans);
+			testee.prepareReplanning(null);
+			List<Plan> plans = new ArrayList<>();
+			for (int i = 0; i < 100; i++) {
+				Plan plan = PopulationUtils.createPlan();
+				plans.add(plan);
+				testee.handlePlan(plan);
+			}
+			testee.finishReplanning();
+
+			Assertions.assertEquals(100, handledPlans.size(), "all plans should be handled with batch size " + batchSize);
+			for (Plan plan : plans) {
+				Assertions.assertEquals(1, handledPlans.get(plan).get(), "each plan should be handled exactly once with batch size " + batchSize);
+			}
+		}
+	}
+
+	private static class CountingModule extends AbstractMultithreadedModule {
+		private final Map<Plan, AtomicInteger> handledPlans;
+		public CountingModule(final int nOfThreads, final int batchSize, final Map<Plan, AtomicInteger> handledPlans) {
+			super(nOfThreads, batchSize);
+			this.handledPlans = handledPlans;
+		}
+		@Override
+		public PlanAlgorithm getPlanAlgoInstance() {
+			return plan -> this.handledPlans.computeIfAbsent(plan, p -> new AtomicInteger()).incrementAndGet();
+		}
+	}
+
 	private static class DummyAbstractMultithreadedModule extends AbstractMultithreadedModule {
 		public DummyAbstractMultithreadedModule(GlobalConfigGroup globalConfigGroup) {
 			super(globalConfigGroup);
@@ -0,0 +1,171 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * RouteCacheTest.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2023 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+package org.matsim.core.router;
+
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.matsim.api.core.v01.Coord;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.TransportMode;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.network.Network;
+import org.matsim.api.core.v01.network.Node;
+import org.matsim.api.core.v01.population.Leg;
+import org.matsim.api.core.v01.population.PlanElement;
+import org.matsim.core.config.ConfigUtils;
+import org.matsim.core.controler.events.IterationStartsEvent;
+import org.matsim.core.network.NetworkUtils;
+import org.matsim.core.population.PopulationUtils;
+import org.matsim.core.population.routes.NetworkRoute;
+import org.matsim.core.population.routes.RouteUtils;
+import org.matsim.core.router.util.TravelTime;
+import org.matsim.facilities.FacilitiesUtils;
+import org.matsim.facilities.Facility;
+import org.matsim.pt.routes.DefaultTransitPassengerRoute;
+import org.matsim.pt.transitSchedule.api.TransitLine;
+import org.matsim.pt.transitSchedule.api.TransitRoute;
+import org.matsim.pt.transitSchedule.api.TransitStopFacility;
+import org.matsim.testcases.MatsimTestUtils;
+
+public class RouteCacheTest {
+
+	@Test
+	void testCachedTripsAndInvalidation() {
+		Network network = NetworkUtils.createNetwork();
+		Node n1 = NetworkUtils.createAndAddNode(network, Id.create(1, Node.class), new Coord(0, 0));
+		Node n2 = NetworkUtils.createAndAddNode(network, Id.create(2, Node.class), new Coord(1000, 0));
+		Node n3 = NetworkUtils.createAndAddNode(network, Id.create(3, Node.class), new Coord(2000, 0));
+		Node n4 = NetworkUtils.createAndAddNode(network, Id.create(4, Node.class), new Coord(3000, 0));
+		Link link1 = NetworkUtils.createAndAddLink(network, Id.create(1, Link.class), n1, n2, 1000.0, 10.0, 3600.0, 1.0);
+		Link link2 = NetworkUtils.createAndAddLink(network, Id.create(2, Link.class), n2, n3, 1000.0, 10.0, 3600.0, 1.0);
+		Link link3 = NetworkUtils.createAndAddLink(network, Id.create(3, Link.class), n3, n4, 1000.0, 10.0, 3600.0, 1.0);
+
+		double[] travelTimeFactor = { 1.0 };
+		TravelTime travelTime = (link, time, person, vehicle) -> travelTimeFactor[0] * link.getLength() / link.getFreespeed();
+
+		int[] routedTrips = { 0 };
+		RoutingModule routingModule = request -> {
+			routedTrips[0]++;
+			Leg leg = PopulationUtils.createLeg(TransportMode.car);
+			leg.setDepartureTime(request.getDepartureTime());
+			leg.setTravelTime(200);
+			NetworkRoute route = RouteUtils.createLinkNetworkRouteImpl(link1.getId(), List.of(link2.getId()), link3.getId());
+			leg.setRoute(route);
+			return List.of(leg);
+		};
+
+		TripRouter tripRouter = new TripRouter.Builder(ConfigUtils.createConfig()).setRoutingModule(TransportMode.car, routingModule).build();
+		RouteCache routeCache = new RouteCache(network, Map.of(TransportMode.car, travelTime), 10, 900, 0.05, 10);
+		tripRouter.setRouteCache(routeCache);
+
+		Facility from = FacilitiesUtils.wrapLinkAndCoord(link1, link1.getCoord());
+		Facility to = FacilitiesUtils.wrapLinkAndCoord(link3, link3.getCoord());
+
+		List<? extends PlanElement> trip1 = tripRouter.calcRoute(TransportMode.car, from, to, 7 * 3600, null, null);
+		List<? extends PlanElement> trip2 = tripRouter.calcRoute(TransportMode.car, from, to, 7 * 3600 + 60, null, null);
+		Assertions.assertEquals(1, routedTrips[0], "second trip in the same time bin should come from the cache.");
+		Assertions.assertEquals(1, routeCache.getHits());
+		Assertions.assertEquals(1, routeCache.getMisses());
+
+		Leg leg1 = (Leg) trip1.get(0);
+		Leg leg2 = (Leg) trip2.get(0);
+		Assertions.assertNotSame(leg1, leg2);
+		Assertions.assertNotSame(leg1.getRoute(), leg2.getRoute());
+		Assertions.assertEquals(7 * 3600 + 60, leg2.getDepartureTime().seconds(), MatsimTestUtils.EPSILON);
+		Assertions.assertEquals(TransportMode.car, leg2.getRoutingMode());
+		Assertions.assertEquals(List.of(link2.getId()), ((NetworkRoute) leg2.getRoute()).getLinkIds());
+
+		tripRouter.calcRoute(TransportMode.car, from, to, 8 * 3600, null, null);
+		Assertions.assertEquals(2, routedTrips[0], "trips in other time bins should be routed.");
+
+		// small changes of the travel times keep the cached trips
+		travelTimeFactor[0] = 1.01;
+		routeCache.notifyIterationStarts(new IterationStartsEvent(null, 1, false));
+		Assertions.assertEquals(2, routeCache.size());
+		tripRouter.calcRoute(TransportMode.car, from, to, 7 * 3600, null, null);
+		Assertions.assertEquals(2, routedTrips[0]);
+
+		// larger changes invalidate them
+		travelTimeFactor[0] = 2.0;
+		routeCache.notifyIterationStarts(new IterationStartsEvent(null, 2, false));
+		Assertions.assertEquals(0, routeCache.size());
+		tripRouter.calcRoute(TransportMode.car, from, to, 7 * 3600, null, null);
+		Assertions.assertEquals(3, routedTrips[0]);
+	}
+
+	@Test
+	void testMaxAgeAndUncacheableTrips() {
+		Network network = NetworkUtils.createNetwork();
+		Node n1 = NetworkUtils.createAndAddNode(network, Id.create(1, Node.class), new Coord(0, 0));
+		Node n2 = NetworkUtils.createAndAddNode(network, Id.create(2, Node.class), new Coord(1000, 0));
+		Node n3 = NetworkUtils.createAndAddNode(network, Id.create(3, Node.class), new Coord(2000, 0));
+		Link link1 = NetworkUtils.createAndAddLink(network, Id.create(1, Link.class), n1, n2, 1000.0, 10.0, 3600.0, 1.0);
+		Link link2 = NetworkUtils.createAndAddLink(network, Id.create(2, Link.class), n2, n3, 1000.0, 10.0, 3600.0, 1.0);
+		TravelTime travelTime = (link, time, person, vehicle) -> link.getLength() / link.getFreespeed();
+
+		int[] routedTrips = { 0 };
+		RoutingModule carModule = request -> {
+			routedTrips[0]++;
+			Leg leg = PopulationUtils.createLeg(TransportMode.car);
+			leg.setDepartureTime(request.getDepartureTime());
+			leg.setRoute(RouteUtils.createLinkNetworkRouteImpl(link1.getId(), List.of(), link2.getId()));
+			return List.of(leg);
+		};
+		RoutingModule ptModule = request -> {
+			routedTrips[0]++;
+			Leg leg = PopulationUtils.createLeg(TransportMode.pt);
+			leg.setDepartureTime(request.getDepartureTime());
+			leg.setRoute(new DefaultTransitPassengerRoute(link1.getId(), link2.getId(), Id.create("s1", TransitStopFacility.class),
+					Id.create("s2", TransitStopFacility.class), Id.create("line", TransitLine.class), Id.create("route", TransitRoute.class)));
+			return List.of(leg);
+		};
+
+		TripRouter tripRouter = new TripRouter.Builder(ConfigUtils.createConfig())
+				.setRoutingModule(TransportMode.car, carModule)
+				.setRoutingModule(TransportMode.pt, ptModule)
+				.build();
+		RouteCache routeCache = new RouteCache(network, Map.of(TransportMode.car, travelTime), 10, 900, 0.05, 2);
+		tripRouter.setRouteCache(routeCache);
+
+		Facility from = FacilitiesUtils.wrapLinkAndCoord(link1, link1.getCoord());
+		Facility to = FacilitiesUtils.wrapLinkAndCoord(link2, link2.getCoord());
+
+		// the travel times of pt routes cannot be checked, so pt trips are not cached
+		tripRouter.calcRoute(TransportMode.pt, from, to, 7 * 3600, null, null);
+		tripRouter.calcRoute(TransportMode.pt, from, to, 7 * 3600, null, null);
+		Assertions.assertEquals(2, routedTrips[0]);
+		Assertions.assertEquals(0, routeCache.size());
+
+		tripRouter.calcRoute(TransportMode.car, from, to, 7 * 3600, null, null);
+		Assertions.assertEquals(1, routeCache.size());
+
+		// unchanged travel times keep the trip until it reaches the maximum age
+		routeCache.notifyIterationStarts(new IterationStartsEvent(null, 1, false));
+		Assertions.assertEquals(1, routeCache.size());
+		routeCache.notifyIterationStarts(new IterationStartsEvent(null, 2, false));
+		Assertions.assertEquals(0, routeCache.size());
+		tripRouter.calcRoute(TransportMode.car, from, to, 7 * 3600, null, null);
+		Assertions.assertEquals(4, routedTrips[0]);
+	}
+
+}
@@ -20,8 +20,20 @@
 
 package org.matsim.core.router.speedy;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.network.Link;
 import org.matsim.api.core.v01.network.Network;
 import org.matsim.core.config.groups.ScoringConfigGroup;
+import org.matsim.core.network.NetworkUtils;
+import org.matsim.core.network.io.MatsimNetworkReader;
 import org.matsim.core.router.AbstractLeastCostPathCalculatorTest;
 import org.matsim.core.router.costcalculators.FreespeedTravelTimeAndDisutility;
 import org.matsim.core.router.util.LeastCostPathCalculator;
@@ -39,4 +51,63 @@ public class SpeedyALTTest extends AbstractLeastCostPathCalculatorTest {
 		return new SpeedyALT(altData, travelTimeCostCalculator, travelTimeCostCalculator);
 	}
 
+	@Test
+	void testUpdateLowerLinkCosts() {
+		Network network = NetworkUtils.createNetwork();
+		new MatsimNetworkReader(network).readFile("test/scenarios/equil/network.xml");
+		FreespeedTravelTimeAndDisutility tc = new FreespeedTravelTimeAndDisutility(new ScoringConfigGroup());
+		SpeedyGraph graph = new SpeedyGraph(network);
+		SpeedyALTData data = new SpeedyALTData(graph, 4, tc);
+
+		double[] linkMinCosts = SpeedyALTData.calcLinkMinCosts(graph, tc);
+		Assertions.assertTrue(data.isLowerBound(linkMinCosts));
+
+		// higher costs keep the data valid, lower costs require an update
+		linkMinCosts[Id.create("1", Link.class).index()] *= 2;
+		Assertions.assertTrue(data.isLowerBound(linkMinCosts));
+		linkMinCosts[Id.create("6", Link.class).index()] /= 10;
+		linkMinCosts[Id.create("20", Link.class).index()] /= 10;
+		Assertions.assertFalse(data.isLowerBound(linkMinCosts));
+
+		SpeedyALTData updated = data.update(linkMinCosts, 2);
+		Assertions.assertTrue(updated.isLowerBound(linkMinCosts));
+		linkMinCosts[Id.create("1", Link.class).index()] /= 2; // the update keeps the lower cost
+		SpeedyALTData expected = new SpeedyALTData(graph, 4, linkMinCosts);
+		assertSameData(expected, updated);
+	}
+
+	@Test
+	void testWriteRead() throws IOException {
+		Network network = NetworkUtils.createNetwork();
+		new MatsimNetworkReader(network).readFile("test/scenarios/equil/network.xml");
+		FreespeedTravelTimeAndDisutility tc = new FreespeedTravelTimeAndDisutility(new ScoringConfigGroup());
+		SpeedyGraph graph = new SpeedyGraph(network);
+		SpeedyALTData data = new SpeedyALTData(graph, 4, tc);
+
+		Path directory = Files.createDirectories(Path.of(this.utils.getOutputDirectory(), "cache"));
+		Path file = directory.resolve("landmarks.bin");
+		data.write(file);
+		data.write(file);
+		assertSameData(data, SpeedyALTData.read(graph, 4, file));
+		try (Stream<Path> files = Files.list(directory)) {
+			Assertions.assertEquals(List.of(file), files.toList(), "temporary files must be removed");
+		}
+		Assertions.assertNull(SpeedyALTData.read(graph, 3, file));
+
+		NetworkUtils.createAndAddLink(network, Id.create("new", Link.class), network.getNodes().get(Id.createNodeId("1")),
+				network.getNodes().get(Id.createNodeId("15")), 1000, 10, 1000, 1);
+		Assertions.assertNull(SpeedyALTData.read(new SpeedyGraph(network), 4, file));
+	}
+
+	private static void assertSameData(SpeedyALTData expected, SpeedyALTData actual) {
+		Assertions.assertEquals(expected.getLandmarksCount(), actual.getLandmarksCount());
+		Assertions.assertEquals(expected.getMinTravelCostPerLength(), actual.getMinTravelCostPerLength(), 1e-10);
+		for (int nodeIdx = 0; nodeIdx < expected.graph.nodeCount; nodeIdx++) {
+			Assertions.assertEquals(expected.getNodeDeadend(nodeIdx), actual.getNodeDeadend(nodeIdx));
+			for (int landmarkIdx = 0; landmarkIdx < expected.getLandmarksCount(); landmarkIdx++) {
+				Assertions.assertEquals(expected.getTravelCostFromLandmark(nodeIdx, landmarkIdx), actual.getTravelCostFromLandmark(nodeIdx, landmarkIdx), 1e-6);
+				Assertions.assertEquals(expected.getTravelCostToLandmark(nodeIdx, landmarkIdx), actual.getTravelCostToLandmark(nodeIdx, landmarkIdx), 1e-6);
+			}
+		}
+	}
 }
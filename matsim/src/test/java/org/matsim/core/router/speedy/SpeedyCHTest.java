@@ -0,0 +1,131 @@
+package org.matsim.core.router.speedy;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.matsim.api.core.v01.Coord;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.network.Network;
+import org.matsim.api.core.v01.network.Node;
+import org.matsim.api.core.v01.population.Person;
+import org.matsim.core.config.groups.ScoringConfigGroup;
+import org.matsim.core.network.NetworkUtils;
+import org.matsim.core.router.AbstractLeastCostPathCalculatorTest;
+import org.matsim.core.router.costcalculators.FreespeedTravelTimeAndDisutility;
+import org.matsim.core.router.util.LeastCostPathCalculator;
+import org.matsim.core.router.util.LeastCostPathCalculator.Path;
+import org.matsim.core.router.util.TravelDisutility;
+import org.matsim.vehicles.Vehicle;
+
+public class SpeedyCHTest extends AbstractLeastCostPathCalculatorTest {
+
+	@Override
+	protected LeastCostPathCalculator getLeastCostPathCalculator(final Network network) {
+		FreespeedTravelTimeAndDisutility travelTimeCostCalculator = new FreespeedTravelTimeAndDisutility(new ScoringConfigGroup());
+		return new SpeedyCHFactory().createPathCalculator(network, travelTimeCostCalculator, travelTimeCostCalculator);
+	}
+
+	@Test
+	void testSameCostsAsDijkstra() {
+		Id.resetCaches();
+		// a grid with random speeds, some one-way links and a node that cannot be reached
+		Random random = new Random(20260501);
+		Network network = NetworkUtils.createNetwork();
+		int size = 30;
+		Node[][] nodes = new Node[size][size];
+		for (int x = 0; x < size; x++) {
+			for (int y = 0; y < size; y++) {
+				nodes[x][y] = NetworkUtils.createAndAddNode(network, Id.createNodeId(x + "_" + y), new Coord(x * 100 + random.nextInt(50), y * 100 + random.nextInt(50)));
+			}
+		}
+		for (int x = 0; x < size; x++) {
+			for (int y = 0; y < size; y++) {
+				if (x + 1 < size) {
+					addLinks(network, nodes[x][y], nodes[x + 1][y], random);
+				}
+				if (y + 1 < size) {
+					addLinks(network, nodes[x][y], nodes[x][y + 1], random);
+				}
+			}
+		}
+		Node island = NetworkUtils.createAndAddNode(network, Id.createNodeId("island"), new Coord(-1000, -1000));
+
+		FreespeedTravelTimeAndDisutility tc = new FreespeedTravelTimeAndDisutility(new ScoringConfigGroup());
+		LeastCostPathCalculator dijkstra = new SpeedyDijkstra(new SpeedyGraph(network), tc, tc);
+		LeastCostPathCalculator ch = new SpeedyCHFactory().createPathCalculator(network, tc, tc);
+
+		List<Node> allNodes = new ArrayList<>(network.getNodes().values());
+		allNodes.remove(island);
+		for (int i = 0; i < 200; i++) {
+			Node from = allNodes.get(random.nextInt(allNodes.size()));
+			Node to = allNodes.get(random.nextInt(allNodes.size()));
+			Path expected = dijkstra.calcLeastCostPath(from, to, 8 * 3600, null, null);
+			Path actual = ch.calcLeastCostPath(from, to, 8 * 3600, null, null);
+			if (expected == null) {
+				Assertions.assertNull(actual);
+				continue;
+			}
+
+			Assertions.assertEquals(expected.travelCost, actual.travelCost, Math.abs(expected.travelCost) * 1e-5, "wrong cost from " + from.getId() + " to " + to.getId());
+			Assertions.assertEquals(from, actual.nodes.get(0));
+			Assertions.assertEquals(to, actual.nodes.get(actual.nodes.size() - 1));
+			for (int l = 0; l < actual.links.size(); l++) {
+				Assertions.assertEquals(actual.nodes.get(l), actual.links.get(l).getFromNode());
+				Assertions.assertEquals(actual.nodes.get(l + 1), actual.links.get(l).getToNode());
+			}
+		}
+		Assertions.assertNull(ch.calcLeastCostPath(allNodes.get(0), island, 8 * 3600, null, null));
+	}
+
+	@Test
+	void testDifferentDisutilitiesOfSameClass() {
+		Id.resetCaches();
+		// two equally long routes from 1 to 4, one via 2 and one via 3
+		Network network = NetworkUtils.createNetwork();
+		Node n1 = NetworkUtils.createAndAddNode(network, Id.createNodeId(1), new Coord(0, 0));
+		Node n2 = NetworkUtils.createAndAddNode(network, Id.createNodeId(2), new Coord(100, 100));
+		Node n3 = NetworkUtils.createAndAddNode(network, Id.createNodeId(3), new Coord(100, -100));
+		Node n4 = NetworkUtils.createAndAddNode(network, Id.createNodeId(4), new Coord(200, 0));
+		Link l12 = NetworkUtils.createAndAddLink(network, Id.createLinkId("1-2"), n1, n2, 150, 10, 1000, 1);
+		NetworkUtils.createAndAddLink(network, Id.createLinkId("2-4"), n2, n4, 150, 10, 1000, 1);
+		Link l13 = NetworkUtils.createAndAddLink(network, Id.createLinkId("1-3"), n1, n3, 150, 10, 1000, 1);
+		NetworkUtils.createAndAddLink(network, Id.createLinkId("3-4"), n3, n4, 150, 10, 1000, 1);
+
+		FreespeedTravelTimeAndDisutility tt = new FreespeedTravelTimeAndDisutility(new ScoringConfigGroup());
+		SpeedyCHFactory factory = new SpeedyCHFactory();
+		// same travel time and class of travel disutility, but different parameters
+		LeastCostPathCalculator avoid12 = factory.createPathCalculator(network, new PenaltyDisutility(l12, 1000), tt);
+		LeastCostPathCalculator avoid13 = factory.createPathCalculator(network, new PenaltyDisutility(l13, 1000), tt);
+
+		Assertions.assertEquals(List.of(n1, n3, n4), avoid12.calcLeastCostPath(n1, n4, 8 * 3600, null, null).nodes);
+		Assertions.assertEquals(List.of(n1, n2, n4), avoid13.calcLeastCostPath(n1, n4, 8 * 3600, null, null).nodes);
+	}
+
+	private record PenaltyDisutility(Link penalizedLink, double penalty) implements TravelDisutility {
+		@Override
+		public double getLinkTravelDisutility(Link link, double time, Person person, Vehicle vehicle) {
+			return getLinkMinimumTravelDisutility(link);
+		}
+
+		@Override
+		public double getLinkMinimumTravelDisutility(Link link) {
+			return link.getLength() + (link == this.penalizedLink ? this.penalty : 0);
+		}
+	}
+
+	private static void addLinks(Network network, Node a, Node b, Random random) {
+		double length = NetworkUtils.getEuclideanDistance(a.getCoord(), b.getCoord());
+		double speed = 5 + random.nextInt(30);
+		int direction = random.nextInt(10);
+		if (direction != 0) {
+			NetworkUtils.createAndAddLink(network, Id.create(a.getId() + "-" + b.getId(), Link.class), a, b, length, speed, 1000, 1);
+		}
+		if (direction != 1) {
+			NetworkUtils.createAndAddLink(network, Id.create(b.getId() + "-" + a.getId(), Link.class), b, a, length, speed, 1000, 1);
+		}
+	}
+}
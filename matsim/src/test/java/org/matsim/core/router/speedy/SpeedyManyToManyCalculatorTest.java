@@ -0,0 +1,96 @@
+package org.matsim.core.router.speedy;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.matsim.api.core.v01.Coord;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.network.Network;
+import org.matsim.api.core.v01.network.Node;
+import org.matsim.core.config.groups.ScoringConfigGroup;
+import org.matsim.core.network.NetworkUtils;
+import org.matsim.core.router.costcalculators.FreespeedTravelTimeAndDisutility;
+
+public class SpeedyManyToManyCalculatorTest {
+
+	@Test
+	void testSameAsLeastCostPathTree() {
+		Id.resetCaches();
+		// a grid of 10x10 nodes, with faster links along the diagonal rows
+		Network network = NetworkUtils.createNetwork();
+		Node[][] nodes = new Node[10][10];
+		for (int x = 0; x < 10; x++) {
+			for (int y = 0; y < 10; y++) {
+				nodes[x][y] = NetworkUtils.createAndAddNode(network, Id.createNodeId(x + "_" + y), new Coord(x * 100, y * 100));
+			}
+		}
+		for (int x = 0; x < 10; x++) {
+			for (int y = 0; y < 10; y++) {
+				double speed = x == y ? 20 : 10 + (x * 7 + y * 3) % 5;
+				if (x < 9) {
+					NetworkUtils.createAndAddLink(network, Id.createLinkId(x + "_" + y + "-E"), nodes[x][y], nodes[x + 1][y], 100, speed, 1000, 1);
+					NetworkUtils.createAndAddLink(network, Id.createLinkId(x + "_" + y + "-W"), nodes[x + 1][y], nodes[x][y], 100, speed, 1000, 1);
+				}
+				if (y < 9) {
+					NetworkUtils.createAndAddLink(network, Id.createLinkId(x + "_" + y + "-N"), nodes[x][y], nodes[x][y + 1], 100, speed, 1000, 1);
+					NetworkUtils.createAndAddLink(network, Id.createLinkId(x + "_" + y + "-S"), nodes[x][y + 1], nodes[x][y], 100, speed, 1000, 1);
+				}
+			}
+		}
+		// a node that cannot be reached
+		Node island = NetworkUtils.createAndAddNode(network, Id.createNodeId("island"), new Coord(-500, -500));
+
+		List<Node> fromNodes = new ArrayList<>();
+		for (int i = 0; i < 10; i++) {
+			fromNodes.add(nodes[i][(i * 3) % 10]);
+		}
+		List<Node> toNodes = new ArrayList<>(List.of(nodes[0][0], nodes[9][9], nodes[5][2], nodes[0][0], island));
+
+		SpeedyGraph graph = new SpeedyGraph(network);
+		FreespeedTravelTimeAndDisutility tc = new FreespeedTravelTimeAndDisutility(new ScoringConfigGroup());
+		double departureTime = 7 * 3600;
+		SpeedyManyToManyCalculator.Matrices matrices = new SpeedyManyToManyCalculator(graph, tc, tc, 3).calculate(fromNodes, toNodes, departureTime, null, null);
+
+		Assertions.assertEquals(fromNodes.size(), matrices.getRowCount());
+		Assertions.assertEquals(toNodes.size(), matrices.getColumnCount());
+
+		LeastCostPathTree tree = new LeastCostPathTree(graph, tc, tc);
+		for (int i = 0; i < fromNodes.size(); i++) {
+			tree.calculate(fromNodes.get(i).getId().index(), departureTime, null, null);
+			for (int j = 0; j < toNodes.size() - 1; j++) {
+				int toIndex = toNodes.get(j).getId().index();
+				Assertions.assertEquals((float) (tree.getTime(toIndex).seconds() - departureTime), matrices.getTravelTime(i, j));
+				Assertions.assertEquals((float) tree.getDistance(toIndex), matrices.getDistance(i, j));
+				Assertions.assertEquals((float) tree.getCost(toIndex), matrices.getDisutility(i, j));
+			}
+			Assertions.assertEquals(Float.POSITIVE_INFINITY, matrices.getTravelTime(i, toNodes.size() - 1));
+			Assertions.assertEquals(Float.POSITIVE_INFINITY, matrices.getDistance(i, toNodes.size() - 1));
+		}
+		Assertions.assertEquals(0.0f, matrices.getTravelTime(0, 0));
+		Assertions.assertEquals(matrices.getTravelTime(3, 0), matrices.getTravelTime(3, 3));
+
+		// the travel-time-only calculation passes on the same travel times row by row
+		float[][] rows = new float[fromNodes.size()][];
+		new SpeedyManyToManyCalculator(graph, tc, tc, 2).calculateTravelTimes(fromNodes, toNodes, departureTime, null, null,
+				(row, travelTimes) -> rows[row] = travelTimes.clone());
+		for (int i = 0; i < fromNodes.size(); i++) {
+			for (int j = 0; j < toNodes.size(); j++) {
+				Assertions.assertEquals(matrices.getTravelTime(i, j), rows[i][j]);
+			}
+		}
+	}
+
+	@Test
+	void testTooLargeMatrix() {
+		Network network = NetworkUtils.createNetwork();
+		Node node = NetworkUtils.createAndAddNode(network, Id.createNodeId("n"), new Coord(0, 0));
+		FreespeedTravelTimeAndDisutility tc = new FreespeedTravelTimeAndDisutility(new ScoringConfigGroup());
+		SpeedyManyToManyCalculator calculator = new SpeedyManyToManyCalculator(new SpeedyGraph(network), tc, tc, 1);
+		int[] nodes = new int[50_000];
+		Arrays.fill(nodes, node.getId().index());
+		Assertions.assertThrows(IllegalArgumentException.class, () -> calculator.calculate(nodes, nodes, 0, null, null));
+	}
+}
@@ -0,0 +1,173 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * ScenarioSnapshotTest.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2023 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.scenario;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import java.util.function.Consumer;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.matsim.api.core.v01.Coord;
+import org.matsim.api.core.v01.Scenario;
+import org.matsim.api.core.v01.TransportMode;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.network.Node;
+import org.matsim.api.core.v01.population.Activity;
+import org.matsim.api.core.v01.population.Leg;
+import org.matsim.api.core.v01.population.Person;
+import org.matsim.api.core.v01.population.Plan;
+import org.matsim.api.core.v01.population.PlanElement;
+import org.matsim.core.config.Config;
+import org.matsim.core.config.ConfigUtils;
+import org.matsim.core.network.NetworkUtils;
+import org.matsim.core.population.PopulationUtils;
+import org.matsim.core.population.routes.RouteUtils;
+import org.matsim.core.utils.io.IOUtils;
+import org.matsim.core.utils.misc.CRCChecksum;
+import org.matsim.examples.ExamplesUtils;
+import org.matsim.facilities.FacilitiesWriter;
+import org.matsim.testcases.MatsimTestUtils;
+
+public class ScenarioSnapshotTest {
+
+	@RegisterExtension
+	private MatsimTestUtils utils = new MatsimTestUtils();
+
+	@Test
+	void testWriteAndLoadSnapshot() {
+		Config config = ConfigUtils.loadConfig(IOUtils.extendUrl(ExamplesUtils.getTestScenarioURL("equil"), "config.xml"));
+		config.plans().setInputFile("plans100.xml");
+		config.facilities().setInputFile("facilities.xml");
+		Scenario scenario = ScenarioUtils.loadScenario(config);
+
+		// add some elements that are not in the input files
+		Link link = scenario.getNetwork().getLinks().values().iterator().next();
+		link.getAttributes().putAttribute("origId", "abc");
+		link.getAttributes().putAttribute("count", 3);
+		Node node = scenario.getNetwork().getNodes().values().iterator().next();
+		NetworkUtils.setType(node, "signal");
+		NetworkUtils.setOrigId(node, "n-1");
+		Person person = scenario.getPopulation().getPersons().values().iterator().next();
+		person.getAttributes().putAttribute("income", 1234.5);
+		person.getAttributes().putAttribute("home", new Coord(1, 2));
+		Plan plan = person.createCopyOfSelectedPlanAndMakeSelected();
+		plan.setScore(12.3);
+		Leg walk = PopulationUtils.createAndAddLeg(plan, TransportMode.walk);
+		walk.setRoutingMode(TransportMode.car);
+		walk.setRoute(RouteUtils.createGenericRouteImpl(link.getId(), link.getId()));
+		walk.getRoute().setDistance(100);
+		walk.getRoute().setTravelTime(60);
+		plan.addActivity(PopulationUtils.createStageActivityFromCoordLinkIdAndModePrefix(new Coord(3, 4), link.getId(), TransportMode.car));
+
+		String snapshotFile = this.utils.getOutputDirectory() + "scenario.snapshot";
+		ScenarioUtils.writeScenarioSnapshot(scenario, snapshotFile);
+		Scenario loaded = ScenarioUtils.loadScenarioFromSnapshot(config, snapshotFile);
+
+		Assertions.assertEquals(scenario.getNetwork().getLinks().size(), loaded.getNetwork().getLinks().size());
+		Assertions.assertEquals(scenario.getActivityFacilities().getFacilities().size(), loaded.getActivityFacilities().getFacilities().size());
+		Assertions.assertEquals(100, loaded.getPopulation().getPersons().size());
+
+		Person loadedPerson = loaded.getPopulation().getPersons().get(person.getId());
+		Assertions.assertEquals(2, loadedPerson.getPlans().size());
+		Assertions.assertEquals(1, loadedPerson.getPlans().indexOf(loadedPerson.getSelectedPlan()));
+		Assertions.assertEquals(new Coord(1, 2), loadedPerson.getAttributes().getAttribute("home"));
+		Assertions.assertEquals(3, loaded.getNetwork().getLinks().get(link.getId()).getAttributes().getAttribute("count"));
+		Assertions.assertEquals("signal", NetworkUtils.getType(loaded.getNetwork().getNodes().get(node.getId())));
+		Assertions.assertEquals("n-1", NetworkUtils.getOrigId(loaded.getNetwork().getNodes().get(node.getId())));
+		for (int i = 0; i < plan.getPlanElements().size(); i++) {
+			PlanElement element = plan.getPlanElements().get(i);
+			PlanElement loadedElement = loadedPerson.getSelectedPlan().getPlanElements().get(i);
+			Assertions.assertEquals(element.getClass(), loadedElement.getClass());
+			if (element instanceof Activity activity) {
+				Assertions.assertEquals(activity.getType(), ((Activity) loadedElement).getType());
+			}
+		}
+
+		// the loaded scenario must be written exactly like the original one
+		assertSameFiles("network.xml", f -> NetworkUtils.writeNetwork(scenario.getNetwork(), f), f -> NetworkUtils.writeNetwork(loaded.getNetwork(), f));
+		assertSameFiles("facilities.xml", f -> new FacilitiesWriter(scenario.getActivityFacilities()).write(f),
+				f -> new FacilitiesWriter(loaded.getActivityFacilities()).write(f));
+		assertSameFiles("plans.xml", f -> PopulationUtils.writePopulation(scenario.getPopulation(), f),
+				f -> PopulationUtils.writePopulation(loaded.getPopulation(), f));
+	}
+
+	@Test
+	void testRefuseSnapshotOfOtherInputs() {
+		Config config = ConfigUtils.loadConfig(IOUtils.extendUrl(ExamplesUtils.getTestScenarioURL("equil"), "config.xml"));
+		config.plans().setInputFile("plans1.xml");
+		Scenario scenario = ScenarioUtils.loadScenario(config);
+		String snapshotFile = this.utils.getOutputDirectory() + "scenario.snapshot";
+		ScenarioUtils.writeScenarioSnapshot(scenario, snapshotFile);
+
+		Assertions.assertEquals(1, ScenarioUtils.loadScenarioFromSnapshot(config, snapshotFile).getPopulation().getPersons().size());
+
+		config.plans().setInputFile("plans2.xml");
+		UncheckedIOException e = Assertions.assertThrows(UncheckedIOException.class, () -> ScenarioUtils.loadScenarioFromSnapshot(config, snapshotFile));
+		Assertions.assertTrue(e.getMessage().contains("plans2.xml"), e.getMessage());
+	}
+
+	@Test
+	void testRefuseSnapshotOfOtherCoordinateSystem() {
+		Config config = ConfigUtils.loadConfig(IOUtils.extendUrl(ExamplesUtils.getTestScenarioURL("equil"), "config.xml"));
+		Scenario scenario = ScenarioUtils.loadScenario(config);
+		String snapshotFile = this.utils.getOutputDirectory() + "scenario.snapshot";
+		ScenarioUtils.writeScenarioSnapshot(scenario, snapshotFile);
+
+		config.network().setInputCRS("EPSG:2056");
+		UncheckedIOException e = Assertions.assertThrows(UncheckedIOException.class, () -> ScenarioUtils.loadScenarioFromSnapshot(config, snapshotFile));
+		Assertions.assertTrue(e.getMessage().contains("EPSG:2056"), e.getMessage());
+
+		config.network().setInputCRS(null);
+		config.global().setCoordinateSystem("EPSG:2056");
+		Assertions.assertThrows(UncheckedIOException.class, () -> ScenarioUtils.loadScenarioFromSnapshot(config, snapshotFile));
+	}
+
+	@Test
+	void testRefuseSnapshotOfChangedInputFile() throws IOException {
+		Path network = Paths.get(this.utils.getOutputDirectory(), "network.xml");
+		try (InputStream in = IOUtils.getInputStream(IOUtils.extendUrl(ExamplesUtils.getTestScenarioURL("equil"), "network.xml"))) {
+			Files.copy(in, network);
+		}
+		Config config = ConfigUtils.createConfig();
+		config.network().setInputFile(network.toString());
+		Scenario scenario = ScenarioUtils.loadScenario(config);
+		String snapshotFile = this.utils.getOutputDirectory() + "scenario.snapshot";
+		ScenarioUtils.writeScenarioSnapshot(scenario, snapshotFile);
+
+		Files.setLastModifiedTime(network, FileTime.fromMillis(Files.getLastModifiedTime(network).toMillis() - 60_000));
+		Assertions.assertThrows(UncheckedIOException.class, () -> ScenarioUtils.loadScenarioFromSnapshot(config, snapshotFile));
+	}
+
+	private void assertSameFiles(String filename, Consumer<String> writeOriginal, Consumer<String> writeLoaded) {
+		String originalFile = this.utils.getOutputDirectory() + "original_" + filename;
+		String loadedFile = this.utils.getOutputDirectory() + "loaded_" + filename;
+		writeOriginal.accept(originalFile);
+		writeLoaded.accept(loadedFile);
+		Assertions.assertEquals(CRCChecksum.getCRCFromFile(originalFile), CRCChecksum.getCRCFromFile(loadedFile), filename + " differs.");
+	}
+}
@@ -0,0 +1,237 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * ExperiencedPlansServiceImplTest.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2023 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.scoring;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.matsim.api.core.v01.Coord;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.Scenario;
+import org.matsim.api.core.v01.TransportMode;
+import org.matsim.api.core.v01.events.ActivityEndEvent;
+import org.matsim.api.core.v01.events.ActivityStartEvent;
+import org.matsim.api.core.v01.events.LinkEnterEvent;
+import org.matsim.api.core.v01.events.PersonArrivalEvent;
+import org.matsim.api.core.v01.events.PersonDepartureEvent;
+import org.matsim.api.core.v01.events.PersonEntersVehicleEvent;
+import org.matsim.api.core.v01.events.VehicleEntersTrafficEvent;
+import org.matsim.api.core.v01.events.VehicleLeavesTrafficEvent;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.network.Network;
+import org.matsim.api.core.v01.network.Node;
+import org.matsim.api.core.v01.population.Activity;
+import org.matsim.api.core.v01.population.Leg;
+import org.matsim.api.core.v01.population.Person;
+import org.matsim.api.core.v01.population.Plan;
+import org.matsim.api.core.v01.population.PlanElement;
+import org.matsim.api.core.v01.population.Population;
+import org.matsim.core.config.Config;
+import org.matsim.core.config.ConfigUtils;
+import org.matsim.core.controler.Controler;
+import org.matsim.core.network.NetworkUtils;
+import org.matsim.core.population.PopulationUtils;
+import org.matsim.core.population.routes.NetworkRoute;
+import org.matsim.core.scenario.ScenarioUtils;
+import org.matsim.core.utils.io.IOUtils;
+import org.matsim.examples.ExamplesUtils;
+import org.matsim.testcases.MatsimTestUtils;
+import org.matsim.vehicles.Vehicle;
+
+public class ExperiencedPlansServiceImplTest {
+
+	@RegisterExtension
+	private MatsimTestUtils utils = new MatsimTestUtils();
+
+	@Test
+	void testStreamExperiencedPlans() {
+		Scenario scenario = ScenarioUtils.createScenario(ConfigUtils.createConfig());
+		scenario.getConfig().scoring().setStreamExperiencedPlans(true);
+		// 40 persons with 15 persons per bucket are spilled into 3 buckets
+		scenario.getConfig().scoring().setExperiencedPlansSpillBucketSize(15);
+		Network network = scenario.getNetwork();
+		Node n1 = NetworkUtils.createAndAddNode(network, Id.create(1, Node.class), new Coord(0, 0));
+		Node n2 = NetworkUtils.createAndAddNode(network, Id.create(2, Node.class), new Coord(1000, 0));
+		Node n3 = NetworkUtils.createAndAddNode(network, Id.create(3, Node.class), new Coord(2000, 0));
+		Link link1 = NetworkUtils.createAndAddLink(network, Id.create(1, Link.class), n1, n2, 1000.0, 10.0, 3600.0, 1.0);
+		Link link2 = NetworkUtils.createAndAddLink(network, Id.create(2, Link.class), n2, n3, 1000.0, 10.0, 3600.0, 1.0);
+
+		int personCount = 40;
+		for (int i = 0; i < personCount; i++) {
+			scenario.getPopulation().addPerson(scenario.getPopulation().getFactory().createPerson(Id.create(i, Person.class)));
+		}
+
+		EventsToActivities eventsToActivities = new EventsToActivities();
+		EventsToLegs eventsToLegs = new EventsToLegs(scenario);
+		ExperiencedPlansServiceImpl service = new ExperiencedPlansServiceImpl(eventsToActivities, eventsToLegs, scenario);
+
+		for (int i = 0; i < personCount; i++) {
+			Id<Person> personId = Id.create(i, Person.class);
+			Id<Vehicle> vehicleId = Id.create(i, Vehicle.class);
+			eventsToActivities.handleEvent(new ActivityEndEvent(7 * 3600 + i, personId, link1.getId(), null, "home", new Coord(500, 0)));
+			eventsToLegs.handleEvent(new PersonDepartureEvent(7 * 3600 + i, personId, link1.getId(), TransportMode.car, TransportMode.car));
+			eventsToLegs.handleEvent(new PersonEntersVehicleEvent(7 * 3600 + i, personId, vehicleId));
+			eventsToLegs.handleEvent(new VehicleEntersTrafficEvent(7 * 3600 + i, personId, link1.getId(), vehicleId, TransportMode.car, 1.0));
+			eventsToLegs.handleEvent(new LinkEnterEvent(7 * 3600 + 100 + i, vehicleId, link2.getId()));
+			eventsToLegs.handleEvent(new VehicleLeavesTrafficEvent(7 * 3600 + 200 + i, personId, link2.getId(), vehicleId, TransportMode.car, 1.0));
+			eventsToLegs.handleEvent(new PersonArrivalEvent(7 * 3600 + 200 + i, personId, link2.getId(), TransportMode.car));
+			eventsToActivities.handleEvent(new ActivityStartEvent(7 * 3600 + 200 + i, personId, link2.getId(), null, "work", new Coord(1500, 0)));
+		}
+		eventsToActivities.finish();
+		service.finishIteration();
+
+		String filename = this.utils.getOutputDirectory() + "experienced_plans.xml.gz";
+		service.writeExperiencedPlans(filename);
+		Population writtenPlans = PopulationUtils.readPopulation(filename);
+		Assertions.assertEquals(personCount, writtenPlans.getPersons().size());
+
+		for (int i = 0; i < personCount; i++) {
+			Id<Person> personId = Id.create(i, Person.class);
+			assertExperiencedPlan(writtenPlans.getPersons().get(personId).getSelectedPlan(), i, link1, link2);
+			assertExperiencedPlan(service.getExperiencedPlans().get(personId), i, link1, link2);
+		}
+		Assertions.assertEquals(Id.create(3, Vehicle.class), ((Leg) service.getExperiencedPlans().get(Id.create(3, Person.class)).getPlanElements().get(1))
+				.getAttributes().getAttribute(EventsToLegs.VEHICLE_ID_ATTRIBUTE_NAME));
+	}
+
+	@Test
+	void testSpillKeepsAttributes() {
+		Scenario scenario = ScenarioUtils.createScenario(ConfigUtils.createConfig());
+		ExperiencedPlanElementsSpill spill = new ExperiencedPlanElementsSpill(Paths.get(this.utils.getOutputDirectory()), 2,
+				scenario.getPopulation().getFactory().getRouteFactories());
+		Id<Person> personId = Id.create(1, Person.class);
+		Object notConvertible = new Object();
+
+		Activity activity = PopulationUtils.createActivityFromCoord("home", new Coord(0, 0));
+		activity.setEndTime(8 * 3600);
+		activity.getAttributes().putAttribute("zone", "a");
+		activity.getAttributes().putAttribute("notConvertible", notConvertible);
+		spill.addActivity(personId, activity);
+
+		Leg leg = PopulationUtils.createLeg(TransportMode.car);
+		leg.setDepartureTime(8 * 3600);
+		leg.getAttributes().putAttribute(EventsToLegs.ENTER_VEHICLE_TIME_ATTRIBUTE_NAME, 8 * 3600 + 10.0);
+		leg.getAttributes().putAttribute("passengers", 2);
+		leg.getAttributes().putAttribute("share", 0.5);
+		spill.addLeg(personId, leg);
+
+		List<PlanElement> elements = new ArrayList<>();
+		spill.readBucket(spill.getBucket(personId), (id, planElement) -> elements.add(planElement));
+		spill.delete();
+
+		Assertions.assertEquals(2, elements.size());
+		Activity readActivity = (Activity) elements.get(0);
+		Assertions.assertEquals("a", readActivity.getAttributes().getAttribute("zone"));
+		Assertions.assertSame(notConvertible, readActivity.getAttributes().getAttribute("notConvertible"));
+		Assertions.assertEquals(2, readActivity.getAttributes().size());
+		Leg readLeg = (Leg) elements.get(1);
+		Assertions.assertEquals(8 * 3600 + 10.0, (Double) readLeg.getAttributes().getAttribute(EventsToLegs.ENTER_VEHICLE_TIME_ATTRIBUTE_NAME), MatsimTestUtils.EPSILON);
+		Assertions.assertEquals(2, readLeg.getAttributes().getAttribute("passengers"));
+		Assertions.assertEquals(0.5, readLeg.getAttributes().getAttribute("share"));
+	}
+
+	/**
+	 * Runs equil with and without streaming the experienced plans. The analysis output based on the experienced plans
+	 * must be the same.
+	 */
+	@Test
+	void testStreamExperiencedPlansInControler() throws IOException {
+		String inMemory = runEquil(false);
+		String streamed = runEquil(true);
+
+		for (String file : List.of("trips.csv.gz", "legs.csv.gz", "activities.csv.gz")) {
+			List<String> expected = readSortedLines(inMemory + "ITERS/it.1/1." + file);
+			Assertions.assertTrue(expected.size() > 1, file);
+			Assertions.assertEquals(expected, readSortedLines(streamed + "ITERS/it.1/1." + file), file);
+		}
+
+		List<String> expectedStats = readSortedLines(inMemory + "traveldistancestats.csv");
+		List<String> actualStats = readSortedLines(streamed + "traveldistancestats.csv");
+		Assertions.assertEquals(expectedStats.size(), actualStats.size());
+		for (int i = 0; i < expectedStats.size(); i++) {
+			String[] expected = expectedStats.get(i).split(";");
+			String[] actual = actualStats.get(i).split(";");
+			Assertions.assertEquals(expected[0], actual[0]);
+			if (!expected[0].equals("ITERATION")) {
+				Assertions.assertEquals(Double.parseDouble(expected[1]), Double.parseDouble(actual[1]), 1e-6);
+				Assertions.assertEquals(Double.parseDouble(expected[2]), Double.parseDouble(actual[2]), 1e-6);
+			}
+		}
+
+		Population expectedPlans = PopulationUtils.readPopulation(inMemory + "ITERS/it.1/1.experienced_plans.xml.gz");
+		Population actualPlans = PopulationUtils.readPopulation(streamed + "ITERS/it.1/1.experienced_plans.xml.gz");
+		Assertions.assertEquals(100, expectedPlans.getPersons().size());
+		Assertions.assertEquals(expectedPlans.getPersons().size(), actualPlans.getPersons().size());
+		for (Person person : expectedPlans.getPersons().values()) {
+			Plan expected = person.getSelectedPlan();
+			Plan actual = actualPlans.getPersons().get(person.getId()).getSelectedPlan();
+			Assertions.assertEquals(expected.getScore(), actual.getScore(), MatsimTestUtils.EPSILON);
+			Assertions.assertEquals(expected.getPlanElements().size(), actual.getPlanElements().size());
+		}
+	}
+
+	private String runEquil(boolean streamExperiencedPlans) {
+		Config config = this.utils.loadConfig(IOUtils.extendUrl(ExamplesUtils.getTestScenarioURL("equil"), "config.xml"));
+		String outputDirectory = this.utils.getOutputDirectory() + (streamExperiencedPlans ? "streamed/" : "inMemory/");
+		config.controller().setOutputDirectory(outputDirectory);
+		config.controller().setLastIteration(1);
+		config.controller().setCreateGraphs(false);
+		config.controller().setDumpDataAtEnd(false);
+		config.global().setNumberOfThreads(1);
+		config.scoring().setWriteExperiencedPlans(true);
+		config.scoring().setStreamExperiencedPlans(streamExperiencedPlans);
+		new Controler(config).run();
+		return outputDirectory;
+	}
+
+	private static List<String> readSortedLines(String filename) throws IOException {
+		try (BufferedReader reader = IOUtils.getBufferedReader(filename)) {
+			return reader.lines().sorted().toList();
+		}
+	}
+
+	private static void assertExperiencedPlan(Plan plan, int i, Link link1, Link link2) {
+		Assertions.assertEquals(3, plan.getPlanElements().size());
+		Activity home = (Activity) plan.getPlanElements().get(0);
+		Assertions.assertEquals("home", home.getType());
+		Assertions.assertEquals(7 * 3600 + i, home.getEndTime().seconds(), MatsimTestUtils.EPSILON);
+		Assertions.assertEquals(new Coord(500, 0), home.getCoord());
+
+		Leg leg = (Leg) plan.getPlanElements().get(1);
+		Assertions.assertEquals(TransportMode.car, leg.getMode());
+		Assertions.assertEquals(TransportMode.car, leg.getRoutingMode());
+		Assertions.assertEquals(200, leg.getTravelTime().seconds(), MatsimTestUtils.EPSILON);
+		NetworkRoute route = (NetworkRoute) leg.getRoute();
+		Assertions.assertEquals(link1.getId(), route.getStartLinkId());
+		Assertions.assertEquals(link2.getId(), route.getEndLinkId());
+		Assertions.assertEquals(1000.0, route.getDistance(), MatsimTestUtils.EPSILON);
+
+		Activity work = (Activity) plan.getPlanElements().get(2);
+		Assertions.assertEquals("work", work.getType());
+		Assertions.assertEquals(7 * 3600 + 200 + i, work.getStartTime().seconds(), MatsimTestUtils.EPSILON);
+	}
+}
@@ -27,21 +27,39 @@ import org.matsim.api.core.v01.Coord;
 import org.matsim.api.core.v01.Id;
 import org.matsim.api.core.v01.Scenario;
 import org.matsim.api.core.v01.TransportMode;
+import org.matsim.api.core.v01.events.ActivityEndEvent;
 import org.matsim.api.core.v01.events.ActivityStartEvent;
 import org.matsim.api.core.v01.events.Event;
+import org.matsim.api.core.v01.events.LinkEnterEvent;
+import org.matsim.api.core.v01.events.PersonArrivalEvent;
+import org.matsim.api.core.v01.events.PersonDepartureEvent;
+import org.matsim.api.core.v01.events.PersonEntersVehicleEvent;
+import org.matsim.api.core.v01.events.PersonLeavesVehicleEvent;
 import org.matsim.api.core.v01.events.PersonScoreEvent;
+import org.matsim.api.core.v01.events.VehicleEntersTrafficEvent;
+import org.matsim.api.core.v01.events.VehicleLeavesTrafficEvent;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.network.Network;
+import org.matsim.api.core.v01.network.Node;
 import org.matsim.api.core.v01.population.Activity;
 import org.matsim.api.core.v01.population.Leg;
 import org.matsim.api.core.v01.population.Person;
 import org.matsim.api.core.v01.population.Population;
 import org.matsim.api.core.v01.population.PopulationFactory;
 import org.matsim.core.api.experimental.events.EventsManager;
+import org.matsim.core.config.Config;
 import org.matsim.core.config.ConfigUtils;
 import org.matsim.core.controler.ControlerListenerManagerImpl;
 import org.matsim.core.events.EventsUtils;
+import org.matsim.core.network.NetworkUtils;
 import org.matsim.core.population.PopulationUtils;
+import org.matsim.core.population.routes.NetworkRoute;
 import org.matsim.core.router.TripStructureUtils;
 import org.matsim.core.scenario.ScenarioUtils;
+import org.matsim.vehicles.Vehicle;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 
 	/**
  * @author mrieser / Simunto GmbH
@@ -134,15 +152,151 @@ public class ScoringFunctionsForPopulationTest {
 		Assertions.assertEquals(1.234+2.345, rsf.separateScoreSum, 1e-7);
 	}
 
+	@Test
+	void testShardedScoring() {
+		Config config = ConfigUtils.createConfig();
+		config.controller().setNumberOfScoringThreads(3);
+		Scenario scenario = ScenarioUtils.createScenario(config);
+		Network network = scenario.getNetwork();
+		Node n1 = NetworkUtils.createAndAddNode(network, Id.create(1, Node.class), new Coord(0, 0));
+		Node n2 = NetworkUtils.createAndAddNode(network, Id.create(2, Node.class), new Coord(1000, 0));
+		Node n3 = NetworkUtils.createAndAddNode(network, Id.create(3, Node.class), new Coord(2000, 0));
+		Link link1 = NetworkUtils.createAndAddLink(network, Id.create(1, Link.class), n1, n2, 1000.0, 10.0, 3600.0, 1.0);
+		Link link2 = NetworkUtils.createAndAddLink(network, Id.create(2, Link.class), n2, n3, 1000.0, 10.0, 3600.0, 1.0);
+
+		Population population = scenario.getPopulation();
+		int personCount = 20;
+		for (int i = 0; i < personCount; i++) {
+			population.addPerson(population.getFactory().createPerson(Id.create(i, Person.class)));
+		}
+
+		ControlerListenerManagerImpl controlerListenerManager = new ControlerListenerManagerImpl();
+		EventsManager eventsManager = EventsUtils.createEventsManager();
+		EventsToActivities eventsToActivities = new EventsToActivities();
+		EventsToLegs eventsToLegs = new EventsToLegs(scenario);
+		ScoringFunctionFactory scoringFunctionFactory = agentId -> new RecordingScoringFunction();
+
+		ScoringFunctionsForPopulation sf = new ScoringFunctionsForPopulation(controlerListenerManager, eventsManager, eventsToActivities, eventsToLegs, population, scoringFunctionFactory, config);
+		AtomicInteger legCounter = new AtomicInteger();
+		eventsToLegs.addLegHandler(leg -> legCounter.incrementAndGet());
+		controlerListenerManager.fireControlerIterationStartsEvent(0, false);
+
+		// all persons travel at the same time, so the events of different shards are interleaved
+		eventsManager.initProcessing();
+		for (int i = 0; i < personCount; i++) {
+			Id<Person> personId = Id.create(i, Person.class);
+			eventsManager.processEvent(new ActivityEndEvent(7 * 3600, personId, link1.getId(), null, "home", null));
+			eventsManager.processEvent(new PersonDepartureEvent(7 * 3600, personId, link1.getId(), TransportMode.car, TransportMode.car));
+			eventsManager.processEvent(new PersonEntersVehicleEvent(7 * 3600, personId, Id.create(i, Vehicle.class)));
+			eventsManager.processEvent(new VehicleEntersTrafficEvent(7 * 3600, personId, link1.getId(), Id.create(i, Vehicle.class), TransportMode.car, 1.0));
+		}
+		for (int i = 0; i < personCount; i++) {
+			eventsManager.processEvent(new LinkEnterEvent(7 * 3600 + 100, Id.create(i, Vehicle.class), link2.getId()));
+		}
+		for (int i = 0; i < personCount; i++) {
+			Id<Person> personId = Id.create(i, Person.class);
+			eventsManager.processEvent(new VehicleLeavesTrafficEvent(7 * 3600 + 200, personId, link2.getId(), Id.create(i, Vehicle.class), TransportMode.car, 1.0));
+			eventsManager.processEvent(new PersonLeavesVehicleEvent(7 * 3600 + 200, personId, Id.create(i, Vehicle.class)));
+			eventsManager.processEvent(new PersonArrivalEvent(7 * 3600 + 200, personId, link2.getId(), TransportMode.car));
+			eventsManager.processEvent(new ActivityStartEvent(7 * 3600 + 200, personId, link2.getId(), null, "work", null));
+			eventsManager.processEvent(new PersonScoreEvent(8 * 3600, personId, i, "testing"));
+		}
+		eventsManager.finishProcessing();
+		controlerListenerManager.fireControlerAfterMobsimEvent(0, false);
+		sf.finishScoringFunctions();
+
+		Assertions.assertEquals(personCount, legCounter.get(), "legs should be passed to the handlers of the shared EventsToLegs.");
+		for (int i = 0; i < personCount; i++) {
+			RecordingScoringFunction rsf = (RecordingScoringFunction) sf.getScoringFunctionForAgent(Id.create(i, Person.class));
+			Assertions.assertEquals(1, rsf.tripCounter);
+			Assertions.assertEquals(1, rsf.linkEnterCounter, "the link enter event should be passed to the driver.");
+			Assertions.assertEquals(2, rsf.activityCounter, "the last activity should be handled after the mobsim.");
+			Assertions.assertEquals(i, rsf.separateScoreSum, 1e-7);
+			Leg leg = (Leg) rsf.lastTrip.getTripElements().get(0);
+			Assertions.assertTrue(leg.getRoute() instanceof NetworkRoute, "the route should be collected from the vehicle events of all shards.");
+			Assertions.assertEquals(link1.getId(), leg.getRoute().getStartLinkId());
+			Assertions.assertEquals(link2.getId(), leg.getRoute().getEndLinkId());
+		}
+	}
+
+	@Test
+	void testShardedScoring_passengerInOtherShard() {
+		Config config = ConfigUtils.createConfig();
+		config.controller().setNumberOfScoringThreads(3);
+		Scenario scenario = ScenarioUtils.createScenario(config);
+		Network network = scenario.getNetwork();
+		Node n1 = NetworkUtils.createAndAddNode(network, Id.create(1, Node.class), new Coord(0, 0));
+		Node n2 = NetworkUtils.createAndAddNode(network, Id.create(2, Node.class), new Coord(1000, 0));
+		Node n3 = NetworkUtils.createAndAddNode(network, Id.create(3, Node.class), new Coord(2000, 0));
+		Node n4 = NetworkUtils.createAndAddNode(network, Id.create(4, Node.class), new Coord(3000, 0));
+		Link link1 = NetworkUtils.createAndAddLink(network, Id.create(1, Link.class), n1, n2, 1000.0, 10.0, 3600.0, 1.0);
+		Link link2 = NetworkUtils.createAndAddLink(network, Id.create(2, Link.class), n2, n3, 1000.0, 10.0, 3600.0, 1.0);
+		Link link3 = NetworkUtils.createAndAddLink(network, Id.create(3, Link.class), n3, n4, 1000.0, 10.0, 3600.0, 1.0);
+
+		Population population = scenario.getPopulation();
+		Id<Person> driverId = Id.create("driver", Person.class);
+		Id<Person> passengerId = Id.create("passenger", Person.class);
+		for (int i = 0; passengerId.index() % 3 == driverId.index() % 3; i++) {
+			passengerId = Id.create("passenger" + i, Person.class);
+		}
+		population.addPerson(population.getFactory().createPerson(driverId));
+		population.addPerson(population.getFactory().createPerson(passengerId));
+
+		ControlerListenerManagerImpl controlerListenerManager = new ControlerListenerManagerImpl();
+		EventsManager eventsManager = EventsUtils.createEventsManager();
+		ScoringFunctionsForPopulation sf = new ScoringFunctionsForPopulation(controlerListenerManager, eventsManager, new EventsToActivities(),
+				new EventsToLegs(scenario), population, agentId -> new RecordingScoringFunction(), config);
+		controlerListenerManager.fireControlerIterationStartsEvent(0, false);
+
+		// the passenger enters the vehicle on the second link, the events before are only passed to the shard of the driver
+		Id<Vehicle> vehicleId = Id.create("car", Vehicle.class);
+		eventsManager.initProcessing();
+		eventsManager.processEvent(new ActivityEndEvent(7 * 3600, driverId, link1.getId(), null, "home", null));
+		eventsManager.processEvent(new PersonDepartureEvent(7 * 3600, driverId, link1.getId(), TransportMode.car, TransportMode.car));
+		eventsManager.processEvent(new PersonEntersVehicleEvent(7 * 3600, driverId, vehicleId));
+		eventsManager.processEvent(new VehicleEntersTrafficEvent(7 * 3600, driverId, link1.getId(), vehicleId, TransportMode.car, 1.0));
+		eventsManager.processEvent(new LinkEnterEvent(7 * 3600 + 100, vehicleId, link2.getId()));
+		eventsManager.processEvent(new ActivityEndEvent(7 * 3600 + 150, passengerId, link2.getId(), null, "home", null));
+		eventsManager.processEvent(new PersonDepartureEvent(7 * 3600 + 150, passengerId, link2.getId(), TransportMode.ride, TransportMode.ride));
+		eventsManager.processEvent(new PersonEntersVehicleEvent(7 * 3600 + 150, passengerId, vehicleId));
+		eventsManager.processEvent(new LinkEnterEvent(7 * 3600 + 200, vehicleId, link3.getId()));
+		eventsManager.processEvent(new VehicleLeavesTrafficEvent(7 * 3600 + 300, driverId, link3.getId(), vehicleId, TransportMode.car, 1.0));
+		for (Id<Person> personId : List.of(driverId, passengerId)) {
+			eventsManager.processEvent(new PersonLeavesVehicleEvent(7 * 3600 + 300, personId, vehicleId));
+			eventsManager.processEvent(new PersonArrivalEvent(7 * 3600 + 300, personId, link3.getId(), TransportMode.car));
+			eventsManager.processEvent(new ActivityStartEvent(7 * 3600 + 300, personId, link3.getId(), null, "work", null));
+		}
+		eventsManager.finishProcessing();
+		controlerListenerManager.fireControlerAfterMobsimEvent(0, false);
+		sf.finishScoringFunctions();
+
+		RecordingScoringFunction driver = (RecordingScoringFunction) sf.getScoringFunctionForAgent(driverId);
+		Assertions.assertEquals(2, driver.linkEnterCounter, "the link enter events should be passed to the driver.");
+		Leg driverLeg = (Leg) driver.lastTrip.getTripElements().get(0);
+		Assertions.assertEquals(link1.getId(), driverLeg.getRoute().getStartLinkId());
+		Assertions.assertEquals(1, ((NetworkRoute) driverLeg.getRoute()).getLinkIds().size());
+
+		RecordingScoringFunction passenger = (RecordingScoringFunction) sf.getScoringFunctionForAgent(passengerId);
+		Assertions.assertEquals(0, passenger.linkEnterCounter, "link enter events are only passed to the driver.");
+		Leg passengerLeg = (Leg) passenger.lastTrip.getTripElements().get(0);
+		Assertions.assertTrue(passengerLeg.getRoute() instanceof NetworkRoute, "the route should be collected from the vehicle events.");
+		Assertions.assertEquals(link2.getId(), passengerLeg.getRoute().getStartLinkId());
+		Assertions.assertEquals(link3.getId(), passengerLeg.getRoute().getEndLinkId());
+		Assertions.assertEquals(0, ((NetworkRoute) passengerLeg.getRoute()).getLinkIds().size());
+	}
+
 	private static class RecordingScoringFunction implements ScoringFunction {
 
 		int tripCounter = 0;
+		int activityCounter = 0;
+		int linkEnterCounter = 0;
 		TripStructureUtils.Trip lastTrip = null;
 		int separateScoreCounter = 0;
 		double separateScoreSum = 0;
 
 		@Override
 		public void handleActivity(Activity activity) {
+			this.activityCounter++;
 		}
 
 		@Override
@@ -180,6 +334,9 @@ public class ScoringFunctionsForPopulationTest {
 
 		@Override
 		public void handleEvent(Event event) {
+			if (event instanceof LinkEnterEvent) {
+				this.linkEnterCounter++;
+			}
 		}
 	}
 
@@ -0,0 +1,203 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * ConcurrentTravelTimeCalculatorTest.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2023 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+package org.matsim.core.trafficmonitoring;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.matsim.api.core.v01.Coord;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.TransportMode;
+import org.matsim.api.core.v01.events.LinkEnterEvent;
+import org.matsim.api.core.v01.events.LinkLeaveEvent;
+import org.matsim.api.core.v01.events.VehicleEntersTrafficEvent;
+import org.matsim.api.core.v01.events.VehicleLeavesTrafficEvent;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.network.Network;
+import org.matsim.api.core.v01.network.Node;
+import org.matsim.api.core.v01.population.Person;
+import org.matsim.core.config.groups.TravelTimeCalculatorConfigGroup;
+import org.matsim.core.network.NetworkUtils;
+import org.matsim.core.router.util.TravelTime;
+import org.matsim.testcases.MatsimTestUtils;
+import org.matsim.vehicles.Vehicle;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+public class ConcurrentTravelTimeCalculatorTest {
+
+	@Test
+	void testTravelTimesFromMultipleThreads() throws InterruptedException {
+		Network network = NetworkUtils.createNetwork();
+		Node n1 = NetworkUtils.createAndAddNode(network, Id.create(1, Node.class), new Coord(0, 0));
+		Node n2 = NetworkUtils.createAndAddNode(network, Id.create(2, Node.class), new Coord(1000, 0));
+		Link link1 = NetworkUtils.createAndAddLink(network, Id.create(1, Link.class), n1, n2, 1000.0, 10.0, 3600.0, 1.0);
+
+		TravelTimeCalculatorConfigGroup config = new TravelTimeCalculatorConfigGroup();
+		config.setTraveltimeBinSize(900);
+		ConcurrentTravelTimeCalculator ttc = new ConcurrentTravelTimeCalculator(network, config);
+
+		int threadCount = 4;
+		int vehicleCount = 1000;
+		List<Thread> threads = new ArrayList<>();
+		for (int t = 0; t < threadCount; t++) {
+			final double travelTime = 200 + 100 * t;
+			final int thread = t;
+			threads.add(new Thread(() -> {
+				for (int v = 0; v < vehicleCount; v++) {
+					Id<Vehicle> vehicleId = Id.create(thread + "_" + v, Vehicle.class);
+					ttc.handleEvent(new LinkEnterEvent(3600, vehicleId, link1.getId()));
+					ttc.handleEvent(new LinkLeaveEvent(3600 + travelTime, vehicleId, link1.getId()));
+					ttc.handleEvent(new VehicleLeavesTrafficEvent(3600 + travelTime, Id.create(thread + "_" + v, Person.class), link1.getId(), vehicleId, TransportMode.car, 1.0));
+				}
+			}));
+		}
+		for (Thread thread : threads) {
+			thread.start();
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+
+		TravelTime travelTimes = ttc.getLinkTravelTimes();
+		Assertions.assertEquals(350.0, travelTimes.getLinkTravelTime(link1, 3700, null, null), 1e-8, "wrong average travel time.");
+		Assertions.assertEquals(100.0, travelTimes.getLinkTravelTime(link1, 1000, null, null), 1e-8, "empty time bins should use the freespeed travel time.");
+
+		ttc.reset(1);
+		Assertions.assertEquals(100.0, travelTimes.getLinkTravelTime(link1, 3700, null, null), 1e-8, "travel times should be reset.");
+	}
+
+	@Test
+	void testLongTravelTimeInEmptySlot() {
+		Network network = NetworkUtils.createNetwork();
+		Node n1 = NetworkUtils.createAndAddNode(network, Id.create(1, Node.class), new Coord(0, 0));
+		Node n2 = NetworkUtils.createAndAddNode(network, Id.create(2, Node.class), new Coord(1000, 0));
+		Link link1 = NetworkUtils.createAndAddLink(network, Id.create(1, Link.class), n1, n2, 1000.0, 100.0, 3600.0, 1.0);
+		double freeSpeedTT = NetworkUtils.getFreespeedTravelTime(link1);
+		Id<Vehicle> vehId = Id.create("1", Vehicle.class);
+
+		int timeBinSize = 15 * 60;
+		TravelTimeCalculatorConfigGroup config = new TravelTimeCalculatorConfigGroup();
+		config.setTraveltimeBinSize(timeBinSize);
+		ConcurrentTravelTimeCalculator ttc = new ConcurrentTravelTimeCalculator(network, config);
+		double firstTimeBinStart = 7.0 * 3600;
+
+		double linkTravelTime1 = 50.0 * 60;
+		ttc.handleEvent(new LinkEnterEvent(firstTimeBinStart, vehId, link1.getId()));
+		ttc.handleEvent(new LinkLeaveEvent(firstTimeBinStart + linkTravelTime1, vehId, link1.getId()));
+
+		double offset = 5 * 60;
+		TravelTime travelTimes = ttc.getLinkTravelTimes();
+		Assertions.assertEquals(linkTravelTime1, travelTimes.getLinkTravelTime(link1, firstTimeBinStart + offset, null, null), MatsimTestUtils.EPSILON);
+		Assertions.assertEquals(linkTravelTime1 - timeBinSize, travelTimes.getLinkTravelTime(link1, firstTimeBinStart + timeBinSize + offset, null, null), MatsimTestUtils.EPSILON);
+		Assertions.assertEquals(linkTravelTime1 - 2 * timeBinSize, travelTimes.getLinkTravelTime(link1, firstTimeBinStart + 2 * timeBinSize + offset, null, null), MatsimTestUtils.EPSILON);
+		Assertions.assertEquals(freeSpeedTT, travelTimes.getLinkTravelTime(link1, firstTimeBinStart + 4 * timeBinSize + offset, null, null), MatsimTestUtils.EPSILON);
+	}
+
+	@Test
+	void testFilterModes() {
+		Network network = NetworkUtils.createNetwork();
+		Node n1 = NetworkUtils.createAndAddNode(network, Id.create(1, Node.class), new Coord(0, 0));
+		Node n2 = NetworkUtils.createAndAddNode(network, Id.create(2, Node.class), new Coord(1000, 0));
+		Node n3 = NetworkUtils.createAndAddNode(network, Id.create(3, Node.class), new Coord(2000, 0));
+		Link link1 = NetworkUtils.createAndAddLink(network, Id.create(1, Link.class), n1, n2, 1000.0, 10.0, 3600.0, 1.0);
+		Link link2 = NetworkUtils.createAndAddLink(network, Id.create(2, Link.class), n2, n3, 1000.0, 10.0, 3600.0, 1.0);
+
+		TravelTimeCalculatorConfigGroup config = new TravelTimeCalculatorConfigGroup();
+		config.setTraveltimeBinSize(900);
+		ConcurrentTravelTimeCalculator ttc = new ConcurrentTravelTimeCalculator(network, config, Set.of(TransportMode.car));
+
+		Id<Vehicle> carId = Id.create("car", Vehicle.class);
+		Id<Vehicle> bikeId = Id.create("bike", Vehicle.class);
+		ttc.handleEvent(new VehicleEntersTrafficEvent(100, Id.create("1", Person.class), link1.getId(), carId, TransportMode.car, 1.0));
+		ttc.handleEvent(new VehicleEntersTrafficEvent(100, Id.create("2", Person.class), link1.getId(), bikeId, TransportMode.bike, 1.0));
+		ttc.handleEvent(new LinkLeaveEvent(150, carId, link1.getId()));
+		ttc.handleEvent(new LinkLeaveEvent(200, bikeId, link1.getId()));
+		ttc.handleEvent(new LinkEnterEvent(150, carId, link2.getId()));
+		ttc.handleEvent(new LinkEnterEvent(200, bikeId, link2.getId()));
+		ttc.handleEvent(new LinkLeaveEvent(350, carId, link2.getId()));
+		ttc.handleEvent(new LinkLeaveEvent(600, bikeId, link2.getId()));
+
+		Assertions.assertEquals(200.0, ttc.getLinkTravelTimes().getLinkTravelTime(link2, 300, null, null), 1e-8, "only the car should be counted.");
+	}
+
+	@Test
+	void testFlushFullBuffers() {
+		Network network = NetworkUtils.createNetwork();
+		Node n1 = NetworkUtils.createAndAddNode(network, Id.create(1, Node.class), new Coord(0, 0));
+		Node n2 = NetworkUtils.createAndAddNode(network, Id.create(2, Node.class), new Coord(1000, 0));
+		List<Link> links = new ArrayList<>();
+		for (int i = 0; i < 20; i++) {
+			links.add(NetworkUtils.createAndAddLink(network, Id.create("flush_" + i, Link.class), n1, n2, 1000.0, 100.0, 3600.0, 1.0));
+		}
+
+		// 20 links with 1800 time bins each do not fit into a single buffer
+		TravelTimeCalculatorConfigGroup config = new TravelTimeCalculatorConfigGroup();
+		config.setTraveltimeBinSize(60);
+		ConcurrentTravelTimeCalculator ttc = new ConcurrentTravelTimeCalculator(network, config);
+		Id<Vehicle> vehId = Id.create("1", Vehicle.class);
+		for (int bin = 0; bin < 1800; bin++) {
+			for (int i = 0; i < links.size(); i++) {
+				Id<Link> linkId = links.get(i).getId();
+				ttc.handleEvent(new LinkEnterEvent(bin * 60, vehId, linkId));
+				ttc.handleEvent(new LinkLeaveEvent(bin * 60 + 20 + i, vehId, linkId));
+			}
+		}
+
+		TravelTime travelTimes = ttc.getLinkTravelTimes();
+		for (int i = 0; i < links.size(); i++) {
+			Assertions.assertEquals(20.0 + i, travelTimes.getLinkTravelTime(links.get(i), 3 * 3600 + 10, null, null), 1e-8, "wrong travel time on link " + i);
+			Assertions.assertEquals(20.0 + i, travelTimes.getLinkTravelTime(links.get(i), 29 * 3600 + 10, null, null), 1e-8, "wrong travel time on link " + i);
+		}
+	}
+
+	@Test
+	void testBuffersReleasedOnReset() throws InterruptedException {
+		Network network = NetworkUtils.createNetwork();
+		Node n1 = NetworkUtils.createAndAddNode(network, Id.create(1, Node.class), new Coord(0, 0));
+		Node n2 = NetworkUtils.createAndAddNode(network, Id.create(2, Node.class), new Coord(1000, 0));
+		Link link = NetworkUtils.createAndAddLink(network, Id.create("l", Link.class), n1, n2, 1000.0, 100.0, 3600.0, 1.0);
+
+		ConcurrentTravelTimeCalculator ttc = new ConcurrentTravelTimeCalculator(network, new TravelTimeCalculatorConfigGroup());
+		int threadCount = 4;
+		for (int iteration = 0; iteration < 5; iteration++) {
+			ttc.reset(iteration);
+			// every iteration uses new threads, like a mobsim with a fresh thread pool would
+			List<Thread> threads = new ArrayList<>();
+			for (int t = 0; t < threadCount; t++) {
+				Id<Vehicle> vehId = Id.create(iteration + "_" + t, Vehicle.class);
+				threads.add(new Thread(() -> {
+					ttc.handleEvent(new LinkEnterEvent(100, vehId, link.getId()));
+					ttc.handleEvent(new LinkLeaveEvent(130, vehId, link.getId()));
+				}));
+			}
+			for (Thread thread : threads) {
+				thread.start();
+			}
+			for (Thread thread : threads) {
+				thread.join();
+			}
+			Assertions.assertTrue(ttc.getBufferCount() <= threadCount, "buffers of earlier iterations were not released");
+			Assertions.assertEquals(30.0, ttc.getLinkTravelTimes().getLinkTravelTime(link, 110, null, null), 1e-8);
+		}
+	}
+
+}
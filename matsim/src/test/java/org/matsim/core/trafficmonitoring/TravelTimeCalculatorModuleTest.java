@@ -135,4 +135,43 @@ import static org.hamcrest.MatcherAssert.assertThat;
 		assertThat(bike.getLinkTravelTimes().getLinkTravelTime(link, 0.0, null, null ), is(8.0));
 	}
 
+	 @Test
+	 void testConcurrentTravelTimeCalculatorPerMode() {
+		Config config = ConfigUtils.createConfig();
+		config.routing().setNetworkModes( new LinkedHashSet<>( Arrays.asList( TransportMode.car, TransportMode.bike ) ) );
+		config.travelTimeCalculator().setSeparateModes(true);
+		config.travelTimeCalculator().setCalculatorType(TravelTimeCalculatorConfigGroup.CalculatorType.concurrent);
+		Scenario scenario = ScenarioUtils.createScenario(config);
+		Node node0 = scenario.getNetwork().getFactory().createNode(Id.createNodeId(0), new Coord(0, 0));
+		Node node1 = scenario.getNetwork().getFactory().createNode(Id.createNodeId(1), new Coord(1, 0));
+		scenario.getNetwork().addNode(node0);
+		scenario.getNetwork().addNode(node1);
+		Id<Link> linkId = Id.createLinkId(0);
+		Link link = scenario.getNetwork().getFactory().createLink(linkId, node0, node1);
+		scenario.getNetwork().addLink(link);
+		var eventsManagerModule = new AbstractModule() {
+
+			@Override
+			public void install() {
+				bind(EventsManager.class).to(EventsManagerImpl.class).in(Singleton.class);
+			}
+		};
+		com.google.inject.Injector injector = Injector.createInjector(config, new TravelTimeCalculatorModule(), eventsManagerModule, new ScenarioByInstanceModule(scenario));
+		ConcurrentTravelTimeCalculator car = injector.getInstance(Key.get(ConcurrentTravelTimeCalculator.class, Names.named("car")));
+		ConcurrentTravelTimeCalculator bike = injector.getInstance(Key.get(ConcurrentTravelTimeCalculator.class, Names.named("bike")));
+		EventsManager events = injector.getInstance(EventsManager.class);
+		events.processEvent(new VehicleEntersTrafficEvent(0.0, Id.createPersonId(0), linkId, Id.createVehicleId(0), "car", 0.0));
+		events.processEvent(new LinkEnterEvent(0.0, Id.createVehicleId(0), linkId));
+		events.processEvent(new LinkLeaveEvent(2.0, Id.createVehicleId(0), linkId));
+		events.processEvent(new VehicleLeavesTrafficEvent(2.0, Id.createPersonId(0), linkId, Id.createVehicleId(0), "car", 0.0));
+
+		events.processEvent(new VehicleEntersTrafficEvent(0.0, Id.createPersonId(1), linkId, Id.createVehicleId(1), "bike", 0.0));
+		events.processEvent(new LinkEnterEvent(0.0, Id.createVehicleId(1), linkId));
+		events.processEvent(new LinkLeaveEvent(8.0, Id.createVehicleId(1), linkId));
+		events.processEvent(new VehicleLeavesTrafficEvent(8.0, Id.createPersonId(1), linkId, Id.createVehicleId(1), "bike", 0.0));
+
+		assertThat(car.getLinkTravelTimes().getLinkTravelTime(link, 0.0, null, null ), is(2.0));
+		assertThat(bike.getLinkTravelTimes().getLinkTravelTime(link, 0.0, null, null ), is(8.0));
+	}
+
 }
@@ -390,4 +390,125 @@ public class MatsimXmlParserTest {
 		Assertions.assertEquals("objectattributes-", log.get(3));
 	}
 
+	@Test
+	void testParse_pipelined() throws IOException {
+		StringBuilder xml = new StringBuilder("<?xml version='1.0' encoding='UTF-8'?>\n<a>\n");
+		for (int i = 0; i < 5000; i++) {
+			xml.append("<b id=\"").append(i).append("\">b").append(i).append("</b>\n");
+		}
+		xml.append("</a>");
+		File file = new File(this.tempFolder, "pipelined.xml.gz");
+		try (OutputStream out = IOUtils.getOutputStream(file.toURI().toURL(), false)) {
+			out.write(xml.toString().getBytes(StandardCharsets.UTF_8));
+		}
+
+		final List<String> log = new ArrayList<>();
+		final Thread callingThread = Thread.currentThread();
+		new MatsimXmlParser(MatsimXmlParser.ValidationType.DTD_ONLY) {
+			{
+				this.setValidating(false);
+				this.setPipelined(true);
+			}
+			@Override
+			public void startTag(String name, Attributes atts, Stack<String> context) {
+				Assertions.assertSame(callingThread, Thread.currentThread());
+				if (name.equals("b")) {
+					Assertions.assertEquals(List.of("a"), context);
+					log.add(atts.getValue("id"));
+				}
+			}
+			@Override
+			public void endTag(String name, String content, Stack<String> context) {
+				if (name.equals("b")) {
+					log.add(content);
+				}
+			}
+			@Override
+			public void endDocument() {
+				log.add("end");
+			}
+		}.readFile(file.getAbsolutePath());
+
+		Assertions.assertEquals(2 * 5000 + 1, log.size());
+		Assertions.assertEquals("0", log.get(0));
+		Assertions.assertEquals("b0", log.get(1));
+		Assertions.assertEquals("4999", log.get(2 * 4999));
+		Assertions.assertEquals("b4999", log.get(2 * 4999 + 1));
+		Assertions.assertEquals("end", log.get(2 * 5000));
+	}
+
+	@Test
+	void testParse_pipelinedDtdValidation() {
+		String xml = """
+			<?xml version='1.0' encoding='UTF-8'?>
+			<!DOCTYPE network SYSTEM "network_v2.dtd" ><network>
+			<nodes>
+			<node id="abc" x="123" y="abc" />
+			<link id="def" from="abc" to="def" length="123" freespeed="13.33" capacity="2000" permlanes="1" />
+			</nodes>
+			</network>""";
+
+		InputStream stream = new ByteArrayInputStream(xml.getBytes());
+		final List<String> log = new ArrayList<>();
+
+		try {
+			new MatsimXmlParser(MatsimXmlParser.ValidationType.DTD_ONLY) {
+				{
+					this.setPipelined(true);
+				}
+
+				@Override
+				public void startTag(String name, Attributes atts, Stack<String> context) {
+					log.add(name);
+				}
+
+				@Override
+				public void endTag(String name, String content, Stack<String> context) {
+				}
+			}.parse(stream);
+			Assertions.fail("expected exception.");
+		} catch (UncheckedIOException e) {
+			Assertions.assertTrue(e.getCause() instanceof IOException); // expected
+			Assertions.assertTrue(e.getCause().getCause() instanceof SAXParseException); // expected
+		}
+
+		// the tags before the error are still passed to the parser
+		Assertions.assertEquals(List.of("network", "nodes", "node"), log);
+	}
+
+	@Test
+	void testParse_pipelinedExceptionInTag() {
+		StringBuilder xml = new StringBuilder("<?xml version='1.0' encoding='UTF-8'?>\n<a>\n");
+		for (int i = 0; i < 100000; i++) {
+			xml.append("<b/>\n");
+		}
+		xml.append("</a>");
+
+		InputStream stream = new ByteArrayInputStream(xml.toString().getBytes());
+		final int[] count = {0};
+		try {
+			new MatsimXmlParser(MatsimXmlParser.ValidationType.DTD_ONLY) {
+				{
+					this.setValidating(false);
+					this.setPipelined(true);
+				}
+
+				@Override
+				public void startTag(String name, Attributes atts, Stack<String> context) {
+					if (++count[0] == 10) {
+						throw new IllegalStateException("expected");
+					}
+				}
+
+				@Override
+				public void endTag(String name, String content, Stack<String> context) {
+				}
+			}.parse(stream);
+			Assertions.fail("expected exception.");
+		} catch (IllegalStateException e) {
+			Assertions.assertEquals("expected", e.getMessage());
+		}
+		Assertions.assertEquals(10, count[0]);
+	}
+
 }